@@ -0,0 +1,299 @@
+// PreparedSql.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.database.Database;
+
+/**
+ * An immutable <i>SELECT</i> SQL template created by {@link Sql#prepare()}
+ * which is generated only once for each database handler.
+ *
+ * <p>
+ * Specify {@link #arg(int)} in place of the values that change for each execution
+ * when building the <b>Sql</b> object.
+ * They are bound as parameters (<b>?</b>) of the prepared statement
+ * with the arguments specified by {@link #bind(Object...)}.
+ * The arguments of the types which JDBC drivers do not always accept
+ * (e.g. <b>LocalDate</b>, <b>Character</b> and enums) are converted
+ * with the <b>TypeConverter</b> of the database handler before binding.<br>
+ * The generated SQL text and the parameters are cached for each database handler,
+ * so that a <b>PreparedSql</b> can be kept in a static field and used from many threads.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * private static final PreparedSql&lt;Contact&gt; contactsByName = new Sql&lt;&gt;(Contact.class)
+ *     .where("{name.last}={}", <b>PreparedSql.arg(0)</b>)
+ *     .and("{name.first}={}", <b>PreparedSql.arg(1)</b>)
+ *     .orderBy("{id}")
+ *     <b>.prepare()</b>;
+ *
+ * List&lt;Contact&gt; contacts = new ArrayList&lt;&gt;();
+ * Transaction.execute(conn -&gt;
+ *     contactsByName<b>.bind("Orange", "Setoka").select(conn, contacts::add)</b>
+ * );
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * static final PreparedSql&lt;Contact&gt; contactsByName = new Sql&lt;&gt;(Contact)
+ *     .where('{name.last}={}', <b>PreparedSql.arg(0)</b>)
+ *     .and('{name.first}={}', <b>PreparedSql.arg(1)</b>)
+ *     .orderBy('{id}')
+ *     <b>.prepare()</b>
+ *
+ * List&lt;Contact&gt; contacts = []
+ * Transaction.execute {
+ *     contactsByName<b>.bind('Orange', 'Setoka').select(it, {contacts &lt;&lt; it})</b>
+ * }
+ * </pre></div>
+ *
+ * @param <E> the type of the entity
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#prepare()
+ */
+public class PreparedSql<E> {
+    /**
+     * A placeholder of an argument of {@link PreparedSql#bind(Object...)}.
+     *
+     * @since 4.1.0
+     */
+    public static final class Argument {
+        // The index of the argument
+        private final int index;
+
+        /**
+         * Constructs a new <b>Argument</b>.
+         *
+         * @param index the index of the argument
+         */
+        private Argument(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the argument.
+         *
+         * @return the index of the argument
+         */
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "arg(" + index + ')';
+        }
+    }
+
+    // The generated SQL and the parameters
+    private static class Generated {
+        final String sql;
+        final List<Object> parameters;
+        final int argumentCount;
+
+        Generated(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+            argumentCount = parameters.stream()
+                .filter(parameter -> parameter instanceof Argument)
+                .mapToInt(parameter -> ((Argument)parameter).index + 1)
+                .max().orElse(0);
+        }
+    }
+
+    // The types to which the arguments are converted before binding (key: type of argument)
+    private static final Map<Class<?>, Class<?>> parameterTypeMap = new HashMap<>();
+    static {
+        parameterTypeMap.put(Character     .class, String.class);
+        parameterTypeMap.put(java.util.Date.class, Timestamp.class);
+        parameterTypeMap.put(LocalDate     .class, java.sql.Date.class);
+        parameterTypeMap.put(LocalTime     .class, Time.class);
+        parameterTypeMap.put(LocalDateTime .class, Timestamp.class);
+        parameterTypeMap.put(OffsetDateTime.class, Timestamp.class);
+        parameterTypeMap.put(ZonedDateTime .class, Timestamp.class);
+        parameterTypeMap.put(Instant       .class, Timestamp.class);
+    }
+
+    // The template
+    private final Sql<E> template;
+
+    // The generated SQLs for each database handler (shared with the bound objects)
+    private final Map<Database, Generated> generatedMap;
+
+    // The arguments
+    private final List<Object> arguments;
+
+    /**
+     * Returns a placeholder of the argument of the index.
+     *
+     * @param index the index of the argument (0, 1, 2, ...)
+     * @return a placeholder of the argument
+     *
+     * @throws IllegalArgumentException if <b>index</b> is negative
+     */
+    public static Argument arg(int index) {
+        if (index < 0)
+            throw new IllegalArgumentException("index: " + index);
+        return new Argument(index);
+    }
+
+    /**
+     * Constructs a new <b>PreparedSql</b>.
+     *
+     * @param template the template
+     */
+    PreparedSql(Sql<E> template) {
+        this.template = template;
+        generatedMap = new ConcurrentHashMap<>();
+        arguments = Collections.emptyList();
+    }
+
+    /**
+     * Constructs a new <b>PreparedSql</b> with the arguments.
+     *
+     * @param preparedSql the unbound <b>PreparedSql</b>
+     * @param arguments the arguments
+     */
+    private PreparedSql(PreparedSql<E> preparedSql, List<Object> arguments) {
+        template = preparedSql.template;
+        generatedMap = preparedSql.generatedMap;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Returns a new <b>PreparedSql</b> with the arguments bound.
+     * This object is not changed.
+     *
+     * @param arguments the arguments bound to the placeholders of {@link #arg(int)}
+     * @return a new <b>PreparedSql</b>
+     *
+     * @throws NullPointerException if <b>arguments</b> is <b>null</b>
+     */
+    public PreparedSql<E> bind(Object... arguments) {
+        Objects.requireNonNull(arguments, "arguments is null");
+        return new PreparedSql<>(this, Collections.unmodifiableList(new ArrayList<>(Arrays.asList(arguments))));
+    }
+
+    /**
+     * Returns the SQL generated for the database handler.
+     *
+     * @param database the database handler
+     * @return the SQL
+     *
+     * @throws NullPointerException if <b>database</b> is <b>null</b>
+     */
+    public String sql(Database database) {
+        return generated(Objects.requireNonNull(database, "database is null")).sql;
+    }
+
+    /**
+     * Executes the <i>SELECT</i> SQL and calls <b>consumer</b> for each selected entity.
+     *
+     * @param connection the connection wrapper
+     * @param consumer a consumer for the selected entities
+     *
+     * @throws NullPointerException if <b>connection</b> or <b>consumer</b> is <b>null</b>
+     * @throws IllegalStateException if the number of the bound arguments is less than the placeholders
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public void select(ConnectionWrapper connection, Consumer<? super E> consumer) {
+        Objects.requireNonNull(connection, "connection is null");
+        Objects.requireNonNull(consumer, "consumer is null");
+
+        Database database = connection.getDatabase();
+        Generated generated = generated(database);
+        if (arguments.size() < generated.argumentCount)
+            throw new IllegalStateException("arguments: " + arguments.size() + " < " + generated.argumentCount);
+
+        List<Object> parameters = new ArrayList<>(generated.parameters.size());
+        for (Object parameter : generated.parameters)
+            parameters.add(parameter instanceof Argument
+                ? toParameter(database, arguments.get(((Argument)parameter).index))
+                : parameter);
+
+        template.clone()
+            .connection(connection)
+            .selectPrepared(generated.sql, parameters, consumer);
+    }
+
+    /**
+     * Executes the <i>SELECT</i> SQL and returns an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise.
+     *
+     * @param connection the connection wrapper
+     * @return an <b>Optional</b> of the entity
+     *
+     * @throws NullPointerException if <b>connection</b> is <b>null</b>
+     * @throws IllegalStateException if the number of the bound arguments is less than the placeholders
+     * @throws ManyRowsException if more than one row searched
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public Optional<E> select(ConnectionWrapper connection) {
+        List<E> entities = new ArrayList<>();
+        select(connection, entity -> {
+            if (entities.size() > 0)
+                throw new ManyRowsException(sql(connection.getDatabase()));
+            entities.add(entity);
+        });
+        return entities.isEmpty() ? Optional.empty() : Optional.of(entities.get(0));
+    }
+
+    /**
+     * Converts the argument to the type which JDBC drivers accept
+     * with the <b>TypeConverter</b> of the database handler.
+     * Enums are converted to the ordinals as well as the values embedded in SQL.
+     *
+     * @param database the database handler
+     * @param argument the argument
+     * @return the converted argument
+     */
+    private static Object toParameter(Database database, Object argument) {
+        if (argument == null)
+            return null;
+
+        Class<?> parameterType = argument instanceof Enum ? Integer.class : parameterTypeMap.get(argument.getClass());
+        return parameterType == null ? argument : database.convert(argument, parameterType);
+    }
+
+    /**
+     * Returns the SQL and the parameters generated for the database handler.
+     *
+     * @param database the database handler
+     * @return the SQL and the parameters
+     */
+    private Generated generated(Database database) {
+        return generatedMap.computeIfAbsent(database, database2 -> {
+            List<Object> parameters = new ArrayList<>();
+            String sql = database2.selectSql(template.clone(), parameters).toString();
+            return new Generated(sql, Collections.unmodifiableList(parameters));
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedSql(" + template.entityClass().getSimpleName() + ", " + arguments + ')';
+    }
+}
@@ -0,0 +1,350 @@
+// SlowQueryLog.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.Resource;
+import org.lightsleep.helper.Utils;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Logs the SQLs that took longer than the threshold.
+ *
+ * <p>
+ * The log is written at <b>WARN</b> level by the logger of this class on a background thread
+ * and includes the SQL, the parameters, the times of the phases and the row count.
+ * If the SQL took longer than the second threshold,
+ * the execution plan got with {@link org.lightsleep.database.Database#explainSqls(String)}
+ * on another connection of the same connection supplier is also written.
+ * </p>
+ *
+ * <p>
+ * The following properties of <b>lightsleep.properties</b> are used.
+ * </p>
+ * <ul>
+ *   <li><b>slowQueryThreshold</b>: the threshold (ms) to log the SQL (default: 0, 0: disabled)</li>
+ *   <li><b>slowQueryExplainThreshold</b>: the threshold (ms) to log the execution plan (default: 0, 0: disabled)</li>
+ *   <li><b>slowQueryMaxLogsPerMinute</b>: the maximum number of the logs per minute (default: 60)</li>
+ *   <li><b>slowQueryMasksParameters</b>: if <b>true</b>, logs only the types of the parameters (default: true)</li>
+ * </ul>
+ *
+ * <p>
+ * The parameters which are embedded in the SQL as literals are not masked.
+ * The SQLs which threw an exception (e.g. a timeout) after the threshold are also logged with the exception.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+final class SlowQueryLog {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    // The maximum number of the logs waiting to be written
+    private static final int QUEUE_CAPACITY = 100;
+
+    // The instance configured with lightsleep.properties
+    private static final SlowQueryLog global = new SlowQueryLog(
+        Resource.getGlobal().getInt("slowQueryThreshold", 0),
+        Resource.getGlobal().getInt("slowQueryExplainThreshold", 0),
+        Resource.getGlobal().getInt("slowQueryMaxLogsPerMinute", 60),
+        Resource.getGlobal().getValue("slowQueryMasksParameters", Boolean::valueOf, true),
+        logger::warn);
+
+    // The format of the times (used only on the writer thread)
+    private static final DecimalFormat timeFormat = new DecimalFormat();
+    static {
+        timeFormat.setMinimumFractionDigits(0);
+        timeFormat.setMaximumFractionDigits(3);
+    }
+
+    // The executor writing the logs, which is created on first use
+    private static class Writer {
+        static final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "SlowQueryLog");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // The threshold (ns) to log the SQL
+    private final long threshold;
+
+    // The threshold (ns) to log the execution plan
+    private final long explainThreshold;
+
+    // The maximum number of the logs per minute
+    private final int maxLogsPerMinute;
+
+    // Whether to log only the types of the parameters
+    private final boolean masksParameters;
+
+    // The consumer writing a log on the writer thread
+    private final Consumer<String> writer;
+
+    // The start time (ms) of the current minute and the number of the logs in it
+    private final AtomicLong minuteStartTime = new AtomicLong();
+    private final AtomicInteger logCount = new AtomicInteger();
+
+    // The number of the logs not written by the rate limit or the full queue
+    private final AtomicInteger skippedCount = new AtomicInteger();
+
+    /**
+     * Returns the instance configured with <b>lightsleep.properties</b>.
+     *
+     * @return the instance configured with <b>lightsleep.properties</b>
+     */
+    static SlowQueryLog getGlobal() {
+        return global;
+    }
+
+    /**
+     * Constructs a new <b>SlowQueryLog</b>.
+     *
+     * @param threshold the threshold (ms) to log the SQL (0: disabled)
+     * @param explainThreshold the threshold (ms) to log the execution plan (0: disabled)
+     * @param maxLogsPerMinute the maximum number of the logs per minute
+     * @param masksParameters if <b>true</b>, logs only the types of the parameters
+     * @param writer the consumer writing a log on the writer thread
+     */
+    SlowQueryLog(int threshold, int explainThreshold, int maxLogsPerMinute, boolean masksParameters, Consumer<String> writer) {
+        this.threshold        = threshold        * 1_000_000L;
+        this.explainThreshold = explainThreshold * 1_000_000L;
+        this.maxLogsPerMinute = maxLogsPerMinute;
+        this.masksParameters  = masksParameters;
+        this.writer           = Objects.requireNonNull(writer, "writer is null");
+    }
+
+    /**
+     * Returns whether the slow query log is enabled.
+     *
+     * @return <b>true</b> if enabled, <b>false</b> otherwise
+     */
+    boolean isEnabled() {
+        return threshold > 0L;
+    }
+
+    /**
+     * Logs the SQL if it took longer than the threshold.
+     *
+     * @param connection the connection wrapper
+     * @param sqlNo the serial number of the SQL
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     * @param prepareTime the time (ns) to prepare the statement
+     * @param execTime the time (ns) to execute the statement
+     * @param getTime the time (ns) to get the rows
+     * @param rowCount the number of the rows
+     */
+    void check(ConnectionWrapper connection, int sqlNo, CharSequence sql, List<Object> parameters,
+            long prepareTime, long execTime, long getTime, int rowCount) {
+        log(connection, sqlNo, sql, parameters, prepareTime + execTime + getTime, buff -> buff
+            .append(" (prepare: ").append(timeFormat.format(prepareTime / 1_000_000.0))
+            .append(", execute: ").append(timeFormat.format(execTime / 1_000_000.0))
+            .append(", get: ").append(timeFormat.format(getTime / 1_000_000.0))
+            .append(" ms), rows: ").append(rowCount));
+    }
+
+    /**
+     * Logs the SQL which threw an exception (e.g. a timeout) if it took longer than the threshold.
+     *
+     * @param connection the connection wrapper
+     * @param sqlNo the serial number of the SQL
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     * @param time the time (ns) until the exception was thrown
+     * @param exception the exception
+     */
+    void failed(ConnectionWrapper connection, int sqlNo, CharSequence sql, List<Object> parameters,
+            long time, Throwable exception) {
+        String exceptionString = exception.toString();
+        log(connection, sqlNo, sql, parameters, time, buff -> buff
+            .append(", failed: ").append(exceptionString));
+    }
+
+    /**
+     * Logs the SQL on the writer thread if it took longer than the threshold.
+     *
+     * @param connection the connection wrapper
+     * @param sqlNo the serial number of the SQL
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     * @param totalTime the time (ns) taken by the SQL
+     * @param details the consumer appending the details of the time to the log
+     */
+    private void log(ConnectionWrapper connection, int sqlNo, CharSequence sql, List<Object> parameters,
+            long totalTime, Consumer<StringBuilder> details) {
+        if (threshold <= 0L || totalTime < threshold || !tryAcquire())
+            return;
+
+        // Copies the values on this thread
+        ConnectionSupplier supplier = connection.getSupplier();
+        String connectionString = connection.toString();
+        String sqlString = sql.toString();
+        String parametersString = parameters.isEmpty() ? null : parameters.stream()
+            .map(parameter -> masksParameters
+                ? (parameter == null ? "null" : parameter.getClass().getSimpleName())
+                : Utils.toLogString(parameter))
+            .collect(Collectors.joining(", ", "[", "]"));
+        List<Object> explainParameters = explainThreshold > 0L && totalTime >= explainThreshold
+            && parameters.stream().noneMatch(parameter -> parameter instanceof Reader || parameter instanceof InputStream)
+            ? new ArrayList<>(parameters) : null;
+
+        try {
+            Writer.executor.execute(() -> {
+                StringBuilder buff = new StringBuilder()
+                    .append('#').append(Integer.toUnsignedString(sqlNo)).append(' ').append(connectionString)
+                    .append(" slow query: ").append(timeFormat.format(totalTime / 1_000_000.0)).append(" ms");
+                details.accept(buff);
+                buff.append("\n  sql: ").append(sqlString);
+                if (parametersString != null)
+                    buff.append("\n  parameters: ").append(parametersString);
+                if (explainParameters != null)
+                    appendPlan(buff, supplier, sqlString, explainParameters);
+
+                int skipped = skippedCount.getAndSet(0);
+                if (skipped > 0)
+                    buff.append("\n  (").append(skipped).append(" slow queries were not logged)");
+
+                writer.accept(buff.toString());
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // The queue is full
+            skippedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns whether the log can be written within the rate limit.
+     *
+     * @return <b>true</b> if can be written, <b>false</b> otherwise
+     */
+    private boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        long startTime = minuteStartTime.get();
+        if (now - startTime >= 60_000L && minuteStartTime.compareAndSet(startTime, now))
+            logCount.set(0);
+
+        if (logCount.incrementAndGet() > maxLogsPerMinute) {
+            skippedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the execution plan on another connection and appends it to the buffer.
+     *
+     * <p>
+     * If there are two or more SQLs to get the execution plan,
+     * the last one (e.g. <i>SET SHOWPLAN_XML OFF</i>) is executed
+     * even if a preceding one threw an exception
+     * so that the connection is not returned to the pool with the session settings changed.
+     * </p>
+     *
+     * @param buff the buffer
+     * @param supplier the connection supplier
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     */
+    private static void appendPlan(StringBuilder buff, ConnectionSupplier supplier, String sql, List<Object> parameters) {
+        List<String> explainSqls = supplier.getDatabase().explainSqls(sql);
+        if (explainSqls.isEmpty()) return;
+
+        buff.append("\n  plan:");
+        try (ConnectionWrapper connection = supplier.get()) {
+            int lastIndex = explainSqls.size() - 1;
+            boolean completed = false;
+            try {
+                for (int index = 0; index < lastIndex; ++index)
+                    executeExplainSql(buff, connection, explainSqls.get(index), sql, parameters);
+                completed = true;
+            }
+            finally {
+                try {
+                    // Executes the last SQL even if a preceding one threw an exception (discarding the rows)
+                    executeExplainSql(completed ? buff : new StringBuilder(), connection, explainSqls.get(lastIndex), sql, parameters);
+                }
+                finally {
+                    connection.rollback();
+                }
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            buff.append("\n    ").append(e);
+        }
+    }
+
+    /**
+     * Executes a SQL to get the execution plan and appends the rows of the result to the buffer.
+     *
+     * @param buff the buffer
+     * @param connection the connection wrapper
+     * @param explainSql the SQL to get the execution plan
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private static void executeExplainSql(StringBuilder buff, ConnectionWrapper connection, String explainSql, String sql, List<Object> parameters) throws SQLException {
+        if (explainSql.endsWith(sql) && !parameters.isEmpty()) {
+            try (PreparedStatement statement = connection.prepareStatement(explainSql)) {
+                for (int index = 0; index < parameters.size(); ++index)
+                    connection.getDatabase().setParameter(statement, index + 1, parameters.get(index));
+                if (statement.execute())
+                    appendRows(buff, statement.getResultSet());
+            }
+        } else {
+            try (Statement statement = connection.createStatement()) {
+                if (statement.execute(explainSql))
+                    appendRows(buff, statement.getResultSet());
+            }
+        }
+    }
+
+    /**
+     * Appends the rows of the result set to the buffer.<br>
+     * The result set is closed with the statement.
+     *
+     * @param buff the buffer
+     * @param resultSet the result set
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private static void appendRows(StringBuilder buff, ResultSet resultSet) throws SQLException {
+        int columnCount = resultSet.getMetaData().getColumnCount();
+        while (resultSet.next()) {
+            buff.append("\n    ");
+            for (int index = 1; index <= columnCount; ++index) {
+                if (index > 1) buff.append(" | ");
+                buff.append(resultSet.getString(index));
+            }
+        }
+    }
+}
@@ -3,26 +3,45 @@
 
 package org.lightsleep;
 
-import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.math.BigInteger;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,9 +49,15 @@ import org.lightsleep.component.Condition;
 import org.lightsleep.component.EntityCondition;
 import org.lightsleep.component.Expression;
 import org.lightsleep.component.GroupBy;
+import org.lightsleep.component.LobRef;
 import org.lightsleep.component.OrderBy;
+import org.lightsleep.component.SqlString;
 import org.lightsleep.component.SubqueryCondition;
+import org.lightsleep.connection.ConnectionSupplier;
 import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.connection.RepeatedQueryDetector;
+import org.lightsleep.database.BulkLoader;
+import org.lightsleep.database.Database;
 import org.lightsleep.entity.PostDelete;
 import org.lightsleep.entity.PostInsert;
 import org.lightsleep.entity.PostSelect;
@@ -49,6 +74,9 @@ import org.lightsleep.helper.Resource;
 import org.lightsleep.helper.SqlColumnInfo;
 import org.lightsleep.helper.SqlEntityInfo;
 import org.lightsleep.helper.Utils;
+import org.lightsleep.jfr.PhaseEvents;
+import org.lightsleep.jfr.Phase;
+import org.lightsleep.jfr.PhaseEvent;
 import org.lightsleep.logger.Logger;
 import org.lightsleep.logger.LoggerFactory;
 
@@ -104,6 +132,8 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     private static final String messageUnionAllCalled   = resource.getString("messageUnionAllCalled"); // since 3.1.0
     private static final String messageNoWhereCondition = resource.getString("messageNoWhereCondition");
     private static final String messageNoConnection     = resource.getString("messageNoConnection");
+    static final String messageNoKeyColumns             = resource.getString("messageNoKeyColumns"); // since 4.1.0
+    private static final String messageNoConstructor    = resource.getString("messageNoConstructor"); // since 4.1.0
 
     private static final String messageSelected0Rows = resource.getString("messageSelected0Rows");
     private static final String messageSelectedRow   = resource.getString("messageSelectedRow");
@@ -129,6 +159,9 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     protected static final String messageCommit    = resource.getString("messageCommit");
     protected static final String messageRollback  = resource.getString("messageRollback");
 
+    // The initial length of the arrays of select{Longs|Ints|Doubles} @since 4.1.0
+    private static final int INITIAL_ARRAY_LENGTH = 256;
+
     // The entity information map
     private static final Map<Class<?>, EntityInfo<?>> entityInfoMap = new ConcurrentHashMap<>();
 
@@ -146,6 +179,18 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     // With DISTINCT or not
     private boolean distinct = false;
 
+    // Whether to use an identity map of the entities while selecting @since 4.1.0
+    private boolean identityMap = false;
+
+    // Whether to pass the entities in the identity map to the consumers again @since 4.1.0
+    private boolean reemitsEntities = false;
+
+    // Whether to take snapshots of the selected entities to update only the changed columns @since 4.1.0
+    private boolean trackChanges = false;
+
+    // Whether to retrieve the generated keys when inserting @since 4.1.0
+    private boolean returnGeneratedKeys = false;
+
     // The select columns
     private Set<String> columns = new HashSet<>();
 
@@ -211,6 +256,9 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     // The WAIT time (sec)
     private int waitTime = FOREVER;
 
+    // Whether with SKIP LOCKED (since 4.1.0)
+    private boolean skipLocked = false;
+
     // since 4.0.0
     // true if this is used in a <i>FROM</i> clause, false otherwise
     private boolean isInInsertFrom;
@@ -293,6 +341,10 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
 
         sql.entity         = entity;
         sql.distinct       = distinct;
+        sql.identityMap    = identityMap; // since 4.1.0
+        sql.reemitsEntities = reemitsEntities; // since 4.1.0
+        sql.trackChanges   = trackChanges; // since 4.1.0
+        sql.returnGeneratedKeys = returnGeneratedKeys; // since 4.1.0
         sql.columns  .addAll(columns);
         sql.fromSql        = fromSql;
         sql.joinInfos.addAll(joinInfos);
@@ -309,6 +361,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         sql.offset         = offset;
         sql.forUpdate      = forUpdate;
         sql.waitTime       = waitTime;
+        sql.skipLocked     = skipLocked; // since 4.1.0
         sql.isInInsertFrom = isInInsertFrom; // since 4.0.0
         sql.connection     = connection;
         sql.generatedSql   = generatedSql;
@@ -421,6 +474,230 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return distinct;
     }
 
+    /**
+     * Uses an identity map of the entities while selecting.
+     *
+     * <p>
+     * This is equivalent to <b>identityMap(false)</b>.
+     * </p>
+     *
+     * @return this object
+     *
+     * @since 4.1.0
+     * @see #identityMap(boolean)
+     */
+    public Sql<E> identityMap() {
+        return identityMap(false);
+    }
+
+    /**
+     * Uses an identity map of the entities while selecting.
+     *
+     * <p>
+     * When a <i>SELECT</i> SQL is executed, an identity map is created for each table of the SQL.
+     * If the key values of a row are the same as a preceding row,
+     * the entity created from the preceding row is used and the entity is not created again.
+     * If <b>reemits</b> is <b>false</b>, the consumer is called only once for each entity,
+     * otherwise it is called for each row with the same entity.<br>
+     * If all key values of a row of a joined table are <b>null</b> (an outer join did not match),
+     * the consumer of the joined table is not called for the row.<br>
+     * The entities of the classes that do not have key columns or of which the key columns are not selected
+     * are created for each row as usual.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ArrayList&lt;Contact&gt;();
+     * var phones   = new ArrayList&lt;Phone&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class, "C")
+     *         .innerJoin(Phone.class, "P", "{P.contactId}={C.id}")
+     *         .<b>identityMap()</b>
+     *         .connection(conn)
+     *         .&lt;Phone&gt;select(contacts::add, phones::add)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Contact&gt; contacts = []
+     * List&lt;Phone&gt;   phones = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact, 'C')
+     *         .innerJoin(Phone, 'P', '{P.contactId}={C.id}')
+     *         .<b>identityMap()</b>
+     *         .connection(it)
+     *         .select({contacts &lt;&lt; it}, {phones &lt;&lt; it})
+     * }
+     * </pre></div>
+     *
+     * @param reemits <b>true</b> if the consumers receive the same entity for each row, <b>false</b> if only once
+     * @return this object
+     *
+     * @since 4.1.0
+     * @see #identityMap()
+     * @see #isIdentityMap()
+     * @see #isReemitsEntities()
+     */
+    public Sql<E> identityMap(boolean reemits) {
+        identityMap = true;
+        reemitsEntities = reemits;
+        return this;
+    }
+
+    /**
+     * Returns <b>true</b> if uses an identity map of the entities while selecting, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if uses an identity map of the entities while selecting, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #identityMap(boolean)
+     */
+    public boolean isIdentityMap() {
+        return identityMap;
+    }
+
+    /**
+     * Returns <b>true</b> if the consumers receive the same entity in the identity map for each row, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if the consumers receive the same entity in the identity map for each row, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #identityMap(boolean)
+     */
+    public boolean isReemitsEntities() {
+        return reemitsEntities;
+    }
+
+    /**
+     * Takes snapshots of the selected entities so that <b>update</b> writes only the changed columns.
+     *
+     * <p>
+     * When an entity is created from a row, the values of the selected properties are copied
+     * and kept in the connection wrapper until the end of the transaction.<br>
+     * If the <i>UPDATE</i> columns are not specified with {@link #columns(String...)},
+     * {@link #update(Object)} with the same connection compares the properties with the snapshot
+     * and updates only the changed columns and the columns with an update expression (e.g. <b>{@literal @}Update</b>).
+     * If no property has been changed, it does not execute an <i>UPDATE</i> SQL and returns 0.<br>
+     * The values are compared with <b>equals</b>.
+     * The arrays and <b>java.util.Date</b> values are copied into the snapshot,
+     * but changes inside other mutable objects are not detected.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     Contact contact = new Sql&lt;&gt;(Contact.class)
+     *         .where("{id}={}", 1)
+     *         <b>.trackChanges()</b>
+     *         .connection(conn)
+     *         .select().get();
+     *
+     *     contact.birthday = LocalDate.of(2017, 2, 1);
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .update(contact); // UPDATE Contact SET birthday=... WHERE id=1
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     def contact = new Sql&lt;&gt;(Contact)
+     *         .where('{id}={}', 1)
+     *         <b>.trackChanges()</b>
+     *         .connection(it)
+     *         .select().get()
+     *
+     *     contact.birthday = LocalDate.of(2017, 2, 1)
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .update(contact) // UPDATE Contact SET birthday=... WHERE id=1
+     * }
+     * </pre></div>
+     *
+     * @return this object
+     *
+     * @since 4.1.0
+     * @see #isTrackChanges()
+     * @see #update(Object)
+     */
+    public Sql<E> trackChanges() {
+        trackChanges = true;
+        return this;
+    }
+
+    /**
+     * Returns <b>true</b> if takes snapshots of the selected entities, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if takes snapshots of the selected entities, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #trackChanges()
+     */
+    public boolean isTrackChanges() {
+        return trackChanges;
+    }
+
+    /**
+     * Retrieves the keys generated by the database when inserting
+     * and sets them to the key properties of the entities.
+     *
+     * <p>
+     * The key columns that are not insertable (e.g. <b>{@literal @}NonInsert</b>)
+     * or have an insert expression (e.g. <b>{@literal @}Insert</b>) are retrieved
+     * with <b>Statement.getGeneratedKeys()</b> of the <i>INSERT</i> SQL,
+     * so it is not necessary to select them again after inserting.<br>
+     * With {@link #insert(Iterable)}, the keys are set to the entities in the order of the iteration.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Contact contact = new Contact("Harumi", "Orange", LocalDate.of(2001, 2, 2));
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         <b>.returnGeneratedKeys()</b>
+     *         .connection(conn)
+     *         .insert(contact)
+     * );
+     * int id = contact.id;
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * def contact = new Contact('Harumi', 'Orange', LocalDate.of(2001, 2, 2))
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         <b>.returnGeneratedKeys()</b>
+     *         .connection(it)
+     *         .insert(contact)
+     * }
+     * def id = contact.id
+     * </pre></div>
+     *
+     * @return this object
+     *
+     * @since 4.1.0
+     * @see #isReturnGeneratedKeys()
+     * @see Database#supportsGeneratedKeyColumnNames()
+     */
+    public Sql<E> returnGeneratedKeys() {
+        returnGeneratedKeys = true;
+        return this;
+    }
+
+    /**
+     * Returns <b>true</b> if retrieves the generated keys when inserting, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if retrieves the generated keys when inserting, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #returnGeneratedKeys()
+     */
+    public boolean isReturnGeneratedKeys() {
+        return returnGeneratedKeys;
+    }
+
     /**
      * Specifies target columns for <i>SELECT</i> and <i>UPDATE</i> SQL.
      *
@@ -2259,6 +2536,63 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return waitTime == FOREVER;
     }
 
+    /**
+     * Specifies that skips the rows locked by other transactions
+     * (<i>SKIP LOCKED</i> or <i>READPAST</i>) with <i>FOR UPDATE</i>.
+     *
+     * <p>
+     * This is useful for workers that compete for rows of a job table.
+     * Supported by PostgreSQL, MySQL 8, Oracle and SQL Server.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Job&gt; jobs = new Sql&lt;&gt;(Job.class)
+     *     .where("{status}={}", Job.Status.READY)
+     *     .orderBy("{id}")
+     *     .limit(10)
+     *     .forUpdate()
+     *     <b>.skipLocked()</b>
+     *     .connection(conn)
+     *     .select(jobs::add);
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Job&gt; jobs = new Sql&lt;&gt;(Job)
+     *     .where('{status}={}', Job.Status.READY)
+     *     .orderBy('{id}')
+     *     .limit(10)
+     *     .forUpdate()
+     *     <b>.skipLocked()</b>
+     *     .connection(it)
+     *     .select({jobs &lt;&lt; it})
+     * </pre></div>
+     *
+     * @return this object
+     *
+     * @since 4.1.0
+     * @see #isSkipLocked()
+     * @see #forUpdate()
+     * @see org.lightsleep.WorkQueue
+     */
+    public Sql<E> skipLocked() {
+        skipLocked = true;
+        return this;
+    }
+
+    /**
+     * Returns <b>true</b> if skips the rows locked by other transactions, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if skips the rows locked by other transactions, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #skipLocked()
+     */
+    public boolean isSkipLocked() {
+        return skipLocked;
+    }
+
     /**
      * Returns <b>true</b> if this is used in <i>FROM</i> clause of <i>INSERT</i> SQL, <b>false</b> otherwise.
      *
@@ -2587,7 +2921,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        generatedSql = generate(sql, s -> connection.getDatabase().selectSql(s, parameters)); // since 4.1.0
 
         SqlEntityInfo<RE> sqlEntityInfo = resultClass == sql.entityInfo.entityClass()
             ? (SqlEntityInfo<RE>)sql
@@ -2703,7 +3037,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        generatedSql = generate(sql, s -> connection.getDatabase().selectSql(s, parameters)); // since 4.1.0
 
         sql.executeQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
@@ -2791,7 +3125,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        generatedSql = generate(sql, s -> connection.getDatabase().selectSql(s, parameters)); // since 4.1.0
 
         sql.executeQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
@@ -2891,7 +3225,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        generatedSql = generate(sql, s -> connection.getDatabase().selectSql(s, parameters)); // since 4.1.0
 
         sql.executeQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
@@ -3003,7 +3337,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        generatedSql = generate(sql, s -> connection.getDatabase().selectSql(s, parameters)); // since 4.1.0
 
         sql.executeQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
@@ -3015,127 +3349,1322 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     }
 
     /**
-     * Generates and executes a <i>SELECT</i> SQL
-     * and returns an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise.
+     * Generates and executes a <i>SELECT</i> SQL that joins a table
+     * and aggregates the entities of the joined table to the entities of the main table.
+     *
+     * <p>
+     * Uses an identity map (see {@link #identityMap(boolean)}) for each table,
+     * so the entity of the main table is created and passed to <b>consumer</b> only once for the same key values.<br>
+     * <b>childConsumer1</b> is called once for each pair of the entity of the main table and the entity of the joined table,
+     * and is not called if the outer join did not match.<br>
+     * This method assembles a parent-children graph with one <i>SELECT</i> SQL
+     * instead of selecting the children for each parent.
+     * </p>
      *
      * <div class="exampleTitle"><span>Java Example</span></div>
      * <div class="exampleCode"><pre>
-     * var contact = new Contact[1];
+     * var contacts = new ArrayList&lt;Contact&gt;();
      * Transaction.execute(conn -&gt;
-     *     contact[0] = new Sql&lt;&gt;(Contact.class)
-     *         .where("{id}={}", 1)
+     *     new Sql&lt;&gt;(Contact.class, "C")
+     *         .leftJoin(Phone.class, "P", "{P.contactId}={C.id}")
      *         .connection(conn)
-     *         .<b>select()</b>.orElse(null)
+     *         .<b>&lt;Phone&gt;selectAggregated(contacts::add, (contact, phone) -&gt; contact.phones.add(phone))</b>
      * );
      * </pre></div>
      *
      * <div class="exampleTitle"><span>Groovy Example</span></div>
      * <div class="exampleCode"><pre>
-     * Contact contact
+     * List&lt;Contact&gt; contacts = []
      * Transaction.execute {
-     *     contact = new Sql&lt;&gt;(Contact)
-     *         .where('{id}={}', 1)
+     *     new Sql&lt;&gt;(Contact, 'C')
+     *         .leftJoin(Phone, 'P', '{P.contactId}={C.id}')
      *         .connection(it)
-     *         .<b>select()</b>.orElse(null)
+     *         .<b>selectAggregated({contacts &lt;&lt; it}, {contact, phone -&gt; contact.phones &lt;&lt; phone})</b>
      * }
      * </pre></div>
      *
      * <p>
      * <span class="simpleTagLabel">Caution:</span>
-     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.<br>
+     * The entity classes should have key columns and the key columns should be selected.
      * </p>
      *
-     * @return an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise
+     * @param <JE1> the type of the entity related to the 1st joined table
+     * @param consumer a consumer of the entities related to the main table
+     * @param childConsumer1 a consumer of the pairs of the entity related to the main table and the entity related to the 1st joined table
      *
+     * @throws NullPointerException if <b>consumer</b> or <b>childConsumer1</b> is <b>null</b>
+     * @throws IllegalStateException if join information is less than 1
      * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
      * @throws IllegalStateException if a <i>SELECT</i> SQL without columns was generated
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
-     * @throws ManyRowsException if more than one row searched
      *
-     * @since 2.0.0
-     * @see #selectAs(Class)
+     * @since 4.1.0
+     * @see #identityMap(boolean)
      */
-    public Optional<E> select() {
-        return selectAs(entityInfo.entityClass());
+    @SuppressWarnings("unchecked")
+    public <JE1> void selectAggregated(
+        Consumer<? super E> consumer,
+        BiConsumer<? super E, ? super JE1> childConsumer1) {
+        Objects.requireNonNull(childConsumer1, "childConsumer1 is null");
+        selectAggregated(consumer, Arrays.asList(
+            (BiConsumer<? super E, Object>)childConsumer1
+        ));
     }
 
     /**
-     * Generates and executes a <i>SELECT</i> SQL
-     * and returns an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise.
+     * Generates and executes a <i>SELECT</i> SQL that joins two tables
+     * and aggregates the entities of the joined tables to the entities of the main table.
+     *
+     * <p>
+     * Uses an identity map (see {@link #identityMap(boolean)}) for each table,
+     * so the entity of the main table is created and passed to <b>consumer</b> only once for the same key values.<br>
+     * <b>childConsumer1</b> and <b>childConsumer2</b> are called once for each pair of the entity of the main table
+     * and the entity of the joined table, and are not called if the outer join did not match.
+     * </p>
      *
      * <div class="exampleTitle"><span>Java Example</span></div>
      * <div class="exampleCode"><pre>
-     * var contactName = new ContactName[1];
+     * var contacts = new ArrayList&lt;Contact&gt;();
      * Transaction.execute(conn -&gt;
-     *     contactName[0] = new Sql&lt;&gt;(Contact.class)
-     *         .where("{id}={}", 1)
+     *     new Sql&lt;&gt;(Contact.class, "C")
+     *         .leftJoin(Phone.class, "P", "{P.contactId}={C.id}")
+     *         .leftJoin(Email.class, "E", "{E.contactId}={C.id}")
      *         .connection(conn)
-     *         .<b>selectAs(ContactName.class)</b>.orElse(null)
+     *         .<b>&lt;Phone, Email&gt;selectAggregated(contacts::add,
+     *             (contact, phone) -&gt; contact.phones.add(phone),
+     *             (contact, email) -&gt; contact.emails.add(email))</b>
      * );
      * </pre></div>
      *
      * <div class="exampleTitle"><span>Groovy Example</span></div>
      * <div class="exampleCode"><pre>
-     * ContactName contactName
+     * List&lt;Contact&gt; contacts = []
      * Transaction.execute {
-     *     contactName = new Sql&lt;&gt;(Contact)
-     *         .where('{id}={}', 1)
+     *     new Sql&lt;&gt;(Contact, 'C')
+     *         .leftJoin(Phone, 'P', '{P.contactId}={C.id}')
+     *         .leftJoin(Email, 'E', '{E.contactId}={C.id}')
      *         .connection(it)
-     *         .<b>selectAs(ContactName)</b>.orElse(null)
+     *         .<b>selectAggregated({contacts &lt;&lt; it},
+     *             {contact, phone -&gt; contact.phones &lt;&lt; phone},
+     *             {contact, email -&gt; contact.emails &lt;&lt; email})</b>
      * }
      * </pre></div>
      *
      * <p>
      * <span class="simpleTagLabel">Caution:</span>
-     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.<br>
+     * The entity classes should have key columns and the key columns should be selected.
      * </p>
      *
-     * @param <RE> the type of the result entity
-     * @param resultClass the class of entity to as a return value
-     * @return an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise
+     * @param <JE1> the type of the entity related to the 1st joined table
+     * @param <JE2> the type of the entity related to the 2nd joined table
+     * @param consumer a consumer of the entities related to the main table
+     * @param childConsumer1 a consumer of the pairs of the entity related to the main table and the entity related to the 1st joined table
+     * @param childConsumer2 a consumer of the pairs of the entity related to the main table and the entity related to the 2nd joined table
      *
-     * @throws NullPointerException <b>resultClass</b> is <b>null</b>
+     * @throws NullPointerException if <b>consumer</b>, <b>childConsumer1</b> or <b>childConsumer2</b> is <b>null</b>
+     * @throws IllegalStateException if join information is less than 2
      * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
      * @throws IllegalStateException if a <i>SELECT</i> SQL without columns was generated
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
-     * @throws ManyRowsException if more than one row searched
      *
-     * @since 2.0.0
-     * @see #select()
+     * @since 4.1.0
+     * @see #identityMap(boolean)
      */
-    public <RE> Optional<RE> selectAs(Class<RE> resultClass) {
-        List<RE> entities = new ArrayList<>();
-        selectAs(resultClass, entity -> {
-            if (entities.size() > 0)
-            // 4.0.0
-            //  throw new ManyRowsException(generatedSql);
-                throw new ManyRowsException(generatedSql.toString());
-            ////
-            entities.add(entity);
+    @SuppressWarnings("unchecked")
+    public <JE1, JE2> void selectAggregated(
+        Consumer<? super E> consumer,
+        BiConsumer<? super E, ? super JE1> childConsumer1,
+        BiConsumer<? super E, ? super JE2> childConsumer2) {
+        Objects.requireNonNull(childConsumer1, "childConsumer1 is null");
+        Objects.requireNonNull(childConsumer2, "childConsumer2 is null");
+        selectAggregated(consumer, Arrays.asList(
+            (BiConsumer<? super E, Object>)childConsumer1,
+            (BiConsumer<? super E, Object>)childConsumer2
+        ));
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that joins tables
+     * and aggregates the entities of the joined tables to the entities of the main table.
+     *
+     * @param consumer a consumer of the entities related to the main table
+     * @param childConsumers the consumers of the pairs of the entity related to the main table and the entity related to the joined table
+     *
+     * @since 4.1.0
+     */
+    private void selectAggregated(Consumer<? super E> consumer, List<BiConsumer<? super E, Object>> childConsumers) {
+        Objects.requireNonNull(consumer, "consumer is null");
+        int joinCount = childConsumers.size();
+        if (joinInfos.size() < joinCount) throw new IllegalStateException("joinInfos.size < " + joinCount);
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : clone();
+        sql.identityMap = true;
+
+        if (sql.columns.isEmpty() && sql.joinInfos.size() > joinCount) {
+            sql.columns.add(sql.tableAlias + ".*");
+            for (int index = 0; index < joinCount; ++index)
+                sql.columns.add(sql.joinInfos.get(index).tableAlias() + ".*");
+        }
+
+        List<Object> parameters = new ArrayList<>();
+        generatedSql = generate(sql, s -> connection.getDatabase().selectSql(s, parameters)); // since 4.1.0
+
+        Function<ResultSet, E> rowMapper = sql.getRowMapper(sql);
+        List<Function<ResultSet, ?>> childRowMappers = new ArrayList<>();
+        for (int index = 0; index < joinCount; ++index)
+            childRowMappers.add(sql.getRowMapper(sql.joinInfos.get(index)));
+
+        // A map (parent entity -> consumed child entities)
+        Map<E, Set<Object>> childrenMap = new IdentityHashMap<>();
+
+        sql.executeQuery(generatedSql, parameters, resultSet -> {
+            E entity = rowMapper.apply(resultSet);
+            if (entity == null) return;
+
+            Set<Object> children = childrenMap.get(entity);
+            if (children == null) {
+                children = Collections.newSetFromMap(new IdentityHashMap<>());
+                childrenMap.put(entity, children);
+                consumer.accept(entity);
+            }
+
+            for (int index = 0; index < joinCount; ++index) {
+                Object child = childRowMappers.get(index).apply(resultSet);
+                if (child != null && children.add(child))
+                    childConsumers.get(index).accept(entity, child);
+            }
         });
-        return entities.isEmpty() ? Optional.empty() : Optional.of(entities.get(0));
     }
 
     /**
-     * Generates and executes a <i>SELECT COUNT(*)</i> SQL and returns the result.
+     * Generates and executes a <i>SELECT</i> SQL
+     * and returns an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise.
      *
      * <div class="exampleTitle"><span>Java Example</span></div>
      * <div class="exampleCode"><pre>
-     * var count = new int[1];
+     * var contact = new Contact[1];
      * Transaction.execute(conn -&gt;
-     *     count[0] = new Sql&lt;&gt;(Contact.class)
-     *         .connection(conn)
+     *     contact[0] = new Sql&lt;&gt;(Contact.class)
+     *         .where("{id}={}", 1)
+     *         .connection(conn)
+     *         .<b>select()</b>.orElse(null)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Contact contact
+     * Transaction.execute {
+     *     contact = new Sql&lt;&gt;(Contact)
+     *         .where('{id}={}', 1)
+     *         .connection(it)
+     *         .<b>select()</b>.orElse(null)
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @return an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise
+     *
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if a <i>SELECT</i> SQL without columns was generated
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     * @throws ManyRowsException if more than one row searched
+     *
+     * @since 2.0.0
+     * @see #selectAs(Class)
+     */
+    public Optional<E> select() {
+        return selectAs(entityInfo.entityClass());
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL
+     * and returns an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise.
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contactName = new ContactName[1];
+     * Transaction.execute(conn -&gt;
+     *     contactName[0] = new Sql&lt;&gt;(Contact.class)
+     *         .where("{id}={}", 1)
+     *         .connection(conn)
+     *         .<b>selectAs(ContactName.class)</b>.orElse(null)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * ContactName contactName
+     * Transaction.execute {
+     *     contactName = new Sql&lt;&gt;(Contact)
+     *         .where('{id}={}', 1)
+     *         .connection(it)
+     *         .<b>selectAs(ContactName)</b>.orElse(null)
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param <RE> the type of the result entity
+     * @param resultClass the class of entity to as a return value
+     * @return an <b>Optional</b> of the entity if searched, <b>Optional.empty()</b> otherwise
+     *
+     * @throws NullPointerException <b>resultClass</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if a <i>SELECT</i> SQL without columns was generated
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     * @throws ManyRowsException if more than one row searched
+     *
+     * @since 2.0.0
+     * @see #select()
+     */
+    public <RE> Optional<RE> selectAs(Class<RE> resultClass) {
+        List<RE> entities = new ArrayList<>();
+        selectAs(resultClass, entity -> {
+            if (entities.size() > 0)
+            // 4.0.0
+            //  throw new ManyRowsException(generatedSql);
+                throw new ManyRowsException(generatedSql.toString());
+            ////
+            entities.add(entity);
+        });
+        return entities.isEmpty() ? Optional.empty() : Optional.of(entities.get(0));
+    }
+
+    /**
+     * Generates and executes a <i>SELECT COUNT(*)</i> SQL and returns the result.
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var count = new int[1];
+     * Transaction.execute(conn -&gt;
+     *     count[0] = new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectCount()</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * int count
+     * Transaction.execute {
+     *     count = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
      *         .<b>selectCount()</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @return the number of selected rows
+     *
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 2.0.0
+     */
+    public int selectCount() {
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+
+        List<Object> parameters = new ArrayList<>();
+    // 4.0.0
+    //  String sqlString = connection.getDatabase().subSelectSql(sql, null, () -> "COUNT(*)", parameters);
+        CharSequence sqlString = generate(sql, s -> connection.getDatabase().subSelectSql(s, null, () -> "COUNT(*)", parameters)); // since 4.1.0
+    ////
+
+        int[] count = new int[1];
+        executeQuery(sqlString, parameters, resultSet -> {
+            try {
+                count[0] = resultSet.getInt(1);
+            }
+            catch (SQLException e) {throw new RuntimeSQLException(e);}
+        });
+        return count[0];
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that search the entities by the keys
+     * and returns a map of the keys and the searched entities.
+     *
+     * <p>
+     * This is equivalent to <b>selectByKeys(keys, 1)</b>.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contactMap = new LinkedHashMap&lt;Integer, Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     contactMap.putAll(new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectByKeys(List.of(1, 2, 3))</b>)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Map&lt;Integer, Contact&gt; contactMap
+     * Transaction.execute {
+     *     contactMap = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>selectByKeys([1, 2, 3])</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param <K> the type of the keys
+     * @param keys the keys
+     * @return a map of the keys and the searched entities
+     *
+     * @throws NullPointerException if <b>keys</b> or any element of <b>keys</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class does not have key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectByKeys(Collection, int)
+     */
+    public <K> Map<K, E> selectByKeys(Collection<? extends K> keys) {
+        return selectByKeys(keys, 1);
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that search the entities by the keys
+     * and returns a map of the keys and the searched entities.
+     *
+     * <p>
+     * If the entity class has one key column, each element of <b>keys</b> is a value of the key property.
+     * If the entity class has multiple key columns, each element of <b>keys</b> is an object
+     * (the entity itself or an object of another class) that has the properties with the same names as the key properties.
+     * Each key value is converted to the type of the key property of the entity using <b>Database.convert</b>.
+     * </p>
+     *
+     * <p>
+     * The keys are split into chunks of size {@link org.lightsleep.database.Database#maxKeysPerSelect()}
+     * and a <i>SELECT</i> SQL is executed for each chunk.
+     * If the database supports array parameters (e.g. PostgreSQL),
+     * the condition of the SQL is <i>key = ANY(?)</i> with an array parameter,
+     * otherwise <i>key IN (...)</i> or <i>(key1=... AND key2=...) OR ...</i>.
+     * The other conditions specified with <b>where</b> method are joined with <i>AND</i>.
+     * </p>
+     *
+     * <p>
+     * If <b>parallelism</b> is greater than 1 and there are multiple chunks,
+     * the chunks are executed in parallel by up to <b>parallelism</b> threads
+     * and each thread gets a connection from the connection supplier of the connection wrapper of this object.
+     * Specify a value of <b>parallelism</b> less than the maximum size of the connection pool.
+     * </p>
+     *
+     * <p>
+     * The returned map is ordered by <b>keys</b> and does not contain the keys of which the entity is not found.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contactMap = new LinkedHashMap&lt;Integer, Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     contactMap.putAll(new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectByKeys(contactIds, 4)</b>)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Map&lt;Integer, Contact&gt; contactMap
+     * Transaction.execute {
+     *     contactMap = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>selectByKeys(contactIds, 4)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.<br>
+     * The chunks executed in parallel are executed in other transactions,
+     * so they do not see the uncommitted changes of the transaction of this object.
+     * </p>
+     *
+     * @param <K> the type of the keys
+     * @param keys the keys
+     * @param parallelism the maximum number of the chunks executed in parallel
+     * @return a map of the keys and the searched entities
+     *
+     * @throws NullPointerException if <b>keys</b> or any element of <b>keys</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>parallelism</b> is less than 1
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class does not have key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectByKeys(Collection)
+     */
+    public <K> Map<K, E> selectByKeys(Collection<? extends K> keys, int parallelism) {
+        Objects.requireNonNull(keys, "keys is null");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism: " + parallelism);
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        if (keyColumnInfos.isEmpty())
+            throw new IllegalStateException(MessageFormat.format(messageNoKeyColumns, entityInfo.entityClass().getName()));
+
+        Database database = connection.getDatabase();
+
+        // A map (key values -> key)
+        Map<List<Object>, K> keyMap = new LinkedHashMap<>();
+        keys.forEach(key -> keyMap.putIfAbsent(keyValues(database, Objects.requireNonNull(key, "keys contains null")), key));
+
+        // Splits the keys into chunks
+        int chunkSize = Math.max(database.maxKeysPerSelect() / keyColumnInfos.size(), 1);
+        List<List<Object>> keyValuesList = new ArrayList<>(keyMap.keySet());
+        List<List<List<Object>>> chunks = new ArrayList<>();
+        for (int index = 0; index < keyValuesList.size(); index += chunkSize)
+            chunks.add(keyValuesList.subList(index, Math.min(index + chunkSize, keyValuesList.size())));
+
+        // A map (key values -> entity)
+        Map<List<Object>, E> entityMap = new ConcurrentHashMap<>();
+        Consumer<E> consumer = entity -> entityMap.put(keyValues(entity), entity);
+
+        if (parallelism == 1 || chunks.size() <= 1) {
+            chunks.forEach(chunk -> keysSql(database, chunk).select(consumer));
+
+        } else {
+            ConnectionSupplier supplier = connection.getSupplier();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+            try {
+                List<Future<?>> futures = chunks.stream()
+                    .map(chunk -> executor.submit(() ->
+                        Transaction.execute(supplier, conn -> keysSql(database, chunk).connection(conn).select(consumer))
+                    ))
+                    .collect(Collectors.toList());
+                for (Future<?> future : futures)
+                    future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException)e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        // Orders the entities by the keys
+        Map<K, E> resultMap = new LinkedHashMap<>();
+        keyMap.forEach((keyValues, key) -> {
+            E entity = entityMap.get(keyValues);
+            if (entity != null)
+                resultMap.put(key, entity);
+        });
+        return resultMap;
+    }
+
+    /**
+     * Returns the key values of the key object converted to the types of the key properties.
+     *
+     * @param database the database handler
+     * @param key the key value or the object that has the key properties
+     * @return the key values
+     *
+     * @since 4.1.0
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> keyValues(Database database, Object key) {
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        Accessor<Object> keyAccessor = keyColumnInfos.size() == 1
+            ? null : getEntityInfo((Class<Object>)key.getClass()).accessor();
+
+        return keyColumnInfos.stream()
+            .map(columnInfo -> {
+                String propertyName = columnInfo.propertyName();
+                Object value = keyAccessor == null ? key : keyAccessor.getValue(key, propertyName);
+                return database.convert(value, Utils.toClassType(entityInfo.accessor().getType(propertyName)));
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the key values of the entity.
+     *
+     * @param entity the entity
+     * @return the key values
+     *
+     * @since 4.1.0
+     */
+    private List<Object> keyValues(E entity) {
+        return entityInfo.keyColumnInfos().stream()
+            .map(columnInfo -> entityInfo.accessor().getValue(entity, columnInfo.propertyName()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a clone of this object with the condition that searches the chunk of keys.
+     *
+     * @param database the database handler
+     * @param chunk the list of the key values
+     * @return a clone of this object
+     *
+     * @since 4.1.0
+     */
+    private Sql<E> keysSql(Database database, List<List<Object>> chunk) {
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        Condition condition;
+
+        if (keyColumnInfos.size() == 1) {
+            // One key column
+            ColumnInfo columnInfo = keyColumnInfos.get(0);
+            String propertyName = columnInfo.propertyName();
+            Class<?> valueType = columnInfo.columnType() != null
+                ? columnInfo.columnType()
+                : Utils.toClassType(entityInfo.accessor().getType(propertyName));
+
+            if (database.supportsArrayParameter(valueType)) {
+                // {key}=ANY(?)
+                Object[] array = (Object[])java.lang.reflect.Array.newInstance(valueType, chunk.size());
+                for (int index = 0; index < array.length; ++index)
+                    array[index] = database.convert(chunk.get(index).get(0), valueType);
+                condition = Condition.of('{' + propertyName + "}=ANY({})", new SqlString(SqlString.PARAMETER, (Object)array));
+
+            } else {
+                // {key} IN ({},{},...)
+                Object[] values = chunk.stream()
+                    .map(keyValues -> database.convert(keyValues.get(0), valueType))
+                    .toArray();
+                condition = Condition.of('{' + propertyName + "} IN (" + String.join(",", Collections.nCopies(values.length, "{}")) + ')', values);
+            }
+
+        } else {
+            // Multiple key columns: ({key1}={} AND {key2}={}) OR ...
+            condition = Condition.or(chunk.stream()
+                .map(keyValues -> {
+                    Condition keyCondition = Condition.EMPTY;
+                    for (int index = 0; index < keyColumnInfos.size(); ++index)
+                        keyCondition = keyCondition.and('{' + keyColumnInfos.get(index).propertyName() + "}={}", keyValues.get(index));
+                    return keyCondition;
+                })
+            );
+        }
+
+        Sql<E> sql = clone();
+        sql.where = where.isEmpty() ? condition : where.and(condition);
+        return sql;
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that scan the partitions of the rows in parallel
+     * and calls <b>consumer</b> for each selected entity.
+     *
+     * <p>
+     * This is equivalent to <b>parallelScan(partitions, consumer, (partition, rowCount) -&gt; true)</b>.
+     * </p>
+     *
+     * @param partitions the number of the partitions
+     * @param consumer a thread-safe consumer for the selected entities
+     * @return the number of the selected rows
+     *
+     * @throws NullPointerException if <b>consumer</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>partitions</b> is less than 1
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class does not have key columns
+     * @throws IllegalStateException if the limit, the offset or a <i>UNION</i> is specified
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #parallelScan(int, Consumer, BiPredicate)
+     */
+    public int parallelScan(int partitions, Consumer<? super E> consumer) {
+        return parallelScan(partitions, consumer, (partition, rowCount) -> true);
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that scan the partitions of the rows in parallel
+     * and calls <b>consumer</b> for each selected entity.
+     *
+     * <p>
+     * Splits the range of the first key column into <b>partitions</b> key ranges
+     * using the minimum and maximum values of it selected with the condition of this object,
+     * and adds the condition of each key range to the <i>WHERE</i> clause.
+     * Each partition is selected in its own transaction with a connection got from
+     * the connection supplier of the connection wrapper of this object,
+     * by up to <b>partitions</b> threads.<br>
+     * If the first key column is not an integer type or there are too few rows,
+     * the rows are selected in fewer partitions.
+     * </p>
+     *
+     * <p>
+     * <b>progress</b> is called with the partition index and the number of rows selected in the partition
+     * after each entity is consumed. If it returns <b>false</b>, the scan of all partitions is cancelled.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ConcurrentLinkedQueue&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .where("{birthday}&lt;{}", LocalDate.of(2000, 1, 1))
+     *         .connection(conn)
+     *         .<b>parallelScan(4, contacts::add, (partition, rowCount) -&gt; !cancelled)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * def contacts = new ConcurrentLinkedQueue&lt;Contact&gt;()
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .where('{birthday}&lt;{}', LocalDate.of(2000, 1, 1))
+     *         .connection(it)
+     *         .<b>parallelScan(4, {contacts &lt;&lt; it}, {partition, rowCount -&gt; !cancelled})</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * Specify a value of <b>partitions</b> less than the maximum size of the connection pool.
+     * </p>
+     *
+     * @param partitions the number of the partitions
+     * @param consumer a thread-safe consumer for the selected entities
+     * @param progress a thread-safe predicate called with the partition index and the number of rows selected in the partition
+     * @return the number of the selected rows
+     *
+     * @throws NullPointerException if <b>consumer</b> or <b>progress</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>partitions</b> is less than 1
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class does not have key columns
+     * @throws IllegalStateException if the limit, the offset or a <i>UNION</i> is specified
+     * @throws CancellationException if <b>progress</b> returned <b>false</b>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #parallelScan(int, Consumer)
+     */
+    public int parallelScan(int partitions, Consumer<? super E> consumer, BiPredicate<Integer, Integer> progress) {
+        Objects.requireNonNull(consumer, "consumer is null");
+        Objects.requireNonNull(progress, "progress is null");
+        if (partitions < 1)
+            throw new IllegalArgumentException("partitions: " + partitions);
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        if (keyColumnInfos.isEmpty())
+            throw new IllegalStateException(MessageFormat.format(messageNoKeyColumns, entityInfo.entityClass().getName()));
+        if (limit != Integer.MAX_VALUE || offset != 0 || !unionSqls.isEmpty())
+            throw new IllegalStateException("limit: " + limit + ", offset: " + offset + ", unionSqls: " + unionSqls.size());
+
+        List<Sql<E>> partitionSqls = partitionSqls(keyColumnInfos.get(0), partitions);
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        int[] rowCounts = new int[partitionSqls.size()];
+        List<Consumer<E>> partitionConsumers = new ArrayList<>();
+        for (int index = 0; index < rowCounts.length; ++index) {
+            int partition = index;
+            partitionConsumers.add(entity -> {
+                if (cancelled.get())
+                    throw new CancellationException();
+                consumer.accept(entity);
+                if (!progress.test(partition, ++rowCounts[partition])) {
+                    cancelled.set(true);
+                    throw new CancellationException();
+                }
+            });
+        }
+
+        if (partitionSqls.size() == 1) {
+            partitionSqls.get(0).connection(connection).select(partitionConsumers.get(0));
+
+        } else {
+            ConnectionSupplier supplier = connection.getSupplier();
+            ExecutorService executor = Executors.newFixedThreadPool(partitionSqls.size());
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int index = 0; index < partitionSqls.size(); ++index) {
+                    Sql<E> partitionSql = partitionSqls.get(index);
+                    Consumer<E> partitionConsumer = partitionConsumers.get(index);
+                    futures.add(executor.submit(() -> {
+                        try {
+                            Transaction.execute(supplier, conn -> partitionSql.connection(conn).select(partitionConsumer));
+                        }
+                        catch (RuntimeException e) {
+                            // Cancels the other partitions
+                            cancelled.set(true);
+                            throw e;
+                        }
+                    }));
+                }
+
+                RuntimeException exception = null;
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    }
+                    catch (ExecutionException e) {
+                        RuntimeException cause = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException)e.getCause() : new RuntimeException(e.getCause());
+                        if (exception == null || exception instanceof CancellationException)
+                            exception = cause;
+                    }
+                }
+                if (exception != null)
+                    throw exception;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        return Arrays.stream(rowCounts).sum();
+    }
+
+    /**
+     * Returns the <b>Sql</b> objects of the partitions of the key ranges.
+     *
+     * @param keyColumnInfo the column information of the first key column
+     * @param partitions the number of the partitions
+     * @return the list of the <b>Sql</b> objects
+     *
+     * @since 4.1.0
+     */
+    private List<Sql<E>> partitionSqls(ColumnInfo keyColumnInfo, int partitions) {
+        List<Sql<E>> partitionSqls = new ArrayList<>();
+
+        Class<?> keyType = Utils.toClassType(entityInfo.accessor().getType(keyColumnInfo.propertyName()));
+        if (partitions == 1 || !(keyType == Byte.class || keyType == Short.class || keyType == Integer.class || keyType == Long.class)) {
+            partitionSqls.add(clone());
+            return partitionSqls;
+        }
+
+        // The minimum and maximum values of the key
+        String keyProperty = tableAlias.isEmpty() ? keyColumnInfo.propertyName() : tableAlias + '.' + keyColumnInfo.propertyName();
+        String keyExpression = '{' + keyProperty + '}';
+        long[] minValues = clone().setOrderBy(new OrderBy()).orderBy(keyExpression).asc().limit(1).selectLongs(keyProperty);
+        long[] maxValues = clone().setOrderBy(new OrderBy()).orderBy(keyExpression).desc().limit(1).selectLongs(keyProperty);
+        if (minValues.length == 0 || maxValues.length == 0) {
+            partitionSqls.add(clone());
+            return partitionSqls;
+        }
+
+        // Splits [min, max] into the key ranges
+        BigInteger min = BigInteger.valueOf(minValues[0]);
+        BigInteger size = BigInteger.valueOf(maxValues[0]).subtract(min).add(BigInteger.ONE);
+        int count = size.min(BigInteger.valueOf(partitions)).intValue();
+        for (int index = 0; index < count; ++index) {
+            Sql<E> partitionSql = clone();
+            if (index > 0)
+                partitionSql.and(keyExpression + ">={}",
+                    min.add(size.multiply(BigInteger.valueOf(index)).divide(BigInteger.valueOf(count))).longValue());
+            if (index < count - 1)
+                partitionSql.and(keyExpression + "<{}",
+                    min.add(size.multiply(BigInteger.valueOf(index + 1)).divide(BigInteger.valueOf(count))).longValue());
+            partitionSqls.add(partitionSql);
+        }
+        return partitionSqls;
+    }
+
+    // The futures of the selects being executed by selectShared (connection supplier, SQL, parameters : future) @since 4.1.0
+    private static final Map<List<Object>, CompletableFuture<List<?>>> sharedSelectMap = new ConcurrentHashMap<>();
+
+    /**
+     * Selects the entities in a new transaction sharing the result with the concurrent identical selects.
+     *
+     * <p>
+     * If another thread is executing the same <i>SELECT</i> SQL (the same generated SQL and parameters)
+     * with the same connection supplier by this method,
+     * waits for the result of it instead of getting a connection and executing the SQL again.
+     * If the result is not returned within <b>timeout</b> ms, executes the SQL in this thread.<br>
+     * This is useful for reducing the load of the database when many threads select the same rows at the same time
+     * (e.g. when a cache expired).
+     * </p>
+     *
+     * <p>
+     * The returned list is unmodifiable and the entities are shared by the threads.
+     * Do not modify the entities.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Product&gt; products = new Sql&lt;&gt;(Product.class)
+     *     .where("{category}={}", category)
+     *     .orderBy("{id}")
+     *     <b>.selectShared(connectionSupplier, 1000)</b>;
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Product&gt; products = new Sql&lt;&gt;(Product)
+     *     .where('{category}={}', category)
+     *     .orderBy('{id}')
+     *     <b>.selectShared(connectionSupplier, 1000)</b>
+     * </pre></div>
+     *
+     * @param connectionSupplier the connection supplier
+     * @param timeout the maximum time (ms) to wait for the result of another thread
+     * @return an unmodifiable list of the selected entities
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>timeout</b> is negative
+     * @throws IllegalStateException if <i>FOR UPDATE</i> is specified
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> selectShared(ConnectionSupplier connectionSupplier, long timeout) {
+        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        if (timeout < 0L)
+            throw new IllegalArgumentException("timeout: " + timeout);
+        if (forUpdate)
+            throw new IllegalStateException("forUpdate: " + forUpdate);
+
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+        List<Object> parameters = new ArrayList<>();
+        String sqlString = connectionSupplier.getDatabase().selectSql(sql, parameters).toString();
+        List<Object> key = Arrays.asList(connectionSupplier, sqlString, parameters);
+
+        CompletableFuture<List<?>> future = new CompletableFuture<>();
+        CompletableFuture<List<?>> sharedFuture = sharedSelectMap.putIfAbsent(key, future);
+        if (sharedFuture != null) {
+            // Waits for the result of another thread
+            try {
+                List<E> entities = (List<E>)sharedFuture.get(timeout, TimeUnit.MILLISECONDS);
+                logger.debug(() -> "Sql.selectShared: shared: " + sqlString);
+                return entities;
+            }
+            catch (TimeoutException e) {
+                logger.debug(() -> "Sql.selectShared: timed out: " + sqlString);
+                return Collections.unmodifiableList(selectInTransaction(connectionSupplier));
+            }
+            catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException)e.getCause() : new RuntimeException(e.getCause());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        try {
+            List<E> entities = Collections.unmodifiableList(selectInTransaction(connectionSupplier));
+            future.complete(entities);
+            return entities;
+        }
+        catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            sharedSelectMap.remove(key, future);
+        }
+    }
+
+    /**
+     * Selects the entities in a new transaction.
+     *
+     * @param connectionSupplier the connection supplier
+     * @return a list of the selected entities
+     *
+     * @since 4.1.0
+     */
+    private List<E> selectInTransaction(ConnectionSupplier connectionSupplier) {
+        List<E> entities = new ArrayList<>();
+        Transaction.execute(connectionSupplier, conn -> clone().connection(conn).select(entities::add));
+        return entities;
+    }
+
+    /**
+     * Returns a <b>PreparedSql</b> of which the <i>SELECT</i> SQL is generated from a copy of this object.
+     *
+     * <p>
+     * Specify {@link PreparedSql#arg(int)} in place of the values that change for each execution,
+     * and call {@link PreparedSql#bind(Object...)} before executing the <i>SELECT</i> SQL.<br>
+     * The SQL is generated only once for each database handler,
+     * and changes to this object after calling this method do not affect the <b>PreparedSql</b>.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * PreparedSql&lt;Contact&gt; preparedSql = new Sql&lt;&gt;(Contact.class)
+     *     .where("{id}={}", PreparedSql.arg(0))
+     *     <b>.prepare()</b>;
+     *
+     * var contact = new Contact[1];
+     * Transaction.execute(conn -&gt;
+     *     contact[0] = preparedSql.bind(1).select(conn).orElse(null)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * PreparedSql&lt;Contact&gt; preparedSql = new Sql&lt;&gt;(Contact)
+     *     .where('{id}={}', PreparedSql.arg(0))
+     *     <b>.prepare()</b>
+     *
+     * Contact contact
+     * Transaction.execute {
+     *     contact = preparedSql.bind(1).select(it).orElse(null)
+     * }
+     * </pre></div>
+     *
+     * @return a new <b>PreparedSql</b>
+     *
+     * @since 4.1.0
+     * @see PreparedSql
+     */
+    public PreparedSql<E> prepare() {
+        Sql<E> sql = clone();
+        sql.connection = null;
+        sql.generatedSql = null;
+        if (sql.where.isEmpty())
+            sql.where(Condition.ALL);
+        if (sql.columns.isEmpty() && sql.joinInfos.size() > 0)
+            sql.columns.add(tableAlias + ".*");
+        return new PreparedSql<>(sql);
+    }
+
+    /**
+     * Executes the <i>SELECT</i> SQL generated by a <b>PreparedSql</b>.
+     *
+     * @param sqlString the generated SQL
+     * @param parameters the parameters of the SQL
+     * @param consumer a consumer of the entities created from the <b>ResultSet</b>
+     *
+     * @since 4.1.0
+     */
+    void selectPrepared(String sqlString, List<Object> parameters, Consumer<? super E> consumer) {
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        generatedSql = sqlString;
+        executeQuery(generatedSql, parameters, getRowConsumer(this, consumer));
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and returns an array of the long values of the column.
+     *
+     * <p>
+     * This is equivalent to <b>selectLongs(propertyName, null)</b>, so the rows with <i>NULL</i> are skipped.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var ids = new long[1][];
+     * Transaction.execute(conn -&gt;
+     *     ids[0] = new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectLongs("id")</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * long[] ids
+     * Transaction.execute {
+     *     ids = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>selectLongs('id')</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param propertyName the property name (e.g. "id", "C.id")
+     * @return an array of the column values
+     *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectLongs(String, BitSet)
+     */
+    public long[] selectLongs(String propertyName) {
+        return selectLongs(propertyName, null);
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and returns an array of the long values of the column.
+     *
+     * <p>
+     * Reads the values with <b>ResultSet.getLong</b> and <b>ResultSet.wasNull</b>
+     * into a long array without creating entities and boxed values.<br>
+     * If <b>nulls</b> is <b>null</b>, the rows with <i>NULL</i> are skipped.
+     * Otherwise 0 is stored for the rows with <i>NULL</i> and the bits of <b>nulls</b> at the indexes of the rows are set.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var nulls = new BitSet();
+     * var ids = new long[1][];
+     * Transaction.execute(conn -&gt;
+     *     ids[0] = new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectLongs("id", nulls)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * def nulls = new BitSet()
+     * long[] ids
+     * Transaction.execute {
+     *     ids = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>selectLongs('id', nulls)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param propertyName the property name (e.g. "id", "C.id")
+     * @param nulls a bit set to set the indexes of the rows with <i>NULL</i>, or <b>null</b> to skip the rows
+     * @return an array of the column values
+     *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectLongs(String)
+     */
+    public long[] selectLongs(String propertyName, BitSet nulls) {
+        return selectValues(propertyName, nulls, long[]::new,
+            (resultSet, columnLabel, values, index) -> values[index] = resultSet.getLong(columnLabel));
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and returns an array of the int values of the column.
+     *
+     * <p>
+     * This is equivalent to <b>selectInts(propertyName, null)</b>, so the rows with <i>NULL</i> are skipped.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var prices = new int[1][];
+     * Transaction.execute(conn -&gt;
+     *     prices[0] = new Sql&lt;&gt;(Product.class)
+     *         .where("{color}={}", "Blue")
+     *         .connection(conn)
+     *         .<b>selectInts("price")</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * int[] prices
+     * Transaction.execute {
+     *     prices = new Sql&lt;&gt;(Product)
+     *         .where('{color}={}', 'Blue')
+     *         .connection(it)
+     *         .<b>selectInts('price')</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param propertyName the property name (e.g. "id", "C.id")
+     * @return an array of the column values
+     *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectInts(String, BitSet)
+     */
+    public int[] selectInts(String propertyName) {
+        return selectInts(propertyName, null);
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and returns an array of the int values of the column.
+     *
+     * <p>
+     * Reads the values with <b>ResultSet.getInt</b> and <b>ResultSet.wasNull</b>
+     * into a int array without creating entities and boxed values.<br>
+     * If <b>nulls</b> is <b>null</b>, the rows with <i>NULL</i> are skipped.
+     * Otherwise 0 is stored for the rows with <i>NULL</i> and the bits of <b>nulls</b> at the indexes of the rows are set.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var nulls = new BitSet();
+     * var prices = new int[1][];
+     * Transaction.execute(conn -&gt;
+     *     prices[0] = new Sql&lt;&gt;(Product.class)
+     *         .where("{color}={}", "Blue")
+     *         .connection(conn)
+     *         .<b>selectInts("price", nulls)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * def nulls = new BitSet()
+     * int[] prices
+     * Transaction.execute {
+     *     prices = new Sql&lt;&gt;(Product)
+     *         .where('{color}={}', 'Blue')
+     *         .connection(it)
+     *         .<b>selectInts('price', nulls)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param propertyName the property name (e.g. "id", "C.id")
+     * @param nulls a bit set to set the indexes of the rows with <i>NULL</i>, or <b>null</b> to skip the rows
+     * @return an array of the column values
+     *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectInts(String)
+     */
+    public int[] selectInts(String propertyName, BitSet nulls) {
+        return selectValues(propertyName, nulls, int[]::new,
+            (resultSet, columnLabel, values, index) -> values[index] = resultSet.getInt(columnLabel));
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and returns an array of the double values of the column.
+     *
+     * <p>
+     * This is equivalent to <b>selectDoubles(propertyName, null)</b>, so the rows with <i>NULL</i> are skipped.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var prices = new double[1][];
+     * Transaction.execute(conn -&gt;
+     *     prices[0] = new Sql&lt;&gt;(Product.class)
+     *         .where("{color}={}", "Blue")
+     *         .connection(conn)
+     *         .<b>selectDoubles("price")</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * double[] prices
+     * Transaction.execute {
+     *     prices = new Sql&lt;&gt;(Product)
+     *         .where('{color}={}', 'Blue')
+     *         .connection(it)
+     *         .<b>selectDoubles('price')</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param propertyName the property name (e.g. "id", "C.id")
+     * @return an array of the column values
+     *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectDoubles(String, BitSet)
+     */
+    public double[] selectDoubles(String propertyName) {
+        return selectDoubles(propertyName, null);
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and returns an array of the double values of the column.
+     *
+     * <p>
+     * Reads the values with <b>ResultSet.getDouble</b> and <b>ResultSet.wasNull</b>
+     * into a double array without creating entities and boxed values.<br>
+     * If <b>nulls</b> is <b>null</b>, the rows with <i>NULL</i> are skipped.
+     * Otherwise 0 is stored for the rows with <i>NULL</i> and the bits of <b>nulls</b> at the indexes of the rows are set.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var nulls = new BitSet();
+     * var prices = new double[1][];
+     * Transaction.execute(conn -&gt;
+     *     prices[0] = new Sql&lt;&gt;(Product.class)
+     *         .where("{color}={}", "Blue")
+     *         .connection(conn)
+     *         .<b>selectDoubles("price", nulls)</b>
      * );
      * </pre></div>
      *
      * <div class="exampleTitle"><span>Groovy Example</span></div>
      * <div class="exampleCode"><pre>
-     * int count
+     * def nulls = new BitSet()
+     * double[] prices
      * Transaction.execute {
-     *     count = new Sql&lt;&gt;(Contact)
+     *     prices = new Sql&lt;&gt;(Product)
+     *         .where('{color}={}', 'Blue')
      *         .connection(it)
-     *         .<b>selectCount()</b>
+     *         .<b>selectDoubles('price', nulls)</b>
      * }
      * </pre></div>
      *
@@ -3144,33 +4673,138 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
      * </p>
      *
-     * @return the number of selected rows
+     * @param propertyName the property name (e.g. "id", "C.id")
+     * @param nulls a bit set to set the indexes of the rows with <i>NULL</i>, or <b>null</b> to skip the rows
+     * @return an array of the column values
      *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
      * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
      *
-     * @since 2.0.0
+     * @since 4.1.0
+     * @see #selectDoubles(String)
      */
-    public int selectCount() {
-        if (connection == null)
-            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
-
-        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+    public double[] selectDoubles(String propertyName, BitSet nulls) {
+        return selectValues(propertyName, nulls, double[]::new,
+            (resultSet, columnLabel, values, index) -> values[index] = resultSet.getDouble(columnLabel));
+    }
 
-        List<Object> parameters = new ArrayList<>();
-    // 4.0.0
-    //  String sqlString = connection.getDatabase().subSelectSql(sql, null, () -> "COUNT(*)", parameters);
-        CharSequence sqlString = connection.getDatabase().subSelectSql(sql, null, () -> "COUNT(*)", parameters);
-    ////
+    /**
+     * Reads the value of the column into an element of a primitive array.
+     *
+     * @param <A> the type of the array
+     *
+     * @since 4.1.0
+     */
+    @FunctionalInterface
+    private interface ValueReader<A> {
+        /**
+         * Reads the value of the column of the current row into the element of the array.
+         *
+         * @param resultSet the <b>ResultSet</b> positioned at a row
+         * @param columnLabel the column label
+         * @param values the array
+         * @param index the index of the element
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        void read(ResultSet resultSet, String columnLabel, A values, int index) throws SQLException;
+    }
 
-        int[] count = new int[1];
-        executeQuery(sqlString, parameters, resultSet -> {
+    /**
+     * Selects the column related to the property into a primitive array
+     * for select{Longs|Ints|Doubles}.
+     *
+     * @param <A> the type of the array
+     * @param propertyName the property name
+     * @param nulls a <b>BitSet</b> to set the indexes of the <i>NULL</i> values, or <b>null</b> to skip them
+     * @param newArray the function creating an array of the length
+     * @param reader the reader of the value of each row
+     * @return an array of the values
+     *
+     * @since 4.1.0
+     */
+    private <A> A selectValues(String propertyName, BitSet nulls, IntFunction<A> newArray, ValueReader<A> reader) {
+        A[] values = (A[])new Object[] {newArray.apply(INITIAL_ARRAY_LENGTH)};
+        int[] counts = new int[] {0, INITIAL_ARRAY_LENGTH}; // the number of the values, the length of the array
+        selectColumn(propertyName, (resultSet, columnLabel) -> {
             try {
-                count[0] = resultSet.getInt(1);
+                if (counts[0] == counts[1]) {
+                    counts[1] *= 2;
+                    A newValues = newArray.apply(counts[1]);
+                    System.arraycopy(values[0], 0, newValues, 0, counts[0]);
+                    values[0] = newValues;
+                }
+                reader.read(resultSet, columnLabel, values[0], counts[0]);
+                if (resultSet.wasNull()) {
+                    if (nulls == null) return; // overwritten by the next value
+                    nulls.set(counts[0]);
+                }
+                ++counts[0];
             }
             catch (SQLException e) {throw new RuntimeSQLException(e);}
         });
-        return count[0];
+
+        A result = newArray.apply(counts[0]);
+        System.arraycopy(values[0], 0, result, 0, counts[0]);
+        return result;
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that selects the column related to the property
+     * and calls <b>consumer</b> with the <b>ResultSet</b> positioned at each row.
+     *
+     * <p>
+     * <i>This method is used internally.</i>
+     * </p>
+     *
+     * @param propertyName the property name
+     * @param consumer a consumer of the <b>ResultSet</b> and the column label
+     *
+     * @throws NullPointerException if <b>propertyName</b> is <b>null</b>
+     * @throws IllegalArgumentException if the column related to <b>propertyName</b> is not found
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    public void selectColumn(String propertyName, BiConsumer<ResultSet, String> consumer) {
+        Objects.requireNonNull(propertyName, "propertyName is null");
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : clone();
+        sql.columns.clear();
+        sql.columns.add(propertyName);
+
+        // The LobRef columns are not selectable but selected by themselves
+        SqlColumnInfo sqlColumnInfo = sql.selectedJoinSqlColumnInfoStream()
+            .filter(sqlColumnInfo2 -> sqlColumnInfo2.columnInfo().selectable() || isLobRef(sqlColumnInfo2.columnInfo()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("propertyName: " + propertyName));
+        ColumnInfo columnInfo = sqlColumnInfo.columnInfo();
+        boolean lobRef = !columnInfo.selectable();
+        String columnLabel = lobRef ? columnInfo.columnName() : columnInfo.getColumnAlias(sqlColumnInfo.tableAlias());
+
+        List<Object> parameters = new ArrayList<>();
+        generatedSql = generate(sql, s -> lobRef
+            ? connection.getDatabase().lobSelectSql(s, columnInfo, parameters)
+            : connection.getDatabase().selectSql(s, parameters));
+
+        sql.executeQuery(generatedSql, parameters, resultSet -> consumer.accept(resultSet, columnLabel));
+    }
+
+    /**
+     * Returns <b>true</b> if the property related to the column is a <b>LobRef</b>.
+     *
+     * @param columnInfo the column information
+     * @return <b>true</b> if the property is a <b>LobRef</b>, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    private static boolean isLobRef(ColumnInfo columnInfo) {
+        return columnInfo.entityInfo().accessor().getType(columnInfo.propertyName()) == LobRef.class;
     }
 
     /**
@@ -3194,7 +4828,7 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         fromSql.isInInsertFrom = true;
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().insertSql(this, parameters);
+        generatedSql = generate(this, s -> connection.getDatabase().insertSql(s, parameters)); // since 4.1.0
         int count = executeUpdate(generatedSql, parameters);
 
         return count;
@@ -3252,10 +4886,17 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         if (entity instanceof PreInsert)
             ((PreInsert)entity).preInsert(connection);
     
+        // The key columns of which the values are generated @since 4.1.0
+        List<ColumnInfo> generatedKeyColumnInfos = returnGeneratedKeys
+            ? entityInfo.keyColumnInfos().stream()
+                .filter(columnInfo -> !columnInfo.insertable() || !columnInfo.insertExpression().isEmpty())
+                .collect(Collectors.toList())
+            : Collections.emptyList();
+
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().insertSql(sql, parameters);
-        int count = sql.executeUpdate(generatedSql, parameters);
-    
+        generatedSql = generate(sql, s -> connection.getDatabase().insertSql(s, parameters)); // since 4.1.0
+        int count = sql.executeUpdate(generatedSql, parameters, generatedKeyColumnInfos);
+
         // after INSERT
         if (entity instanceof PostInsert)
             ((PostInsert)entity).postInsert(connection);
@@ -3362,8 +5003,13 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
      * </p>
      *
+     * <p>
+     * If the entity was selected with {@link #trackChanges()} on the same connection
+     * and the columns are not specified, updates only the changed columns.
+     * </p>
+     *
      * @param entity the entity to be updated
-     * @return the number of rows updated
+     * @return the number of rows updated (0 if no property of a tracked entity has been changed)
      *
      * @throws NullPointerException if <b>entity</b> is <b>null</b>
      * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
@@ -3386,14 +5032,42 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         if (sql.where.isEmpty())
             sql.where = Condition.of(entity);
 
+        // The snapshot taken when selected @since 4.1.0
+        Snapshot snapshot = columns.isEmpty() ? (Snapshot)connection.getSnapshot(entity) : null;
+        Set<String> propertyNames = snapshot != null ? snapshot.changedPropertyNames(entityInfo, entity) : null;
+        if (propertyNames != null && propertyNames.isEmpty()) {
+            logger.debug(() -> "Sql.update: not changed: " + entity);
+            return 0;
+        }
+
         // before UPDATE
-        if (entity instanceof PreUpdate)
+        if (entity instanceof PreUpdate) {
             ((PreUpdate)entity).preUpdate(connection);
+            // Includes the properties changed by preUpdate @since 4.1.0
+            if (snapshot != null)
+                propertyNames = snapshot.changedPropertyNames(entityInfo, entity);
+        }
+
+        if (snapshot != null) {
+            // Updates the changed columns and the columns with an update expression @since 4.1.0
+            entityInfo.columnInfos().stream()
+                .filter(ColumnInfo::updatable)
+                .filter(columnInfo -> !snapshot.contains(columnInfo)
+                    || !columnInfo.updateExpression().isEmpty()
+                    || !getExpression(columnInfo.propertyName()).isEmpty())
+                .map(ColumnInfo::propertyName)
+                .forEach(propertyNames::add);
+            sql.columns(propertyNames);
+        }
 
         List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().updateSql(sql, parameters);
+        generatedSql = generate(sql, s -> connection.getDatabase().updateSql(s, parameters)); // since 4.1.0
         int count = sql.executeUpdate(generatedSql, parameters);
 
+        // Takes a new snapshot @since 4.1.0
+        if (snapshot != null)
+            connection.putSnapshot(entity, new Snapshot(entityInfo, snapshot.columnInfos, entity));
+
         // after UPDATE
         if (sql.where instanceof EntityCondition && entity instanceof PostUpdate)
             ((PostUpdate)entity).postUpdate(connection);
@@ -3533,119 +5207,535 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         List<Object> parameters = new ArrayList<>();
     // 4.0.0
     //  String sqlString = connection.getDatabase().deleteSql(this, parameters);
-        CharSequence sqlString = connection.getDatabase().deleteSql(this, parameters);
+        CharSequence sqlString = generate(this, s -> connection.getDatabase().deleteSql(s, parameters)); // since 4.1.0
     ////
         return executeUpdate(sqlString, parameters);
     }
 
     /**
-     * Generates and executes a <i>DELETE</i> SQL for the specified entity.
+     * Generates and executes a <i>DELETE</i> SQL for the specified entity.
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>delete(new ContactKey(contacts.get(6-1).id))</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>delete(new ContactKey(contacts[6-1].id))</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param entity the entity to be deleted
+     * @return the number of rows deleted
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 2.0.0
+     */
+    public int delete(E entity) {
+        Objects.requireNonNull(entity, "entity is null");
+
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        Sql<E> sql = clone().where(Condition.of(entity));
+
+        // before DELETE
+        if (entity instanceof PreDelete)
+            ((PreDelete)entity).preDelete(connection);
+
+        List<Object> parameters = new ArrayList<>();
+        generatedSql = generate(sql, s -> connection.getDatabase().deleteSql(s, parameters)); // since 4.1.0
+        int count = sql.executeUpdate(generatedSql, parameters);
+
+        // after DELETE
+        if (entity instanceof PostDelete)
+            ((PostDelete)entity).postDelete(connection);
+
+        return count;
+    }
+
+    /**
+     * Generates and executes <i>DELETE</i> SQLs for each element of entities.
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var count = new int[1];
+     * Transaction.execute(conn -&gt;
+     *     count[0] = new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>delete(Arrays.asList(
+     *             new ContactKey(contacts.get(7-1).id),
+     *             new ContactKey(contacts.get(8-1).id),
+     *             new ContactKey(contacts.get(9-1).id)
+     *         ))</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * int count
+     * Transaction.execute {
+     *     count = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>delete([
+     *             new ContactKey(contacts[7-1].id),
+     *             new ContactKey(contacts[8-1].id),
+     *             new ContactKey(contacts[9-1].id)
+     *         ])</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param entities an <b>Iterable</b> of entities
+     * @return the number of rows deleted
+     *
+     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 2.0.0
+     */
+    public int delete(Iterable<? extends E> entities) {
+        int[] count = new int[1];
+        Objects.requireNonNull(entities, "entities is null")
+            .forEach(entity -> count[0] += delete(entity));
+        return count[0];
+    }
+
+    /**
+     * The operations of {@link Sql#executeBatch(BatchOperation, List)}.
+     *
+     * @since 4.1.0
+     */
+    public enum BatchOperation {
+        /** <i>INSERT</i> */
+        INSERT,
+
+        /** <i>UPDATE</i> with the key values of the entity */
+        UPDATE,
+
+        /** <i>DELETE</i> with the key values of the entity */
+        DELETE
+    }
+
+    /**
+     * Generates <i>INSERT</i>, <i>UPDATE</i> or <i>DELETE</i> SQLs for each element of <b>entities</b>
+     * and executes them as a JDBC batch.
+     *
+     * <p>
+     * The SQLs are added to a batch of a <b>java.sql.Statement</b>
+     * and sent to the database together, so that the round trips are reduced.<br>
+     * The SQLs with parameters (e.g. a long string or binary value) are executed individually
+     * after the preceding batch is executed.
+     * The entities implementing <b>PostInsert</b> are inserted individually too,
+     * so that <b>postInsert</b> is called just after each row is inserted.<br>
+     * The <b>PreXxx</b> methods of the entities are called before the SQLs are generated
+     * and the <b>PostXxx</b> methods are called after the batch is executed.
+     * </p>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param operation the operation
+     * @param entities the entities
+     * @return the number of rows inserted, updated or deleted
+     *
+     * @throws NullPointerException if <b>operation</b>, <b>entities</b> or any element of <b>entities</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see UnitOfWork
+     */
+    public int executeBatch(BatchOperation operation, List<? extends E> entities) {
+        Objects.requireNonNull(operation, "operation is null");
+        Objects.requireNonNull(entities, "entities is null");
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        int count = 0;
+        List<E> batchEntities = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            for (E entity : entities) {
+                Objects.requireNonNull(entity, "entity is null");
+
+                if (operation == BatchOperation.INSERT && entity instanceof PostInsert) {
+                    count += executeBatch(statement, operation, batchEntities);
+                    count += insert(entity);
+                    continue;
+                }
+
+                Sql<E> sql = clone().setEntity(entity);
+                CharSequence sqlString;
+                List<Object> parameters = new ArrayList<>();
+                switch (operation) {
+                case INSERT:
+                    if (entity instanceof PreInsert)
+                        ((PreInsert)entity).preInsert(connection);
+                    sqlString = generate(sql, s -> connection.getDatabase().insertSql(s, parameters)); // since 4.1.0
+                    break;
+                case UPDATE:
+                    sql.where = Condition.of(entity);
+                    if (entity instanceof PreUpdate)
+                        ((PreUpdate)entity).preUpdate(connection);
+                    sqlString = generate(sql, s -> connection.getDatabase().updateSql(s, parameters)); // since 4.1.0
+                    break;
+                default:
+                    sql.where = Condition.of(entity);
+                    if (entity instanceof PreDelete)
+                        ((PreDelete)entity).preDelete(connection);
+                    sqlString = generate(sql, s -> connection.getDatabase().deleteSql(s, parameters)); // since 4.1.0
+                    break;
+                }
+                generatedSql = sqlString;
+
+                if (!parameters.isEmpty()) {
+                    // Executes individually
+                    count += executeBatch(statement, operation, batchEntities);
+                    count += sql.executeUpdate(sqlString, parameters);
+                    postExecute(operation, entity);
+                    continue;
+                }
+
+                int sqlNo = Sql.sqlNo++;
+                if (logger.isInfoEnabled())
+                    logger.info('#' + Integer.toUnsignedString(sqlNo) + ' ' + connection.toString() + ' ' + sqlString);
+                statement.addBatch(sqlString.toString());
+                batchEntities.add(entity);
+            }
+
+            count += executeBatch(statement, operation, batchEntities);
+        }
+        catch (SQLException e) {throw new RuntimeSQLException(e);}
+
+        return count;
+    }
+
+    /**
+     * Executes the batch of the statement and calls the <b>PostXxx</b> methods of the entities.
+     *
+     * @param statement the statement
+     * @param operation the operation
+     * @param batchEntities the entities of the batch, cleared after executed
+     * @return the number of rows inserted, updated or deleted
+     *
+     * @throws SQLException if a database access error occurs
+     *
+     * @since 4.1.0
+     */
+    private int executeBatch(Statement statement, BatchOperation operation, List<E> batchEntities) throws SQLException {
+        if (batchEntities.isEmpty())
+            return 0;
+
+        PhaseEvent executeEvent = PhaseEvents.begin(Phase.STATEMENT_EXECUTE); // since 4.1.0
+        long execTimeBefore = System.nanoTime(); // Time of before execution
+        int[] rowCounts = statement.executeBatch();
+        long execTimeAfter = System.nanoTime(); // Time of after execution
+        statement.clearBatch();
+
+        int rowCount = 0;
+        for (int count : rowCounts)
+            rowCount += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        record(executeEvent, null, rowCount); // since 4.1.0
+
+        if (logger.isInfoEnabled()) {
+            String execTime = timeFormat.format((execTimeAfter - execTimeBefore) / 1_000_000.0);
+            String message = operation == BatchOperation.INSERT ? messageInsertedRows
+                : operation == BatchOperation.UPDATE ? messageUpdatedRows : messageDeletedRows;
+            logger.info("batch of " + rowCounts.length + " SQLs: " + MessageFormat.format(message, rowCount, execTime));
+        }
+
+        for (E entity : batchEntities)
+            postExecute(operation, entity);
+        batchEntities.clear();
+
+        return rowCount;
+    }
+
+    /**
+     * Calls the <b>PostXxx</b> method of the entity.
+     *
+     * @param operation the operation
+     * @param entity the entity
+     *
+     * @since 4.1.0
+     */
+    private void postExecute(BatchOperation operation, E entity) {
+        switch (operation) {
+        case INSERT:
+            if (entity instanceof PostInsert)
+                ((PostInsert)entity).postInsert(connection);
+            break;
+        case UPDATE:
+            if (entity instanceof PostUpdate)
+                ((PostUpdate)entity).postUpdate(connection);
+            break;
+        default:
+            if (entity instanceof PostDelete)
+                ((PostDelete)entity).postDelete(connection);
+            break;
+        }
+    }
+
+    // Whether bulkLoad uses the native bulk load function of the database @since 4.1.0
+    private static final boolean usesBulkLoader = Resource.getGlobal().getValue("useBulkLoader", Boolean::valueOf, true);
+
+    // The number of rows of a JDBC batch or a chunk of the BulkLoader of bulkLoad @since 4.1.0
+    private static final int BULK_BATCH_SIZE = 1000;
+
+    /**
+     * Loads the entities into the table as fast as the database can.
+     *
+     * <p>
+     * If the database handler provides a {@link BulkLoader} (e.g. <i>COPY</i> of PostgreSQL)
+     * and the JDBC driver supports it, the rows are loaded by it.
+     * Otherwise the rows are inserted with multi-row <i>INSERT</i> SQLs
+     * of up to {@link Database#maxRowsPerInsert()} rows and {@link Database#maxParameters()} parameters,
+     * or with JDBC batches if the database does not support multi-row <i>INSERT</i> SQLs.<br>
+     * The <b>BulkLoader</b> is not used if the entity class implements <b>PostInsert</b>,
+     * any insertable column has an expression or a type which the <b>BulkLoader</b> does not support
+     * (see {@link BulkLoader#supports(Class)}),
+     * or <b>useBulkLoader=false</b> is specified in <b>lightsleep.properties</b>.
+     * </p>
+     *
+     * <p>
+     * The <b>preInsert</b> methods of the entities are called
+     * (before each chunk of the rows is loaded if the <b>BulkLoader</b> is used),
+     * but the generated key values are not set to the entities.<br>
+     * If the <b>BulkLoader</b> does not load all rows (e.g. <i>LOAD DATA</i> of MySQL skips the rows with duplicate keys),
+     * <b>RuntimeSQLException</b> is thrown, so roll back the transaction.
+     * </p>
      *
      * <div class="exampleTitle"><span>Java Example</span></div>
      * <div class="exampleCode"><pre>
      * Transaction.execute(conn -&gt;
      *     new Sql&lt;&gt;(Contact.class)
      *         .connection(conn)
-     *         .<b>delete(new ContactKey(contacts.get(6-1).id))</b>
+     *         .<b>bulkLoad(contacts)</b>
      * );
      * </pre></div>
      *
-     * <div class="exampleTitle"><span>Groovy Example</span></div>
-     * <div class="exampleCode"><pre>
-     * Transaction.execute {
-     *     new Sql&lt;&gt;(Contact)
-     *         .connection(it)
-     *         .<b>delete(new ContactKey(contacts[6-1].id))</b>
-     * }
-     * </pre></div>
-     *
      * <p>
      * <span class="simpleTagLabel">Caution:</span>
      * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
      * </p>
      *
-     * @param entity the entity to be deleted
-     * @return the number of rows deleted
+     * @param entities an <b>Iterable</b> of entities
+     * @return the number of rows loaded
      *
-     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
      * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
      *
-     * @since 2.0.0
+     * @since 4.1.0
+     * @see Database#getBulkLoader()
      */
-    public int delete(E entity) {
-        Objects.requireNonNull(entity, "entity is null");
-
+    public long bulkLoad(Iterable<? extends E> entities) {
+        Objects.requireNonNull(entities, "entities is null");
         if (connection == null)
             throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
 
-        Sql<E> sql = clone().where(Condition.of(entity));
-
-        // before DELETE
-        if (entity instanceof PreDelete)
-            ((PreDelete)entity).preDelete(connection);
+        List<ColumnInfo> columnInfos = columnInfoStream()
+            .filter(ColumnInfo::insertable)
+            .collect(Collectors.toList());
+
+        BulkLoader bulkLoader = usesBulkLoader ? connection.getDatabase().getBulkLoader() : null;
+        if (bulkLoader != null
+            && !PostInsert.class.isAssignableFrom(entityInfo.entityClass())
+            && columnInfos.stream().allMatch(columnInfo ->
+                getExpression(columnInfo.propertyName()).isEmpty() && columnInfo.insertExpression().isEmpty()
+                && bulkLoader.supports(BulkLoader.valueType(columnInfo)))
+            && bulkLoader.isAvailable(connection))
+            return bulkLoad(bulkLoader, columnInfos, entities);
+
+        // Multi-row INSERT SQLs or JDBC batches
+        int maxRows = connection.getDatabase().maxRowsPerInsert();
+        int chunkSize = maxRows > 1 ? maxRows : BULK_BATCH_SIZE;
+        long count = 0L;
+        List<E> chunk = new ArrayList<>(chunkSize);
+        for (E entity : entities) {
+            chunk.add(Objects.requireNonNull(entity, "entity is null"));
+            if (chunk.size() == chunkSize) {
+                count += insertRows(chunk, maxRows > 1);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            count += insertRows(chunk, maxRows > 1);
 
-        List<Object> parameters = new ArrayList<>();
-        generatedSql = connection.getDatabase().deleteSql(sql, parameters);
-        int count = sql.executeUpdate(generatedSql, parameters);
+        return count;
+    }
 
-        // after DELETE
-        if (entity instanceof PostDelete)
-            ((PostDelete)entity).postDelete(connection);
+    /**
+     * Loads the entities with the <b>BulkLoader</b>.
+     *
+     * <p>
+     * If the entity class implements <b>PreInsert</b>,
+     * <b>preInsert</b> methods of a chunk of the entities are called before the chunk is loaded,
+     * because they may execute SQLs with the connection which the <b>BulkLoader</b> is using.
+     * </p>
+     *
+     * @param bulkLoader the <b>BulkLoader</b>
+     * @param columnInfos the column information of the loaded columns
+     * @param entities an <b>Iterable</b> of entities
+     * @return the number of rows loaded
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private long bulkLoad(BulkLoader bulkLoader, List<ColumnInfo> columnInfos, Iterable<? extends E> entities) {
+        if (!PreInsert.class.isAssignableFrom(entityInfo.entityClass()))
+            return loadRows(bulkLoader, columnInfos, entities.iterator());
+
+        long count = 0L;
+        List<E> chunk = new ArrayList<>(BULK_BATCH_SIZE);
+        for (E entity : entities) {
+            // before INSERT
+            ((PreInsert)Objects.requireNonNull(entity, "entity is null")).preInsert(connection);
+            chunk.add(entity);
+            if (chunk.size() == BULK_BATCH_SIZE) {
+                count += loadRows(bulkLoader, columnInfos, chunk.iterator());
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            count += loadRows(bulkLoader, columnInfos, chunk.iterator());
 
         return count;
     }
 
     /**
-     * Generates and executes <i>DELETE</i> SQLs for each element of entities.
+     * Loads the entities got from the iterator with the <b>BulkLoader</b>.
      *
-     * <div class="exampleTitle"><span>Java Example</span></div>
-     * <div class="exampleCode"><pre>
-     * var count = new int[1];
-     * Transaction.execute(conn -&gt;
-     *     count[0] = new Sql&lt;&gt;(Contact.class)
-     *         .connection(conn)
-     *         .<b>delete(Arrays.asList(
-     *             new ContactKey(contacts.get(7-1).id),
-     *             new ContactKey(contacts.get(8-1).id),
-     *             new ContactKey(contacts.get(9-1).id)
-     *         ))</b>
-     * );
-     * </pre></div>
+     * @param bulkLoader the <b>BulkLoader</b>
+     * @param columnInfos the column information of the loaded columns
+     * @param iterator the iterator of entities
+     * @return the number of rows loaded
      *
-     * <div class="exampleTitle"><span>Groovy Example</span></div>
-     * <div class="exampleCode"><pre>
-     * int count
-     * Transaction.execute {
-     *     count = new Sql&lt;&gt;(Contact)
-     *         .connection(it)
-     *         .<b>delete([
-     *             new ContactKey(contacts[7-1].id),
-     *             new ContactKey(contacts[8-1].id),
-     *             new ContactKey(contacts[9-1].id)
-     *         ])</b>
-     * }
-     * </pre></div>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private long loadRows(BulkLoader bulkLoader, List<ColumnInfo> columnInfos, Iterator<? extends E> iterator) {
+        Database database = connection.getDatabase();
+        Accessor<E> accessor = entityInfo.accessor();
+
+        // The column values of the rows converted when the BulkLoader reads them
+        Iterator<Object[]> rows = new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                E entity = Objects.requireNonNull(iterator.next(), "entity is null");
+                Object[] values = new Object[columnInfos.size()];
+                for (int index = 0; index < values.length; ++index) {
+                    ColumnInfo columnInfo = columnInfos.get(index);
+                    Object value = accessor.getValue(entity, columnInfo.propertyName());
+                    Class<?> columnType = columnInfo.columnType();
+                    values[index] = columnType != null ? database.convert(value, columnType) : value;
+                }
+                return values;
+            }
+        };
+
+        int sqlNo = Sql.sqlNo++;
+        if (logger.isInfoEnabled())
+            logger.info('#' + Integer.toUnsignedString(sqlNo) + ' ' + connection.toString()
+                + " bulk load " + entityInfo.tableName() + ": " + bulkLoader.getClass().getSimpleName());
+
+        try {
+            PhaseEvent executeEvent = PhaseEvents.begin(Phase.STATEMENT_EXECUTE);
+            long execTimeBefore = System.nanoTime(); // Time of before execution
+            long rowCount = bulkLoader.load(connection, entityInfo.tableName(), columnInfos, rows);
+            long execTimeAfter = System.nanoTime(); // Time of after execution
+            record(executeEvent, null, rowCount);
+
+            if (logger.isInfoEnabled()) {
+                String execTime = timeFormat.format((execTimeAfter - execTimeBefore) / 1_000_000.0);
+                logger.info(MessageFormat.format(messageInsertedRows, rowCount, execTime));
+            }
+
+            return rowCount;
+        }
+        catch (SQLException e) {throw new RuntimeSQLException(e);}
+    }
+
+    /**
+     * Inserts the entities with a multi-row <i>INSERT</i> SQL or a JDBC batch.
      *
      * <p>
-     * <span class="simpleTagLabel">Caution:</span>
-     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * If the multi-row <i>INSERT</i> SQL has more parameters than {@link Database#maxParameters()}
+     * (e.g. <b>byte[]</b> values or long strings are bound),
+     * the entities are split in half until each SQL has few enough parameters.
      * </p>
      *
-     * @param entities an <b>Iterable</b> of entities
-     * @return the number of rows deleted
+     * @param entities the entities
+     * @param multiRow <b>true</b> if the database supports multi-row <i>INSERT</i> SQLs
+     * @return the number of rows inserted
      *
-     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
-     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
      *
-     * @since 2.0.0
+     * @since 4.1.0
      */
-    public int delete(Iterable<? extends E> entities) {
-        int[] count = new int[1];
-        Objects.requireNonNull(entities, "entities is null")
-            .forEach(entity -> count[0] += delete(entity));
-        return count[0];
+    private int insertRows(List<E> entities, boolean multiRow) {
+        if (!multiRow || entities.stream().anyMatch(entity -> entity instanceof PostInsert))
+            return executeBatch(BatchOperation.INSERT, entities);
+
+        // before INSERT
+        for (E entity : entities)
+            if (entity instanceof PreInsert)
+                ((PreInsert)entity).preInsert(connection);
+
+        return insertMultiRow(entities);
+    }
+
+    /**
+     * Inserts the entities with multi-row <i>INSERT</i> SQLs
+     * each of which has at most {@link Database#maxParameters()} parameters if possible.
+     *
+     * @param entities the entities
+     * @return the number of rows inserted
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private int insertMultiRow(List<E> entities) {
+        List<Object> parameters = new ArrayList<>();
+        generatedSql = generate(this, s -> connection.getDatabase().insertSql(s, entities, parameters));
+        if (parameters.size() > connection.getDatabase().maxParameters() && entities.size() > 1) {
+            int half = entities.size() / 2;
+            return insertMultiRow(entities.subList(0, half))
+                 + insertMultiRow(entities.subList(half, entities.size()));
+        }
+
+        return executeUpdate(generatedSql, parameters);
     }
 
     /** The time format  */
@@ -3658,7 +5748,6 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     /**
      * Returns a row consumer.
      *
-     * @param connection the connection wrapper
      * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
      * @param consumer the consumer
      *
@@ -3666,56 +5755,259 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * @throws RuntimeException InstantiationException, IllegalAccessException
      */
     private <T> Consumer<ResultSet> getRowConsumer(SqlEntityInfo<T> sqlEntityInfo, Consumer<? super T> consumer) {
+        Function<ResultSet, T> rowMapper = getRowMapper(sqlEntityInfo);
+        if (!identityMap || reemitsEntities)
+            return resultSet -> {
+                T entity = rowMapper.apply(resultSet);
+                if (entity != null)
+                    consumer.accept(entity);
+            };
+
+        // Passes each entity only once
+        Set<T> consumedEntities = Collections.newSetFromMap(new IdentityHashMap<>());
         return resultSet -> {
-            EntityInfo<T> entityInfo = sqlEntityInfo.entityInfo();
-            Accessor<T> accessor = entityInfo.accessor();
-            String tableAlias = sqlEntityInfo.tableAlias();
-            try {
-                // Create an entity object
-                T entity = entityInfo.entityClass().getConstructor().newInstance();
+            T entity = rowMapper.apply(resultSet);
+            if (entity != null && consumedEntities.add(entity))
+                consumer.accept(entity);
+        };
+    }
 
-                //  Column loop
-                sqlEntityInfo.selectedSqlColumnInfoStream(columns)
-                    .filter(sqlColumnInfo -> sqlColumnInfo.columnInfo().selectable())
-                    .forEach(sqlColumnInfo -> {
-                        ColumnInfo columnInfo = sqlColumnInfo.columnInfo();
-                        String columnAlias = columnInfo.getColumnAlias(tableAlias);
+    /**
+     * Returns a function that creates an entity from a row.
+     *
+     * <p>
+     * If the identity map is used and the key columns of the entity class are selected,
+     * the function returns the entity created from a preceding row with the same key values
+     * or <b>null</b> if all the key values are <b>null</b>.
+     * </p>
+     *
+     * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
+     * @return a function that creates an entity from a row
+     *
+     * @since 4.1.0
+     */
+    private <T> Function<ResultSet, T> getRowMapper(SqlEntityInfo<T> sqlEntityInfo) {
+        List<ColumnInfo> keyColumnInfos = sqlEntityInfo.entityInfo().keyColumnInfos();
+        boolean keysSelected = !keyColumnInfos.isEmpty() && keyColumnInfos.stream()
+            .allMatch(columnInfo -> columnInfo.selectable() && sqlEntityInfo.selectedSqlColumnInfoStream(columns)
+                .anyMatch(sqlColumnInfo -> sqlColumnInfo.columnInfo() == columnInfo));
+        Function<ResultSet, T> entityCreator = getEntityCreator(sqlEntityInfo);
+        if (!identityMap || !keysSelected)
+            return entityCreator;
+
+        // The identity map (key values -> entity)
+        Map<List<Object>, T> entityMap = new HashMap<>();
+        return resultSet -> {
+            List<Object> keyValues = keyColumnInfos.stream()
+                .map(columnInfo -> getColumnValue(sqlEntityInfo, columnInfo, resultSet))
+                .collect(Collectors.toList());
+            if (keyValues.stream().allMatch(Objects::isNull))
+                return null;
 
-                        Object value = connection.getDatabase().getObject(connection.getConnection(), resultSet, columnAlias);
+            return entityMap.computeIfAbsent(keyValues, keyValues2 -> entityCreator.apply(resultSet));
+        };
+    }
 
-                        Class<?> destinType = Utils.toClassType(accessor.getType(columnInfo.propertyName()));
-                        Object convertedValue = null;
-                        try {
-                            convertedValue = connection.getDatabase().convert(value, destinType);
-                        }
-                        catch (ConvertException e) {
-                            if (columnInfo.columnType() == null)
-                                throw e;
+    /**
+     * Returns a function that creates an entity from a row.
+     *
+     * <p>
+     * The selected columns and the parameters of the constructor are matched only once in this method,
+     * not for each row.<br>
+     * If the entity class has a public constructor with no parameters, the function creates an entity with it
+     * and sets the column values to the properties.
+     * Otherwise if {@link EntityInfo#constructor()} returns a constructor (e.g. the canonical constructor of a record),
+     * the function creates an entity by invoking the constructor with the column values.
+     * The parameters of which the property is not selected are passed <b>null</b>
+     * (or the default value of the primitive type).<br>
+     * If the key columns are selected, the function sets references to the LOB columns of the row
+     * to the <b>LobRef</b> properties (only in the former case).
+     * </p>
+     *
+     * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
+     * @return a function that creates an entity from a row
+     *
+     * @throws IllegalArgumentException if the entity class has no constructor to create entities
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     * @throws RuntimeException InstantiationException, IllegalAccessException
+     *
+     * @since 4.1.0
+     */
+    private <T> Function<ResultSet, T> getEntityCreator(SqlEntityInfo<T> sqlEntityInfo) {
+        EntityInfo<T> entityInfo = sqlEntityInfo.entityInfo();
+
+        // The selected columns
+        List<ColumnInfo> columnInfos = sqlEntityInfo.selectedSqlColumnInfoStream(columns)
+            .map(SqlColumnInfo::columnInfo)
+            .filter(ColumnInfo::selectable)
+            .collect(Collectors.toList());
+
+        // The LobRef properties which refer the LOB columns of the row
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        List<ColumnInfo> lobRefColumnInfos = !keyColumnInfos.isEmpty() && columnInfos.containsAll(keyColumnInfos)
+            ? entityInfo.columnInfos().stream()
+                .filter(columnInfo -> !columnInfos.contains(columnInfo)
+                    && entityInfo.accessor().getType(columnInfo.propertyName()) == LobRef.class)
+                .collect(Collectors.toList())
+            : Collections.emptyList();
+
+        Constructor<T> constructor = entityInfo.constructor();
+        if (constructor == null) {
+            Constructor<T> noArgumentConstructor;
+            try {
+                noArgumentConstructor = entityInfo.entityClass().getConstructor();
+            }
+            catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(MessageFormat.format(messageNoConstructor, entityInfo.entityClass().getName()), e);
+            }
 
-                            logger.debug(() -> e.toString());
-                            value = connection.getDatabase().convert(value, columnInfo.columnType());
-                            convertedValue = connection.getDatabase().convert(value, destinType);
-                        }
+            // Creates with the constructor with no parameters and sets the properties
+            return resultSet -> {
+                try {
+                    // Create an entity object
+                    T entity = noArgumentConstructor.newInstance();
+
+                    //  Column loop
+                    columnInfos.forEach(columnInfo -> {
+                        Object convertedValue = getColumnValue(sqlEntityInfo, columnInfo, resultSet);
                         entityInfo.accessor().setValue(entity, columnInfo.propertyName(), convertedValue);
                     });
 
-                // After get
-            // 4.0.0
-            //    if (entity instanceof PostLoad)
-            //        ((PostLoad)entity).postLoad();
-            ////
+                    // Sets the references to the LOB columns
+                    if (!lobRefColumnInfos.isEmpty()) {
+                        List<Object> keyValues = keyColumnInfos.stream()
+                            .map(columnInfo -> entityInfo.accessor().getValue(entity, columnInfo.propertyName()))
+                            .collect(Collectors.toList());
+                        lobRefColumnInfos.forEach(columnInfo ->
+                            entityInfo.accessor().setValue(entity, columnInfo.propertyName(), LobRef.reference(columnInfo, keyValues)));
+                    }
+
+                    // After get
+                // 4.0.0
+                //    if (entity instanceof PostLoad)
+                //        ((PostLoad)entity).postLoad();
+                ////
+
+                    if (entity instanceof PostSelect)
+                        ((PostSelect)entity).postSelect(connection);
+
+                    // Takes a snapshot @since 4.1.0
+                    if (trackChanges)
+                        connection.putSnapshot(entity, new Snapshot(entityInfo, columnInfos, entity));
+
+                    return entity;
+                }
+                catch (RuntimeException e) {throw e;}
+                catch (Exception e) {throw new RuntimeException(e);}
+            };
+        }
+
+        // Matches the parameters of the constructor to the selected columns
+        List<String> propertyNames = entityInfo.constructorPropertyNames();
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        ColumnInfo[] parameterColumnInfos = new ColumnInfo[parameterTypes.length];
+        Object[] defaultArguments = new Object[parameterTypes.length];
+        for (int index = 0; index < parameterTypes.length; ++index) {
+            String propertyName = propertyNames.get(index);
+            parameterColumnInfos[index] = columnInfos.stream()
+                .filter(columnInfo -> columnInfo.propertyName().equals(propertyName))
+                .findFirst().orElse(null);
+            if (parameterTypes[index].isPrimitive())
+                defaultArguments[index] = java.lang.reflect.Array.get(java.lang.reflect.Array.newInstance(parameterTypes[index], 1), 0);
+        }
+
+        // Creates with the constructor with the column values
+        return resultSet -> {
+            try {
+                Object[] arguments = new Object[parameterColumnInfos.length];
+                for (int index = 0; index < arguments.length; ++index) {
+                    if (parameterColumnInfos[index] != null)
+                        arguments[index] = getColumnValue(sqlEntityInfo, parameterColumnInfos[index], resultSet);
+                    if (arguments[index] == null)
+                        arguments[index] = defaultArguments[index];
+                }
+
+                // Create an entity object
+                T entity = constructor.newInstance(arguments);
 
+                // After get
                 if (entity instanceof PostSelect)
                     ((PostSelect)entity).postSelect(connection);
 
-                // Consumes the entity
-                consumer.accept(entity);
+                // Takes a snapshot @since 4.1.0
+                if (trackChanges)
+                    connection.putSnapshot(entity, new Snapshot(entityInfo, columnInfos, entity));
+
+                return entity;
             }
             catch (RuntimeException e) {throw e;}
             catch (Exception e) {throw new RuntimeException(e);}
         };
     }
 
+    /**
+     * Returns the value of the column of the current row converted to the type of the property.
+     *
+     * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
+     * @param columnInfo the column information
+     * @param resultSet the <b>ResultSet</b>
+     * @return the converted value
+     *
+     * @since 4.1.0
+     */
+    private <T> Object getColumnValue(SqlEntityInfo<T> sqlEntityInfo, ColumnInfo columnInfo, ResultSet resultSet) {
+        Accessor<T> accessor = sqlEntityInfo.entityInfo().accessor();
+        String columnAlias = columnInfo.getColumnAlias(sqlEntityInfo.tableAlias());
+
+        Object value = connection.getDatabase().getObject(connection.getConnection(), resultSet, columnAlias);
+
+        Class<?> destinType = Utils.toClassType(accessor.getType(columnInfo.propertyName()));
+        Object convertedValue = null;
+        try {
+            convertedValue = connection.getDatabase().convert(value, destinType);
+        }
+        catch (ConvertException e) {
+            if (columnInfo.columnType() == null)
+                throw e;
+
+            logger.debug(() -> e.toString());
+            value = connection.getDatabase().convert(value, columnInfo.columnType());
+            convertedValue = connection.getDatabase().convert(value, destinType);
+        }
+        return convertedValue;
+    }
+
+    /**
+     * Generates a SQL string from the <b>Sql</b> object and records the <b>SQL_GENERATE</b> phase event.
+     *
+     * @param <T> the entity type of the <b>Sql</b> object
+     * @param <S> the type of the generated SQL string
+     * @param sql the <b>Sql</b> object
+     * @param generator the function which generates the SQL string
+     * @return the generated SQL string
+     *
+     * @since 4.1.0
+     */
+    private <T, S extends CharSequence> S generate(Sql<T> sql, Function<Sql<T>, S> generator) {
+        PhaseEvent event = PhaseEvents.begin(Phase.SQL_GENERATE);
+        S sqlString = generator.apply(sql);
+        record(event, sqlString, 0);
+        return sqlString;
+    }
+
+    /**
+     * Records the phase event if it has been begun.
+     *
+     * @param event the phase event (may be null)
+     * @param sql the SQL (may be null)
+     * @param rowCount the number of rows
+     *
+     * @since 4.1.0
+     */
+    private void record(PhaseEvent event, CharSequence sql, long rowCount) {
+        if (event != null)
+            event.record(connection.getSupplier(), sql, rowCount);
+    }
 
     /**
      * Executes the <i>SELECT</i> SQL.
@@ -3742,7 +6034,14 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
             logger.info('#' + Integer.toUnsignedString(sqlNo) + ' '
                 + connection.toString() + ' ' + sql);
 
+        // Detects the repeated queries (since 4.1.0)
+        RepeatedQueryDetector repeatedQueryDetector = connection.getRepeatedQueryDetector();
+        if (repeatedQueryDetector != null)
+            repeatedQueryDetector.executed(sql);
+
         // Prepares SQL
+        long prepareTimeBefore = System.nanoTime(); // Time of before preparation (since 4.1.0)
+        PhaseEvent prepareEvent = PhaseEvents.begin(Phase.STATEMENT_PREPARE); // since 4.1.0
     // 4.0.0
     //  try (PreparedStatement statement = connection.prepareStatement(sql)) {
         try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
@@ -3753,23 +6052,27 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                 if  (logger.isDebugEnabled())
                     logger.debug("  parameters[" + index + "]: " + Utils.toLogString(parameter));
 
-                if (parameter instanceof Reader)
-                    statement.setCharacterStream(index + 1, (Reader)parameter);
-                else
-                    statement.setObject(index + 1, parameter);
+                connection.getDatabase().setParameter(statement, index + 1, parameter); // since 4.1.0
             }
+            // Fetches no more rows than the limit if it is not applied in the SQL
+            // because the rows of FOR UPDATE SKIP LOCKED are locked when fetched (e.g. Oracle) (since 4.1.0)
+            if (skipLocked && getLimit() != Integer.MAX_VALUE && !connection.getDatabase().supportsOffsetLimit(this))
+                statement.setFetchSize((int)Math.min((long)getOffset() + getLimit(), Integer.MAX_VALUE));
+            record(prepareEvent, sql, 0); // since 4.1.0
 
             // Executes SQL
+            PhaseEvent executeEvent = PhaseEvents.begin(Phase.STATEMENT_EXECUTE); // since 4.1.0
             long execTimeBefore = System.nanoTime(); // Time of before execution
             ResultSet resultSet = statement.executeQuery();
             long execTimeAfter = System.nanoTime(); // Time of after execution
+            record(executeEvent, sql, 0); // since 4.1.0
 
             int resultSetType = resultSet.getType();
 
             //  for offset
             int rowOffset = getOffset();
             int rowLimit = getLimit();
-            if (rowOffset > 0 && !connection.getDatabase().supportsOffsetLimit()) {
+            if (rowOffset > 0 && !connection.getDatabase().supportsOffsetLimit(this)) {
                 //  Offset value was specified and cannot create SQL using 'OFFSET'
                 if (resultSetType == ResultSet.TYPE_FORWARD_ONLY) {
                     //  Skip rows for offset value
@@ -3786,6 +6089,8 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
             }
 
             // Loop for row
+            PhaseEvent fetchEvent = PhaseEvents.begin(Phase.RESULT_FETCH); // since 4.1.0
+            PhaseEvent mappingEvent = PhaseEvents.begin(Phase.ROW_MAPPING); // since 4.1.0
             long getTimeBefore = System.nanoTime(); // Time of before get rows
             int rowCount = 0;
             while (rowCount < rowLimit) {
@@ -3793,9 +6098,19 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                     break;
                 ++rowCount;
 
-                consumer.accept(resultSet);
+                if (mappingEvent == null)
+                    consumer.accept(resultSet);
+                else {
+                    // Measures the time of the mapping (since 4.1.0)
+                    long mappingTimeBefore = System.nanoTime();
+                    consumer.accept(resultSet);
+                    mappingEvent.addTime(System.nanoTime() - mappingTimeBefore);
+                }
             }
             long getTimeAfter = System.nanoTime(); // Time of after get rows
+            // since 4.1.0
+            record(fetchEvent, sql, rowCount);
+            record(mappingEvent, sql, rowCount);
 
             // Logging for the results
             if (logger.isInfoEnabled()) {
@@ -3818,8 +6133,18 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                     break;
                 }
             }
+
+            // Logs the slow query (since 4.1.0)
+            if (SlowQueryLog.getGlobal().isEnabled())
+                SlowQueryLog.getGlobal().check(connection, sqlNo, sql, parameters, execTimeBefore - prepareTimeBefore,
+                    execTimeAfter - execTimeBefore, getTimeAfter - getTimeBefore, rowCount);
+        }
+        catch (SQLException e) {
+            // Logs the slow query which failed (e.g. a timeout) (since 4.1.0)
+            if (SlowQueryLog.getGlobal().isEnabled())
+                SlowQueryLog.getGlobal().failed(connection, sqlNo, sql, parameters, System.nanoTime() - prepareTimeBefore, e);
+            throw new RuntimeSQLException(e);
         }
-        catch (SQLException e) {throw new RuntimeSQLException(e);}
     }
 
     /**
@@ -3848,11 +6173,30 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
 //  private int executeUpdate(String sql, List<Object> parameters) {
     private int executeUpdate(CharSequence sql, List<Object> parameters) {
 ////
+        return executeUpdate(sql, parameters, Collections.emptyList());
+    }
+
+    /**
+     * Executes the SQL which is <i>INSERT</i>, <i>UPDATE</i> or <i>DELETE</i> SQL
+     * and sets the generated keys to the entity.
+     *
+     * @param sql the SQL
+     * @param parameters the parameters of SQL
+     * @param generatedKeyColumnInfos the column informations of the generated keys
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private int executeUpdate(CharSequence sql, List<Object> parameters, List<ColumnInfo> generatedKeyColumnInfos) {
         Objects.requireNonNull(sql, "sql is null");
         Objects.requireNonNull(parameters, "parameters is null");
         if (connection == null)
             throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
 
+        // Whether to specify the key column names (true) or Statement.RETURN_GENERATED_KEYS (false)
+        boolean keyColumnNames = connection.getDatabase().supportsGeneratedKeyColumnNames();
+
         int sqlNo = Sql.sqlNo++;
         if (logger.isInfoEnabled())
             logger.info('#' + Integer.toUnsignedString(sqlNo) + ' '
@@ -3860,10 +6204,23 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                 + connection.toString() + ' '  + sql);
             ////
 
+        // Detects the repeated queries (since 4.1.0)
+        RepeatedQueryDetector repeatedQueryDetector = connection.getRepeatedQueryDetector();
+        if (repeatedQueryDetector != null)
+            repeatedQueryDetector.executed(sql);
+
         // Prepares SQL
+        long prepareTimeBefore = System.nanoTime(); // Time of before preparation (since 4.1.0)
+        PhaseEvent prepareEvent = PhaseEvents.begin(Phase.STATEMENT_PREPARE); // since 4.1.0
     // 4.0.0
     //  try (PreparedStatement statement = connection.prepareStatement(sql)) {
-        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+        try (PreparedStatement statement =
+                generatedKeyColumnInfos.isEmpty() || entity == null
+                    ? connection.prepareStatement(sql.toString())
+                : keyColumnNames
+                    ? connection.prepareStatement(sql.toString(), generatedKeyColumnInfos.stream()
+                        .map(ColumnInfo::columnName).toArray(String[]::new))
+                    : connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) { // since 4.1.0
     ////
             //  Sets the parameter values
             for (int index = 0; index < parameters.size(); ++index) {
@@ -3871,16 +6228,33 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                 if  (logger.isDebugEnabled())
                     logger.debug("  parameters[" + index + "]: " + Utils.toLogString(parameter));
 
-                if (parameter instanceof Reader)
-                    statement.setCharacterStream(index + 1, (Reader)parameter);
-                else
-                    statement.setObject(index + 1, parameter);
+                connection.getDatabase().setParameter(statement, index + 1, parameter); // since 4.1.0
             }
+            record(prepareEvent, sql, 0); // since 4.1.0
 
             // Executes SQL
+            PhaseEvent executeEvent = PhaseEvents.begin(Phase.STATEMENT_EXECUTE); // since 4.1.0
             long execTimeBefore = System.nanoTime(); // Time of before execution
             int rowCount = statement.executeUpdate();
             long execTimeAfter = System.nanoTime(); // Time of after execution
+            record(executeEvent, sql, rowCount); // since 4.1.0
+
+            // Sets the generated keys to the entity @since 4.1.0
+            if (!generatedKeyColumnInfos.isEmpty() && entity != null) {
+                try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                    if (resultSet.next()) {
+                        int keyCount = keyColumnNames ? generatedKeyColumnInfos.size() : 1;
+                        for (int index = 0; index < keyCount; ++index) {
+                            String propertyName = generatedKeyColumnInfos.get(index).propertyName();
+                            Class<?> destinType = Utils.toClassType(entityInfo.accessor().getType(propertyName));
+                            Object value = connection.getDatabase().convert(resultSet.getObject(index + 1), destinType);
+                            if  (logger.isDebugEnabled())
+                                logger.debug("  generated key: " + propertyName + ": " + Utils.toLogString(value));
+                            entityInfo.accessor().setValue(entity, propertyName, value);
+                        }
+                    }
+                }
+            }
 
             // Logging for the results
             if (logger.isInfoEnabled()) {
@@ -3931,9 +6305,19 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                 }
             }
 
+            // Logs the slow query (since 4.1.0)
+            if (SlowQueryLog.getGlobal().isEnabled())
+                SlowQueryLog.getGlobal().check(connection, sqlNo, sql, parameters, execTimeBefore - prepareTimeBefore,
+                    execTimeAfter - execTimeBefore, 0L, rowCount);
+
             return rowCount;
         }
-        catch (SQLException e) {throw new RuntimeSQLException(e);}
+        catch (SQLException e) {
+            // Logs the slow query which failed (e.g. a timeout) (since 4.1.0)
+            if (SlowQueryLog.getGlobal().isEnabled())
+                SlowQueryLog.getGlobal().failed(connection, sqlNo, sql, parameters, System.nanoTime() - prepareTimeBefore, e);
+            throw new RuntimeSQLException(e);
+        }
     }
 
     /**
@@ -4141,4 +6525,76 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
             .map(element -> element.toString())
             .collect(Collectors.joining(", ", "[", "]"));
     }
+
+    /**
+     * The values of the selected properties of an entity.
+     *
+     * @since 4.1.0
+     */
+    private static class Snapshot {
+        // The column informations of the selected properties
+        private final List<ColumnInfo> columnInfos;
+
+        // The values of the properties
+        private final Object[] values;
+
+        /**
+         * Constructs a new <b>Snapshot</b> with the current values of the properties of <b>entity</b>.
+         *
+         * @param entityInfo the entity information
+         * @param columnInfos the column informations of the selected properties
+         * @param entity the entity
+         */
+        private <T> Snapshot(EntityInfo<T> entityInfo, List<ColumnInfo> columnInfos, T entity) {
+            this.columnInfos = columnInfos;
+            values = new Object[columnInfos.size()];
+            for (int index = 0; index < values.length; ++index)
+                values[index] = copy(entityInfo.accessor().getValue(entity, columnInfos.get(index).propertyName()));
+        }
+
+        /**
+         * Returns <b>true</b> if this snapshot contains the value of the column, <b>false</b> otherwise.
+         *
+         * @param columnInfo the column information
+         * @return <b>true</b> if this snapshot contains the value of the column, <b>false</b> otherwise
+         */
+        private boolean contains(ColumnInfo columnInfo) {
+            return columnInfos.contains(columnInfo);
+        }
+
+        /**
+         * Returns the names of the properties of which the value differs from this snapshot.
+         *
+         * @param entityInfo the entity information
+         * @param entity the entity
+         * @return a modifiable set of the property names
+         */
+        private <T> Set<String> changedPropertyNames(EntityInfo<T> entityInfo, T entity) {
+            Set<String> propertyNames = new LinkedHashSet<>();
+            for (int index = 0; index < values.length; ++index) {
+                String propertyName = columnInfos.get(index).propertyName();
+                if (!Objects.deepEquals(values[index], entityInfo.accessor().getValue(entity, propertyName)))
+                    propertyNames.add(propertyName);
+            }
+            return propertyNames;
+        }
+
+        /**
+         * Returns a copy of <b>value</b> if it is an array or a <b>java.util.Date</b>, <b>value</b> otherwise.
+         *
+         * @param value the value
+         * @return a copy of <b>value</b> or <b>value</b>
+         */
+        private static Object copy(Object value) {
+            if (value instanceof java.util.Date)
+                return ((java.util.Date)value).clone();
+            if (value != null && value.getClass().isArray()) {
+                int length = java.lang.reflect.Array.getLength(value);
+                Object copy = java.lang.reflect.Array.newInstance(value.getClass().getComponentType(), length);
+                System.arraycopy(value, 0, copy, 0, length);
+                return copy;
+            }
+            return value;
+        }
+    }
 }
@@ -10,6 +10,10 @@ import java.util.Objects;
 
 import org.lightsleep.connection.ConnectionSupplier;
 import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.connection.RepeatedQueryDetector;
+import org.lightsleep.jfr.PhaseEvents;
+import org.lightsleep.jfr.Phase;
+import org.lightsleep.jfr.PhaseEvent;
 
 /**
  * A functional interface to execute transactions.
@@ -195,7 +199,8 @@ public interface Transaction {
     }
 
     /**
-     * If the connection is not auto-commit, commits the transaction.
+     * If the connection is not auto-commit, commits the transaction.<br>
+     * If a unit of work is bound to the connection, flushes it before committing.
      *
      * @param connection the connection wrapper
      *
@@ -204,12 +209,24 @@ public interface Transaction {
     static void commit(ConnectionWrapper connection) {
         Objects.requireNonNull(connection, "connection is null");
 
+        // Flushes the unit of work @since 4.1.0
+        UnitOfWork unitOfWork = connection.getUnitOfWork();
+        if (unitOfWork != null)
+            unitOfWork.flush();
+
+        // Clears the counts of the repeated queries @since 4.1.0
+        RepeatedQueryDetector repeatedQueryDetector = connection.getRepeatedQueryDetector();
+        if (repeatedQueryDetector != null)
+            repeatedQueryDetector.clear();
+
         try {
             if (!connection.getAutoCommit()) {
                 // Is not not auto-commit
+                PhaseEvent event = PhaseEvents.begin(Phase.COMMIT); // since 4.1.0
                 long beforeExecTime = System.nanoTime(); // The time before execution
                 connection.commit();
                 long afterExecTime = System.nanoTime(); // The time after execution
+                if (event != null) event.record(connection.getSupplier(), null, 0); // since 4.1.0
 
                 if (Sql.logger.isDebugEnabled()) {
                     double time = (afterExecTime - beforeExecTime) / 1_000_000.0;
@@ -227,7 +244,8 @@ public interface Transaction {
     }
 
     /**
-     * If the connection is not auto-commit, rollbacks the transaction.
+     * If the connection is not auto-commit, rollbacks the transaction.<br>
+     * If a unit of work is bound to the connection, discards the pending changes of it.
      *
      * @param connection the connection wrapper
      *
@@ -235,12 +253,25 @@ public interface Transaction {
      */
     static void rollback(ConnectionWrapper connection) {
         Objects.requireNonNull(connection, "connection is null");
+
+        // Discards the unit of work @since 4.1.0
+        UnitOfWork unitOfWork = connection.getUnitOfWork();
+        if (unitOfWork != null)
+            unitOfWork.clear();
+
+        // Clears the counts of the repeated queries @since 4.1.0
+        RepeatedQueryDetector repeatedQueryDetector = connection.getRepeatedQueryDetector();
+        if (repeatedQueryDetector != null)
+            repeatedQueryDetector.clear();
+
         try {
             if (!connection.getAutoCommit()) {
                 // Is not not auto-commit
+                PhaseEvent event = PhaseEvents.begin(Phase.ROLLBACK); // since 4.1.0
                 long beforeExecTime = System.nanoTime(); // The time before execution
                 connection.rollback();
                 long afterExecTime = System.nanoTime(); // The time after execution
+                if (event != null) event.record(connection.getSupplier(), null, 0); // since 4.1.0
 
                 if (Sql.logger.isDebugEnabled()) {
                     double time = (afterExecTime - beforeExecTime) / 1_000_000.0;
@@ -0,0 +1,317 @@
+// UnitOfWork.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+import org.lightsleep.helper.EntityInfo;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A unit of work that collects the changes of the entities in a transaction
+ * and executes them together before the transaction is committed.
+ *
+ * <p>
+ * A unit of work is bound to a connection wrapper.
+ * The entities registered with {@link #insert(Object)}, {@link #update(Object)} and {@link #delete(Object)}
+ * are not written to the database until {@link #flush()} is called
+ * or <b>Transaction</b> commits the transaction.
+ * If the transaction is rolled back, the pending changes are discarded.
+ * </p>
+ *
+ * <p>
+ * The changes are merged when registered.
+ * </p>
+ * <ul>
+ *   <li>An entity updated more than once (the same key values) is updated only once with the latest entity.</li>
+ *   <li>An entity updated after it was registered to be inserted is only inserted with the latest values.</li>
+ *   <li>An entity deleted after it was registered to be inserted is neither inserted nor deleted.</li>
+ *   <li>An entity deleted after it was registered to be updated is only deleted.</li>
+ *   <li>If an entity is registered to be inserted while an entity of the same key values is registered to be deleted,
+ *       the pending changes are flushed first so that the row is deleted before inserted.</li>
+ * </ul>
+ *
+ * <p>
+ * The entities to be updated or deleted must be of the entity classes that have key columns.
+ * </p>
+ *
+ * <p>
+ * When flushing, all the inserts are executed first, then the updates and the deletes.
+ * The inserts and the updates are executed in the order of the entity classes as first registered,
+ * and the deletes in the reverse order.
+ * Register the entities of a parent table before the ones of the child tables
+ * so that the foreign key constraints are satisfied.<br>
+ * The SQLs of each entity class are executed as a JDBC batch
+ * (see {@link Sql#executeBatch(Sql.BatchOperation, List)}).
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * Transaction.execute(conn -&gt; {
+ *     UnitOfWork unitOfWork = <b>UnitOfWork.of(conn)</b>;
+ *     unitOfWork<b>.insert(contact)</b>;
+ *     unitOfWork<b>.insert(phone1)</b>;
+ *     unitOfWork<b>.insert(phone2)</b>;
+ *     unitOfWork<b>.delete(phone3)</b>;
+ * }); // flushed before committed
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * Transaction.execute {
+ *     def unitOfWork = <b>UnitOfWork.of(it)</b>
+ *     unitOfWork<b>.insert(contact)</b>
+ *     unitOfWork<b>.insert(phone1)</b>
+ *     unitOfWork<b>.insert(phone2)</b>
+ *     unitOfWork<b>.delete(phone3)</b>
+ * } // flushed before committed
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class UnitOfWork {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+    // The connection wrapper
+    private final ConnectionWrapper connection;
+
+    // The entity classes in the order of the registration
+    private final Set<Class<?>> entityClasses = new LinkedHashSet<>();
+
+    // The entities to be inserted (entity class : entities)
+    private final Map<Class<?>, List<Object>> insertMap = new LinkedHashMap<>();
+
+    // The entities to be inserted (entity : entity) to find them by identity
+    private final Map<Object, Object> insertEntities = new IdentityHashMap<>();
+
+    // The entities to be updated (entity class : (key : entity))
+    private final Map<Class<?>, Map<Object, Object>> updateMap = new LinkedHashMap<>();
+
+    // The entities to be deleted (entity class : (key : entity))
+    private final Map<Class<?>, Map<Object, Object>> deleteMap = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new <b>UnitOfWork</b>.
+     *
+     * @param connection the connection wrapper
+     */
+    private UnitOfWork(ConnectionWrapper connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Returns the unit of work bound to the connection wrapper.
+     * If no unit of work is bound, creates and binds a new one.
+     *
+     * @param connection the connection wrapper
+     * @return the unit of work bound to <b>connection</b>
+     *
+     * @throws NullPointerException if <b>connection</b> is <b>null</b>
+     */
+    public static UnitOfWork of(ConnectionWrapper connection) {
+        Objects.requireNonNull(connection, "connection is null");
+
+        UnitOfWork unitOfWork = connection.getUnitOfWork();
+        if (unitOfWork == null) {
+            unitOfWork = new UnitOfWork(connection);
+            connection.setUnitOfWork(unitOfWork);
+        }
+        return unitOfWork;
+    }
+
+    /**
+     * Registers an entity to be inserted.
+     *
+     * @param entity the entity
+     * @return this object
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while flushing the pending changes, replaces it with this exception
+     */
+    public UnitOfWork insert(Object entity) {
+        Objects.requireNonNull(entity, "entity is null");
+
+        if (insertEntities.containsKey(entity))
+            return this;
+
+        // Deletes the row of the same key before inserting
+        Map<Object, Object> deleteEntityMap = deleteMap.get(entity.getClass());
+        if (deleteEntityMap != null && deleteEntityMap.containsKey(key(entity)))
+            flush();
+
+        insertEntities.put(entity, entity);
+        entityClasses.add(entity.getClass());
+        insertMap.computeIfAbsent(entity.getClass(), entityClass -> new ArrayList<>()).add(entity);
+        return this;
+    }
+
+    /**
+     * Registers an entity to be updated.
+     *
+     * @param entity the entity
+     * @return this object
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws IllegalArgumentException if the entity class does not have key columns
+     */
+    public UnitOfWork update(Object entity) {
+        Objects.requireNonNull(entity, "entity is null");
+
+        // Is inserted with the latest values
+        if (insertEntities.containsKey(entity))
+            return this;
+
+        entityClasses.add(entity.getClass());
+        updateMap.computeIfAbsent(entity.getClass(), entityClass -> new LinkedHashMap<>())
+            .put(key(entity), entity);
+        return this;
+    }
+
+    /**
+     * Registers an entity to be deleted.
+     *
+     * @param entity the entity
+     * @return this object
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws IllegalArgumentException if the entity class does not have key columns
+     */
+    public UnitOfWork delete(Object entity) {
+        Objects.requireNonNull(entity, "entity is null");
+
+        // Is neither inserted nor deleted
+        if (insertEntities.remove(entity) != null) {
+            insertMap.get(entity.getClass()).removeIf(entity2 -> entity2 == entity);
+            return this;
+        }
+
+        Object key = key(entity);
+        Map<Object, Object> entityMap = updateMap.get(entity.getClass());
+        if (entityMap != null)
+            entityMap.remove(key);
+
+        entityClasses.add(entity.getClass());
+        deleteMap.computeIfAbsent(entity.getClass(), entityClass -> new LinkedHashMap<>())
+            .put(key, entity);
+        return this;
+    }
+
+    /**
+     * Returns the number of the pending changes.
+     *
+     * @return the number of the pending changes
+     */
+    public int size() {
+        return insertEntities.size()
+            + updateMap.values().stream().mapToInt(Map::size).sum()
+            + deleteMap.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Executes the pending changes.
+     *
+     * <p>
+     * Call this method to read the changes by <i>SELECT</i> SQLs before the transaction is committed.
+     * </p>
+     *
+     * @return the number of the rows inserted, updated and deleted
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public int flush() {
+        if (size() == 0)
+            return 0;
+
+        List<Class<?>> entityClasses = new ArrayList<>(this.entityClasses);
+        Map<Class<?>, List<Object>> insertMap = new LinkedHashMap<>(this.insertMap);
+        Map<Class<?>, Map<Object, Object>> updateMap = new LinkedHashMap<>(this.updateMap);
+        Map<Class<?>, Map<Object, Object>> deleteMap = new LinkedHashMap<>(this.deleteMap);
+        clear();
+
+        int count = 0;
+        for (Class<?> entityClass : entityClasses)
+            count += execute(entityClass, Sql.BatchOperation.INSERT, insertMap.get(entityClass));
+
+        for (Class<?> entityClass : entityClasses) {
+            Map<Object, Object> entityMap = updateMap.get(entityClass);
+            if (entityMap != null)
+                count += execute(entityClass, Sql.BatchOperation.UPDATE, new ArrayList<>(entityMap.values()));
+        }
+
+        Collections.reverse(entityClasses);
+        for (Class<?> entityClass : entityClasses) {
+            Map<Object, Object> entityMap = deleteMap.get(entityClass);
+            if (entityMap != null)
+                count += execute(entityClass, Sql.BatchOperation.DELETE, new ArrayList<>(entityMap.values()));
+        }
+
+        if (logger.isDebugEnabled())
+            logger.debug("UnitOfWork.flush: " + count + " rows");
+        return count;
+    }
+
+    /**
+     * Discards the pending changes.
+     */
+    void clear() {
+        entityClasses.clear();
+        insertMap.clear();
+        insertEntities.clear();
+        updateMap.clear();
+        deleteMap.clear();
+    }
+
+    /**
+     * Executes the SQLs of the entities of an entity class.
+     *
+     * @param entityClass the entity class
+     * @param operation the operation
+     * @param entities the entities (permit null)
+     * @return the number of the rows inserted, updated or deleted
+     */
+    @SuppressWarnings("unchecked")
+    private <E> int execute(Class<E> entityClass, Sql.BatchOperation operation, List<Object> entities) {
+        if (entities == null || entities.isEmpty())
+            return 0;
+
+        return new Sql<>(entityClass)
+            .connection(connection)
+            .executeBatch(operation, (List<E>)(List<?>)entities);
+    }
+
+    /**
+     * Returns the key of the entity to merge the changes.
+     *
+     * @param entity the entity
+     * @return the key values of the entity
+     *
+     * @throws IllegalArgumentException if the entity class does not have key columns
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> Object key(E entity) {
+        EntityInfo<E> entityInfo = Sql.getEntityInfo((Class<E>)entity.getClass());
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        if (keyColumnInfos.isEmpty())
+            throw new IllegalArgumentException(MessageFormat.format(Sql.messageNoKeyColumns, entity.getClass().getName()));
+
+        return keyColumnInfos.stream()
+            .map(columnInfo -> entityInfo.accessor().getValue(entity, columnInfo.propertyName()))
+            .collect(Collectors.toList());
+    }
+}
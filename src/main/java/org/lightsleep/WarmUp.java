@@ -0,0 +1,523 @@
+// WarmUp.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+import org.lightsleep.component.Condition;
+import org.lightsleep.component.SqlString;
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.database.Database;
+import org.lightsleep.database.Standard;
+import org.lightsleep.entity.Key;
+import org.lightsleep.entity.KeyProperty;
+import org.lightsleep.entity.Table;
+import org.lightsleep.helper.ColumnInfo;
+import org.lightsleep.helper.EntityInfo;
+import org.lightsleep.helper.TypeConverter;
+import org.lightsleep.helper.Utils;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Warms up this library at startup
+ * so that the first requests do not pay for the initialization.
+ *
+ * <p>
+ * {@link #execute()} runs the following phases in parallel on a fork-join pool
+ * and returns the time spent in each phase.
+ * </p>
+ * <ol>
+ *   <li><b>entityInfo</b>: creates the entity information of the entity classes
+ *       specified by {@link #entityClasses(Class...)} and found in the packages specified by {@link #packages(String...)}.</li>
+ *   <li><b>connections</b>: gets the connections from each connection supplier concurrently and closes them,
+ *       so that the data sources and the connection pools are created.
+ *       This phase runs at the same time as the <b>entityInfo</b> phase.</li>
+ *   <li><b>converters</b>: resolves the type converters of the columns of each entity
+ *       for the database handlers of the connection suppliers.</li>
+ *   <li><b>sql</b>: generates the <i>SELECT</i>, <i>INSERT</i>, <i>UPDATE</i> and <i>DELETE</i> SQL of each entity
+ *       if specified by {@link #generatesSql(boolean)}.</li>
+ * </ol>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * Map&lt;String, Long&gt; times = new WarmUp()
+ *     .packages("org.example.entity")
+ *     .connections(4)
+ *     .generatesSql(true)
+ *     <b>.execute()</b>;
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * def times = new WarmUp()
+ *     .packages('org.example.entity')
+ *     .connections(4)
+ *     .generatesSql(true)
+ *     <b>.execute()</b>
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class WarmUp {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    /** The phase name of creating the entity information */
+    public static final String ENTITY_INFO = "entityInfo";
+
+    /** The phase name of getting the connections */
+    public static final String CONNECTIONS = "connections";
+
+    /** The phase name of resolving the type converters */
+    public static final String CONVERTERS = "converters";
+
+    /** The phase name of generating the SQL */
+    public static final String SQL = "sql";
+
+    // The entity classes
+    private final Set<Class<?>> entityClasses = new LinkedHashSet<>();
+
+    // The package names to find the entity classes
+    private final Set<String> packageNames = new LinkedHashSet<>();
+
+    // The connection suppliers (null means all)
+    private List<ConnectionSupplier> connectionSuppliers;
+
+    // The number of the connections got from each connection supplier
+    private int connections = 1;
+
+    // Whether to generate the SQL
+    private boolean generatesSql;
+
+    // The parallelism of the fork-join pool (0 means the common pool)
+    private int parallelism;
+
+    /**
+     * Specifies the entity classes.
+     *
+     * @param entityClasses the entity classes
+     * @return this object
+     *
+     * @throws NullPointerException if <b>entityClasses</b> or any element of it is <b>null</b>
+     */
+    public WarmUp entityClasses(Class<?>... entityClasses) {
+        Objects.requireNonNull(entityClasses, "entityClasses is null");
+        for (Class<?> entityClass : entityClasses)
+            this.entityClasses.add(Objects.requireNonNull(entityClass, "entityClasses contains null"));
+        return this;
+    }
+
+    /**
+     * Specifies the packages to find the entity classes.<br>
+     * The classes with <b>@Table</b>, <b>@Key</b> or <b>@KeyProperty</b> in the packages and their subpackages
+     * are treated as the entity classes.
+     *
+     * @param packageNames the package names
+     * @return this object
+     *
+     * @throws NullPointerException if <b>packageNames</b> or any element of it is <b>null</b>
+     */
+    public WarmUp packages(String... packageNames) {
+        Objects.requireNonNull(packageNames, "packageNames is null");
+        for (String packageName : packageNames)
+            this.packageNames.add(Objects.requireNonNull(packageName, "packageNames contains null"));
+        return this;
+    }
+
+    /**
+     * Specifies the connection suppliers.<br>
+     * If not specified, uses all the connection suppliers defined in <b>lightsleep.properties</b>.
+     *
+     * @param connectionSuppliers the connection suppliers
+     * @return this object
+     *
+     * @throws NullPointerException if <b>connectionSuppliers</b> or any element of it is <b>null</b>
+     *
+     * @see ConnectionSupplier#all()
+     */
+    public WarmUp connectionSuppliers(ConnectionSupplier... connectionSuppliers) {
+        Objects.requireNonNull(connectionSuppliers, "connectionSuppliers is null");
+        Arrays.stream(connectionSuppliers)
+            .forEach(connectionSupplier -> Objects.requireNonNull(connectionSupplier, "connectionSuppliers contains null"));
+        this.connectionSuppliers = Arrays.asList(connectionSuppliers);
+        return this;
+    }
+
+    /**
+     * Specifies the number of the connections got from each connection supplier at the same time.<br>
+     * Specify the minimum size of the connection pool.
+     *
+     * @param connections the number of the connections (default: 1, 0: does not get the connections)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>connections</b> is negative
+     */
+    public WarmUp connections(int connections) {
+        if (connections < 0)
+            throw new IllegalArgumentException("connections: " + connections);
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * Specifies whether to generate the <i>SELECT</i>, <i>INSERT</i>, <i>UPDATE</i> and <i>DELETE</i> SQL of each entity.
+     *
+     * @param generatesSql true to generate the SQL, false otherwise (default: false)
+     * @return this object
+     */
+    public WarmUp generatesSql(boolean generatesSql) {
+        this.generatesSql = generatesSql;
+        return this;
+    }
+
+    /**
+     * Specifies the parallelism of the fork-join pool.
+     *
+     * @param parallelism the parallelism (default: 0, 0: uses the common pool)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>parallelism</b> is negative
+     */
+    public WarmUp parallelism(int parallelism) {
+        if (parallelism < 0)
+            throw new IllegalArgumentException("parallelism: " + parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Executes the warm-up.
+     *
+     * @return an unmodifiable map of the time (ms) spent in each phase (key: phase name)
+     *
+     * @throws IllegalArgumentException if a package can not be read or an entity class is illegal
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while getting the connections, replaces it with this exception
+     */
+    public Map<String, Long> execute() {
+        Map<String, Long> times = Collections.synchronizedMap(new LinkedHashMap<>());
+        List<ConnectionSupplier> suppliers = connectionSuppliers == null ? ConnectionSupplier.all() : connectionSuppliers;
+        ForkJoinPool pool = parallelism == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        try {
+            // connections
+            CompletableFuture<Void> connectionsFuture = CompletableFuture.runAsync(() ->
+                time(times, CONNECTIONS, () -> suppliers.parallelStream()
+                    .forEach(connectionSupplier -> getConnections(connectionSupplier, pool))),
+                pool);
+
+            // entityInfo
+            List<EntityInfo<?>> entityInfos = new ArrayList<>();
+            time(times, ENTITY_INFO, () -> pool.submit(() -> {
+                Set<Class<?>> classes = new LinkedHashSet<>(entityClasses);
+                packageNames.forEach(packageName -> classes.addAll(findEntityClasses(packageName)));
+                entityInfos.addAll(classes.parallelStream()
+                    .map(Sql::getEntityInfo)
+                    .collect(Collectors.toList()));
+            }).join());
+
+            join(connectionsFuture);
+
+            // The database handlers (selected after getting the connections)
+            List<Database> databases = suppliers.stream()
+                .map(ConnectionSupplier::getDatabase)
+                .distinct()
+                .collect(Collectors.toList());
+            if (databases.isEmpty())
+                databases.add(Standard.instance);
+
+            // converters
+            time(times, CONVERTERS, () -> pool.submit(() ->
+                entityInfos.parallelStream().forEach(entityInfo ->
+                    databases.forEach(database -> resolveConverters(database, entityInfo)))
+            ).join());
+
+            // sql
+            if (generatesSql)
+                time(times, SQL, () -> pool.submit(() ->
+                    entityInfos.parallelStream().forEach(entityInfo ->
+                        databases.forEach(database -> generateSql(database, entityInfo)))
+                ).join());
+
+            logger.info(() -> "WarmUp.execute: entities: " + entityInfos.size()
+                + ", connectionSuppliers: " + suppliers.size() + ", times (ms): " + times);
+        }
+        finally {
+            if (pool != ForkJoinPool.commonPool())
+                pool.shutdown();
+        }
+
+        // Sorts in the order of the phases
+        Map<String, Long> sortedTimes = new LinkedHashMap<>();
+        Arrays.asList(ENTITY_INFO, CONNECTIONS, CONVERTERS, SQL).stream()
+            .filter(times::containsKey)
+            .forEach(phase -> sortedTimes.put(phase, times.get(phase)));
+        return Collections.unmodifiableMap(sortedTimes);
+    }
+
+    /**
+     * Runs the phase and puts the time spent in it to the map.
+     *
+     * @param times the map of the times
+     * @param phase the phase name
+     * @param runnable the phase
+     */
+    private static void time(Map<String, Long> times, String phase, Runnable runnable) {
+        long beforeTime = System.nanoTime();
+        runnable.run();
+        times.put(phase, (System.nanoTime() - beforeTime) / 1_000_000L);
+    }
+
+    /**
+     * Waits for the future to complete and returns its result.
+     *
+     * @param <T> the type of the result
+     * @param future the future
+     * @return the result
+     *
+     * @throws RuntimeException the exception thrown in the future (not wrapped with <b>CompletionException</b>)
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the connections from the connection supplier at the same time and closes them.<br>
+     * If some of them can not be got, closes the others and throws the first exception.
+     *
+     * @param connectionSupplier the connection supplier
+     * @param executor the executor to get the connections
+     */
+    private void getConnections(ConnectionSupplier connectionSupplier, Executor executor) {
+        if (connections == 0) return;
+
+        // Gets the first connection alone to create the data source
+        List<CompletableFuture<ConnectionWrapper>> futures = new ArrayList<>();
+        futures.add(CompletableFuture.completedFuture(connectionSupplier.get()));
+        for (int index = 1; index < connections; ++index)
+            futures.add(CompletableFuture.supplyAsync(connectionSupplier::get, executor));
+
+        // Waits for all the connections before closing them so that they are got at the same time
+        List<ConnectionWrapper> connectionList = new ArrayList<>();
+        RuntimeException exception = null;
+        for (CompletableFuture<ConnectionWrapper> future : futures) {
+            try {
+                connectionList.add(join(future));
+            }
+            catch (RuntimeException e) {
+                if (exception == null) exception = e;
+            }
+        }
+
+        for (ConnectionWrapper connection : connectionList) {
+            try {
+                try {
+                    connection.rollback();
+                }
+                finally {
+                    connection.close();
+                }
+            }
+            catch (SQLException e) {
+                logger.warn("WarmUp.getConnections: " + connectionSupplier + ": " + e);
+            }
+        }
+
+        if (exception != null)
+            throw exception;
+    }
+
+    /**
+     * Resolves the type converters of the columns of the entity.
+     *
+     * @param database the database handler
+     * @param entityInfo the entity information
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void resolveConverters(Database database, EntityInfo<?> entityInfo) {
+        Map<String, TypeConverter<?, ?>> typeConverterMap = database.typeConverterMap();
+        for (ColumnInfo columnInfo : entityInfo.columnInfos()) {
+            Class<?> propertyType = Utils.toClassType(entityInfo.accessor().getType(columnInfo.propertyName()));
+            Class<?> columnType = columnInfo.columnType();
+            List<Class<?>[]> typePairs = new ArrayList<>();
+            typePairs.add(new Class<?>[] {propertyType, SqlString.class});
+            if (columnType != null && columnType != propertyType) {
+                typePairs.add(new Class<?>[] {propertyType, columnType});
+                typePairs.add(new Class<?>[] {columnType, propertyType});
+                typePairs.add(new Class<?>[] {columnType, SqlString.class});
+            }
+
+            for (Class<?>[] typePair : typePairs) {
+                try {
+                    TypeConverter.get(typeConverterMap, (Class)typePair[0], (Class)typePair[1]);
+                }
+                catch (IllegalArgumentException e) {
+                    // Not found (is thrown again when converted)
+                    logger.debug(() -> "WarmUp.resolveConverters: " + database.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the <i>SELECT</i>, <i>INSERT</i>, <i>UPDATE</i> and <i>DELETE</i> SQL of the entity.
+     *
+     * @param <E> the type of the entity
+     * @param database the database handler
+     * @param entityInfo the entity information
+     */
+    private static <E> void generateSql(Database database, EntityInfo<E> entityInfo) {
+        Class<E> entityClass = entityInfo.entityClass();
+        try {
+            database.selectSql(new Sql<>(entityClass).where(Condition.ALL), new ArrayList<>());
+
+            // INSERT, UPDATE and DELETE need an entity
+            Constructor<E> constructor = entityClass.getConstructor();
+            E entity = constructor.newInstance();
+            database.insertSql(new Sql<>(entityClass).setEntity(entity), new ArrayList<>());
+            if (!entityInfo.keyColumnInfos().isEmpty()) {
+                database.updateSql(new Sql<>(entityClass).setEntity(entity).where(Condition.of(entity)), new ArrayList<>());
+                database.deleteSql(new Sql<>(entityClass).setEntity(entity).where(Condition.of(entity)), new ArrayList<>());
+            }
+        }
+        catch (NoSuchMethodException e) {
+            // no public constructor without parameters
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("WarmUp.generateSql: " + database.getClass().getSimpleName() + ", " + entityClass.getName() + ": " + e);
+        }
+    }
+
+    /**
+     * Finds the entity classes in the package and its subpackages.
+     *
+     * @param packageName the package name
+     * @return a list of the entity classes
+     *
+     * @throws IllegalArgumentException if the package can not be read
+     */
+    private static List<Class<?>> findEntityClasses(String packageName) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null)
+            classLoader = WarmUp.class.getClassLoader();
+
+        String path = packageName.replace('.', '/');
+        List<String> classNames = new ArrayList<>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(path);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if (url.getProtocol().equals("file")) {
+                    addClassNames(classNames, new File(URLDecoder.decode(url.getPath(), "UTF-8")), packageName);
+                } else if (url.getProtocol().equals("jar")) {
+                    JarURLConnection connection = (JarURLConnection)url.openConnection();
+                    connection.setUseCaches(false);
+                    try (JarFile jarFile = connection.getJarFile()) {
+                        for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+                            String name = entries.nextElement().getName();
+                            if (name.startsWith(path + '/') && name.endsWith(".class"))
+                                classNames.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                        }
+                    }
+                } else
+                    logger.warn("WarmUp.findEntityClasses: unsupported url: " + url);
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("packageName: " + packageName, e);
+        }
+
+        List<Class<?>> classes = new ArrayList<>();
+        for (String className : classNames) {
+            if (className.endsWith("package-info") || className.endsWith("module-info")) continue;
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                if (isEntityClass(clazz))
+                    classes.add(clazz);
+            }
+            catch (ClassNotFoundException | LinkageError e) {
+                logger.debug(() -> "WarmUp.findEntityClasses: " + className + ": " + e);
+            }
+        }
+        logger.debug(() -> "WarmUp.findEntityClasses: " + packageName + ": " + classes);
+        return classes;
+    }
+
+    /**
+     * Adds the class names in the directory and its subdirectories.
+     *
+     * @param classNames the list of the class names
+     * @param directory the directory
+     * @param packageName the package name related to the directory
+     */
+    private static void addClassNames(List<String> classNames, File directory, String packageName) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory())
+                addClassNames(classNames, file, packageName + '.' + name);
+            else if (name.endsWith(".class"))
+                classNames.add(packageName + '.' + name.substring(0, name.length() - 6));
+        }
+    }
+
+    /**
+     * Returns whether the class is an entity class.
+     *
+     * @param clazz the class
+     * @return true if the class is an entity class, false otherwise
+     */
+    private static boolean isEntityClass(Class<?> clazz) {
+        if (clazz.isInterface() || clazz.isEnum() || clazz.isAnnotation() || clazz.isAnonymousClass()
+            || clazz.isLocalClass() || clazz.isSynthetic() || Modifier.isAbstract(clazz.getModifiers()))
+            return false;
+
+        if (!Utils.getAnnotations(clazz, KeyProperty.class).isEmpty())
+            return true;
+
+        for (Class<?> superClass = clazz; superClass != null && superClass != Object.class; superClass = superClass.getSuperclass()) {
+            if (superClass.getAnnotation(Table.class) != null)
+                return true;
+            for (Field field : superClass.getDeclaredFields())
+                if (field.getAnnotation(Key.class) != null)
+                    return true;
+        }
+        return false;
+    }
+}
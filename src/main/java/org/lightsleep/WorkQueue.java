@@ -0,0 +1,323 @@
+// WorkQueue.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A polling work queue on a table that workers claim rows of
+ * with <i>SELECT ... FOR UPDATE SKIP LOCKED</i>.
+ *
+ * <p>
+ * Each poll selects up to <b>batchSize</b> rows with the <b>Sql</b> in one transaction,
+ * calls the processor for each row and commits the transaction.
+ * The rows locked by other workers are skipped instead of waiting for them,
+ * so the throughput scales with the number of workers.<br>
+ * The processor must mark the row as done (e.g. updates the status or deletes the row)
+ * so that the row is not selected again.
+ * If the processor throws an exception, the transaction is rolled back
+ * and the rows are claimed again in a later poll.
+ * </p>
+ *
+ * <p>
+ * A worker which failed to poll waits <b>pollInterval</b> ms, doubling the wait for each consecutive failure
+ * up to {@value #MAX_BACKOFF_FACTOR} times <b>pollInterval</b>.
+ * If the database does not support <i>SKIP LOCKED</i>, the workers stop at the first poll.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * WorkQueue&lt;Job&gt; queue = new WorkQueue&lt;&gt;(
+ *         new Sql&lt;&gt;(Job.class).where("{status}={}", Job.Status.READY).orderBy("{id}"),
+ *         (conn, job) -&gt; {
+ *             job.execute();
+ *             job.status = Job.Status.DONE;
+ *             new Sql&lt;&gt;(Job.class).connection(conn).update(job);
+ *         })
+ *     .batchSize(10)
+ *     .workers(4)
+ *     <b>.start()</b>;
+ *     ...
+ * queue<b>.stop()</b>;
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * def queue = new WorkQueue&lt;&gt;(
+ *         new Sql&lt;&gt;(Job).where('{status}={}', Job.Status.READY).orderBy('{id}'),
+ *         {conn, job -&gt;
+ *             job.execute()
+ *             job.status = Job.Status.DONE
+ *             new Sql&lt;&gt;(Job).connection(conn).update(job)
+ *         })
+ *     .batchSize(10)
+ *     .workers(4)
+ *     <b>.start()</b>
+ *     ...
+ * queue<b>.stop()</b>
+ * </pre></div>
+ *
+ * @param <E> the type of the entity
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#skipLocked()
+ */
+public class WorkQueue<E> {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueue.class);
+
+    /** The maximum factor of <b>pollInterval</b> to wait after consecutive failures */
+    public static final int MAX_BACKOFF_FACTOR = 64;
+
+    // The Sql to select the rows to be claimed
+    private final Sql<E> sql;
+
+    // The processor of a claimed row
+    private final BiConsumer<ConnectionWrapper, E> processor;
+
+    // The connection supplier, read by the workers without locking
+    private volatile ConnectionSupplier connectionSupplier;
+
+    // The maximum number of the rows claimed in a transaction
+    private int batchSize = 10;
+
+    // The number of the workers
+    private int workers = 1;
+
+    // The interval (ms) to poll again after no rows were claimed
+    private long pollInterval = 1000L;
+
+    // The executor of the workers
+    private ExecutorService executor;
+
+    // The monitor to wake up the workers when stopped
+    private final Object monitor = new Object();
+
+    // Whether the workers are running
+    private volatile boolean running;
+
+    /**
+     * Constructs a new <b>WorkQueue</b>.
+     *
+     * @param sql the <b>Sql</b> object to select the rows to be claimed
+     * @param processor the processor of a claimed row, which should mark the row as done
+     *
+     * @throws NullPointerException if <b>sql</b> or <b>processor</b> is <b>null</b>
+     */
+    public WorkQueue(Sql<E> sql, BiConsumer<ConnectionWrapper, E> processor) {
+        this.sql = Objects.requireNonNull(sql, "sql is null");
+        this.processor = Objects.requireNonNull(processor, "processor is null");
+    }
+
+    /**
+     * Specifies the connection supplier.<br>
+     * If not specified, uses <b>ConnectionSupplier.find()</b>.
+     *
+     * @param connectionSupplier the connection supplier
+     * @return this object
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b> is <b>null</b>
+     */
+    public WorkQueue<E> connectionSupplier(ConnectionSupplier connectionSupplier) {
+        this.connectionSupplier = Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of the rows claimed in a transaction.
+     *
+     * @param batchSize the maximum number of the rows (default: 10)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>batchSize</b> is less than 1
+     */
+    public WorkQueue<E> batchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize: " + batchSize);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Specifies the number of the workers started by {@link #start()}.<br>
+     * Specify a value less than the maximum size of the connection pool.
+     *
+     * @param workers the number of the workers (default: 1)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>workers</b> is less than 1
+     */
+    public WorkQueue<E> workers(int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers: " + workers);
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * Specifies the interval to poll again after no rows were claimed.
+     *
+     * @param pollInterval the interval (ms) (default: 1000)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>pollInterval</b> is less than 1
+     */
+    public WorkQueue<E> pollInterval(long pollInterval) {
+        if (pollInterval < 1L)
+            throw new IllegalArgumentException("pollInterval: " + pollInterval);
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * Claims up to <b>batchSize</b> rows and processes them in one transaction.
+     *
+     * @return the number of the processed rows
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     * @throws UnsupportedOperationException if the database does not support <i>SKIP LOCKED</i>
+     */
+    public int poll() {
+        int[] count = new int[1];
+        Transaction.execute(connectionSupplier(), conn -> {
+            List<E> entities = new ArrayList<>();
+            sql.clone()
+                .limit(batchSize)
+                .forUpdate()
+                .skipLocked()
+                .connection(conn)
+                .select(entities::add);
+
+            for (E entity : entities)
+                processor.accept(conn, entity);
+            count[0] = entities.size();
+        });
+        return count[0];
+    }
+
+    /**
+     * Returns the connection supplier, finding it with <b>ConnectionSupplier.find()</b> if not specified.<br>
+     * Does not lock this object so that the workers do not wait for {@link #stop()}.
+     *
+     * @return the connection supplier
+     */
+    private ConnectionSupplier connectionSupplier() {
+        ConnectionSupplier connectionSupplier = this.connectionSupplier;
+        if (connectionSupplier == null)
+            this.connectionSupplier = connectionSupplier = ConnectionSupplier.find();
+        return connectionSupplier;
+    }
+
+    /**
+     * Starts the workers which repeat {@link #poll()}.<br>
+     * A worker waits <b>pollInterval</b> ms after no rows were claimed
+     * and longer after consecutive exceptions.
+     *
+     * @return this object
+     *
+     * @throws IllegalStateException if the workers have been already started
+     * @throws IllegalArgumentException if the connection supplier is not specified and cannot be found
+     */
+    public synchronized WorkQueue<E> start() {
+        if (executor != null)
+            throw new IllegalStateException("started");
+        connectionSupplier(); // resolves before the workers start and fails here rather than in them
+
+        running = true;
+        executor = Executors.newFixedThreadPool(workers);
+        for (int index = 0; index < workers; ++index)
+            executor.execute(this::work);
+        return this;
+    }
+
+    /**
+     * Stops the workers and waits for the rows being processed to be committed.
+     */
+    public synchronized void stop() {
+        if (executor == null)
+            return;
+
+        synchronized (monitor) {
+            running = false;
+            monitor.notifyAll();
+        }
+
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(pollInterval, TimeUnit.MILLISECONDS))
+                logger.debug(() -> "WorkQueue.stop: waiting for the workers");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    /**
+     * Returns <b>true</b> if the workers are running, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if the workers are running, <b>false</b> otherwise
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Repeats {@link #poll()} until stopped.
+     */
+    private void work() {
+        int failures = 0; // The number of the consecutive failures
+        while (running) {
+            int count = 0;
+            long waitTime = pollInterval;
+            try {
+                count = poll();
+                failures = 0;
+            }
+            catch (RuntimeException e) {
+                // The stack trace is logged in Transaction.execute
+                if (e instanceof UnsupportedOperationException && !connectionSupplier().getDatabase().supportsSkipLocked()) {
+                    // Never succeeds
+                    logger.error("WorkQueue: stops the workers: the database does not support SKIP LOCKED: " + e);
+                    synchronized (monitor) {
+                        running = false;
+                        monitor.notifyAll();
+                    }
+                    return;
+                }
+
+                ++failures;
+                waitTime = pollInterval * Math.min(1L << Math.min(failures - 1, 30), MAX_BACKOFF_FACTOR);
+                logger.warn("WorkQueue: failed to poll " + failures + " time(s) in a row, retries after "
+                    + waitTime + " ms: " + e);
+            }
+
+            if (count == 0) {
+                synchronized (monitor) {
+                    if (running) {
+                        try {
+                            monitor.wait(waitTime);
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+// WriteBehindBuffer.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A buffer that accepts entities from any thread
+ * and inserts them together in one transaction.
+ *
+ * <p>
+ * The entities added with {@link #add(Object)} are queued without blocking each other
+ * and inserted when <b>maxRows</b> entities are queued or <b>maxDelay</b> ms elapsed.
+ * The entities of a flush are inserted with {@link Sql#bulkLoad(Iterable)} in one transaction,
+ * so that the cost of the connection checkout, the round trips and the commit is shared by them.<br>
+ * <b>add</b> returns a <b>CompletableFuture</b> that is completed when the transaction is committed.
+ * Wait for it (e.g. <b>join()</b>) if the entity must be durable before going on.
+ * If the transaction is rolled back, all the futures of the flush are completed exceptionally.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * WriteBehindBuffer&lt;Event&gt; buffer = new WriteBehindBuffer&lt;&gt;(Event.class)
+ *     .maxRows(100)
+ *     .maxDelay(50)
+ *     <b>.start()</b>;
+ *     ...
+ * buffer<b>.add(event)</b>;        // does not wait
+ * buffer<b>.add(event).join()</b>; // waits for the commit
+ *     ...
+ * buffer<b>.close()</b>;
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * def buffer = new WriteBehindBuffer&lt;&gt;(Event)
+ *     .maxRows(100)
+ *     .maxDelay(50)
+ *     <b>.start()</b>
+ *     ...
+ * buffer<b>.add(event)</b>        // does not wait
+ * buffer<b>.add(event).join()</b> // waits for the commit
+ *     ...
+ * buffer<b>.close()</b>
+ * </pre></div>
+ *
+ * @param <E> the type of the entity
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class WriteBehindBuffer<E> implements AutoCloseable {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    // An entity and the future completed when it is inserted
+    private static class Entry<E> {
+        final E entity;
+        final CompletableFuture<E> future = new CompletableFuture<>();
+
+        Entry(E entity) {
+            this.entity = entity;
+        }
+    }
+
+    // The entity class
+    private final Class<E> entityClass;
+
+    // The connection supplier
+    private ConnectionSupplier connectionSupplier;
+
+    // The maximum number of the rows inserted in a transaction
+    private int maxRows = 100;
+
+    // The maximum time (ms) an entity waits in the buffer
+    private long maxDelay = 100L;
+
+    // The queued entries
+    private final ConcurrentLinkedQueue<Entry<E>> queue = new ConcurrentLinkedQueue<>();
+
+    // The number of the queued entries
+    private final AtomicInteger size = new AtomicInteger();
+
+    // The monitor to wake up the flusher
+    private final Object monitor = new Object();
+
+    // The flusher thread
+    private Thread flusher;
+
+    // Whether the buffer accepts entities
+    private volatile boolean open = true;
+
+    // The lock to check open and queue an entry atomically against close (read: add, write: close)
+    private final ReadWriteLock openLock = new ReentrantReadWriteLock();
+
+    // Whether the flusher is running
+    private volatile boolean running;
+
+    /**
+     * Constructs a new <b>WriteBehindBuffer</b>.
+     *
+     * @param entityClass the entity class
+     *
+     * @throws NullPointerException if <b>entityClass</b> is <b>null</b>
+     */
+    public WriteBehindBuffer(Class<E> entityClass) {
+        this.entityClass = Objects.requireNonNull(entityClass, "entityClass is null");
+    }
+
+    /**
+     * Specifies the connection supplier.<br>
+     * If not specified, uses <b>ConnectionSupplier.find()</b>.
+     *
+     * @param connectionSupplier the connection supplier
+     * @return this object
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b> is <b>null</b>
+     */
+    public WriteBehindBuffer<E> connectionSupplier(ConnectionSupplier connectionSupplier) {
+        this.connectionSupplier = Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of the rows inserted in a transaction.<br>
+     * When this number of entities are queued, they are flushed without waiting for <b>maxDelay</b>.
+     *
+     * @param maxRows the maximum number of the rows (default: 100)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>maxRows</b> is less than 1
+     */
+    public WriteBehindBuffer<E> maxRows(int maxRows) {
+        if (maxRows < 1)
+            throw new IllegalArgumentException("maxRows: " + maxRows);
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum time an entity waits in the buffer before it is flushed.
+     *
+     * @param maxDelay the maximum time (ms) (default: 100)
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>maxDelay</b> is less than 1
+     */
+    public WriteBehindBuffer<E> maxDelay(long maxDelay) {
+        if (maxDelay < 1L)
+            throw new IllegalArgumentException("maxDelay: " + maxDelay);
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * Starts the flusher thread.<br>
+     * If not started, the entities are inserted only by {@link #flush()} or {@link #close()}.
+     *
+     * @return this object
+     *
+     * @throws IllegalStateException if the flusher has been already started or the buffer has been closed
+     */
+    public synchronized WriteBehindBuffer<E> start() {
+        if (flusher != null)
+            throw new IllegalStateException("started");
+        if (!open)
+            throw new IllegalStateException("closed");
+
+        running = true;
+        flusher = new Thread(this::work, "WriteBehindBuffer-" + entityClass.getSimpleName());
+        flusher.setDaemon(true);
+        flusher.start();
+        return this;
+    }
+
+    /**
+     * Adds an entity to the buffer.
+     *
+     * @param entity the entity to be inserted
+     * @return a future completed with <b>entity</b> when the row is committed,
+     *         or completed exceptionally if the insert failed
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws IllegalStateException if the buffer has been closed
+     */
+    public CompletableFuture<E> add(E entity) {
+        Objects.requireNonNull(entity, "entity is null");
+
+        Entry<E> entry = new Entry<>(entity);
+        Lock lock = openLock.readLock();
+        lock.lock();
+        try {
+            // The last flush of close does not miss the entry
+            if (!open)
+                throw new IllegalStateException("closed");
+            queue.add(entry);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (size.incrementAndGet() >= maxRows) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+        return entry.future;
+    }
+
+    /**
+     * Returns the number of the entities waiting in the buffer.
+     *
+     * @return the number of the entities waiting in the buffer
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Inserts all the entities in the buffer in the current thread.<br>
+     * The entities are inserted <b>maxRows</b> rows per transaction.
+     *
+     * @return the number of the inserted rows
+     */
+    public int flush() {
+        int count = 0;
+        for (;;) {
+            List<Entry<E>> entries = new ArrayList<>(Math.min(size.get(), maxRows));
+            while (entries.size() < maxRows) {
+                Entry<E> entry = queue.poll();
+                if (entry == null) break;
+                size.decrementAndGet();
+                entries.add(entry);
+            }
+            if (entries.isEmpty())
+                return count;
+
+            count += insert(entries);
+        }
+    }
+
+    /**
+     * Stops accepting entities, stops the flusher thread and inserts the rest of the entities.
+     */
+    @Override
+    public void close() {
+        Thread flusher;
+        synchronized (this) {
+            Lock lock = openLock.writeLock();
+            lock.lock();
+            try {
+                open = false;
+            }
+            finally {
+                lock.unlock();
+            }
+            flusher = this.flusher;
+            this.flusher = null;
+        }
+
+        if (flusher != null) {
+            synchronized (monitor) {
+                running = false;
+                monitor.notifyAll();
+            }
+            try {
+                flusher.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * Inserts the entities of <b>entries</b> in one transaction and completes their futures.
+     *
+     * @param entries the entries
+     * @return the number of the inserted rows
+     */
+    private int insert(List<Entry<E>> entries) {
+        List<E> entities = new ArrayList<>(entries.size());
+        entries.forEach(entry -> entities.add(entry.entity));
+
+        long[] count = new long[1];
+        try {
+            Transaction.execute(connectionSupplier == null ? ConnectionSupplier.find() : connectionSupplier, conn ->
+                count[0] = new Sql<>(entityClass).connection(conn).bulkLoad(entities));
+        }
+        catch (RuntimeException e) {
+            // logged in Transaction.execute
+            entries.forEach(entry -> entry.future.completeExceptionally(e));
+            return 0;
+        }
+
+        entries.forEach(entry -> entry.future.complete(entry.entity));
+        if (logger.isDebugEnabled())
+            logger.debug("WriteBehindBuffer.insert: " + entityClass.getSimpleName() + ": " + count[0] + " rows");
+        return (int)count[0];
+    }
+
+    /**
+     * Repeats {@link #flush()} until closed.
+     */
+    private void work() {
+        while (running) {
+            synchronized (monitor) {
+                if (running && size.get() < maxRows) {
+                    try {
+                        monitor.wait(maxDelay);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            flush();
+        }
+    }
+}
@@ -92,6 +92,34 @@ public interface Condition extends SqlComponent {
         return new SubqueryCondition<>(outerSql, subSql, new Expression(content));
     }
 
+    /**
+     * Returns a new condition that the value of the property is one of <b>values</b>.
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * new Sql&lt;&gt;(Contact.class)
+     *     .where(<b>Condition.in("id", ids)</b>)
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * new Sql&lt;&gt;(Contact)
+     *     .where(<b>Condition.in('id', ids)</b>)
+     * </pre></div>
+     *
+     * @param propertyName the property name
+     * @param values the values
+     * @return a new condition
+     *
+     * @throws NullPointerException if <b>propertyName</b>, <b>values</b> or any element of <b>values</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see InCondition#InCondition(String, Collection)
+     */
+    static Condition in(String propertyName, Collection<?> values) {
+        return new InCondition(propertyName, values);
+    }
+
     /**
      * Returns an optimized <b>(NOT this)</b>.
      *
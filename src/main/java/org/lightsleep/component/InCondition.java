@@ -0,0 +1,186 @@
+// InCondition.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.lightsleep.Sql;
+import org.lightsleep.database.Database;
+import org.lightsleep.helper.ColumnInfo;
+
+/**
+ * The condition that a column value is one of the values (<i>column IN (...)</i>).
+ *
+ * <p>
+ * This condition is one node regardless of the number of the values,
+ * and generates a SQL of a few shapes so that the statement caches of the database are used effectively.
+ * </p>
+ * <ul>
+ *   <li>If the database supports array parameters of the value type (e.g. PostgreSQL),
+ *       generates <i>column=ANY(?)</i> with an array parameter.</li>
+ *   <li>Otherwise if the values are of the types that can be bound as parameters
+ *       (<b>String</b>, <b>Short</b>, <b>Integer</b>, <b>Long</b>, <b>Float</b>, <b>Double</b>, <b>BigDecimal</b>,
+ *       <b>java.sql.Date</b>, <b>java.sql.Time</b> and <b>java.sql.Timestamp</b>),
+ *       generates <i>column IN (?,?,...)</i> with the values bound as parameters.</li>
+ *   <li>Otherwise, or if binding the values exceeds {@link Database#maxParameters()},
+ *       generates <i>column IN (...)</i> with the literal values.</li>
+ * </ul>
+ * <p>
+ * The values are split into chunks of {@link Database#maxKeysPerSelect()} values,
+ * <i>(column IN (...) OR column IN (...) ...)</i>.
+ * When the values are bound, the last chunk is padded to a power of two by repeating its last value,
+ * so that the number of the SQL shapes is small.<br>
+ * If there are no values, generates a condition that is always false (<i>0=1</i>).
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Condition#in(String, Collection)
+ */
+public class InCondition implements Condition {
+    // The types of the values bound as parameters
+    private static final Set<Class<?>> parameterTypes = new HashSet<>(Arrays.asList(
+        String.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigDecimal.class,
+        java.sql.Date.class, java.sql.Time.class, java.sql.Timestamp.class
+    ));
+
+    // The property name
+    private final String propertyName;
+
+    // The values without duplicates
+    private final List<Object> values;
+
+    /**
+     * Constructs a new <b>InCondition</b>.
+     *
+     * @param propertyName the property name
+     * @param values the values
+     *
+     * @throws NullPointerException if <b>propertyName</b>, <b>values</b> or any element of <b>values</b> is <b>null</b>
+     */
+    public InCondition(String propertyName, Collection<?> values) {
+        this.propertyName = Objects.requireNonNull(propertyName, "propertyName is null");
+        Objects.requireNonNull(values, "values is null")
+            .forEach(value -> Objects.requireNonNull(value, "values contains null"));
+        this.values = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(values)));
+    }
+
+    /**
+     * Returns the property name.
+     *
+     * @return the property name
+     */
+    public String propertyName() {
+        return propertyName;
+    }
+
+    /**
+     * Returns the values without duplicates.
+     *
+     * @return the values
+     */
+    public List<Object> values() {
+        return values;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public <E> String toString(Database database, Sql<E> sql, List<Object> parameters) {
+        if (values.isEmpty())
+            return "0=1";
+
+        List<Object> values = convertedValues(database, sql);
+        Class<?> valueType = values.get(0).getClass();
+        boolean sameType = values.stream().allMatch(value -> value.getClass() == valueType);
+
+        if (sameType && database.supportsArrayParameter(valueType)) {
+            // {property}=ANY(?)
+            Object[] array = (Object[])java.lang.reflect.Array.newInstance(valueType, values.size());
+            values.toArray(array);
+            return new Expression('{' + propertyName + "}=ANY({})", new SqlString(SqlString.PARAMETER, (Object)array))
+                .toString(database, sql, parameters);
+        }
+
+        // Splits into the chunks of the fixed size, and pads the last chunk to a power of two
+        int chunkSize = Math.max(database.maxKeysPerSelect(), 1);
+        int lastSize = values.size() % chunkSize;
+        int paddedSize = values.size() - lastSize + (lastSize == 0 ? 0 : paddedSize(lastSize, chunkSize));
+
+        // Binds as parameters if the number of the parameters does not exceed the limit of the database
+        boolean bindsParameters = parameters.size() + paddedSize <= database.maxParameters()
+            && values.stream().allMatch(value -> parameterTypes.contains(value.getClass()));
+        List<String> inStrings = new ArrayList<>();
+        for (int fromIndex = 0; fromIndex < values.size(); fromIndex += chunkSize) {
+            List<Object> chunk = new ArrayList<>(values.subList(fromIndex, Math.min(fromIndex + chunkSize, values.size())));
+            Object[] arguments;
+            if (bindsParameters) {
+                // Pads the last chunk with the last value
+                int size = paddedSize(chunk.size(), chunkSize);
+                while (chunk.size() < size)
+                    chunk.add(chunk.get(chunk.size() - 1));
+                arguments = chunk.stream()
+                    .map(value -> new SqlString(SqlString.PARAMETER, value))
+                    .toArray();
+            } else
+                arguments = chunk.toArray();
+
+            // {property} IN ({},{},...)
+            inStrings.add(new Expression('{' + propertyName + "} IN (" + String.join(",", Collections.nCopies(arguments.length, "{}")) + ')', arguments)
+                .toString(database, sql, parameters));
+        }
+
+        return inStrings.size() == 1
+            ? inStrings.get(0)
+            : '(' + String.join(" OR ", inStrings) + ')';
+    }
+
+    /**
+     * Returns the smallest power of two not less than the size, or <b>chunkSize</b> if it is greater.
+     *
+     * @param size the number of the values in a chunk
+     * @param chunkSize the maximum number of the values in a chunk
+     * @return the padded size
+     */
+    private static int paddedSize(int size, int chunkSize) {
+        return size == 1 ? 1 : Math.min(Integer.highestOneBit(size - 1) << 1, chunkSize);
+    }
+
+    /**
+     * Returns the values converted to the column type if it is specified.
+     *
+     * @param database the database handler
+     * @param sql the <b>Sql</b> object
+     * @return the converted values
+     */
+    private <E> List<Object> convertedValues(Database database, Sql<E> sql) {
+        Class<?> columnType = null;
+        try {
+            ColumnInfo columnInfo = sql.entityInfo().getColumnInfo(propertyName);
+            columnType = columnInfo.columnType();
+        }
+        catch (IllegalArgumentException e) {
+            // A property of a joined table or not a property
+        }
+        if (columnType == null)
+            return values;
+
+        List<Object> convertedValues = new ArrayList<>(values.size());
+        for (Object value : values)
+            convertedValues.add(database.convert(value, columnType));
+        return convertedValues;
+    }
+}
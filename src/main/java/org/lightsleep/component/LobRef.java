@@ -0,0 +1,310 @@
+// LobRef.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.component;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.lightsleep.RuntimeSQLException;
+import org.lightsleep.Sql;
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+
+/**
+ * A LOB (<i>BLOB</i> or <i>CLOB</i>) column value that is read lazily.
+ *
+ * <p>
+ * The columns related to properties of this type are not selected with the other columns.
+ * When an entity is selected, a reference with the key values of the entity is set to the property
+ * and the LOB value is read from the database only when one of the <b>read</b> or <b>get</b> methods is called.<br>
+ * To insert or update a LOB value, set an object created with one of the <b>of</b> methods to the property.
+ * The column is not updated if the property has the reference set when the entity was selected.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * public class Document {
+ *    {@literal @}Key public int id;
+ *     public String title;
+ *     public LobRef body;
+ * }
+ *
+ * Transaction.execute(conn -&gt; {
+ *     Document document = new Sql&lt;&gt;(Document.class).where("{id}={}", 1).connection(conn).select().get();
+ *     document.body.<b>readCharacterStream(conn, reader -&gt; ...)</b>;
+ *
+ *     document.body = <b>LobRef.of(new FileReader(file))</b>;
+ *     new Sql&lt;&gt;(Document.class).connection(conn).update(document);
+ * });
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class LobRef {
+    // The content (byte[], String, InputStream or Reader) to be inserted or updated
+    private final Object content;
+
+    // The column information of the referenced LOB
+    private final ColumnInfo columnInfo;
+
+    // The key values of the row of the referenced LOB
+    private final List<Object> keyValues;
+
+    /**
+     * Constructs a new <b>LobRef</b>.
+     *
+     * @param content the content
+     * @param columnInfo the column information
+     * @param keyValues the key values
+     */
+    private LobRef(Object content, ColumnInfo columnInfo, List<Object> keyValues) {
+        this.content = content;
+        this.columnInfo = columnInfo;
+        this.keyValues = keyValues;
+    }
+
+    /**
+     * Returns a new <b>LobRef</b> with a binary content.
+     *
+     * @param content the binary content
+     * @return a new <b>LobRef</b>
+     *
+     * @throws NullPointerException if <b>content</b> is <b>null</b>
+     */
+    public static LobRef of(byte[] content) {
+        return new LobRef(Objects.requireNonNull(content, "content is null"), null, null);
+    }
+
+    /**
+     * Returns a new <b>LobRef</b> with a character content.
+     *
+     * @param content the character content
+     * @return a new <b>LobRef</b>
+     *
+     * @throws NullPointerException if <b>content</b> is <b>null</b>
+     */
+    public static LobRef of(String content) {
+        return new LobRef(Objects.requireNonNull(content, "content is null"), null, null);
+    }
+
+    /**
+     * Returns a new <b>LobRef</b> with a binary stream content.
+     * The stream is bound with <b>PreparedStatement.setBinaryStream</b>.
+     *
+     * @param content the binary stream content
+     * @return a new <b>LobRef</b>
+     *
+     * @throws NullPointerException if <b>content</b> is <b>null</b>
+     */
+    public static LobRef of(InputStream content) {
+        return new LobRef(Objects.requireNonNull(content, "content is null"), null, null);
+    }
+
+    /**
+     * Returns a new <b>LobRef</b> with a character stream content.
+     * The stream is bound with <b>PreparedStatement.setCharacterStream</b>.
+     *
+     * @param content the character stream content
+     * @return a new <b>LobRef</b>
+     *
+     * @throws NullPointerException if <b>content</b> is <b>null</b>
+     */
+    public static LobRef of(Reader content) {
+        return new LobRef(Objects.requireNonNull(content, "content is null"), null, null);
+    }
+
+    /**
+     * Returns a new <b>LobRef</b> that refers the LOB column of a row.
+     *
+     * <p>
+     * <i>This method is used internally.</i>
+     * </p>
+     *
+     * @param columnInfo the column information of the LOB column
+     * @param keyValues the key values of the row
+     * @return a new <b>LobRef</b>
+     *
+     * @throws NullPointerException if <b>columnInfo</b> or <b>keyValues</b> is <b>null</b>
+     */
+    public static LobRef reference(ColumnInfo columnInfo, List<Object> keyValues) {
+        return new LobRef(null,
+            Objects.requireNonNull(columnInfo, "columnInfo is null"),
+            new ArrayList<>(Objects.requireNonNull(keyValues, "keyValues is null")));
+    }
+
+    /**
+     * Returns <b>true</b> if this object refers a LOB column of a row, <b>false</b> if this object has a content.
+     *
+     * @return <b>true</b> if this object refers a LOB column of a row, <b>false</b> if this object has a content
+     */
+    public boolean isReference() {
+        return content == null;
+    }
+
+    /**
+     * Returns the content.
+     *
+     * @return the content (byte[], String, InputStream or Reader), <b>null</b> if this object is a reference
+     */
+    public Object content() {
+        return content;
+    }
+
+    /**
+     * Reads the value as a binary stream.
+     *
+     * <p>
+     * The stream is valid only in <b>consumer</b>.
+     * </p>
+     *
+     * @param connection the connection wrapper
+     * @param consumer a consumer of the binary stream (<b>null</b> if the value is <i>NULL</i>)
+     *
+     * @throws NullPointerException if <b>connection</b> or <b>consumer</b> is <b>null</b>
+     * @throws IllegalStateException if the content is not binary
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public void readBinaryStream(ConnectionWrapper connection, Consumer<InputStream> consumer) {
+        Objects.requireNonNull(connection, "connection is null");
+        Objects.requireNonNull(consumer, "consumer is null");
+        if (content instanceof byte[])
+            consumer.accept(new ByteArrayInputStream((byte[])content));
+        else if (content instanceof InputStream)
+            consumer.accept((InputStream)content);
+        else if (content == null)
+            read(connection, (resultSet, columnLabel) -> {
+                try {
+                    consumer.accept(resultSet.getBinaryStream(columnLabel));
+                }
+                catch (SQLException e) {throw new RuntimeSQLException(e);}
+            });
+        else
+            throw new IllegalStateException("content: " + content.getClass().getName());
+    }
+
+    /**
+     * Reads the value as a character stream.
+     *
+     * <p>
+     * The stream is valid only in <b>consumer</b>.
+     * </p>
+     *
+     * @param connection the connection wrapper
+     * @param consumer a consumer of the character stream (<b>null</b> if the value is <i>NULL</i>)
+     *
+     * @throws NullPointerException if <b>connection</b> or <b>consumer</b> is <b>null</b>
+     * @throws IllegalStateException if the content is not characters
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public void readCharacterStream(ConnectionWrapper connection, Consumer<Reader> consumer) {
+        Objects.requireNonNull(connection, "connection is null");
+        Objects.requireNonNull(consumer, "consumer is null");
+        if (content instanceof String)
+            consumer.accept(new StringReader((String)content));
+        else if (content instanceof Reader)
+            consumer.accept((Reader)content);
+        else if (content == null)
+            read(connection, (resultSet, columnLabel) -> {
+                try {
+                    consumer.accept(resultSet.getCharacterStream(columnLabel));
+                }
+                catch (SQLException e) {throw new RuntimeSQLException(e);}
+            });
+        else
+            throw new IllegalStateException("content: " + content.getClass().getName());
+    }
+
+    /**
+     * Reads and returns the whole value as a byte array.
+     *
+     * @param connection the connection wrapper
+     * @return the byte array (<b>null</b> if the value is <i>NULL</i>)
+     *
+     * @throws NullPointerException if <b>connection</b> is <b>null</b>
+     * @throws IllegalStateException if the content is not a byte array
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public byte[] getBytes(ConnectionWrapper connection) {
+        Objects.requireNonNull(connection, "connection is null");
+        if (content instanceof byte[])
+            return (byte[])content;
+        if (content != null)
+            throw new IllegalStateException("content: " + content.getClass().getName());
+
+        byte[][] bytes = new byte[1][];
+        read(connection, (resultSet, columnLabel) -> {
+            try {
+                bytes[0] = resultSet.getBytes(columnLabel);
+            }
+            catch (SQLException e) {throw new RuntimeSQLException(e);}
+        });
+        return bytes[0];
+    }
+
+    /**
+     * Reads and returns the whole value as a string.
+     *
+     * @param connection the connection wrapper
+     * @return the string (<b>null</b> if the value is <i>NULL</i>)
+     *
+     * @throws NullPointerException if <b>connection</b> is <b>null</b>
+     * @throws IllegalStateException if the content is not a string
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    public String getString(ConnectionWrapper connection) {
+        Objects.requireNonNull(connection, "connection is null");
+        if (content instanceof String)
+            return (String)content;
+        if (content != null)
+            throw new IllegalStateException("content: " + content.getClass().getName());
+
+        String[] string = new String[1];
+        read(connection, (resultSet, columnLabel) -> {
+            try {
+                string[0] = resultSet.getString(columnLabel);
+            }
+            catch (SQLException e) {throw new RuntimeSQLException(e);}
+        });
+        return string[0];
+    }
+
+    /**
+     * Selects the referenced LOB column and calls <b>consumer</b> if the row is found.
+     *
+     * @param connection the connection wrapper
+     * @param consumer a consumer of the <b>ResultSet</b> positioned at the row and the column label
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    private void read(ConnectionWrapper connection, BiConsumer<ResultSet, String> consumer) {
+        // SELECT column FROM table WHERE key1=value1 AND ...
+        Sql<?> sql = new Sql<>(columnInfo.entityInfo().entityClass());
+        List<ColumnInfo> keyColumnInfos = columnInfo.entityInfo().keyColumnInfos();
+        for (int index = 0; index < keyValues.size(); ++index) {
+            ColumnInfo keyColumnInfo = keyColumnInfos.get(index);
+            Class<?> columnType = keyColumnInfo.columnType();
+            Object keyValue = keyValues.get(index);
+            sql.and('{' + keyColumnInfo.propertyName() + "}={}",
+                columnType == null ? keyValue : connection.getDatabase().convert(keyValue, columnType));
+        }
+        sql.connection(connection).selectColumn(columnInfo.propertyName(), consumer);
+    }
+
+    @Override
+    public String toString() {
+        return isReference()
+            ? "LobRef(" + columnInfo.entityInfo().tableName() + '.' + columnInfo.columnName() + ", " + keyValues + ')'
+            : "LobRef(" + content.getClass().getSimpleName() + ')';
+    }
+}
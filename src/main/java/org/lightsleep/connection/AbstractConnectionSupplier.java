@@ -10,10 +10,14 @@ import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
@@ -21,6 +25,9 @@ import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.database.Database;
 import org.lightsleep.database.Standard;
 import org.lightsleep.helper.Resource;
+import org.lightsleep.jfr.PhaseEvents;
+import org.lightsleep.jfr.Phase;
+import org.lightsleep.jfr.PhaseEvent;
 import org.lightsleep.logger.Logger;
 import org.lightsleep.logger.LoggerFactory;
 
@@ -32,8 +39,8 @@ import org.lightsleep.logger.LoggerFactory;
  */
 public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
     private static final Resource resource = new Resource(AbstractConnectionSupplier.class);
-    protected static final String messageUrlNotFound       = resource.getString("messageUrlNotFound"); // Used in ConnectionSupplier
-    protected static final String messageMultipleUrlsFound = resource.getString("messageMultipleUrlsFound"); // Used in ConnectionSupplier
+    protected static final String messageUrlNotFound       = resource.getString("messageUrlNotFound");
+    protected static final String messageMultipleUrlsFound = resource.getString("messageMultipleUrlsFound");
     private static final String messageMultipleUrlsDefined = resource.getString("messageMultipleUrlsDefined");
 
     /**
@@ -104,8 +111,15 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
         isolationLevelsMap.put(Connection.TRANSACTION_SERIALIZABLE    , "serializable");
     }
 
-    /** The map of key: url string and value: ConnectionSupplier */
-    protected static final Map<String, ConnectionSupplier> supplierMap = new LinkedHashMap<>();
+    /** The map of key: url string and value: ConnectionSupplier (created on first use since 4.1.0) */
+    protected static final Map<String, ConnectionSupplier> supplierMap = new ConcurrentHashMap<>();
+
+    // The map of key: url string and value: the factory of ConnectionSupplier @since 4.1.0
+    private static final Map<String, Supplier<ConnectionSupplier>> supplierFactoryMap = new LinkedHashMap<>();
+
+    // The index of find (key: url words, value: url string) @since 4.1.0
+    private static final Map<List<String>, String> urlIndex = new ConcurrentHashMap<>();
+
     static {
         initClass();
     }
@@ -113,6 +127,8 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
     // Initializes this class.
     private static void initClass() {
         supplierMap.clear();
+        supplierFactoryMap.clear(); // since 4.1.0
+        urlIndex.clear(); // since 4.1.0
 
         // get a ConnectionSupplier class name
         String supplierName = Resource.getGlobal().getString(ConnectionSupplier.class.getSimpleName(), Jdbc.class.getSimpleName());
@@ -151,36 +167,14 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                 ? urlsStr.split(",")
                 : urlStr != null ? new String[] {urlStr} : new String[0];
 
+            // The ConnectionSupplier objects are created on first use (since 4.1.0)
             Arrays.stream(urls)
                 .map(String::trim)
                 .filter(url -> !url.isEmpty())
                 .forEach(url -> {
-                    try {
-                        Properties supplierProperties = new Properties();
-                        properties.stringPropertyNames().forEach(name -> supplierProperties.put(name, properties.get(name)));
-
-                        ConnectionSupplier supplier = null;
-                        if (url.startsWith("[")) {
-                            // A connection supplier is specified at the head of url
-                            int braIndex = url.indexOf(']');
-                            if (braIndex > 0) {
-                                // Get a ConnectionSupplier class name
-                                supplierProperties.put(URL, url.substring(braIndex + 1).trim());
-                                supplier = ConnectionSupplier.of(url.substring(1, braIndex).trim(), supplierProperties);
-                            }
-                        }
-                        if (supplier == null) {
-                            supplierProperties.put(URL, url);
-                            supplier = ConnectionSupplier.of(supplierName, supplierProperties);
-                            logger.info("AbstractConnectionSupplier.initClass: url: \"" + supplier.getDatabase().maskPassword(url) + '"');
-                        }
-                        ConnectionSupplier beforeSupplier = supplierMap.put(url, supplier);
-                        if (beforeSupplier != null)
-                            logger.warn(MessageFormat.format(messageMultipleUrlsDefined, supplier.getDatabase().maskPassword(url)));
-                    }
-                    catch (Exception e) {
-                        logger.error("AbstractConnectionSupplier.initClass: url: \"" + url + '"', e);
-                    }
+                    Supplier<ConnectionSupplier> beforeFactory = supplierFactoryMap.put(url, () -> newSupplier(supplierName, properties, url));
+                    if (beforeFactory != null)
+                        logger.warn(MessageFormat.format(messageMultipleUrlsDefined, Standard.instance.maskPassword(url)));
                 });
         }
         catch (SecurityException e) {
@@ -188,14 +182,130 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
         }
     }
 
+    /**
+     * Creates a <b>ConnectionSupplier</b> related to the url.
+     *
+     * @param supplierName the class name of the default <b>ConnectionSupplier</b>
+     * @param properties the properties with connection information
+     * @param url the url defined in <b>lightsleep.properties</b>
+     * @return the created <b>ConnectionSupplier</b> object
+     *
+     * @since 4.1.0
+     */
+    private static ConnectionSupplier newSupplier(String supplierName, Properties properties, String url) {
+        Properties supplierProperties = new Properties();
+        properties.stringPropertyNames().forEach(name -> supplierProperties.put(name, properties.get(name)));
+
+        ConnectionSupplier supplier = null;
+        if (url.startsWith("[")) {
+            // A connection supplier is specified at the head of url
+            int braIndex = url.indexOf(']');
+            if (braIndex > 0) {
+                // Get a ConnectionSupplier class name
+                supplierProperties.put(URL, url.substring(braIndex + 1).trim());
+                supplier = ConnectionSupplier.of(url.substring(1, braIndex).trim(), supplierProperties);
+            }
+        }
+        if (supplier == null) {
+            supplierProperties.put(URL, url);
+            supplier = ConnectionSupplier.of(supplierName, supplierProperties);
+            logger.info("AbstractConnectionSupplier.newSupplier: url: \"" + supplier.getDatabase().maskPassword(url) + '"');
+        }
+        return supplier;
+    }
+
+    /**
+     * Returns the <b>ConnectionSupplier</b> related to the url,
+     * which is created on first call.
+     *
+     * @param url the url defined in <b>lightsleep.properties</b>
+     * @return the <b>ConnectionSupplier</b> object
+     *
+     * @throws RuntimeException if the <b>ConnectionSupplier</b> object can not be created
+     *
+     * @since 4.1.0
+     */
+    private static ConnectionSupplier supplier(String url) {
+        return supplierMap.computeIfAbsent(url, key -> {
+            try {
+                return supplierFactoryMap.get(key).get();
+            }
+            catch (RuntimeException e) {
+                logger.error("AbstractConnectionSupplier.supplier: url: \"" + Standard.instance.maskPassword(key) + '"', e);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Finds the <b>ConnectionSupplier</b> object related to the url
+     * containing all the words of the specified <b>urlWords</b>.<br>
+     * The found url is indexed by the words, so that the urls are not searched again.
+     *
+     * @param urlWords words in url
+     * @return the found <b>ConnectionSupplier</b> object
+     *
+     * @throws IllegalArgumentException if <b>ConnectionSupplier</b> object can not be found or multiple found
+     *
+     * @since 4.1.0
+     * @see ConnectionSupplier#find(String...)
+     */
+    static ConnectionSupplier find(String... urlWords) {
+        String url = urlIndex.computeIfAbsent(Arrays.asList(urlWords.clone()), words -> {
+            List<String> urls = supplierFactoryMap.keySet().stream()
+                .filter(url2 -> words.stream().allMatch(urlWord -> url2.indexOf(urlWord) >= 0))
+                .collect(Collectors.toList());
+
+            if (urls.isEmpty())
+                // A url is not found.
+                throw new IllegalArgumentException(
+                    MessageFormat.format(messageUrlNotFound, words));
+
+            if (urls.size() >= 2)
+                // Multiple urls were found.
+                throw new IllegalArgumentException(
+                    MessageFormat.format(messageMultipleUrlsFound, urls, words));
+
+            return urls.get(0);
+        });
+
+        return supplier(url);
+    }
+
+    /**
+     * Returns all the <b>ConnectionSupplier</b> objects related to the urls defined in <b>lightsleep.properties</b>.<br>
+     * The <b>ConnectionSupplier</b> objects which have not been created are created in parallel.
+     *
+     * @return a list of the <b>ConnectionSupplier</b> objects (excludes the objects that can not be created)
+     *
+     * @since 4.1.0
+     * @see ConnectionSupplier#all()
+     */
+    static List<ConnectionSupplier> all() {
+        return supplierFactoryMap.keySet().parallelStream()
+            .map(url -> {
+                try {
+                    return supplier(url);
+                }
+                catch (RuntimeException e) {
+                    return null;
+                }
+            })
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
     /** The properties */
     protected Properties jdbcProperties;
 
     // The data source
-    private DataSource dataSource;
+    private volatile DataSource dataSource;
+
+    // The statistics of the connections @since 4.1.0
+    private final PoolStats poolStats = new PoolStats(this);
 
     // The database handler. @since 2.1.0
-    private Database database = Standard.instance;
+    private volatile Database database = Standard.instance;
 
     /**
      * Constructs a new <b>AbstractConnectionSupplier</b>.
@@ -248,11 +358,25 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                     if (dataSource == null) {
                         dataSource = getDataSource();
                         first = true;
+                        poolStats.start(); // since 4.1.0
                     }
                 }
             }
 
-            Connection connection = dataSource.getConnection();
+            // Measures the time to get a connection and records the event (since 4.1.0)
+            PhaseEvent event = PhaseEvents.begin(Phase.CONNECTION_ACQUIRE);
+            long beforeTime = System.nanoTime();
+            Connection connection;
+            try {
+                connection = dataSource.getConnection();
+            }
+            catch (SQLException | RuntimeException e) {
+                poolStats.acquireFailed(System.nanoTime() - beforeTime);
+                throw e;
+            }
+            long acquireTime = System.nanoTime() - beforeTime;
+            if (event != null) event.record(this, null, 0);
+
             if (first) {
                 // first time and Jndi
                 DatabaseMetaData metaData = connection.getMetaData();
@@ -277,6 +401,18 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                 if (logger.isInfoEnabled())
                     logger.info("DBMS: "
                         + metaData.getDatabaseProductName() + ' ' + metaData.getDatabaseProductVersion());
+
+                // Selects the database handler for the server version (since 4.1.0)
+                int majorVersion = metaData.getDatabaseMajorVersion();
+                int minorVersion = metaData.getDatabaseMinorVersion();
+                Database versionDatabase = database.forServerVersion(majorVersion, minorVersion);
+                if (versionDatabase != database) {
+                    logger.info(() -> getClass().getSimpleName()
+                        + ".get: server version: " + majorVersion + '.' + minorVersion
+                        + ", database handler: " + versionDatabase.getClass().getSimpleName()
+                        + (versionDatabase.supportsOffsetLimit() ? " (OFFSET/FETCH)" : ""));
+                    database = versionDatabase;
+                }
             }
 
             boolean beforeAutoCommit = connection.getAutoCommit();
@@ -290,13 +426,62 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                 + ", connection.transactionIsolation: " + isolationLevelsMap.getOrDefault(transactionIsolation, "unknow")
             );
 
-            return new ConnectionWrapper(connection, this);
+            ConnectionWrapper connectionWrapper = new ConnectionWrapper(connection, this);
+            // since 4.1.0
+            poolStats.acquired(connectionWrapper, acquireTime);
+            connectionWrapper.setPoolStats(poolStats);
+            return connectionWrapper;
         }
         catch (SQLException e) {
             throw new RuntimeSQLException(getUrl(), e);
         }
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public PoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    /**
+     * Returns the numbers of the connection pool.<br>
+     * The subclasses using a connection pool override this method.
+     *
+     * @param dataSource the data source got by <b>getDataSource()</b>
+     * @return an array of the numbers of the active connections, the idle connections and the waiting threads
+     *         (-1 if unknown), or <b>null</b> if unknown all
+     *
+     * @throws Exception if the connection pool throws an exception
+     *
+     * @since 4.1.0
+     */
+    protected int[] getPoolCounts(DataSource dataSource) throws Exception {
+        return null;
+    }
+
+    /**
+     * Returns the numbers of the connection pool.
+     *
+     * @return an array of the numbers of the active connections, the idle connections and the waiting threads,
+     *         or <b>null</b> if unknown
+     *
+     * @since 4.1.0
+     */
+    int[] poolCounts() {
+        DataSource dataSource = this.dataSource;
+        if (dataSource == null) return null;
+
+        try {
+            return getPoolCounts(dataSource);
+        }
+        catch (Exception e) {
+            logger.debug(() -> getClass().getSimpleName() + ".poolCounts: " + e);
+            return null;
+        }
+    }
+
     /**
      * @since 2.1.0
      */
@@ -12,6 +12,7 @@ import javax.sql.DataSource;
 import org.lightsleep.helper.Resource;
 
 import com.mchange.v2.c3p0.DataSources;
+import com.mchange.v2.c3p0.PooledDataSource;
 
 /**
  * Gets connection wrappers using
@@ -84,4 +85,17 @@ public class C3p0 extends AbstractConnectionSupplier {
             throw new RuntimeException("jdbcProperties: " + jdbcProperties, e);
         }
     }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    protected int[] getPoolCounts(DataSource dataSource) throws SQLException {
+        PooledDataSource pool = (PooledDataSource)dataSource;
+        return new int[] {
+            pool.getNumBusyConnectionsDefaultUser(),
+            pool.getNumIdleConnectionsDefaultUser(),
+            pool.getNumThreadsAwaitingCheckoutDefaultUser()
+        };
+    }
 }
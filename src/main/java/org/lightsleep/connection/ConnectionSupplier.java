@@ -3,15 +3,11 @@
 
 package org.lightsleep.connection;
 
-import java.text.MessageFormat;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
@@ -51,6 +47,17 @@ public interface ConnectionSupplier extends Supplier<ConnectionWrapper> {
      */
     String getUrl();
 
+    /**
+     * Returns the statistics of the connections got from this object.
+     *
+     * @return the statistics, or <b>null</b> if this object does not measure them
+     *
+     * @since 4.1.0
+     */
+    default PoolStats getPoolStats() {
+        return null;
+    }
+
     /**
      * Create a <b>ConnectionSupplier</b>
      *
@@ -92,28 +99,17 @@ public interface ConnectionSupplier extends Supplier<ConnectionWrapper> {
      */
     static ConnectionSupplier find(String... urlWords) {
         Objects.requireNonNull(urlWords, "urlWords is null");
+        return AbstractConnectionSupplier.find(urlWords);
+    }
 
-        List<Entry<String, ConnectionSupplier>> suppliers =
-            AbstractConnectionSupplier.supplierMap.entrySet().stream()
-                .filter(entry ->
-                    Arrays.stream(urlWords)
-                        .allMatch(urlWord -> entry.getKey().indexOf(urlWord) >= 0)
-                )
-                .collect(Collectors.toList());
-
-        if (suppliers.isEmpty())
-            // A url is not found.
-            throw new IllegalArgumentException(
-                MessageFormat.format(AbstractConnectionSupplier.messageUrlNotFound,
-                    Arrays.toString(urlWords)));
-
-        if (suppliers.size() >= 2)
-            // Multiple urls were found.
-            throw new IllegalArgumentException(
-                MessageFormat.format(AbstractConnectionSupplier.messageMultipleUrlsFound,
-                    suppliers.stream().map(Map.Entry::getKey).collect(Collectors.toList()),
-                    Arrays.toString(urlWords)));
-
-        return suppliers.get(0).getValue();
+    /**
+     * Returns all the <b>ConnectionSupplier</b> objects related to the urls defined in <b>lightsleep.properties</b>.
+     *
+     * @return an unmodifiable list of the <b>ConnectionSupplier</b> objects
+     *
+     * @since 4.1.0
+     */
+    static List<ConnectionSupplier> all() {
+        return Collections.unmodifiableList(AbstractConnectionSupplier.all());
     }
 }
@@ -18,11 +18,13 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 
+import org.lightsleep.UnitOfWork;
 import org.lightsleep.database.Database;
 
 /**
@@ -40,6 +42,21 @@ public class ConnectionWrapper implements Connection {
     private final Connection connection;
     private final ConnectionSupplier supplier; // @since 2.2.0
 
+    // The snapshots of the entities selected with Sql.trackChanges() in the current transaction (entity : snapshot) @since 4.1.0
+    private final Map<Object, Object> snapshotMap = new IdentityHashMap<>();
+
+    // The unit of work bound to this connection @since 4.1.0
+    private UnitOfWork unitOfWork;
+
+    // The statistics notified when closed @since 4.1.0
+    private PoolStats poolStats;
+
+    // The time (System.nanoTime()) when this connection was got @since 4.1.0
+    private final long acquiredTime = System.nanoTime();
+
+    // The detector of the repeated queries (null if disabled) @since 4.1.0
+    private RepeatedQueryDetector repeatedQueryDetector = RepeatedQueryDetector.create(this);
+
     /**
      * Constructs a new <b>ConnectionWrapper</b>.<br>
      *
@@ -53,6 +70,50 @@ public class ConnectionWrapper implements Connection {
         this.supplier = Objects.requireNonNull(supplier, "supplier is null");
     }
 
+    /**
+     * Returns the time (<b>System.nanoTime()</b>) when this connection was got.
+     *
+     * @return the time when this connection was got
+     *
+     * @since 4.1.0
+     */
+    public long getAcquiredTime() {
+        return acquiredTime;
+    }
+
+    /**
+     * Returns the detector of the SQLs of the same shape executed repeatedly with this connection.
+     *
+     * @return the detector, or <b>null</b> if <b>repeatedQueryThreshold</b> is not specified
+     *
+     * @since 4.1.0
+     */
+    public RepeatedQueryDetector getRepeatedQueryDetector() {
+        return repeatedQueryDetector;
+    }
+
+    /**
+     * Sets the detector of the SQLs of the same shape executed repeatedly with this connection.
+     *
+     * @param repeatedQueryDetector the detector (null: disabled)
+     *
+     * @since 4.1.0
+     */
+    void setRepeatedQueryDetector(RepeatedQueryDetector repeatedQueryDetector) {
+        this.repeatedQueryDetector = repeatedQueryDetector;
+    }
+
+    /**
+     * Sets the statistics notified when this connection is closed.
+     *
+     * @param poolStats the statistics
+     *
+     * @since 4.1.0
+     */
+    void setPoolStats(PoolStats poolStats) {
+        this.poolStats = poolStats;
+    }
+
     /**
      * Returns the connection.
      *
@@ -82,6 +143,69 @@ public class ConnectionWrapper implements Connection {
         return supplier.getDatabase();
     }
 
+    /**
+     * Returns the snapshot of the entity selected with this connection in the current transaction.
+     *
+     * <p>
+     * <i>This method is used internally.</i>
+     * </p>
+     *
+     * @param entity the entity (compared by identity)
+     * @return the snapshot, or <b>null</b> if not taken
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#trackChanges()
+     */
+    public Object getSnapshot(Object entity) {
+        return snapshotMap.get(entity);
+    }
+
+    /**
+     * Keeps the snapshot of the entity until the transaction is committed or rollbacked
+     * or this connection is closed.
+     *
+     * <p>
+     * <i>This method is used internally.</i>
+     * </p>
+     *
+     * @param entity the entity (compared by identity)
+     * @param snapshot the snapshot
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#trackChanges()
+     */
+    public void putSnapshot(Object entity, Object snapshot) {
+        snapshotMap.put(entity, snapshot);
+    }
+
+    /**
+     * Returns the unit of work bound to this connection.
+     *
+     * @return the unit of work (<b>null</b> if not bound)
+     *
+     * @since 4.1.0
+     * @see UnitOfWork#of(ConnectionWrapper)
+     */
+    public UnitOfWork getUnitOfWork() {
+        return unitOfWork;
+    }
+
+    /**
+     * Binds a unit of work to this connection.
+     *
+     * <p>
+     * <i>This method is used internally.</i>
+     * </p>
+     *
+     * @param unitOfWork the unit of work (permit null)
+     *
+     * @since 4.1.0
+     * @see UnitOfWork#of(ConnectionWrapper)
+     */
+    public void setUnitOfWork(UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
         return connection.unwrap(iface);
@@ -124,17 +248,30 @@ public class ConnectionWrapper implements Connection {
 
     @Override
     public void commit() throws SQLException {
+        snapshotMap.clear(); // since 4.1.0
         connection.commit();
     }
 
     @Override
     public void rollback() throws SQLException {
+        snapshotMap.clear(); // since 4.1.0
         connection.rollback();
     }
 
     @Override
     public void close() throws SQLException {
-        connection.close();
+        snapshotMap.clear(); // since 4.1.0
+        try {
+            connection.close();
+        }
+        finally {
+            // since 4.1.0
+            PoolStats poolStats = this.poolStats;
+            if (poolStats != null) {
+                this.poolStats = null;
+                poolStats.released(this, System.nanoTime() - acquiredTime);
+            }
+        }
     }
 
     @Override
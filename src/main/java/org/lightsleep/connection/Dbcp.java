@@ -8,6 +8,7 @@ import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.commons.dbcp2.BasicDataSourceFactory;
 import org.lightsleep.helper.Resource;
 
@@ -106,4 +107,13 @@ public class Dbcp extends AbstractConnectionSupplier {
             throw new RuntimeException("jdbcProperties: " + jdbcProperties, e);
         }
     }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    protected int[] getPoolCounts(DataSource dataSource) {
+        BasicDataSource pool = (BasicDataSource)dataSource;
+        return new int[] {pool.getNumActive(), pool.getNumIdle(), -1};
+    }
 }
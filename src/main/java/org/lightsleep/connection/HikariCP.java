@@ -13,6 +13,7 @@ import org.lightsleep.helper.Resource;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import com.zaxxer.hikari.util.PropertyElf;
 
 /**
@@ -132,4 +133,15 @@ public class HikariCP extends AbstractConnectionSupplier {
             throw new RuntimeException("properties: " + properties, e);
         }
     }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    protected int[] getPoolCounts(DataSource dataSource) {
+        HikariPoolMXBean pool = ((HikariDataSource)dataSource).getHikariPoolMXBean();
+        if (pool == null) return null;
+
+        return new int[] {pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingConnection()};
+    }
 }
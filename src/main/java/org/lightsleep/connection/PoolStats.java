@@ -0,0 +1,374 @@
+// PoolStats.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.lightsleep.helper.Resource;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * The statistics of the connections of a connection supplier.
+ *
+ * <p>
+ * The numbers of the idle connections and the waiting threads are got from the connection pool
+ * (<b>C3p0</b>, <b>Dbcp</b>, <b>HikariCP</b> and <b>TomcatCP</b>).
+ * The other values are measured by this library,
+ * so they are available for all the connection suppliers.
+ * </p>
+ *
+ * <p>
+ * The following properties of <b>lightsleep.properties</b> are used.
+ * </p>
+ * <ul>
+ *   <li><b>leakDetectionThreshold</b>: if a connection is held longer than this time (ms),
+ *       logs the stack trace where the connection was got (default: 0, 0: disabled).
+ *       The held connections are checked on a background thread at this interval.</li>
+ *   <li><b>poolStatsJmx</b>: if <b>true</b>, publishes the statistics through JMX (default: true)</li>
+ * </ul>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * PoolStats stats = ConnectionSupplier.find()<b>.getPoolStats()</b>;
+ * logger.info("active: " + stats.getActiveConnections() + ", acquire p99: " + stats.getAcquireTime99thPercentile());
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see ConnectionSupplier#getPoolStats()
+ */
+public class PoolStats implements PoolStatsMXBean {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(PoolStats.class);
+
+    // The threshold (ms) to detect the connection leaks specified in lightsleep.properties
+    private static final long globalLeakDetectionThreshold = Resource.getGlobal().getInt("leakDetectionThreshold", 0);
+
+    // Whether to publish through JMX
+    private static final boolean jmxEnabled = Resource.getGlobal().getValue("poolStatsJmx", Boolean::valueOf, true);
+
+    // The number of the recent acquire times kept to calculate the percentiles
+    private static final int SAMPLE_SIZE = 1024;
+
+    // The scheduler checking the connection leaks, which is created on first use
+    private static class LeakChecker {
+        static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PoolStats");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // The connection supplier
+    private final AbstractConnectionSupplier supplier;
+
+    // The threshold (ms) to detect the connection leaks
+    private final long leakDetectionThreshold;
+
+    // The number of the acquisitions
+    private final LongAdder acquireCount = new LongAdder();
+
+    // The number of the failures to get a connection
+    private final LongAdder acquireFailureCount = new LongAdder();
+
+    // The total and maximum times (ns) to get a connection
+    private final LongAdder acquireTimeTotal = new LongAdder();
+    private final AtomicLong acquireTimeMax = new AtomicLong();
+
+    // The recent times (ns) to get a connection (ring buffer)
+    private final AtomicLongArray acquireTimeSamples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong sampleIndex = new AtomicLong();
+
+    // The number of the held connections
+    private final AtomicInteger heldConnections = new AtomicInteger();
+
+    // The number of the closed connections and the total and maximum times (ns) held
+    private final LongAdder holdCount = new LongAdder();
+    private final LongAdder holdTimeTotal = new LongAdder();
+    private final AtomicLong holdTimeMax = new AtomicLong();
+
+    // The number of the suspected leaks
+    private final LongAdder leakCount = new LongAdder();
+
+    // The held connections (value: the stack trace where got) if the leak detection is enabled
+    private final Map<ConnectionWrapper, Throwable> heldConnectionMap = new ConcurrentHashMap<>();
+
+    // The object name registered in the MBean server
+    private volatile ObjectName objectName;
+
+    // Whether started
+    private boolean started;
+
+    /**
+     * Constructs a new <b>PoolStats</b>.
+     *
+     * @param supplier the connection supplier
+     */
+    PoolStats(AbstractConnectionSupplier supplier) {
+        this(supplier, globalLeakDetectionThreshold);
+    }
+
+    /**
+     * Constructs a new <b>PoolStats</b>.
+     *
+     * @param supplier the connection supplier
+     * @param leakDetectionThreshold the threshold (ms) to detect the connection leaks (0: disabled)
+     */
+    PoolStats(AbstractConnectionSupplier supplier, long leakDetectionThreshold) {
+        this.supplier = supplier;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    /**
+     * Records that a connection was got.
+     *
+     * @param connection the connection wrapper
+     * @param acquireTime the time (ns) to get the connection
+     */
+    void acquired(ConnectionWrapper connection, long acquireTime) {
+        acquireCount.increment();
+        acquireTimeTotal.add(acquireTime);
+        acquireTimeMax.accumulateAndGet(acquireTime, Math::max);
+        acquireTimeSamples.set((int)(sampleIndex.getAndIncrement() % SAMPLE_SIZE), acquireTime);
+        heldConnections.incrementAndGet();
+
+        if (leakDetectionThreshold > 0L)
+            heldConnectionMap.put(connection, new Throwable("The connection was got here. " + supplier));
+    }
+
+    /**
+     * Records that getting a connection failed.
+     *
+     * @param acquireTime the time (ns) until failed
+     */
+    void acquireFailed(long acquireTime) {
+        acquireFailureCount.increment();
+        acquireTimeMax.accumulateAndGet(acquireTime, Math::max);
+    }
+
+    /**
+     * Records that a connection was closed.
+     *
+     * @param connection the connection wrapper
+     * @param holdTime the time (ns) from getting the connection to closing it
+     */
+    void released(ConnectionWrapper connection, long holdTime) {
+        heldConnections.decrementAndGet();
+        holdCount.increment();
+        holdTimeTotal.add(holdTime);
+        holdTimeMax.accumulateAndGet(holdTime, Math::max);
+
+        if (leakDetectionThreshold > 0L && heldConnectionMap.remove(connection) == null)
+            // Already reported as a leak
+            logger.info(() -> "PoolStats.released: " + supplier + ": the connection suspected of a leak was closed after " + toMillis(holdTime) + " ms");
+    }
+
+    /**
+     * Publishes this object through JMX and starts checking the connection leaks on a background thread if enabled.<br>
+     * Called when the data source of the connection supplier is created, before getting the first connection.
+     */
+    synchronized void start() {
+        if (started) return;
+        started = true;
+
+        if (leakDetectionThreshold > 0L)
+            LeakChecker.executor.scheduleWithFixedDelay(this::checkLeaks,
+                leakDetectionThreshold, leakDetectionThreshold, TimeUnit.MILLISECONDS);
+
+        if (jmxEnabled)
+            register();
+    }
+
+    /**
+     * Publishes this object through JMX.
+     */
+    private void register() {
+        try {
+            ObjectName objectName = new ObjectName("org.lightsleep:type=PoolStats,name=" + ObjectName.quote(supplier.toString()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(this, objectName);
+            }
+            catch (InstanceAlreadyExistsException e) {
+                // Replaces the statistics of the previous connection supplier with the same name
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+            this.objectName = objectName;
+            logger.debug(() -> "PoolStats.register: " + objectName);
+        }
+        catch (JMException | RuntimeException e) {
+            logger.warn("PoolStats.register: " + supplier + ": " + e);
+        }
+    }
+
+    @Override
+    public int getActiveConnections() {
+        int[] counts = supplier.poolCounts();
+        return counts != null && counts[0] >= 0 ? counts[0] : heldConnections.get();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        int[] counts = supplier.poolCounts();
+        return counts != null ? counts[1] : -1;
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        int[] counts = supplier.poolCounts();
+        return counts != null ? counts[2] : -1;
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    @Override
+    public long getAcquireFailureCount() {
+        return acquireFailureCount.sum();
+    }
+
+    @Override
+    public double getAcquireTimeAverage() {
+        long count = acquireCount.sum();
+        return count == 0L ? 0.0 : toMillis(acquireTimeTotal.sum() / count);
+    }
+
+    @Override
+    public double getAcquireTimeMax() {
+        return toMillis(acquireTimeMax.get());
+    }
+
+    @Override
+    public double getAcquireTime50thPercentile() {
+        return acquireTimePercentile(50);
+    }
+
+    @Override
+    public double getAcquireTime95thPercentile() {
+        return acquireTimePercentile(95);
+    }
+
+    @Override
+    public double getAcquireTime99thPercentile() {
+        return acquireTimePercentile(99);
+    }
+
+    @Override
+    public double getHoldTimeAverage() {
+        long count = holdCount.sum();
+        return count == 0L ? 0.0 : toMillis(holdTimeTotal.sum() / count);
+    }
+
+    @Override
+    public double getHoldTimeMax() {
+        return toMillis(holdTimeMax.get());
+    }
+
+    @Override
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    @Override
+    public void checkLeaks() {
+        if (leakDetectionThreshold <= 0L) return;
+
+        try {
+            checkLeaks(System.nanoTime());
+        }
+        catch (RuntimeException e) {
+            // Keeps the scheduled checks running
+            logger.warn("PoolStats.checkLeaks: " + supplier + ": " + e);
+        }
+    }
+
+    /**
+     * Checks the connections held longer than the leak detection threshold.
+     *
+     * @param now the current time (ns)
+     */
+    private void checkLeaks(long now) {
+        heldConnectionMap.forEach((connection, stackTrace) -> {
+            long holdTime = now - connection.getAcquiredTime();
+            if (holdTime > leakDetectionThreshold * 1_000_000L && heldConnectionMap.remove(connection, stackTrace)) {
+                leakCount.increment();
+                logger.warn("PoolStats.checkLeaks: " + supplier
+                    + ": a connection has been held for " + toMillis(holdTime) + " ms", stackTrace);
+            }
+        });
+    }
+
+    @Override
+    public void reset() {
+        acquireCount.reset();
+        acquireFailureCount.reset();
+        acquireTimeTotal.reset();
+        acquireTimeMax.set(0L);
+        sampleIndex.set(0L);
+        holdCount.reset();
+        holdTimeTotal.reset();
+        holdTimeMax.set(0L);
+        leakCount.reset();
+    }
+
+    /**
+     * Returns the percentile of the recent times to get a connection.
+     *
+     * @param percent the percent (1 - 100)
+     * @return the percentile (ms)
+     */
+    private double acquireTimePercentile(int percent) {
+        int size = (int)Math.min(sampleIndex.get(), SAMPLE_SIZE);
+        if (size == 0) return 0.0;
+
+        long[] samples = new long[size];
+        for (int index = 0; index < size; ++index)
+            samples[index] = acquireTimeSamples.get(index);
+        Arrays.sort(samples);
+        return toMillis(samples[Math.min((size * percent + 99) / 100, size) - 1]);
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the time (ns)
+     * @return the time (ms)
+     */
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats(" + supplier
+            + ", active: " + getActiveConnections()
+            + ", idle: " + getIdleConnections()
+            + ", waiting: " + getThreadsAwaitingConnection()
+            + ", acquireCount: " + getAcquireCount()
+            + ", acquireFailureCount: " + getAcquireFailureCount()
+            + ", acquireTime (avg/p99/max): " + getAcquireTimeAverage() + '/' + getAcquireTime99thPercentile() + '/' + getAcquireTimeMax()
+            + ", holdTime (avg/max): " + getHoldTimeAverage() + '/' + getHoldTimeMax()
+            + ", leakCount: " + getLeakCount()
+            + ')';
+    }
+}
@@ -0,0 +1,120 @@
+// PoolStatsMXBean.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+/**
+ * The management interface of {@link PoolStats} published through JMX
+ * with the object name <b>org.lightsleep:type=PoolStats,name="<i>connection supplier</i>"</b>.
+ *
+ * <p>
+ * The times are in milliseconds.
+ * The numbers of the connection pool are -1 if the connection pool does not provide them.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public interface PoolStatsMXBean {
+    /**
+     * Returns the number of the connections in use.
+     *
+     * @return the number of the active connections
+     */
+    int getActiveConnections();
+
+    /**
+     * Returns the number of the idle connections in the connection pool.
+     *
+     * @return the number of the idle connections (-1 if unknown)
+     */
+    int getIdleConnections();
+
+    /**
+     * Returns the number of the threads waiting for a connection of the connection pool.
+     *
+     * @return the number of the waiting threads (-1 if unknown)
+     */
+    int getThreadsAwaitingConnection();
+
+    /**
+     * Returns the number of the connections got from the connection supplier.
+     *
+     * @return the number of the acquisitions
+     */
+    long getAcquireCount();
+
+    /**
+     * Returns the number of the failures (including the timeouts) to get a connection.
+     *
+     * @return the number of the failures
+     */
+    long getAcquireFailureCount();
+
+    /**
+     * Returns the average time to get a connection.
+     *
+     * @return the average time (ms)
+     */
+    double getAcquireTimeAverage();
+
+    /**
+     * Returns the maximum time to get a connection.
+     *
+     * @return the maximum time (ms)
+     */
+    double getAcquireTimeMax();
+
+    /**
+     * Returns the 50th percentile of the recent times to get a connection.
+     *
+     * @return the 50th percentile (ms)
+     */
+    double getAcquireTime50thPercentile();
+
+    /**
+     * Returns the 95th percentile of the recent times to get a connection.
+     *
+     * @return the 95th percentile (ms)
+     */
+    double getAcquireTime95thPercentile();
+
+    /**
+     * Returns the 99th percentile of the recent times to get a connection.
+     *
+     * @return the 99th percentile (ms)
+     */
+    double getAcquireTime99thPercentile();
+
+    /**
+     * Returns the average time from getting a connection to closing it (e.g. a transaction).
+     *
+     * @return the average time (ms)
+     */
+    double getHoldTimeAverage();
+
+    /**
+     * Returns the maximum time from getting a connection to closing it.
+     *
+     * @return the maximum time (ms)
+     */
+    double getHoldTimeMax();
+
+    /**
+     * Returns the number of the connections held longer than the leak detection threshold.
+     *
+     * @return the number of the suspected leaks
+     */
+    long getLeakCount();
+
+    /**
+     * Checks the connections held longer than the leak detection threshold
+     * and logs the stack traces where they were got.
+     */
+    void checkLeaks();
+
+    /**
+     * Resets the statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,236 @@
+// RepeatedQueryDetector.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.lightsleep.helper.Resource;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Detects the SQLs of the same shape executed repeatedly with a connection (e.g. <i>N+1</i> queries in a transaction).
+ *
+ * <p>
+ * The shape of a SQL is the SQL with the literals and the parameters replaced by <b>?</b>
+ * and the lists of them (e.g. <i>IN (1, 2, 3)</i>) collapsed to one <b>?</b>.
+ * When the SQLs of a shape are executed more than the threshold times,
+ * logs a warning (or throws <b>IllegalStateException</b> if <b>repeatedQueryFails = true</b>)
+ * with the call site and the suggestion of the alternatives.
+ * The counts are cleared when the transaction is committed or rollbacked.
+ * </p>
+ *
+ * <p>
+ * The following properties of <b>lightsleep.properties</b> are used.
+ * </p>
+ * <ul>
+ *   <li><b>repeatedQueryThreshold</b>: the number of the executions of a shape allowed in a transaction (default: 0, 0: disabled)</li>
+ *   <li><b>repeatedQueryFails</b>: if <b>true</b>, throws <b>IllegalStateException</b> instead of logging for tests (default: false)</li>
+ * </ul>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see ConnectionWrapper#getRepeatedQueryDetector()
+ */
+public class RepeatedQueryDetector {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(RepeatedQueryDetector.class);
+
+    // The number of the executions of a shape allowed in a transaction specified in lightsleep.properties
+    private static final int globalThreshold = Resource.getGlobal().getInt("repeatedQueryThreshold", 0);
+
+    // Whether to throw an exception instead of logging specified in lightsleep.properties
+    private static final boolean globalFails = Resource.getGlobal().getValue("repeatedQueryFails", Boolean::valueOf, false);
+
+    // The prefixes of the class names skipped to find the call site
+    private static final String[] skippedPrefixes = {
+        "org.lightsleep.component.", "org.lightsleep.connection.", "org.lightsleep.database.",
+        "org.lightsleep.helper.", "org.lightsleep.jfr.", "org.lightsleep.logger.",
+        "java.", "javax.", "jdk.", "sun.", "groovy.", "org.codehaus.groovy."
+    };
+
+    // The connection wrapper
+    private final ConnectionWrapper connection;
+
+    // The number of the executions of a shape allowed in a transaction
+    private final int threshold;
+
+    // Whether to throw an exception instead of logging
+    private final boolean fails;
+
+    // The consumer writing a warning
+    private final Consumer<String> writer;
+
+    // The map of key: shape of SQL and value: the number of the executions
+    private final Map<String, int[]> countMap = new HashMap<>();
+
+    /**
+     * Creates a <b>RepeatedQueryDetector</b> if enabled.
+     *
+     * @param connection the connection wrapper
+     * @return a <b>RepeatedQueryDetector</b>, or <b>null</b> if disabled
+     */
+    static RepeatedQueryDetector create(ConnectionWrapper connection) {
+        return globalThreshold > 0 ? new RepeatedQueryDetector(connection, globalThreshold, globalFails, logger::warn) : null;
+    }
+
+    /**
+     * Constructs a new <b>RepeatedQueryDetector</b>.
+     *
+     * @param connection the connection wrapper
+     * @param threshold the number of the executions of a shape allowed in a transaction
+     * @param fails if <b>true</b>, throws <b>IllegalStateException</b> instead of writing a warning
+     * @param writer the consumer writing a warning
+     */
+    RepeatedQueryDetector(ConnectionWrapper connection, int threshold, boolean fails, Consumer<String> writer) {
+        this.connection = connection;
+        this.threshold  = threshold;
+        this.fails      = fails;
+        this.writer     = Objects.requireNonNull(writer, "writer is null");
+    }
+
+    /**
+     * Counts an execution of the SQL.
+     *
+     * <p>
+     * <i>This method is used internally.</i>
+     * </p>
+     *
+     * @param sql the SQL to be executed
+     *
+     * @throws IllegalStateException if the SQLs of the same shape are executed more than the threshold times
+     *         and <b>repeatedQueryFails = true</b>
+     */
+    public void executed(CharSequence sql) {
+        String shape = shape(sql);
+        int[] count = countMap.computeIfAbsent(shape, key -> new int[1]);
+        if (++count[0] != threshold + 1)
+            return; // reports only once for each shape
+
+        String message = "RepeatedQueryDetector: " + connection
+            + ": the SQLs of the same shape were executed more than " + threshold + " times in a transaction"
+            + " at " + callSite() + ": " + shape
+            + (shape.regionMatches(true, 0, "SELECT", 0, 6)
+                ? "\n  Consider selecting the rows at once with Sql.selectByKeys, Condition.in or a join."
+                : "\n  Consider executing them at once with Sql.executeBatch or UnitOfWork.");
+        if (fails)
+            throw new IllegalStateException(message);
+        writer.accept(message);
+    }
+
+    /**
+     * Returns the number of the executions of the shape of the SQL.
+     *
+     * @param sql the SQL
+     * @return the number of the executions
+     */
+    public int getCount(CharSequence sql) {
+        int[] count = countMap.get(shape(sql));
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Clears the counts at the end of a transaction.
+     */
+    public void clear() {
+        countMap.clear();
+    }
+
+    /**
+     * Returns the shape of the SQL.
+     *
+     * @param sql the SQL
+     * @return the SQL with the literals and the parameters replaced by <b>?</b>
+     */
+    public static String shape(CharSequence sql) {
+        int length = sql.length();
+        StringBuilder buff = new StringBuilder(length);
+        int index = 0;
+        while (index < length) {
+            char ch = sql.charAt(index);
+            if (ch == '\'') {
+                // String literal (including E'...', N'...', X'...' and TIMESTAMP'...')
+                ++index;
+                while (index < length) {
+                    if (sql.charAt(index++) == '\'') {
+                        if (index < length && sql.charAt(index) == '\'')
+                            ++index; // escaped quote
+                        else
+                            break;
+                    }
+                }
+                // Removes the prefix of the literal
+                int prefixIndex = buff.length();
+                while (prefixIndex > 0 && Character.isLetter(buff.charAt(prefixIndex - 1)))
+                    --prefixIndex;
+                if (prefixIndex < buff.length() && (prefixIndex == 0 || !isIdentifierPart(buff.charAt(prefixIndex - 1))))
+                    buff.setLength(prefixIndex);
+                appendParameter(buff);
+
+            } else if (ch == '"') {
+                // Quoted identifier
+                int endIndex = index + 1;
+                while (endIndex < length && sql.charAt(endIndex) != '"')
+                    ++endIndex;
+                endIndex = Math.min(endIndex + 1, length);
+                buff.append(sql, index, endIndex);
+                index = endIndex;
+
+            } else if (Character.isDigit(ch) && (buff.length() == 0 || !isIdentifierPart(buff.charAt(buff.length() - 1)))) {
+                // Numeric literal
+                ++index;
+                while (index < length && (isIdentifierPart(sql.charAt(index)) || sql.charAt(index) == '.'))
+                    ++index;
+                // Removes the sign
+                int signIndex = buff.length() - 1;
+                if (signIndex >= 0 && buff.charAt(signIndex) == '-' && (signIndex == 0 || "(,=<> ".indexOf(buff.charAt(signIndex - 1)) >= 0))
+                    buff.setLength(signIndex);
+                appendParameter(buff);
+
+            } else if (ch == '?') {
+                ++index;
+                appendParameter(buff);
+
+            } else {
+                buff.append(ch);
+                ++index;
+            }
+        }
+        return buff.toString();
+    }
+
+    // Appends a parameter to the buffer collapsing a list of the parameters
+    private static void appendParameter(StringBuilder buff) {
+        int index = buff.length();
+        while (index > 0 && buff.charAt(index - 1) == ' ')
+            --index;
+        if (index >= 2 && buff.charAt(index - 1) == ',' && buff.charAt(index - 2) == '?') {
+            // ?, ? -> ?
+            buff.setLength(index - 1);
+            return;
+        }
+        buff.append('?');
+    }
+
+    // Returns whether the character is a part of an identifier
+    private static boolean isIdentifierPart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$';
+    }
+
+    // Returns the first stack frame outside of this library
+    private static String callSite() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("org.lightsleep.") && className.indexOf('.', "org.lightsleep.".length()) < 0)
+                continue; // Sql, Transaction, etc.
+            if (Arrays.stream(skippedPrefixes).noneMatch(className::startsWith))
+                return element.toString();
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,429 @@
+// SQLiteWal.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.lightsleep.helper.Resource;
+
+/**
+ * Gets connection wrappers of
+ * <a href="https://www.sqlite.org/" target="SQLite">SQLite</a>
+ * in <a href="https://www.sqlite.org/wal.html" target="SQLite">WAL</a> mode.
+ *
+ * <p>
+ * SQLite allows only one writer at a time.
+ * The connection wrappers got by {@link #get()} share a single writer connection
+ * and the threads wait for it in FIFO order, so the writes are serialized
+ * without <i>SQLITE_BUSY</i> retries.
+ * The connection wrappers got by {@link #readOnly()}<b>.get()</b> use a pool of read-only connections
+ * which read in parallel with the writer.
+ * Do not get another writer connection while holding one in the same thread,
+ * because it waits until <b>connectionTimeout</b>.
+ * </p>
+ *
+ * <p>
+ * The following <b>PRAGMA</b> statements are executed when a connection is created.
+ * Use a database file, because each connection to an in-memory database opens a different database.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>References in lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th></tr>
+ *   <tr><td>url              </td><td>The URL of the database to be connected</td></tr>
+ *   <tr><td>journalMode      </td><td><b>PRAGMA journal_mode</b> (default: WAL)</td></tr>
+ *   <tr><td>synchronous      </td><td><b>PRAGMA synchronous</b> (default: NORMAL)</td></tr>
+ *   <tr><td>cacheSize        </td><td><b>PRAGMA cache_size</b> (default: -16000, i.e. 16000 KiB)</td></tr>
+ *   <tr><td>mmapSize         </td><td><b>PRAGMA mmap_size</b> (default: 268435456)</td></tr>
+ *   <tr><td>tempStore        </td><td><b>PRAGMA temp_store</b> (default: MEMORY)</td></tr>
+ *   <tr><td>busyTimeout      </td><td><b>PRAGMA busy_timeout</b> (ms) (default: 5000)</td></tr>
+ *   <tr><td>readerConnections</td><td>The maximum number of the read-only connections (default: 4, 0: reads with the writer connection)</td></tr>
+ *   <tr><td>connectionTimeout</td><td>The maximum time (ms) to wait for a connection (default: 30000)</td></tr>
+ *   <tr>
+ *     <td><i>Other property names</i></td>
+ *     <td>Other properties to be used to get a connection from <b>DriverManager</b> class</td>
+ *   </tr>
+ * </table>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * SQLiteWal supplier = (SQLiteWal)ConnectionSupplier.find();
+ * Transaction.execute(supplier, conn -&gt; new Sql&lt;&gt;(Contact.class).connection(conn).insert(contact));
+ * Transaction.execute(<b>supplier.readOnly()</b>, conn -&gt; new Sql&lt;&gt;(Contact.class).connection(conn).select(contacts::add));
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SQLiteWal extends AbstractConnectionSupplier {
+    // The PRAGMA statements executed when a connection is created
+    private final String[] pragmas;
+
+    // The maximum time (ms) to wait for a connection
+    private final long connectionTimeout;
+
+    // The pool of the writer connection
+    private final Pool writerPool;
+
+    // The pool of the read-only connections (null if the writer connection is used)
+    private final Pool readerPool;
+
+    // The supplier of the read-only connections
+    private final ConnectionSupplier readOnlySupplier;
+
+    /**
+     * Constructs a new <b>SQLiteWal</b>.
+     *
+     * <p>
+     * Uses values specified in the lightsleep.properties file as the connection information.
+     * </p>
+     */
+    public SQLiteWal() {
+        this(Resource.getGlobal().getProperties(), props -> {});
+    }
+
+    /**
+     * Constructs a new <b>SQLiteWal</b>.
+     *
+     * <p>
+     * Uses values specified in the lightsleep.properties file as the connection information.
+     * </p>
+     *
+     * @param modifier a consumer to modify the properties
+     */
+    public SQLiteWal(Consumer<Properties> modifier) {
+        this(Resource.getGlobal().getProperties(), modifier);
+    }
+
+    /**
+     * Constructs a new <b>SQLiteWal</b>.
+     *
+     * @param properties the properties with connection information
+     */
+    public SQLiteWal(Properties properties) {
+        this(properties, props -> {});
+    }
+
+    /**
+     * Constructs a new <b>SQLiteWal</b>.
+     *
+     * @param properties the properties with connection information
+     * @param modifier a consumer to modify the properties
+     */
+    private SQLiteWal(Properties properties, Consumer<Properties> modifier) {
+        super(properties, modifier);
+
+        pragmas = new String[] {
+            pragma("journal_mode", removeProperty("journalMode", "WAL"   )),
+            pragma("synchronous" , removeProperty("synchronous", "NORMAL")),
+            pragma("cache_size"  , removeProperty("cacheSize"  , "-16000")),
+            pragma("mmap_size"   , removeProperty("mmapSize"   , "268435456")),
+            pragma("temp_store"  , removeProperty("tempStore"  , "MEMORY")),
+            pragma("busy_timeout", removeProperty("busyTimeout", "5000"  )),
+        };
+        int readerConnections = Integer.parseInt(removeProperty("readerConnections", "4"));
+        connectionTimeout = Long.parseLong(removeProperty("connectionTimeout", "30000"));
+
+        writerPool = new Pool("writer", 1, false);
+        if (readerConnections > 0) {
+            readerPool = new Pool("reader", readerConnections, true);
+            Properties readerProperties = new Properties();
+            readerProperties.putAll(jdbcProperties);
+            readOnlySupplier = new ReadOnly(readerProperties);
+        } else {
+            readerPool = null;
+            readOnlySupplier = this;
+        }
+        logger.debug(() -> "SQLiteWal.<init>: readerConnections: " + readerConnections + ", pragmas: " + String.join("; ", pragmas));
+    }
+
+    /**
+     * Returns the connection supplier of the read-only connections,
+     * which shares the database file with this object.<br>
+     * If <b>readerConnections</b> is 0, returns this object.
+     *
+     * @return the connection supplier of the read-only connections
+     */
+    public ConnectionSupplier readOnly() {
+        return readOnlySupplier;
+    }
+
+    /**
+     * Returns the data source of the writer connection.
+     */
+    @Override
+    public DataSource getDataSource() {
+        return writerPool;
+    }
+
+    @Override
+    protected int[] getPoolCounts(DataSource dataSource) {
+        return ((Pool)dataSource).counts();
+    }
+
+    /**
+     * Removes the property from the JDBC properties and returns the value.
+     *
+     * @param name the property name
+     * @param defaultValue the value if the property is not specified
+     * @return the property value
+     */
+    private String removeProperty(String name, String defaultValue) {
+        Object value = jdbcProperties.remove(name);
+        return value == null ? defaultValue : value.toString().trim();
+    }
+
+    /**
+     * Returns a <b>PRAGMA</b> statement.
+     *
+     * @param name the pragma name
+     * @param value the pragma value
+     * @return the <b>PRAGMA</b> statement
+     *
+     * @throws IllegalArgumentException if <b>value</b> is not a word or an integer
+     */
+    private static String pragma(String name, String value) {
+        if (!value.matches("-?\\w+"))
+            throw new IllegalArgumentException("SQLiteWal: " + name + ": \"" + value + '"');
+        return "PRAGMA " + name + " = " + value;
+    }
+
+    /**
+     * Creates a new connection and executes the <b>PRAGMA</b> statements.
+     *
+     * @param readOnly whether the connection is read-only
+     * @return a new connection
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private Connection newConnection(boolean readOnly) throws SQLException {
+        String url = getUrl();
+        if (url == null)
+            logger.error("SQLiteWal.newConnection: jdbcProperties url == null");
+        Connection connection = DriverManager.getConnection(url, jdbcProperties);
+        try (Statement statement = connection.createStatement()) {
+            for (String pragma : pragmas)
+                statement.execute(pragma);
+            if (readOnly)
+                statement.execute("PRAGMA query_only = true");
+        }
+        catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        connection.setAutoCommit(false);
+        logger.debug(() -> "SQLiteWal.newConnection: " + (readOnly ? "reader" : "writer") + " connection created");
+        return connection;
+    }
+
+    /**
+     * The connection supplier of the read-only connections.
+     */
+    private class ReadOnly extends AbstractConnectionSupplier {
+        /**
+         * Constructs a new <b>ReadOnly</b>.
+         *
+         * @param properties the properties with connection information
+         */
+        private ReadOnly(Properties properties) {
+            super(properties, props -> {});
+        }
+
+        @Override
+        public DataSource getDataSource() {
+            return readerPool;
+        }
+
+        @Override
+        protected int[] getPoolCounts(DataSource dataSource) {
+            return ((Pool)dataSource).counts();
+        }
+    }
+
+    /**
+     * A pool of the connections.<br>
+     * The waiting threads get the connections in FIFO order.
+     */
+    private class Pool implements DataSource {
+        // The name of the pool
+        private final String name;
+
+        // The maximum number of the connections
+        private final int size;
+
+        // Whether the connections are read-only
+        private final boolean readOnly;
+
+        // The permits to use the connections
+        private final Semaphore semaphore;
+
+        // The idle connections
+        private final Deque<Connection> idleConnections = new ConcurrentLinkedDeque<>();
+
+        /**
+         * Constructs a new <b>Pool</b>.
+         *
+         * @param name the name of the pool
+         * @param size the maximum number of the connections
+         * @param readOnly whether the connections are read-only
+         */
+        private Pool(String name, int size, boolean readOnly) {
+            this.name = name;
+            this.size = size;
+            this.readOnly = readOnly;
+            semaphore = new Semaphore(size, true);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                if (!semaphore.tryAcquire(connectionTimeout, TimeUnit.MILLISECONDS))
+                    throw new SQLTimeoutException("SQLiteWal: timed out waiting " + connectionTimeout + " ms for the " + name + " connection");
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(e);
+            }
+
+            try {
+                Connection connection = idleConnections.pollFirst();
+                if (connection == null || connection.isClosed())
+                    connection = newConnection(readOnly);
+                return lend(connection);
+            }
+            catch (SQLException | RuntimeException e) {
+                semaphore.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns a proxy of the connection which returns the connection to this pool when closed.
+         *
+         * @param connection the connection
+         * @return the proxy of the connection
+         */
+        private Connection lend(Connection connection) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection)Proxy.newProxyInstance(SQLiteWal.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "close":
+                        if (closed.compareAndSet(false, true))
+                            release(connection);
+                        return null;
+                    case "isClosed":
+                        return closed.get() || connection.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "SQLiteWal." + name + '(' + connection + ')';
+                    default:
+                        if (closed.get())
+                            throw new SQLException("SQLiteWal: the " + name + " connection is closed");
+                        try {
+                            return method.invoke(connection, args);
+                        }
+                        catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+        }
+
+        /**
+         * Ends the transaction of the connection and returns it to this pool.
+         *
+         * @param connection the connection
+         */
+        private void release(Connection connection) {
+            try {
+                // Ends the transaction not to keep the write lock or the read snapshot
+                if (!connection.getAutoCommit())
+                    connection.rollback();
+                idleConnections.offerFirst(connection);
+            }
+            catch (SQLException e) {
+                logger.warn("SQLiteWal.release: the " + name + " connection is discarded", e);
+                try {
+                    connection.close();
+                }
+                catch (SQLException e2) {
+                    logger.debug(() -> "SQLiteWal.release: " + e2);
+                }
+            }
+            finally {
+                semaphore.release();
+            }
+        }
+
+        /**
+         * Returns the numbers of this pool.
+         *
+         * @return an array of the numbers of the active connections, the idle connections and the waiting threads
+         */
+        private int[] counts() {
+            return new int[] {size - semaphore.availablePermits(), idleConnections.size(), semaphore.getQueueLength()};
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("SQLiteWal: getConnection(username, password)");
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return 0;
+        }
+
+        @Override
+        public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this))
+                return iface.cast(this);
+            throw new SQLException("SQLiteWal: unwrap: " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this);
+        }
+    }
+}
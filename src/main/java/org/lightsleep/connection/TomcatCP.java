@@ -106,4 +106,13 @@ public class TomcatCP extends AbstractConnectionSupplier {
             throw new RuntimeException("jdbcProperties: " + jdbcProperties, e);
         }
     }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    protected int[] getPoolCounts(DataSource dataSource) {
+        org.apache.tomcat.jdbc.pool.DataSource pool = (org.apache.tomcat.jdbc.pool.DataSource)dataSource;
+        return new int[] {pool.getActive(), pool.getIdle(), pool.getWaitCount()};
+    }
 }
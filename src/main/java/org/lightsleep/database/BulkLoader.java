@@ -0,0 +1,101 @@
+// BulkLoader.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.database;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+
+/**
+ * Loads rows into a table with the native bulk load function of the database
+ * (e.g. <i>COPY</i> of PostgreSQL) instead of <i>INSERT</i> SQLs.
+ *
+ * <p>
+ * The rows are got from the iterator one by one while loading,
+ * so that the rows are not held in memory all together.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Database#getBulkLoader()
+ * @see org.lightsleep.Sql#bulkLoad(Iterable)
+ */
+public interface BulkLoader {
+    /**
+     * Returns whether this object can load rows with the connection
+     * (e.g. the JDBC driver provides the bulk load function).
+     *
+     * @param connection the connection wrapper
+     * @return <b>true</b> if can load, <b>false</b> otherwise
+     */
+    boolean isAvailable(ConnectionWrapper connection);
+
+    /**
+     * Returns whether this object can load the values of the type.<br>
+     * If any column has a type which is not supported,
+     * <b>Sql.bulkLoad</b> inserts the rows with <i>INSERT</i> SQLs instead.
+     *
+     * <p>
+     * This implementation returns <b>true</b> for the primitive types, their wrapper types,
+     * <b>BigInteger</b>, <b>BigDecimal</b>, <b>String</b>, <b>byte[]</b>,
+     * <b>java.util.Date</b> and its subclasses,
+     * <b>LocalDate</b>, <b>LocalTime</b>, <b>LocalDateTime</b>,
+     * <b>OffsetDateTime</b>, <b>ZonedDateTime</b> and <b>Instant</b>.
+     * </p>
+     *
+     * @param valueType the type of the values (the column type if specified, otherwise the property type)
+     * @return <b>true</b> if can load, <b>false</b> otherwise
+     */
+    default boolean supports(Class<?> valueType) {
+        return valueType.isPrimitive()
+            || valueType == Boolean.class || valueType == Character.class
+            || valueType == Byte   .class || valueType == Short    .class
+            || valueType == Integer.class || valueType == Long     .class
+            || valueType == Float  .class || valueType == Double   .class
+            || valueType == BigInteger.class || valueType == BigDecimal.class
+            || valueType == String.class || valueType == byte[].class
+            || java.util.Date.class.isAssignableFrom(valueType)
+            || valueType == LocalDate     .class || valueType == LocalTime    .class
+            || valueType == LocalDateTime .class || valueType == OffsetDateTime.class
+            || valueType == ZonedDateTime .class || valueType == Instant      .class;
+    }
+
+    /**
+     * Loads the rows into the table.
+     *
+     * @param connection the connection wrapper
+     * @param tableName the table name
+     * @param columnInfos the column information of the loaded columns
+     * @param rows the iterator of the column values of the rows,
+     *        which are in the order of <b>columnInfos</b>
+     *        and have been converted to the column types
+     * @return the number of rows loaded
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    long load(ConnectionWrapper connection, String tableName, List<ColumnInfo> columnInfos, Iterator<Object[]> rows) throws SQLException;
+
+    /**
+     * Returns the type of the values of the column given to {@link #load}.
+     *
+     * @param columnInfo the column information
+     * @return the column type if specified, otherwise the property type
+     */
+    static Class<?> valueType(ColumnInfo columnInfo) {
+        return columnInfo.columnType() != null
+            ? columnInfo.columnType()
+            : columnInfo.entityInfo().accessor().getType(columnInfo.propertyName());
+    }
+}
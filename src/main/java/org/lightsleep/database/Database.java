@@ -4,8 +4,10 @@
 package org.lightsleep.database;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -13,6 +15,8 @@ import java.util.function.Supplier;
 
 import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.Sql;
+import org.lightsleep.helper.ColumnInfo;
+import org.lightsleep.helper.ParameterBinder;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
 
@@ -32,6 +36,138 @@ public interface Database {
         return false;
     }
 
+    /**
+     * Returns whether the offset and the limit of <b>sql</b> are applied in the SELECT SQL.<br>
+     * If this method returns <b>false</b>, <b>Sql</b> skips the rows of the offset in the result set.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @return <b>true</b> if the offset and the limit are applied in the SELECT SQL, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    default <E> boolean supportsOffsetLimit(Sql<E> sql) {
+        return supportsOffsetLimit();
+    }
+
+    /**
+     * Returns a database handler suitable for the version of the database server.<br>
+     * This method is called when the first connection of a connection supplier is got.
+     *
+     * @param majorVersion the major version of the database server
+     * @param minorVersion the minor version of the database server
+     * @return a database handler suitable for the version (<b>this</b> by default)
+     *
+     * @since 4.1.0
+     */
+    default Database forServerVersion(int majorVersion, int minorVersion) {
+        return this;
+    }
+
+    /**
+     * Returns whether support <i>SKIP LOCKED</i> (or equivalent) with <i>FOR UPDATE</i>.
+     *
+     * @return <b>true</b> if support <i>SKIP LOCKED</i>, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    default boolean supportsSkipLocked() {
+        return false;
+    }
+
+    /**
+     * Returns whether the generated keys can be retrieved by specifying the key column names
+     * to <b>Connection.prepareStatement(String, String[])</b>.<br>
+     * If this method returns <b>false</b>, <b>Sql</b> uses <b>Statement.RETURN_GENERATED_KEYS</b> instead
+     * and retrieves only the first key column.
+     *
+     * @return <b>true</b> if the key column names can be specified, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#returnGeneratedKeys()
+     */
+    default boolean supportsGeneratedKeyColumnNames() {
+        return true;
+    }
+
+    /**
+     * Returns the maximum number of key values in a <i>SELECT</i> SQL generated by <b>Sql.selectByKeys</b>.<br>
+     * <b>Sql.selectByKeys</b> splits the keys into chunks of this size.
+     *
+     * @return the maximum number of key values
+     *
+     * @since 4.1.0
+     */
+    default int maxKeysPerSelect() {
+        return 1000;
+    }
+
+    /**
+     * Returns the maximum number of parameters in a SQL.<br>
+     * <b>InCondition</b> embeds the values as literals if binding them exceeds this number,
+     * and <b>Sql.bulkLoad</b> splits a multi-row <i>INSERT</i> SQL which has more parameters than this number.
+     *
+     * @return the maximum number of parameters
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.component.InCondition
+     * @see #insertSql(Sql, List, List)
+     */
+    default int maxParameters() {
+        return 32767;
+    }
+
+    /**
+     * Returns the maximum number of rows in a multi-row <i>INSERT</i> SQL generated by <b>Sql.bulkLoad</b>.<br>
+     * If this method returns 1 or less, <b>Sql.bulkLoad</b> inserts the rows with JDBC batches.
+     *
+     * @return the maximum number of rows
+     *
+     * @since 4.1.0
+     * @see #insertSql(Sql, List, List)
+     */
+    default int maxRowsPerInsert() {
+        return 1;
+    }
+
+    /**
+     * Returns the <b>BulkLoader</b> which loads the rows with the native bulk load function of the database.
+     *
+     * @return the <b>BulkLoader</b>, or <b>null</b> if not supported
+     *
+     * @since 4.1.0
+     */
+    default BulkLoader getBulkLoader() {
+        return null;
+    }
+
+    /**
+     * Returns whether an array of the specified element type can be bound as a single parameter
+     * of a <i>column = ANY(?)</i> condition.
+     *
+     * @param elementType the element type of the array
+     * @return <b>true</b> if an array of <b>elementType</b> can be bound, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    default boolean supportsArrayParameter(Class<?> elementType) {
+        return false;
+    }
+
+    /**
+     * Returns the SQLs to get the execution plan of the SQL.<br>
+     * The SQLs are executed in order and the rows of the result sets are the execution plan.
+     * The SQL ending with <b>sql</b> is executed with the parameters of <b>sql</b>.
+     *
+     * @param sql the SQL
+     * @return the SQLs to get the execution plan (empty if not supported)
+     *
+     * @since 4.1.0
+     */
+    default List<String> explainSqls(String sql) {
+        return Collections.emptyList();
+    }
+
     /**
      * Creates and returns a SELECT SQL.
      *
@@ -99,6 +235,24 @@ public interface Database {
      <E> CharSequence insertSql(Sql<E> sql, List<Object> parameters);
 ////
 
+    /**
+     * Creates and returns a multi-row INSERT SQL.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param entities the entities to be inserted (up to {@link #maxRowsPerInsert()})
+     *        (<b>Sql.bulkLoad</b> calls this method again with fewer entities if the SQL has more parameters than {@link #maxParameters()})
+     * @param parameters the list to add the parameters of the SQL
+     * @return a <b>CharSequence</b> including INSERT SQL
+     *
+     * @throws UnsupportedOperationException if multi-row INSERT is not supported
+     *
+     * @since 4.1.0
+     */
+    default <E> CharSequence insertSql(Sql<E> sql, List<? extends E> entities, List<Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + ".insertSql(Sql, List, List)");
+    }
+
     /**
      * Creates and returns a UPDATE SQL.
      *
@@ -125,6 +279,25 @@ public interface Database {
     <E> CharSequence deleteSql(Sql<E> sql, List<Object> parameters);
 ////
 
+    /**
+     * Creates and returns a SELECT SQL which selects the LOB column referenced by a <b>LobRef</b>
+     * with the condition of the key columns.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param columnInfo the column information of the LOB column
+     * @param parameters the list to add the parameters of the SQL
+     * @return a <b>CharSequence</b> including SELECT SQL
+     *
+     * @throws UnsupportedOperationException if not supported
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.component.LobRef
+     */
+    default <E> CharSequence lobSelectSql(Sql<E> sql, ColumnInfo columnInfo, List<Object> parameters) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + ".lobSelectSql(Sql, ColumnInfo, List)");
+    }
+
     /**
      * Returns the <b>TypeConverter</b> map.
      *
@@ -132,6 +305,43 @@ public interface Database {
      */
     Map<String, TypeConverter<?, ?>> typeConverterMap();
 
+    /**
+     * Returns a <b>ParameterBinder</b> to bind a value of the type
+     * to a parameter of <b>PreparedStatement</b>.
+     *
+     * @param <T> the type of the value
+     * @param valueType the type of the value
+     * @return a <b>ParameterBinder</b>
+     *
+     * @throws NullPointerException if <b>valueType</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     */
+    default <T> ParameterBinder<T> getParameterBinder(Class<T> valueType) {
+        return ParameterBinder.get(valueType);
+    }
+
+    /**
+     * Binds the value to the parameter of the statement
+     * with the <b>ParameterBinder</b> of the type of the value.<br>
+     * If <b>value</b> is <b>null</b>, binds it with <b>setObject</b>
+     * because the type of the column is unknown.
+     *
+     * @param statement the prepared statement
+     * @param index the parameter index (1, 2, ...)
+     * @param value the value
+     *
+     * @throws SQLException if a database access error occurs
+     *
+     * @since 4.1.0
+     */
+    default void setParameter(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null)
+            statement.setObject(index, null);
+        else
+            getParameterBinder(value.getClass()).bind(statement, index, value);
+    }
+
     /**
      * Converts the object to the specified type.
      *
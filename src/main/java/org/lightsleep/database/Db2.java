@@ -90,8 +90,12 @@ public class Db2 extends Standard {
         if (sql.isForUpdate()) {
             buff.append(" FOR UPDATE WITH RS");
 
+            // SKIP LOCKED (since 4.1.0)
+            if (sql.isSkipLocked())
+                throw new UnsupportedOperationException("skipLocked");
+
             // NO WAIT
-            if (sql.isNoWait())
+            else if (sql.isNoWait())
                 throw new UnsupportedOperationException("noWait");
 
             // WAIT n
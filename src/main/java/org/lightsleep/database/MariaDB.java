@@ -8,6 +8,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
 
 import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.component.SqlString;
@@ -115,6 +117,27 @@ public class MariaDB extends Standard {
         return true;
     }
 
+    /**
+     * Returns <b>false</b>.
+     * The driver returns only the value of the auto-increment column for <b>Statement.RETURN_GENERATED_KEYS</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsGeneratedKeyColumnNames() {
+        return false;
+    }
+
+    /**
+     * Returns a <b>BulkLoader</b> using <i>LOAD DATA LOCAL INFILE</i>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public BulkLoader getBulkLoader() {
+        return MySQLLoadDataLoader.instance;
+    }
+
     @Override
     public String maskPassword(String jdbcUrl) {
         return jdbcUrl.replaceAll("password *=" + PASSWORD_PATTERN, "password=" + PASSWORD_MASK);
@@ -140,4 +163,14 @@ public class MariaDB extends Standard {
 
         return object;
     }
+
+    /**
+     * Returns <b>"EXPLAIN " + sql</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(String sql) {
+        return Collections.singletonList("EXPLAIN " + sql);
+    }
 }
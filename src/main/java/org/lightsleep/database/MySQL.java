@@ -8,6 +8,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
 
 import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.component.SqlString;
@@ -73,10 +75,29 @@ public class MySQL extends Standard {
      */
     public static final MySQL instance = new MySQL();
 
+    // The instance for MySQL 8.0 or later (since 4.1.0)
+    private static final MySQL skipLockedInstance = new MySQL(true);
+
+    // Whether SKIP LOCKED can be used (since 4.1.0)
+    private final boolean supportsSkipLocked;
+
     /**
      * Constructs a new <b>MySQL</b>.
      */
     protected MySQL() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new <b>MySQL</b>.
+     *
+     * @param supportsSkipLocked <b>true</b> if <b>SKIP LOCKED</b> can be used (MySQL 8.0 or later)
+     *
+     * @since 4.1.0
+     */
+    protected MySQL(boolean supportsSkipLocked) {
+        this.supportsSkipLocked = supportsSkipLocked;
+
         // boolean -> 0, 1
         TypeConverter.put(typeConverterMap,
             new TypeConverter<>(Boolean.class, SqlString.class, object -> new SqlString(object ? "1" : "0"))
@@ -119,6 +140,49 @@ public class MySQL extends Standard {
         return true;
     }
 
+    /**
+     * Returns the instance that supports <b>SKIP LOCKED</b>
+     * if this is {@link #instance} and <b>majorVersion</b> is 8 or more.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public Database forServerVersion(int majorVersion, int minorVersion) {
+        return this == instance && majorVersion >= 8 ? skipLockedInstance : this;
+    }
+
+    /**
+     * Returns <b>true</b> for MySQL 8.0 or later
+     * (the handler got with {@link #forServerVersion(int, int)}), <b>false</b> otherwise.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsSkipLocked() {
+        return supportsSkipLocked;
+    }
+
+    /**
+     * Returns a <b>BulkLoader</b> using <i>LOAD DATA LOCAL INFILE</i>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public BulkLoader getBulkLoader() {
+        return MySQLLoadDataLoader.instance;
+    }
+
+    /**
+     * Returns <b>false</b>.
+     * The driver returns only the value of the auto-increment column for <b>Statement.RETURN_GENERATED_KEYS</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsGeneratedKeyColumnNames() {
+        return false;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -150,4 +214,14 @@ public class MySQL extends Standard {
 
         return object;
     }
+
+    /**
+     * Returns <b>"EXPLAIN " + sql</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(String sql) {
+        return Collections.singletonList("EXPLAIN " + sql);
+    }
 }
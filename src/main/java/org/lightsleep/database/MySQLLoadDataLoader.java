@@ -0,0 +1,163 @@
+// MySQLLoadDataLoader.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.database;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+
+/**
+ * A <b>BulkLoader</b> using <i>LOAD DATA LOCAL INFILE</i> of MySQL and MariaDB
+ * with the input stream set by <b>setLocalInfileInputStream</b> of the statement of the JDBC driver.
+ *
+ * <p>
+ * The JDBC driver is accessed by reflection,
+ * so that this library does not depend on it.
+ * The local infile must be allowed by the server (<i>local_infile=ON</i>)
+ * and the JDBC driver (e.g. <i>allowLoadLocalInfile=true</i> of MySQL Connector/J).
+ * </p>
+ *
+ * <p>
+ * <i>LOAD DATA LOCAL</i> acts as <i>IGNORE</i>,
+ * so the rows with duplicate keys are skipped and the invalid values are stored with warnings.
+ * If the number of the loaded rows differs from the number of the rows
+ * or any warning occurs, <b>load</b> throws <b>SQLException</b>
+ * and the transaction should be rolled back.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class MySQLLoadDataLoader extends TextBulkLoader {
+    /** The only instance of this class */
+    static final MySQLLoadDataLoader instance = new MySQLLoadDataLoader();
+
+    // The class names of the statements of the JDBC drivers which have setLocalInfileInputStream
+    private static final String[] statementClassNames = {
+        "com.mysql.cj.jdbc.JdbcStatement"  , // MySQL Connector/J 8
+        "com.mysql.jdbc.Statement"         , // MySQL Connector/J 5
+        "org.mariadb.jdbc.MariaDbStatement", // MariaDB Connector/J 2
+    };
+
+    /**
+     * Constructs a new <b>MySQLLoadDataLoader</b>.
+     */
+    private MySQLLoadDataLoader() {
+    }
+
+    @Override
+    public boolean isAvailable(ConnectionWrapper connection) {
+        try (Statement statement = connection.createStatement()) {
+            return statementClass(statement) != null;
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long load(ConnectionWrapper connection, String tableName, List<ColumnInfo> columnInfos, Iterator<Object[]> rows) throws SQLException {
+        // LOAD DATA LOCAL INFILE ... (column, @variable, ...) SET column = UNHEX(@variable), ...
+        StringBuilder columns = new StringBuilder();
+        StringBuilder sets = new StringBuilder();
+        for (int index = 0; index < columnInfos.size(); ++index) {
+            ColumnInfo columnInfo = columnInfos.get(index);
+            if (index > 0) columns.append(", ");
+            if (BulkLoader.valueType(columnInfo) == byte[].class) {
+                // binary values are sent as hexadecimal strings
+                columns.append("@v").append(index);
+                sets.append(sets.length() == 0 ? " SET " : ", ")
+                    .append(columnInfo.columnName()).append(" = UNHEX(@v").append(index).append(')');
+            } else
+                columns.append(columnInfo.columnName());
+        }
+        String sql = "LOAD DATA LOCAL INFILE 'lightsleep' INTO TABLE " + tableName
+            + " CHARACTER SET utf8mb4 (" + columns + ')' + sets;
+
+        Lines lines = new Lines(connection.getDatabase(), rows);
+        try (Statement statement = connection.createStatement()) {
+            Class<?> statementClass = statementClass(statement);
+            if (statementClass == null)
+                throw new SQLException("setLocalInfileInputStream is not supported: " + statement.getClass().getName());
+            Method method = statementClass.getMethod("setLocalInfileInputStream", InputStream.class);
+            method.invoke(statement.unwrap(statementClass), lines.inputStream());
+            long count = statement.executeUpdate(sql);
+
+            // LOAD DATA LOCAL skips the rows with duplicate keys and stores the invalid values
+            // with warnings instead of errors, so they are reported as INSERT does
+            SQLWarning warning = statement.getWarnings();
+            if (count != lines.lineCount() || warning != null)
+                throw new SQLException("LOAD DATA loaded " + count + " of " + lines.lineCount() + " rows"
+                    + (warning != null ? ": " + warning.getMessage() : ""), warning);
+            return count;
+        }
+        catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new SQLException(sql, cause);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new SQLException(sql, e);
+        }
+    }
+
+    /**
+     * Returns the class of the JDBC driver that the statement wraps and has <b>setLocalInfileInputStream</b>.
+     *
+     * @param statement the statement
+     * @return the class, or <b>null</b> if not found
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private static Class<?> statementClass(Statement statement) throws SQLException {
+        for (String className : statementClassNames) {
+            try {
+                Class<?> statementClass = Class.forName(className);
+                if (statement.isWrapperFor(statementClass)) {
+                    statementClass.getMethod("setLocalInfileInputStream", InputStream.class);
+                    return statementClass;
+                }
+            }
+            catch (ClassNotFoundException | NoSuchMethodException e) {
+                // tries the next class
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Formats <b>Boolean</b> as <b>1</b> or <b>0</b>, <b>byte[]</b> as a hexadecimal string
+     * and the date-times with the time zone as <b>Timestamp</b> strings.
+     * </p>
+     */
+    @Override
+    protected String format(Database database, Object value) {
+        if (value instanceof Boolean)
+            return (Boolean)value ? "1" : "0";
+
+        if (value instanceof byte[])
+            return toHex((byte[])value);
+
+        if (value instanceof OffsetDateTime || value instanceof ZonedDateTime || value instanceof Instant)
+            return database.convert(value, Timestamp.class).toString();
+
+        return super.format(database, value);
+    }
+}
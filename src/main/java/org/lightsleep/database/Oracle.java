@@ -11,6 +11,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
@@ -70,10 +71,29 @@ public class Oracle extends Standard {
      */
     public static final Oracle instance = new Oracle();
 
+    // The instance for Oracle Database 12c or later (since 4.1.0)
+    private static final Oracle offsetFetchInstance = new Oracle(true);
+
+    // Whether OFFSET n ROWS FETCH NEXT m ROWS ONLY can be used (since 4.1.0)
+    private final boolean supportsOffsetFetch;
+
     /**
      * Constructs a new <b>Oracle</b>.
      */
     protected Oracle() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new <b>Oracle</b>.
+     *
+     * @param supportsOffsetFetch <b>true</b> if <b>OFFSET n ROWS FETCH NEXT m ROWS ONLY</b> can be used (Oracle Database 12c or later)
+     *
+     * @since 4.1.0
+     */
+    protected Oracle(boolean supportsOffsetFetch) {
+        this.supportsOffsetFetch = supportsOffsetFetch;
+
         // boolean -> 0, 1
         TypeConverter.put(typeConverterMap,
             new TypeConverter<>(Boolean.class, SqlString.class, object -> new SqlString(object ? "1" : "0"))
@@ -112,11 +132,90 @@ public class Oracle extends Standard {
         );
     }
 
+    /**
+     * Returns the instance that uses <b>OFFSET n ROWS FETCH NEXT m ROWS ONLY</b>
+     * if this is {@link #instance} and <b>majorVersion</b> is 12 or more.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public Database forServerVersion(int majorVersion, int minorVersion) {
+        return this == instance && majorVersion >= 12 ? offsetFetchInstance : this;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsOffsetLimit() {
+        return supportsOffsetFetch;
+    }
+
+    /**
+     * Returns <b>false</b> for <i>FOR UPDATE</i>
+     * because the row limiting clause cannot be used with it.<br>
+     * For <i>FOR UPDATE SKIP LOCKED</i>, which locks the rows when fetched,
+     * <b>Sql</b> sets the fetch size to the limit so that no more rows than the limit are locked.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> boolean supportsOffsetLimit(Sql<E> sql) {
+        return supportsOffsetFetch && !sql.isForUpdate();
+    }
+
+    /**
+     * Appends <b>OFFSET n ROWS FETCH NEXT m ROWS ONLY</b> for Oracle Database 12c or later.
+     * Otherwise wraps the SELECT SQL with <b>SELECT * FROM (...) WHERE ROWNUM&lt;=n</b>
+     * where <b>n</b> is the sum of the offset and the limit,
+     * and the rows of the offset are skipped in the result set.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence selectSql(Sql<E> sql, List<Object> parameters) {
+        if (sql.isForUpdate() || sql.getLimit() == Integer.MAX_VALUE && (!supportsOffsetFetch || sql.getOffset() == 0))
+            return super.selectSql(sql, parameters);
+
+        StringBuilder buff = new StringBuilder();
+        if (supportsOffsetFetch) {
+            // SELECT ... ORDER BY ... OFFSET n ROWS FETCH NEXT m ROWS ONLY
+            buff.append(subSelectSql(sql, null, parameters));
+            appendOrderBy(buff, sql, parameters);
+            appendOffsetFetch(buff, sql);
+        } else {
+            // SELECT * FROM (SELECT ... ORDER BY ...) WHERE ROWNUM<=n
+            buff.append("SELECT * FROM (").append(subSelectSql(sql, null, parameters));
+            appendOrderBy(buff, sql, parameters);
+            buff.append(") WHERE ROWNUM<=").append((long)sql.getOffset() + sql.getLimit());
+        }
+        return buff;
+    }
+
     @Override
     protected <E> CharSequence withSelectSql(Sql<E> sql, List<Object> parameters) {
         return onlyWithSelectSql(sql, parameters);
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    /**
+     * Returns 1 because Oracle does not support the multi-row <i>VALUES</i> clause,
+     * so that the rows are inserted with JDBC batches.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxRowsPerInsert() {
+        return 1;
+    }
+
     /**
      * @since 1.9.0
      */
@@ -126,8 +225,12 @@ public class Oracle extends Standard {
         if (sql.isForUpdate()) {
             buff.append(" FOR UPDATE");
 
+            // SKIP LOCKED (since 4.1.0)
+            if (sql.isSkipLocked())
+                buff.append(" SKIP LOCKED");
+
             // NO WAIT
-            if (sql.isNoWait())
+            else if (sql.isNoWait())
                 buff.append(" NOWAIT");
 
             // WAIT n
@@ -175,4 +278,14 @@ public class Oracle extends Standard {
 
         return object;
     }
+
+    /**
+     * Returns <b>"EXPLAIN PLAN FOR " + sql</b> and the <i>SELECT</i> SQL of <b>DBMS_XPLAN.DISPLAY()</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(String sql) {
+        return Arrays.asList("EXPLAIN PLAN FOR " + sql, "SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY())");
+    }
 }
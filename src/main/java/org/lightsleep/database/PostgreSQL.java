@@ -4,13 +4,21 @@
 package org.lightsleep.database;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ParameterBinder;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
 
@@ -49,12 +57,23 @@ import org.lightsleep.helper.Utils;
  *   </tr>
  * </table>
  *
+ * <p>
+ * <b>UUID</b> parameters are bound with <b>setObject</b> as the <i>uuid</i> type
+ * and the arrays of the types of {@link #supportsArrayParameter(Class)} are bound with <b>setArray</b>
+ * (since 4.1.0).
+ * </p>
+ *
  * @since 1.0.0
  * @author Masato Kokubo
  * @see org.lightsleep.helper.TypeConverter
  * @see org.lightsleep.database.Standard
  */
 public class PostgreSQL extends Standard {
+    // The element types of arrays that can be bound as a parameter (since 4.1.0)
+    private static final Set<Class<?>> arrayElementTypes = new HashSet<>(Arrays.asList(
+        Boolean.class, Short.class, Integer.class, Long.class, Float.class, Double.class, String.class
+    ));
+
     /**
      * The pattern string of passwords
      *
@@ -136,6 +155,31 @@ public class PostgreSQL extends Standard {
             )
         ////
         );
+
+        // since 4.1.0
+        // UUID -> setObject (uuid type), arrays -> setArray
+        ParameterBinder.put(parameterBinderMap, new ParameterBinder<>(UUID.class, PreparedStatement::setObject));
+        putArrayBinder(Boolean[].class, "bool"  );
+        putArrayBinder(Short  [].class, "int2"  );
+        putArrayBinder(Integer[].class, "int4"  );
+        putArrayBinder(Long   [].class, "int8"  );
+        putArrayBinder(Float  [].class, "float4");
+        putArrayBinder(Double [].class, "float8");
+        putArrayBinder(String [].class, "text"  );
+    }
+
+    /**
+     * Puts a <b>ParameterBinder</b> which binds an array as a SQL array of the type.
+     *
+     * @param <T> the element type of the array
+     * @param arrayType the array type
+     * @param typeName the SQL type name of the elements
+     *
+     * @since 4.1.0
+     */
+    private <T> void putArrayBinder(Class<T[]> arrayType, String typeName) {
+        ParameterBinder.put(parameterBinderMap, new ParameterBinder<>(arrayType,
+            (statement, index, value) -> statement.setArray(index, statement.getConnection().createArrayOf(typeName, value))));
     }
 
     @Override
@@ -143,6 +187,44 @@ public class PostgreSQL extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public int maxKeysPerSelect() {
+        return 10000;
+    }
+
+    /**
+     * Returns a <b>BulkLoader</b> using <i>COPY ... FROM STDIN</i>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public BulkLoader getBulkLoader() {
+        return PostgreSQLCopyLoader.instance;
+    }
+
+    /**
+     * Returns <b>true</b> if <b>elementType</b> is one of the types
+     * that the JDBC driver binds as a PostgreSQL array
+     * (<b>Boolean</b>, <b>Short</b>, <b>Integer</b>, <b>Long</b>, <b>Float</b>, <b>Double</b> and <b>String</b>).
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsArrayParameter(Class<?> elementType) {
+        return arrayElementTypes.contains(elementType);
+    }
+
     /**
      * @since 2.2.0
      */
@@ -174,4 +256,14 @@ public class PostgreSQL extends Standard {
 
         return object;
     }
+
+    /**
+     * Returns <b>"EXPLAIN " + sql</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(String sql) {
+        return Collections.singletonList("EXPLAIN " + sql);
+    }
 }
@@ -0,0 +1,98 @@
+// PostgreSQLCopyLoader.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.database;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+
+/**
+ * A <b>BulkLoader</b> using <i>COPY ... FROM STDIN</i> of PostgreSQL
+ * with <b>CopyManager</b> of the PostgreSQL JDBC driver.
+ *
+ * <p>
+ * The JDBC driver is accessed by reflection,
+ * so that this library does not depend on it.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class PostgreSQLCopyLoader extends TextBulkLoader {
+    /** The only instance of this class */
+    static final PostgreSQLCopyLoader instance = new PostgreSQLCopyLoader();
+
+    // The class name of the connection of the JDBC driver
+    private static final String PG_CONNECTION = "org.postgresql.PGConnection";
+
+    /**
+     * Constructs a new <b>PostgreSQLCopyLoader</b>.
+     */
+    private PostgreSQLCopyLoader() {
+    }
+
+    @Override
+    public boolean isAvailable(ConnectionWrapper connection) {
+        try {
+            return connection.isWrapperFor(Class.forName(PG_CONNECTION));
+        }
+        catch (ClassNotFoundException | SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long load(ConnectionWrapper connection, String tableName, List<ColumnInfo> columnInfos, Iterator<Object[]> rows) throws SQLException {
+        String sql = "COPY " + tableName + " (" + columnNames(columnInfos) + ") FROM STDIN";
+        Lines lines = new Lines(connection.getDatabase(), rows);
+        try {
+            Class<?> pgConnectionClass = Class.forName(PG_CONNECTION);
+            Object copyManager = pgConnectionClass.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnectionClass));
+            return (Long)copyManager.getClass().getMethod("copyIn", String.class, Reader.class)
+                .invoke(copyManager, sql, lines.reader());
+        }
+        catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new SQLException(sql, cause);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new SQLException(sql, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Formats <b>Boolean</b> as <b>t</b> or <b>f</b>, <b>byte[]</b> as <b>\x</b><i>hexadecimal</i>
+     * and the date-times with the time zone as ISO-8601 strings with the offset.
+     * </p>
+     */
+    @Override
+    protected String format(Database database, Object value) {
+        if (value instanceof Boolean)
+            return (Boolean)value ? "t" : "f";
+
+        if (value instanceof byte[])
+            return "\\x" + toHex((byte[])value);
+
+        if (value instanceof ZonedDateTime)
+            return ((ZonedDateTime)value).toOffsetDateTime().toString();
+
+        if (value instanceof OffsetDateTime || value instanceof Instant)
+            return value.toString();
+
+        return super.format(database, value);
+    }
+}
@@ -15,6 +15,7 @@ import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -126,10 +127,29 @@ public class SQLServer extends Standard {
      */
     public static final SQLServer instance = new SQLServer();
 
+    // The instance for SQL Server 2012 or later (since 4.1.0)
+    private static final SQLServer offsetFetchInstance = new SQLServer(true);
+
+    // Whether OFFSET n ROWS FETCH NEXT m ROWS ONLY can be used (since 4.1.0)
+    private final boolean supportsOffsetFetch;
+
     /**
      * Constructs a new <b>SQLServer</b>.
      */
     protected SQLServer() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new <b>SQLServer</b>.
+     *
+     * @param supportsOffsetFetch <b>true</b> if <b>OFFSET n ROWS FETCH NEXT m ROWS ONLY</b> can be used (SQL Server 2012 or later)
+     *
+     * @since 4.1.0
+     */
+    protected SQLServer(boolean supportsOffsetFetch) {
+        this.supportsOffsetFetch = supportsOffsetFetch;
+
         // boolean -> 0, 1
         TypeConverter.put(typeConverterMap,
             new TypeConverter<>(Boolean.class, SqlString.class, object -> new SqlString(object ? "1" : "0"))
@@ -344,12 +364,54 @@ public class SQLServer extends Standard {
         // ORDER BY ...
         appendOrderBy(buff, sql, parameters);
 
+        if (supportsOffsetLimit(sql) && (sql.getOffset() != 0 || sql.getLimit() != Integer.MAX_VALUE)) {
+            // OFFSET requires ORDER BY
+            if (sql.getOrderBy().isEmpty())
+                buff.append(" ORDER BY (SELECT NULL)");
+
+            // OFFSET n ROWS FETCH NEXT m ROWS ONLY (since 4.1.0)
+            appendOffsetFetch(buff, sql);
+        }
+
     // 4.0.0
     //  return buff.toString();
         return buff;
     ////
     }
 
+    /**
+     * Returns the instance that uses <b>OFFSET n ROWS FETCH NEXT m ROWS ONLY</b>
+     * if this is {@link #instance} and <b>majorVersion</b> is 11 (SQL Server 2012) or more.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public Database forServerVersion(int majorVersion, int minorVersion) {
+        return this == instance && majorVersion >= 11 ? offsetFetchInstance : this;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsOffsetLimit() {
+        return supportsOffsetFetch;
+    }
+
+    /**
+     * Returns <b>false</b> for a <i>UNION</i> without <i>ORDER BY</i>
+     * because <b>ORDER BY (SELECT NULL)</b> cannot be added to it.<br>
+     * For SQL Server 2008 or earlier, <b>TOP (n)</b> is used for the limit
+     * where <b>n</b> is the sum of the offset and the limit,
+     * and the rows of the offset are skipped in the result set.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> boolean supportsOffsetLimit(Sql<E> sql) {
+        return supportsOffsetFetch && (!sql.getOrderBy().isEmpty() || sql.getUnionSqls().isEmpty());
+    }
+
     @Override
     protected <E> CharSequence withSelectSql(Sql<E> sql, List<Object> parameters) {
         return onlyWithSelectSql(sql, parameters);
@@ -368,6 +430,10 @@ public class SQLServer extends Standard {
         // DISTINCT
         appendDistinct(buff, sql);
 
+        // TOP (n) (since 4.1.0)
+        if (outerSql == null && sql.getLimit() != Integer.MAX_VALUE && !supportsOffsetLimit(sql))
+            buff.append("TOP (").append((long)sql.getOffset() + sql.getLimit()).append(") ");
+
         // the column names, ...
         buff.append(columnsSupplier.get());
 
@@ -472,6 +538,25 @@ public class SQLServer extends Standard {
     ////
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    /**
+     * Returns <b>false</b>.
+     * The driver returns only the value of the <i>IDENTITY</i> column for <b>Statement.RETURN_GENERATED_KEYS</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsGeneratedKeyColumnNames() {
+        return false;
+    }
+
     /**
      * @since 1.8.2
      */
@@ -479,8 +564,11 @@ public class SQLServer extends Standard {
     protected <E> void appendForUpdate(StringBuilder buff, Sql<E> sql) {
         // FOR UPDATE
         if (sql.isForUpdate()) {
+            // SKIP LOCKED (since 4.1.0)
+            if (sql.isSkipLocked())
+                buff.append(" WITH (ROWLOCK,UPDLOCK,READPAST)");
             // NO WAIT
-            if (sql.isNoWait())
+            else if (sql.isNoWait())
                 buff.append(" WITH (ROWLOCK,UPDLOCK,NOWAIT)");
             // WAIT
             else if (sql.isWaitForever())
@@ -491,6 +579,54 @@ public class SQLServer extends Standard {
         }
     }
 
+    /**
+     * Returns 2000 because a statement can have at most 2100 parameters.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxKeysPerSelect() {
+        return 2000;
+    }
+
+    /**
+     * Returns 2100 because a statement can have at most 2100 parameters.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxParameters() {
+        return 2100;
+    }
+
+    /**
+     * Returns 1000 because a <i>VALUES</i> clause can have at most 1000 rows.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxRowsPerInsert() {
+        return 1000;
+    }
+
+    /**
+     * Returns a <b>BulkLoader</b> using <b>SQLServerBulkCopy</b>,
+     * or <b>null</b> if the Microsoft JDBC Driver for SQL Server is not in the class path.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public BulkLoader getBulkLoader() {
+        try {
+            // The class of the loader is not loaded if the JDBC driver is not in the class path
+            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerBulkCopy");
+            return SQLServerBulkCopyLoader.instance;
+        }
+        catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     /**
      * @since 2.2.0
      */
@@ -519,4 +655,14 @@ public class SQLServer extends Standard {
 
         return object;
     }
+
+    /**
+     * Returns <b>sql</b> enclosed by <b>"SET SHOWPLAN_XML ON"</b> and <b>"SET SHOWPLAN_XML OFF"</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(String sql) {
+        return Arrays.asList("SET SHOWPLAN_XML ON", sql, "SET SHOWPLAN_XML OFF");
+    }
 }
@@ -0,0 +1,219 @@
+// SQLServerBulkCopyLoader.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.database;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+
+import microsoft.sql.DateTimeOffset;
+
+/**
+ * A <b>BulkLoader</b> using <b>SQLServerBulkCopy</b> of the Microsoft JDBC Driver for SQL Server.
+ *
+ * <p>
+ * The column types, the precisions and the scales are got from the table.
+ * The rows are loaded in the transaction of the connection.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class SQLServerBulkCopyLoader implements BulkLoader {
+    /** The only instance of this class */
+    static final SQLServerBulkCopyLoader instance = new SQLServerBulkCopyLoader();
+
+    /**
+     * Constructs a new <b>SQLServerBulkCopyLoader</b>.
+     */
+    private SQLServerBulkCopyLoader() {
+    }
+
+    @Override
+    public boolean isAvailable(ConnectionWrapper connection) {
+        try {
+            return connection.isWrapperFor(SQLServerConnection.class);
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long load(ConnectionWrapper connection, String tableName, List<ColumnInfo> columnInfos, Iterator<Object[]> rows) throws SQLException {
+        // Gets the column types of the table
+        int columnCount = columnInfos.size();
+        int[] types      = new int[columnCount];
+        int[] precisions = new int[columnCount];
+        int[] scales     = new int[columnCount];
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int index = 0; index < columnCount; ++index)
+            sql.append(index == 0 ? "" : ", ").append(columnInfos.get(index).columnName());
+        sql.append(" FROM ").append(tableName).append(" WHERE 1 = 0");
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql.toString())) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int index = 0; index < columnCount; ++index) {
+                types     [index] = metaData.getColumnType(index + 1);
+                precisions[index] = metaData.getPrecision (index + 1);
+                scales    [index] = metaData.getScale    (index + 1);
+            }
+        }
+
+        Rows data = new Rows(connection.getDatabase(), columnInfos, types, precisions, scales, rows);
+        try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(connection.unwrap(SQLServerConnection.class))) {
+            SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+            options.setKeepNulls(true); // NULL rather than the default values of the columns as INSERT
+            bulkCopy.setBulkCopyOptions(options);
+            bulkCopy.setDestinationTableName(tableName);
+            for (int index = 0; index < columnCount; ++index)
+                bulkCopy.addColumnMapping(index + 1, columnInfos.get(index).columnName());
+            bulkCopy.writeToServer(data);
+        }
+        return data.rowCount;
+    }
+
+    /**
+     * The rows given to <b>SQLServerBulkCopy</b>.
+     */
+    @SuppressWarnings("serial")
+    private static class Rows implements ISQLServerBulkData {
+        // The database handler
+        private final transient Database database;
+
+        // The column information
+        private final transient List<ColumnInfo> columnInfos;
+
+        // The SQL types, the precisions and the scales of the columns
+        private final int[] types;
+        private final int[] precisions;
+        private final int[] scales;
+
+        // The iterator of the rows
+        private final transient Iterator<Object[]> rows;
+
+        // The current row
+        private transient Object[] row;
+
+        // The number of the rows read
+        private long rowCount;
+
+        private Rows(Database database, List<ColumnInfo> columnInfos, int[] types, int[] precisions, int[] scales, Iterator<Object[]> rows) {
+            this.database    = database;
+            this.columnInfos = columnInfos;
+            this.types       = types;
+            this.precisions  = precisions;
+            this.scales      = scales;
+            this.rows        = rows;
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinals = new LinkedHashSet<>();
+            for (int index = 1; index <= types.length; ++index)
+                ordinals.add(index);
+            return ordinals;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnInfos.get(column - 1).columnName();
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return types[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return precisions[column - 1];
+        }
+
+        @Override
+        public int getScale(int column) {
+            return scales[column - 1];
+        }
+
+        @Override
+        public boolean next() {
+            if (!rows.hasNext())
+                return false;
+            row = rows.next();
+            ++rowCount;
+            return true;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            Object[] values = new Object[row.length];
+            for (int index = 0; index < row.length; ++index)
+                values[index] = toJdbcValue(row[index], types[index]);
+            return values;
+        }
+
+        /**
+         * Converts the value to the object which the JDBC driver accepts.
+         *
+         * @param value the value
+         * @param type the SQL type of the column
+         * @return the converted value
+         */
+        private Object toJdbcValue(Object value, int type) {
+            if (value instanceof Character)
+                return value.toString();
+
+            if (value instanceof BigInteger)
+                return new BigDecimal((BigInteger)value);
+
+            if (value instanceof LocalDate)
+                return java.sql.Date.valueOf((LocalDate)value);
+
+            if (value instanceof LocalTime)
+                return Time.valueOf((LocalTime)value);
+
+            if (value instanceof LocalDateTime)
+                return Timestamp.valueOf((LocalDateTime)value);
+
+            if (value instanceof OffsetDateTime || value instanceof ZonedDateTime || value instanceof Instant) {
+                if (type == microsoft.sql.Types.DATETIMEOFFSET) {
+                    OffsetDateTime dateTime = value instanceof Instant
+                        ? OffsetDateTime.ofInstant((Instant)value, java.time.ZoneOffset.UTC)
+                        : database.convert(value, OffsetDateTime.class);
+                    return DateTimeOffset.valueOf(Timestamp.from(dateTime.toInstant()), dateTime.getOffset().getTotalSeconds() / 60);
+                }
+                return database.convert(value, Timestamp.class);
+            }
+
+            if (value instanceof java.util.Date
+                && !(value instanceof java.sql.Date || value instanceof Time || value instanceof Timestamp))
+                return new Timestamp(((java.util.Date)value).getTime());
+
+            return value;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
 import org.lightsleep.Sql;
@@ -260,6 +262,37 @@ public class SQLite extends Standard {
         return true;
     }
 
+    /**
+     * Returns <b>false</b>.
+     * The driver returns only the value of the <i>ROWID</i> (last_insert_rowid()) for <b>Statement.RETURN_GENERATED_KEYS</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsGeneratedKeyColumnNames() {
+        return false;
+    }
+
+    /**
+     * Returns 999 because it is the default maximum number of host parameters of the older versions.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxKeysPerSelect() {
+        return 999;
+    }
+
+    /**
+     * Returns 999 because it is the default maximum number of host parameters of the older versions.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxParameters() {
+        return 999;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -267,4 +300,14 @@ public class SQLite extends Standard {
     public String maskPassword(String jdbcUrl) {
         return jdbcUrl;
     }
+
+    /**
+     * Returns <b>"EXPLAIN QUERY PLAN " + sql</b>.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(String sql) {
+        return Collections.singletonList("EXPLAIN QUERY PLAN " + sql);
+    }
 }
@@ -3,6 +3,10 @@
 
 package org.lightsleep.database;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.sql.Blob;
@@ -28,12 +32,15 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.lightsleep.PreparedSql;
 import org.lightsleep.Sql;
 import org.lightsleep.component.Condition;
 import org.lightsleep.component.Expression;
+import org.lightsleep.component.LobRef;
 import org.lightsleep.component.SqlString;
 import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.ConvertException;
+import org.lightsleep.helper.ParameterBinder;
 import org.lightsleep.helper.Resource;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
@@ -63,6 +70,26 @@ import org.lightsleep.logger.LoggerFactory;
  *     </td>
  *   </tr>
  *   <tr><td>Blob</td><td>byte[]</td></tr>
+ *   <tr><td>Clob</td><td>Reader</td><td rowspan="2">
+ *       Returns the stream of the source, which is valid only in the transaction.
+ *       <div class="warning">
+ *         Throws a <b>ConvertException</b> if <b>SQLException</b> is thrown when getting the stream.
+ *       </div>
+ *     </td>
+ *   </tr>
+ *   <tr><td>Blob</td><td>InputStream</td></tr>
+ *   <tr><td>String</td><td>Reader</td><td><b>new StringReader(source)</b></td></tr>
+ *   <tr><td>byte[]</td><td>InputStream</td><td><b>new ByteArrayInputStream(source)</b></td></tr>
+ *   <tr><td>Reader</td><td rowspan="3">SqlString</td><td rowspan="2"><b>new SqlString(SqlString.PARAMETER, source)</b></td></tr>
+ *   <tr><td>InputStream</td></tr>
+ *   <tr><td>LobRef</td>
+ *     <td>
+ *       <b>new SqlString(SqlString.PARAMETER, source.content())</b>
+ *       <div class="warning">
+ *         Throws a <b>ConvertException</b> if the source refers a LOB column of a row.
+ *       </div>
+ *     </td>
+ *   </tr>
  *   <tr><td rowspan="19">java.sql.Array</td><td>boolean[]</td>
  *     <td rowspan="19">Converts each element of the <b>Array</b> to the element type of the destination using <b>TypeConverter</b>.
  *     </td>
@@ -255,6 +282,13 @@ public class Standard implements Database {
      */
     protected final Map<String, TypeConverter<?, ?>> typeConverterMap = new ConcurrentHashMap<>(TypeConverter.typeConverterMap());
 
+    /**
+     * <b>ParameterBinder</b> map used when binding the parameters of <b>PreparedStatement</b>
+     *
+     * @since 4.1.0
+     */
+    protected final Map<Class<?>, ParameterBinder<?>> parameterBinderMap = new ConcurrentHashMap<>(ParameterBinder.parameterBinderMap());
+
     /**
      * Constructs a new <b>Standard</b>.
      */
@@ -295,6 +329,40 @@ public class Standard implements Database {
             })
         );
 
+        // Clob -> Reader (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(Clob.class, Reader.class, object -> {
+                try {
+                    return object.getCharacterStream();
+                }
+                catch (SQLException e) {
+                    throw new ConvertException(Clob.class, object, Reader.class, null, e);
+                }
+            })
+        );
+
+        // Blob -> InputStream (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(Blob.class, InputStream.class, object -> {
+                try {
+                    return object.getBinaryStream();
+                }
+                catch (SQLException e) {
+                    throw new ConvertException(Blob.class, object, InputStream.class, null, e);
+                }
+            })
+        );
+
+        // String -> Reader (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(String.class, Reader.class, StringReader::new)
+        );
+
+        // byte[] -> InputStream (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(byte[].class, InputStream.class, ByteArrayInputStream::new)
+        );
+
     // java.sql.Array -> *[]
         // java.sql.Array -> boolean[]
         TypeConverter.put(typeConverterMap,
@@ -401,6 +469,30 @@ public class Standard implements Database {
             new TypeConverter<>(Object.class, SqlString.class, object -> new SqlString(object.toString()))
         );
 
+        // PreparedSql.Argument -> SqlString (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(PreparedSql.Argument.class, SqlString.class, object -> new SqlString(SqlString.PARAMETER, object))
+        );
+
+        // Reader -> SqlString (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(Reader.class, SqlString.class, object -> new SqlString(SqlString.PARAMETER, object))
+        );
+
+        // InputStream -> SqlString (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(InputStream.class, SqlString.class, object -> new SqlString(SqlString.PARAMETER, object))
+        );
+
+        // LobRef -> SqlString (since 4.1.0)
+        TypeConverter.put(typeConverterMap,
+            new TypeConverter<>(LobRef.class, SqlString.class, object -> {
+                if (object.isReference())
+                    throw new ConvertException(LobRef.class, object, SqlString.class);
+                return new SqlString(SqlString.PARAMETER, object.content());
+            })
+        );
+
         // Boolean -> SqlString(FALSE, TRUE)
         TypeConverter.put(typeConverterMap,
             new TypeConverter<>(Boolean.class, SqlString.class, object -> new SqlString(object ? "TRUE" : "FALSE"))
@@ -832,7 +924,7 @@ public class Standard implements Database {
         // ORDER BY ...
         appendOrderBy(buff, sql, parameters);
 
-        if (supportsOffsetLimit()) {
+        if (supportsOffsetLimit(sql)) {
             // LIMIT ...
             appendLimit(buff, sql);
 
@@ -1048,6 +1140,37 @@ public class Standard implements Database {
         return buff;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence insertSql(Sql<E> sql, List<? extends E> entities, List<Object> parameters) {
+        StringBuilder buff = new StringBuilder();
+
+        // INSERT INTO
+        buff.append("INSERT INTO ");
+
+        // table name and alias
+        appendMainTable(buff, sql);
+
+        // (column name, ...)
+        appendInsertColumns(buff, sql);
+
+        // VALUES (value, ...), (value, ...), ...
+        buff.append(" VALUES ");
+        Sql<E> rowSql = sql.clone();
+        String delimiter = "";
+        for (E entity : entities) {
+            buff.append(delimiter);
+            appendInsertValueList(buff, rowSql.setEntity(entity), parameters);
+            delimiter = ", ";
+        }
+
+        return buff;
+    }
+
     @Override
 // 4.0.0
 //  public <E> String updateSql(Sql<E> sql, List<Object> parameters) {
@@ -1116,6 +1239,27 @@ public class Standard implements Database {
     ////
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence lobSelectSql(Sql<E> sql, ColumnInfo columnInfo, List<Object> parameters) {
+        StringBuilder buff = new StringBuilder();
+
+        // SELECT column name FROM
+        buff.append("SELECT ").append(columnInfo.getColumnName(sql.tableAlias())).append(" FROM ");
+
+        // table name and alias
+        appendMainTable(buff, sql);
+
+        // WHERE ...
+        appendWhere(buff, sql, parameters);
+
+        return buff;
+    }
+
     /**
      * Appends DISTINCT to <b>buff</b>.
      *
@@ -1391,7 +1535,23 @@ public class Standard implements Database {
      */
     protected <E> void appendInsertValues(StringBuilder buff, Sql<E> sql, List<Object> parameters) {
         // VALUES (value, ...)
-        buff.append(" VALUES (");
+        buff.append(" VALUES ");
+        appendInsertValueList(buff, sql, parameters);
+    }
+
+    /**
+     * Appends INSERT column values of the entity in parentheses to <b>buff</b>.
+     *
+     * @param <E> the type of the entity
+     * @param buff the string buffer to be appended
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param parameters the list to add the parameters of the SQL
+     *
+     * @since 4.1.0
+     */
+    protected <E> void appendInsertValueList(StringBuilder buff, Sql<E> sql, List<Object> parameters) {
+        // (value, ...)
+        buff.append('(');
         String[] delimiter = new String[] {""};
 
         sql.columnInfoStream()
@@ -1431,6 +1591,7 @@ public class Standard implements Database {
 
         sql.selectedSqlColumnInfoStream()
             .filter(sqlColumnInfo -> sqlColumnInfo.columnInfo().updatable())
+            .filter(sqlColumnInfo -> !isLobReference(sql, sqlColumnInfo.columnInfo())) // since 4.1.0
             .forEach(sqlColumnInfo -> {
                 ColumnInfo columnInfo = sqlColumnInfo.columnInfo();
                 String tableAlias   = sqlColumnInfo.tableAlias();
@@ -1453,6 +1614,25 @@ public class Standard implements Database {
             });
     }
 
+    /**
+     * Returns <b>true</b> if the property of the entity of <b>sql</b> has a <b>LobRef</b>
+     * that refers the LOB column of the row.
+     * Such columns are not updated because the values are not read.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param columnInfo the column information
+     * @return <b>true</b> if the property has a <b>LobRef</b> that refers the LOB column, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    protected <E> boolean isLobReference(Sql<E> sql, ColumnInfo columnInfo) {
+        if (sql.entity() == null || columnInfo.entityInfo() != sql.entityInfo())
+            return false;
+        Object value = sql.entityInfo().accessor().getValue(sql.entity(), columnInfo.propertyName());
+        return value instanceof LobRef && ((LobRef)value).isReference();
+    }
+
     /**
      * Appends WHERE clause to <b>buff</b>.
      *
@@ -1541,6 +1721,22 @@ public class Standard implements Database {
             buff.append(" OFFSET ").append(sql.getOffset());
     }
 
+    /**
+     * Appends <b>OFFSET n ROWS FETCH NEXT m ROWS ONLY</b> clause to <b>buff</b>.
+     *
+     * @param <E> the type of the entity
+     * @param buff the string buffer to be appended
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     *
+     * @since 4.1.0
+     */
+    protected <E> void appendOffsetFetch(StringBuilder buff, Sql<E> sql) {
+        if (sql.getOffset() != 0 || sql.getLimit() != Integer.MAX_VALUE)
+            buff.append(" OFFSET ").append(sql.getOffset()).append(" ROWS");
+        if (sql.getLimit() != Integer.MAX_VALUE)
+            buff.append(" FETCH NEXT ").append(sql.getLimit()).append(" ROWS ONLY");
+    }
+
     /**
      * Appends FOR UPDATE clause to <b>buff</b>.
      *
@@ -1555,8 +1751,15 @@ public class Standard implements Database {
         if (sql.isForUpdate()) {
             buff.append(" FOR UPDATE");
 
+            // SKIP LOCKED (since 4.1.0)
+            if (sql.isSkipLocked()) {
+                if (!supportsSkipLocked())
+                    throw new UnsupportedOperationException("skipLocked");
+                buff.append(" SKIP LOCKED");
+            }
+
             // NO WAIT
-            if (sql.isNoWait())
+            else if (sql.isNoWait())
                 throw new UnsupportedOperationException("noWait");
 
             // WAIT n
@@ -1565,6 +1768,16 @@ public class Standard implements Database {
         }
     }
 
+    /**
+     * Returns 500 because the multi-row <i>VALUES</i> clause is standard SQL.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxRowsPerInsert() {
+        return 500;
+    }
+
     @Override
     public Map<String, TypeConverter<?, ?>> typeConverterMap() {
         return typeConverterMap;
@@ -1574,4 +1787,14 @@ public class Standard implements Database {
     public <T> T convert(Object value, Class<T> type) {
         return TypeConverter.convert(typeConverterMap, value, type);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <T> ParameterBinder<T> getParameterBinder(Class<T> valueType) {
+        return ParameterBinder.get(parameterBinderMap, valueType);
+    }
 }
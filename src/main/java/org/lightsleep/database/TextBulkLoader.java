@@ -0,0 +1,220 @@
+// TextBulkLoader.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.database;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.lightsleep.helper.ColumnInfo;
+
+/**
+ * A <b>BulkLoader</b> which sends the rows as tab-separated text.
+ *
+ * <p>
+ * A row is a line ending with <b>'\n'</b> and the values are separated with <b>'\t'</b>.
+ * <i>NULL</i> is <b>\N</b> and a backslash, a tab, a new line and a carriage return in a value
+ * are escaped with a backslash.
+ * This is the text format of <i>COPY</i> of PostgreSQL
+ * and the default format of <i>LOAD DATA</i> of MySQL.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+abstract class TextBulkLoader implements BulkLoader {
+    /**
+     * Returns the text of the value.
+     *
+     * @param database the database handler
+     * @param value the value converted to the column type
+     * @return the text of the value, or <b>null</b> if <b>value</b> is <b>null</b>
+     */
+    protected String format(Database database, Object value) {
+        if (value == null)
+            return null;
+
+        if (value instanceof BigDecimal)
+            return ((BigDecimal)value).toPlainString();
+
+        if (value instanceof LocalDateTime)
+            return Timestamp.valueOf((LocalDateTime)value).toString();
+
+        if (value instanceof java.util.Date
+            && !(value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof Timestamp))
+            return new Timestamp(((java.util.Date)value).getTime()).toString();
+
+        return value.toString();
+    }
+
+    /**
+     * Returns the hexadecimal string of the bytes.
+     *
+     * @param bytes the bytes
+     * @return the hexadecimal string
+     */
+    protected static String toHex(byte[] bytes) {
+        StringBuilder buff = new StringBuilder(bytes.length * 2);
+        for (byte value : bytes)
+            buff.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        return buff.toString();
+    }
+
+    /**
+     * Returns the column names separated with commas.
+     *
+     * @param columnInfos the column information
+     * @return the column names
+     */
+    protected static String columnNames(List<ColumnInfo> columnInfos) {
+        return columnInfos.stream().map(ColumnInfo::columnName).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * The lines of the rows, which are created when read.
+     */
+    protected class Lines {
+        // The database handler
+        private final Database database;
+
+        // The iterator of the rows
+        private final Iterator<Object[]> rows;
+
+        // The buffer of a line
+        private final StringBuilder buff = new StringBuilder();
+
+        // The number of the lines created
+        private long lineCount;
+
+        /**
+         * Constructs a new <b>Lines</b>.
+         *
+         * @param database the database handler
+         * @param rows the iterator of the rows
+         */
+        protected Lines(Database database, Iterator<Object[]> rows) {
+            this.database = database;
+            this.rows = rows;
+        }
+
+        /**
+         * Returns the number of the lines created.
+         *
+         * @return the number of the lines
+         */
+        public long lineCount() {
+            return lineCount;
+        }
+
+        /**
+         * Creates and returns the next line.
+         *
+         * @return the next line ending with <b>'\n'</b>, or <b>null</b> if no more rows
+         */
+        private String nextLine() {
+            if (!rows.hasNext())
+                return null;
+
+            Object[] values = rows.next();
+            buff.setLength(0);
+            for (int index = 0; index < values.length; ++index) {
+                if (index > 0)
+                    buff.append('\t');
+                String text = format(database, values[index]);
+                if (text == null) {
+                    buff.append("\\N");
+                    continue;
+                }
+                for (int charIndex = 0; charIndex < text.length(); ++charIndex) {
+                    char ch = text.charAt(charIndex);
+                    switch (ch) {
+                    case '\\': buff.append("\\\\"); break;
+                    case '\t': buff.append("\\t" ); break;
+                    case '\n': buff.append("\\n" ); break;
+                    case '\r': buff.append("\\r" ); break;
+                    default  : buff.append(ch    ); break;
+                    }
+                }
+            }
+            buff.append('\n');
+            ++lineCount;
+            return buff.toString();
+        }
+
+        /**
+         * Returns a <b>Reader</b> of the lines.
+         *
+         * @return a <b>Reader</b>
+         */
+        public Reader reader() {
+            return new Reader() {
+                private String line = "";
+                private int index;
+
+                @Override
+                public int read(char[] chars, int offset, int length) {
+                    if (length == 0) return 0;
+                    if (index == line.length()) {
+                        line = nextLine();
+                        index = 0;
+                        if (line == null) {
+                            line = "";
+                            return -1;
+                        }
+                    }
+                    int readLength = Math.min(length, line.length() - index);
+                    line.getChars(index, index + readLength, chars, offset);
+                    index += readLength;
+                    return readLength;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        /**
+         * Returns an <b>InputStream</b> of the lines encoded with UTF-8.
+         *
+         * @return an <b>InputStream</b>
+         */
+        public InputStream inputStream() {
+            return new InputStream() {
+                private byte[] line = new byte[0];
+                private int index;
+
+                @Override
+                public int read() {
+                    byte[] bytes = new byte[1];
+                    return read(bytes, 0, 1) < 0 ? -1 : bytes[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    if (length == 0) return 0;
+                    if (index == line.length) {
+                        String string = nextLine();
+                        index = 0;
+                        if (string == null) {
+                            line = new byte[0];
+                            return -1;
+                        }
+                        line = string.getBytes(StandardCharsets.UTF_8);
+                    }
+                    int readLength = Math.min(length, line.length - index);
+                    System.arraycopy(line, index, bytes, offset, readLength);
+                    index += readLength;
+                    return readLength;
+                }
+            };
+        }
+    }
+}
@@ -3,6 +3,8 @@
 
 package org.lightsleep.helper;
 
+import java.io.InputStream;
+import java.io.Reader;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -31,6 +33,7 @@ import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.lightsleep.component.LobRef;
 import org.lightsleep.entity.NonColumn;
 import org.lightsleep.entity.NonColumnProperty;
 import org.lightsleep.logger.Logger;
@@ -65,6 +68,9 @@ public class Accessor<T> {
     // A map (property name -> Field)
     private final Map<String, Field> fieldMap = new LinkedHashMap<>();
 
+    // A map (property name -> type of the field) @since 4.1.0
+    private final Map<String, Class<?>> typeMap = new LinkedHashMap<>();
+
     // A map (property name -> getter Function)
     private final Map<String, Function<T, Object>> getterMap = new LinkedHashMap<>();
 
@@ -79,6 +85,9 @@ public class Accessor<T> {
 
     private final Set<String> nonColumnSet = new HashSet<>();
 
+    // The generated accessor (null if not generated) @since 4.1.0
+    private final GeneratedAccessor<T> generatedAccessor;
+
     // Prefixes of getter methods
     private static final String[] getterPrefixes = new String[]{"", "get", "is"};
 
@@ -117,6 +126,9 @@ public class Accessor<T> {
         valueTypes.add(OffsetDateTime.class); // since 3.0.0
         valueTypes.add(ZonedDateTime .class); // since 3.0.0
         valueTypes.add(Instant       .class); // since 3.0.0
+        valueTypes.add(InputStream   .class); // since 4.1.0
+        valueTypes.add(Reader        .class); // since 4.1.0
+        valueTypes.add(LobRef        .class); // since 4.1.0
     }
 
     /**
@@ -141,13 +153,21 @@ public class Accessor<T> {
                 nonColumnSet.remove(annotation.property());
         });
 
-        putToMaps(objectClass, "", null, 0);
+        generatedAccessor = getGeneratedAccessor(objectClass);
+
+        if (isGenerated()) {
+            // Uses the generated accessor without finding the fields (since 4.1.0)
+            typeMap.putAll(generatedAccessor.types());
+            getterMap.putAll(generatedAccessor.getters());
+            setterMap.putAll(generatedAccessor.setters());
+        } else
+            putToMaps(objectClass, "", null, 0);
 
-        propertyNames = fieldMap.keySet().stream().collect(Collectors.toList());
+        propertyNames = typeMap.keySet().stream().collect(Collectors.toList());
 
-        valuePropertyNames = fieldMap.entrySet().stream()
+        valuePropertyNames = typeMap.entrySet().stream()
             .filter(entry -> {
-                Class<?> fieldType = getComponentType(entry.getValue().getType());
+                Class<?> fieldType = getComponentType(entry.getValue());
                 return valueTypes.contains(fieldType) || fieldType.isEnum();
             })
             .map(Map.Entry::getKey)
@@ -194,11 +214,18 @@ public class Accessor<T> {
 
             // put to fieldMap
             fieldMap.put(propertyName, field);
+            typeMap.put(propertyName, fieldType); // since 4.1.0
 
             Function<T, Object> getter = null;
             BiConsumer<T, Object> setter = null;
 
-            if (Modifier.isPublic(modifier)) {
+            if (generatedAccessor != null
+                && (generatedAccessor.getters().containsKey(propertyName) || generatedAccessor.setters().containsKey(propertyName))) {
+                // generated getter and setter (since 4.1.0)
+                getter = generatedAccessor.getters().get(propertyName);
+                setter = generatedAccessor.setters().get(propertyName);
+
+            } else if (Modifier.isPublic(modifier)) {
                 // public field
                 getter = subGetter == null
                     ? object -> {
@@ -312,6 +339,70 @@ public class Accessor<T> {
         }
     }
 
+    /**
+     * Returns the instance of the class generated by {@link org.lightsleep.processor.AccessorProcessor}.
+     *
+     * @param <T> the type of the target object
+     * @param objectClass the class of target object
+     * @return the generated accessor (null if not generated)
+     *
+     * @since 4.1.0
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> GeneratedAccessor<T> getGeneratedAccessor(Class<T> objectClass) {
+        String className = GeneratedAccessor.className(objectClass.getName());
+        try {
+            Class<?> generatedClass = Class.forName(className, true, objectClass.getClassLoader());
+            GeneratedAccessor<T> generatedAccessor = (GeneratedAccessor<T>)generatedClass.getConstructor().newInstance();
+            logger.debug(() -> "Accessor.getGeneratedAccessor: " + className);
+            return generatedAccessor;
+        }
+        catch (ClassNotFoundException e) {
+            return null;
+        }
+        catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn("Accessor.getGeneratedAccessor: " + className + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the generated accessor has the types of all properties,
+     * that is, the fields of the class are not found by reflection.
+     *
+     * @return <b>true</b> if the generated accessor has the types of all properties, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    boolean isGenerated() {
+        return generatedAccessor != null && generatedAccessor.types() != null;
+    }
+
+    /**
+     * Finds the field of the property by reflection.
+     *
+     * @param propertyName the property name
+     * @return the <b>Field</b> object (null if not found)
+     *
+     * @since 4.1.0
+     */
+    private Field findField(String propertyName) {
+        Field field = null;
+        for (String fieldName : propertyName.split("\\.")) {
+            Class<?> holderClass = field == null ? objectClass : field.getType();
+            field = null;
+            for (Class<?> clazz = holderClass; clazz != null && field == null; clazz = clazz.getSuperclass()) {
+                try {
+                    field = clazz.getDeclaredField(fieldName);
+                }
+                catch (NoSuchFieldException e) {
+                }
+            }
+            if (field == null) break;
+        }
+        return field;
+    }
+
     /**
      * Returns the getter <b>Method</b>.
      *
@@ -421,6 +512,9 @@ public class Accessor<T> {
      */
     public Field getField(String propertyName) {
         Field field = fieldMap.get(propertyName);
+        if (field == null && isGenerated() && typeMap.containsKey(propertyName))
+            // Finds the field only when requested if the generated accessor is used (since 4.1.0)
+            field = findField(propertyName);
         if (field == null)
             // Not found
             throw new MissingPropertyException(
@@ -438,7 +532,13 @@ public class Accessor<T> {
      * @throws MissingPropertyException if the field that are specified by <b>propertyName</b> dose not exist
      */
     public Class<?> getType(String propertyName) {
-        return getField(propertyName).getType();
+        Class<?> type = typeMap.get(propertyName); // since 4.1.0
+        if (type == null)
+            // Not found
+            throw new MissingPropertyException(
+                MessageFormat.format(messageMissingProperty, objectClass.getName(), propertyName));
+
+        return type;
     }
 
     /**
@@ -501,9 +601,9 @@ public class Accessor<T> {
                 MessageFormat.format(messageMissingSetMethod, objectClass.getName(), propertyName));
 
         if (value == null) {
-            Field field = getField(propertyName);
-            if (field.getType().isPrimitive()) {
-                logger.info("setValue: (" + field.getType().getName() + ")" + propertyName + " <- null");
+            Class<?> type = getType(propertyName); // since 4.1.0
+            if (type.isPrimitive()) {
+                logger.info("setValue: (" + type.getName() + ")" + propertyName + " <- null");
                 return;
             }
         }
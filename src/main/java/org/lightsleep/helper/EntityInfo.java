@@ -3,8 +3,16 @@
 
 package org.lightsleep.helper;
 
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -13,7 +21,10 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.lightsleep.component.Expression;
+import org.lightsleep.component.LobRef;
 import org.lightsleep.entity.*;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
 
 /**
  * Has information of an entity class.
@@ -24,6 +35,9 @@ import org.lightsleep.entity.*;
  * @author Masato Kokubo
  */
 public class EntityInfo<E> {
+    // The logger @since 4.1.0
+    private static final Logger logger = LoggerFactory.getLogger(EntityInfo.class);
+
     // The entity class 
     private final Class<E> entityClass;
 
@@ -42,6 +56,12 @@ public class EntityInfo<E> {
     // The list of information of the columns which are key
     private final List<ColumnInfo> keyColumnInfos;
 
+    // The constructor to create entities with the property values @since 4.1.0
+    private Constructor<E> constructor;
+
+    // The property names related to the parameters of the constructor @since 4.1.0
+    private List<String> constructorPropertyNames = Collections.emptyList();
+
     /**
      * Constructs a new <b>EntityInfo</b>.
      *
@@ -73,8 +93,48 @@ public class EntityInfo<E> {
 
         accessor = new Accessor<>(entityClass);
 
+        // The table name and the column information generated by AccessorProcessor (since 4.1.0)
+        GeneratedEntityInfo<E> generatedEntityInfo = accessor.isGenerated() ? getGeneratedEntityInfo(entityClass) : null;
+        if (generatedEntityInfo != null) {
+            tableName = generatedEntityInfo.tableName();
+            columnInfoMap = new LinkedHashMap<>();
+            generatedEntityInfo.columnInfos(this).forEach(columnInfo -> columnInfoMap.put(columnInfo.propertyName(), columnInfo));
+        } else {
+            tableName = getTableName(entityClass);
+            columnInfoMap = getColumnInfoMap();
+        }
+
+        columnInfos = columnInfoMap.values().stream().collect(Collectors.toList());
+
+        keyColumnInfos = columnInfos.stream().filter(ColumnInfo::isKey).collect(Collectors.toList());
+
+        // The constructor with the property values (since 4.1.0)
+        if (!hasNoArgumentConstructor(entityClass)) {
+            @SuppressWarnings("unchecked")
+            Constructor<E>[] constructors = (Constructor<E>[])entityClass.getConstructors();
+            Arrays.sort(constructors, Comparator.comparingInt((Constructor<E> constructor) -> constructor.getParameterCount()).reversed());
+            for (Constructor<E> constructor : constructors) {
+                List<String> propertyNames = getConstructorPropertyNames(constructor);
+                if (propertyNames != null) {
+                    this.constructor = constructor;
+                    constructorPropertyNames = propertyNames;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the table name specified by <b>@Table</b> or the simple name of the class.
+     *
+     * @param entityClass the entity class
+     * @return the table name
+     *
+     * @since 4.1.0
+     */
+    private static String getTableName(Class<?> entityClass) {
         // @Table / the table name
-        Class<? super E> superEntityClass = entityClass;
+        Class<?> superEntityClass = entityClass;
         String tableName = null;
         for (;;) {
             Table table = superEntityClass.getAnnotation(Table.class);
@@ -87,8 +147,19 @@ public class EntityInfo<E> {
                 break;
             superEntityClass = superEntityClass.getSuperclass();
         }
-        this.tableName = tableName;
+        return tableName;
+    }
 
+    /**
+     * Returns the column information map created from the annotations of the entity class and the fields.
+     *
+     * @return the column information map (key: property name)
+     *
+     * @throws IllegalArgumentException if the value of <b>@ColumnType</b> or <b>@ColumnTypeProperty</b> is a primitive type
+     *
+     * @since 4.1.0
+     */
+    private Map<String, ColumnInfo> getColumnInfoMap() {
         // @KeyProperty, @KeyProperties
         Map<String, Boolean> keyMap = new HashMap<>();
         List<KeyProperty> keyProperties = Utils.getAnnotations(entityClass, KeyProperty.class);
@@ -134,7 +205,7 @@ public class EntityInfo<E> {
         List<UpdateProperty> updateProperties = Utils.getAnnotations(entityClass, UpdateProperty.class);
         updateProperties.forEach(annotation -> updateMap.put(annotation.property(), annotation.expression()));
 
-        columnInfoMap = new LinkedHashMap<>();
+        Map<String, ColumnInfo> columnInfoMap = new LinkedHashMap<>();
 
         for (String propertyName : accessor.valuePropertyNames()) {
             // the field
@@ -176,7 +247,7 @@ public class EntityInfo<E> {
             }
 
             // @NonSelect
-            boolean isNonSelect = false;
+            boolean isNonSelect = field.getType() == LobRef.class; // LobRef columns are read lazily (since 4.1.0)
             if (nonSelectMap.containsKey(propertyName)) {
                 isNonSelect = nonSelectMap.get(propertyName);
             } else {
@@ -256,9 +327,147 @@ public class EntityInfo<E> {
             columnInfoMap.put(propertyName, columnInfo);
         }
 
-        columnInfos = columnInfoMap.values().stream().collect(Collectors.toList());
+        return columnInfoMap;
+    }
 
-        keyColumnInfos = columnInfos.stream().filter(ColumnInfo::isKey).collect(Collectors.toList());
+    /**
+     * Returns the instance of the class generated by {@link org.lightsleep.processor.AccessorProcessor}.
+     *
+     * @param <E> the type of the entity
+     * @param entityClass the entity class
+     * @return the generated entity information (null if not generated)
+     *
+     * @since 4.1.0
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> GeneratedEntityInfo<E> getGeneratedEntityInfo(Class<E> entityClass) {
+        String className = GeneratedEntityInfo.className(entityClass.getName());
+        try {
+            Class<?> generatedClass = Class.forName(className, true, entityClass.getClassLoader());
+            GeneratedEntityInfo<E> generatedEntityInfo = (GeneratedEntityInfo<E>)generatedClass.getConstructor().newInstance();
+            logger.debug(() -> "EntityInfo.getGeneratedEntityInfo: " + className);
+            return generatedEntityInfo;
+        }
+        catch (ClassNotFoundException e) {
+            return null;
+        }
+        catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn("EntityInfo.getGeneratedEntityInfo: " + className + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the class has a public constructor with no parameters.
+     *
+     * @param entityClass the entity class
+     * @return <b>true</b> if the class has a public constructor with no parameters, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    private static boolean hasNoArgumentConstructor(Class<?> entityClass) {
+        try {
+            entityClass.getConstructor();
+            return true;
+        }
+        catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the property names related to the parameters of the constructor.
+     *
+     * <p>
+     * The property names are resolved in the following order.
+     * </p>
+     *
+     * <ol>
+     *   <li>The names of the record components if the constructor is the canonical constructor of a record</li>
+     *   <li>The value of <b>@ConstructorProperties</b> of the constructor</li>
+     *   <li>The parameter names if the class was compiled with <b>-parameters</b> option</li>
+     * </ol>
+     *
+     * <p>
+     * The order of the declared fields is not used because it is not guaranteed by the JVM.
+     * </p>
+     *
+     * @param constructor the constructor
+     * @return the property names, <b>null</b> if they can not be resolved
+     *
+     * @since 4.1.0
+     */
+    private List<String> getConstructorPropertyNames(Constructor<E> constructor) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        if (parameterTypes.length == 0) return null;
+
+        List<List<String>> candidates = new ArrayList<>();
+
+        // The record components
+        List<String> recordComponentNames = getRecordComponentNames(parameterTypes);
+        if (recordComponentNames != null)
+            candidates.add(recordComponentNames);
+
+        // @ConstructorProperties
+        ConstructorProperties constructorProperties = constructor.getAnnotation(ConstructorProperties.class);
+        if (constructorProperties != null)
+            candidates.add(Arrays.asList(constructorProperties.value()));
+
+        // The parameter names
+        Parameter[] parameters = constructor.getParameters();
+        if (Arrays.stream(parameters).allMatch(Parameter::isNamePresent))
+            candidates.add(Arrays.stream(parameters).map(Parameter::getName).collect(Collectors.toList()));
+
+        return candidates.stream()
+            .filter(propertyNames -> propertyNames.size() == parameterTypes.length)
+            .filter(propertyNames -> {
+                for (int index = 0; index < parameterTypes.length; ++index) {
+                    String propertyName = propertyNames.get(index);
+                    if (!columnInfoMap.containsKey(propertyName) || accessor.getType(propertyName) != parameterTypes[index])
+                        return false;
+                }
+                return true;
+            })
+            .findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the names of the record components if the entity class is a record
+     * and the types of the components are the same as the parameter types.
+     *
+     * <p>
+     * Uses reflection because the record class is available since Java 16.
+     * </p>
+     *
+     * @param parameterTypes the parameter types of a constructor
+     * @return the names of the record components, <b>null</b> if the entity class is not a record or the types are different
+     *
+     * @since 4.1.0
+     */
+    private List<String> getRecordComponentNames(Class<?>[] parameterTypes) {
+        try {
+            Method isRecordMethod = Class.class.getMethod("isRecord");
+            if (!(Boolean)isRecordMethod.invoke(entityClass)) return null;
+
+            Object[] recordComponents = (Object[])Class.class.getMethod("getRecordComponents").invoke(entityClass);
+            if (recordComponents.length != parameterTypes.length) return null;
+
+            List<String> names = new ArrayList<>();
+            for (int index = 0; index < recordComponents.length; ++index) {
+                Class<?> componentClass = recordComponents[index].getClass();
+                if (componentClass.getMethod("getType").invoke(recordComponents[index]) != parameterTypes[index])
+                    return null;
+                names.add((String)componentClass.getMethod("getName").invoke(recordComponents[index]));
+            }
+            return names;
+        }
+        catch (NoSuchMethodException e) {
+            // Before Java 16
+            return null;
+        }
+        catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
@@ -328,4 +537,34 @@ public class EntityInfo<E> {
     public List<ColumnInfo> keyColumnInfos() {
         return keyColumnInfos;
     }
+
+    /**
+     * Returns the constructor to create entities with the property values.
+     *
+     * <p>
+     * Returns <b>null</b> if the entity class has a public constructor with no parameters.
+     * Otherwise returns the public constructor with the most parameters of which all parameters are related to properties
+     * (e.g. the canonical constructor of a record), or <b>null</b> if there is no such constructor.
+     * </p>
+     *
+     * @return the constructor or <b>null</b>
+     *
+     * @since 4.1.0
+     * @see #constructorPropertyNames()
+     */
+    public Constructor<E> constructor() {
+        return constructor;
+    }
+
+    /**
+     * Returns the property names related to the parameters of the constructor returned by {@link #constructor()}.
+     *
+     * @return the property names (an empty list if {@link #constructor()} returns <b>null</b>)
+     *
+     * @since 4.1.0
+     * @see #constructor()
+     */
+    public List<String> constructorPropertyNames() {
+        return constructorPropertyNames;
+    }
 }
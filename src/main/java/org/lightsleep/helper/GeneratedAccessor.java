@@ -0,0 +1,65 @@
+// GeneratedAccessor.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The interface of the classes generated by
+ * {@link org.lightsleep.processor.AccessorProcessor} for each entity class.
+ *
+ * <p>
+ * If the generated class of the entity class exists,
+ * {@link Accessor} uses the getters and setters of it
+ * instead of finding the getter and setter methods and invoking them by reflection,
+ * and also uses the types of the properties instead of finding the fields
+ * if all properties can be accessed from the generated class.
+ * </p>
+ *
+ * @param <T> the type of the target object
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public interface GeneratedAccessor<T> {
+    /**
+     * The suffix of the names of the generated classes.
+     */
+    String CLASS_NAME_SUFFIX = "_LightsleepAccessor";
+
+    /**
+     * Returns the name of the generated class for the class.
+     *
+     * @param binaryName the binary name of the class (e.g. <b>org.example.Outer$Inner</b>)
+     * @return the name of the generated class (e.g. <b>org.example.Outer_Inner_LightsleepAccessor</b>)
+     */
+    static String className(String binaryName) {
+        return binaryName.replace('$', '_') + CLASS_NAME_SUFFIX;
+    }
+
+    /**
+     * Returns a map of the getters.
+     *
+     * @return a map (property name -&gt; getter)
+     */
+    Map<String, Function<T, Object>> getters();
+
+    /**
+     * Returns a map of the setters.
+     *
+     * @return a map (property name -&gt; setter)
+     */
+    Map<String, BiConsumer<T, Object>> setters();
+
+    /**
+     * Returns a map of the types of all properties in the order of {@link Accessor#propertyNames()}.<br>
+     * If this method returns a map, {@link Accessor} does not find the fields of the class by reflection.
+     *
+     * @return a map (property name -&gt; type of the field),
+     *         <b>null</b> if some properties can not be accessed from the generated class
+     */
+    Map<String, Class<?>> types();
+}
@@ -0,0 +1,53 @@
+// GeneratedEntityInfo.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.util.List;
+
+/**
+ * The interface of the classes generated by
+ * {@link org.lightsleep.processor.AccessorProcessor} for each entity class.
+ *
+ * <p>
+ * If the generated class of the entity class exists and the {@link GeneratedAccessor} of it returns the types of the properties,
+ * {@link EntityInfo} uses the table name and the column information of it
+ * instead of finding the annotations of the entity class and the fields by reflection.
+ * </p>
+ *
+ * @param <E> the type of the entity
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public interface GeneratedEntityInfo<E> {
+    /**
+     * The suffix of the names of the generated classes.
+     */
+    String CLASS_NAME_SUFFIX = "_LightsleepEntityInfo";
+
+    /**
+     * Returns the name of the generated class for the class.
+     *
+     * @param binaryName the binary name of the class (e.g. <b>org.example.Outer$Inner</b>)
+     * @return the name of the generated class (e.g. <b>org.example.Outer_Inner_LightsleepEntityInfo</b>)
+     */
+    static String className(String binaryName) {
+        return binaryName.replace('$', '_') + CLASS_NAME_SUFFIX;
+    }
+
+    /**
+     * Returns the table name.
+     *
+     * @return the table name
+     */
+    String tableName();
+
+    /**
+     * Returns a list of the column information in the order of {@link Accessor#valuePropertyNames()}.
+     *
+     * @param entityInfo the entity information which has the column information
+     * @return a list of the column information
+     */
+    List<ColumnInfo> columnInfos(EntityInfo<E> entityInfo);
+}
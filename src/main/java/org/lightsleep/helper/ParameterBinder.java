@@ -0,0 +1,262 @@
+// ParameterBinder.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Binds a value of the type to a parameter of <b>PreparedStatement</b>
+ * with the setter method of the type (e.g. <b>setLong</b>, <b>setString</b>)
+ * instead of <b>setObject</b>.
+ *
+ * <p>
+ * The following <b>ParameterBinder</b> objects are registered in the map returned by {@link #parameterBinderMap()}.
+ * The database handlers can override them (e.g. <b>PostgreSQL</b> binds <b>UUID</b> and arrays natively).
+ * </p>
+ * <table class="additional">
+ *   <caption><span>Registered ParameterBinder objects</span></caption>
+ *   <tr><th>Value Type</th><th>Setter Method</th></tr>
+ *   <tr><td>Boolean   </td><td>setBoolean</td></tr>
+ *   <tr><td>Byte      </td><td>setByte</td></tr>
+ *   <tr><td>Short     </td><td>setShort</td></tr>
+ *   <tr><td>Integer   </td><td>setInt</td></tr>
+ *   <tr><td>Long      </td><td>setLong</td></tr>
+ *   <tr><td>Float     </td><td>setFloat</td></tr>
+ *   <tr><td>Double    </td><td>setDouble</td></tr>
+ *   <tr><td>BigDecimal</td><td>setBigDecimal</td></tr>
+ *   <tr><td>String    </td><td>setString</td></tr>
+ *   <tr><td>byte[]    </td><td>setBytes</td></tr>
+ *   <tr><td>java.sql.Date</td><td>setDate</td></tr>
+ *   <tr><td>Time      </td><td>setTime</td></tr>
+ *   <tr><td>Timestamp </td><td>setTimestamp</td></tr>
+ *   <tr><td>java.sql.Array</td><td>setArray</td></tr>
+ *   <tr><td>Reader    </td><td>setCharacterStream</td></tr>
+ *   <tr><td>InputStream</td><td>setBinaryStream</td></tr>
+ *   <tr><td>UUID      </td><td>setString(uuid.toString())</td></tr>
+ *   <tr><td>Object    </td><td>setObject</td></tr>
+ * </table>
+ *
+ * @param <T> the type of the value
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.database.Database#getParameterBinder(Class)
+ */
+public class ParameterBinder<T> {
+    /**
+     * The function to bind a value to a parameter.
+     *
+     * @param <T> the type of the value
+     */
+    @FunctionalInterface
+    public interface Binder<T> {
+        /**
+         * Binds the value to the parameter.
+         *
+         * @param statement the prepared statement
+         * @param index the parameter index (1, 2, ...)
+         * @param value the value
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        void bind(PreparedStatement statement, int index, T value) throws SQLException;
+    }
+
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(ParameterBinder.class);
+
+    // The ParameterBinder map
+    private static final Map<Class<?>, ParameterBinder<?>> parameterBinderMap = new ConcurrentHashMap<>();
+    static {
+        put(parameterBinderMap, new ParameterBinder<>(Boolean   .class, PreparedStatement::setBoolean   ));
+        put(parameterBinderMap, new ParameterBinder<>(Byte      .class, PreparedStatement::setByte      ));
+        put(parameterBinderMap, new ParameterBinder<>(Short     .class, PreparedStatement::setShort     ));
+        put(parameterBinderMap, new ParameterBinder<>(Integer   .class, PreparedStatement::setInt       ));
+        put(parameterBinderMap, new ParameterBinder<>(Long      .class, PreparedStatement::setLong      ));
+        put(parameterBinderMap, new ParameterBinder<>(Float     .class, PreparedStatement::setFloat     ));
+        put(parameterBinderMap, new ParameterBinder<>(Double    .class, PreparedStatement::setDouble    ));
+        put(parameterBinderMap, new ParameterBinder<>(BigDecimal.class, PreparedStatement::setBigDecimal));
+        put(parameterBinderMap, new ParameterBinder<>(String    .class, PreparedStatement::setString    ));
+        put(parameterBinderMap, new ParameterBinder<>(byte[]    .class, PreparedStatement::setBytes     ));
+        put(parameterBinderMap, new ParameterBinder<>(Date      .class, PreparedStatement::setDate      ));
+        put(parameterBinderMap, new ParameterBinder<>(Time      .class, PreparedStatement::setTime      ));
+        put(parameterBinderMap, new ParameterBinder<>(Timestamp .class, PreparedStatement::setTimestamp ));
+        put(parameterBinderMap, new ParameterBinder<>(Array     .class, PreparedStatement::setArray     ));
+        put(parameterBinderMap, new ParameterBinder<>(Reader    .class, PreparedStatement::setCharacterStream));
+        put(parameterBinderMap, new ParameterBinder<>(InputStream.class, PreparedStatement::setBinaryStream));
+        put(parameterBinderMap, new ParameterBinder<>(UUID      .class, (statement, index, value) -> statement.setString(index, value.toString())));
+        put(parameterBinderMap, new ParameterBinder<>(Object    .class, PreparedStatement::setObject    ));
+    }
+
+    // The type of the value
+    private final Class<T> valueType;
+
+    // The function to bind
+    private final Binder<? super T> binder;
+
+    /**
+     * Puts the <b>parameterBinder</b> in the <b>parameterBinderMap</b>.
+     *
+     * @param parameterBinderMap the <b>ParameterBinder</b> map
+     * @param parameterBinder the <b>ParameterBinder</b>
+     *
+     * @throws NullPointerException <b>parameterBinderMap</b> or <b>parameterBinder</b> is <b>null</b>
+     */
+    public static void put(Map<Class<?>, ParameterBinder<?>> parameterBinderMap, ParameterBinder<?> parameterBinder) {
+        Objects.requireNonNull(parameterBinderMap, "parameterBinderMap is null");
+        Objects.requireNonNull(parameterBinder, "parameterBinder is null");
+
+        ParameterBinder<?> beforeParameterBinder = parameterBinderMap.put(parameterBinder.valueType, parameterBinder);
+        logger.debug(() -> "put: " + parameterBinder + (beforeParameterBinder != null ? " (overwrite)" : ""));
+    }
+
+    /**
+     * Finds and returns a <b>ParameterBinder</b> for <b>valueType</b> in <b>parameterBinderMap</b>.<br>
+     *
+     * If can not find a <b>ParameterBinder</b> to match with <b>valueType</b>,
+     * finds a <b>ParameterBinder</b> to match with the interfaces
+     * and then the super classes of <b>valueType</b>,
+     * and puts it in <b>parameterBinderMap</b> to be found directly next time.
+     *
+     * @param <T> the type of the value
+     * @param parameterBinderMap the <b>ParameterBinder</b> map
+     * @param valueType the type of the value
+     * @return a <b>ParameterBinder</b> (the <b>ParameterBinder</b> of <b>Object</b> if not found)
+     *
+     * @throws NullPointerException <b>parameterBinderMap</b> or <b>valueType</b> is <b>null</b>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParameterBinder<T> get(Map<Class<?>, ParameterBinder<?>> parameterBinderMap, Class<T> valueType) {
+        Objects.requireNonNull(parameterBinderMap, "parameterBinderMap is null");
+        Objects.requireNonNull(valueType, "valueType is null");
+
+        ParameterBinder<T> parameterBinder = (ParameterBinder<T>)parameterBinderMap.get(valueType);
+        if (parameterBinder == null) {
+            // can not find
+            ParameterBinder<? super T> parameterBinder2 = search(parameterBinderMap, valueType);
+            if (parameterBinder2 == null)
+                parameterBinder2 = (ParameterBinder<? super T>)parameterBinderMap.getOrDefault(Object.class, ParameterBinder.parameterBinderMap.get(Object.class));
+
+            ParameterBinder<T> parameterBinder3 = new ParameterBinder<>(valueType, parameterBinder2.binder);
+            parameterBinderMap.put(valueType, parameterBinder3);
+            logger.debug(() -> "put: " + parameterBinder3 + " (key: " + valueType.getName() + ")");
+
+            parameterBinder = parameterBinder3;
+        }
+        return parameterBinder;
+    }
+
+    /**
+     * Finds and returns a <b>ParameterBinder</b> for <b>valueType</b>
+     * in the map returned by {@link #parameterBinderMap()}.
+     *
+     * @param <T> the type of the value
+     * @param valueType the type of the value
+     * @return a <b>ParameterBinder</b> (the <b>ParameterBinder</b> of <b>Object</b> if not found)
+     *
+     * @throws NullPointerException <b>valueType</b> is <b>null</b>
+     *
+     * @see #get(Map, Class)
+     */
+    public static <T> ParameterBinder<T> get(Class<T> valueType) {
+        return get(parameterBinderMap, valueType);
+    }
+
+    /**
+     * Finds a <b>ParameterBinder</b> for <b>valueType</b>, the interfaces or the super classes of it.
+     *
+     * @param parameterBinderMap the <b>ParameterBinder</b> map
+     * @param valueType the type of the value
+     * @return a <b>ParameterBinder</b> (<b>null</b> if not found)
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ParameterBinder<? super T> search(Map<Class<?>, ParameterBinder<?>> parameterBinderMap, Class<? super T> valueType) {
+        ParameterBinder<? super T> parameterBinder = (ParameterBinder<? super T>)parameterBinderMap.get(valueType);
+
+        if (parameterBinder == null) {
+            // trys with interfaces of the value class
+            for (Class<?> valueInterface : valueType.getInterfaces()) {
+                parameterBinder = search(parameterBinderMap, (Class<? super T>)valueInterface);
+                if (parameterBinder != null)
+                    break;
+            }
+        }
+
+        if (parameterBinder == null) {
+            // trys with super classes of the value class (excludes Object)
+            Class<? super T> valueSuperType = valueType.getSuperclass();
+            if (valueSuperType != null && valueSuperType != Object.class)
+                parameterBinder = search(parameterBinderMap, valueSuperType);
+        }
+
+        return parameterBinder;
+    }
+
+    /**
+     * Returns an unmodifiable <b>ParameterBinder</b> map
+     * where various <b>ParameterBinder</b> objects are registered.
+     *
+     * @return the unmodifiable <b>ParameterBinder</b> map
+     */
+    public static Map<Class<?>, ParameterBinder<?>> parameterBinderMap() {
+        return Collections.unmodifiableMap(parameterBinderMap);
+    }
+
+    /**
+     * Constructs a new <b>ParameterBinder</b>.
+     *
+     * @param valueType the type of the value
+     * @param binder the function to bind a value to a parameter
+     *
+     * @throws NullPointerException if <b>valueType</b> or <b>binder</b> is <b>null</b>
+     */
+    public ParameterBinder(Class<T> valueType, Binder<? super T> binder) {
+        this.valueType = Objects.requireNonNull(valueType, "valueType is null");
+        this.binder = Objects.requireNonNull(binder, "binder is null");
+    }
+
+    /**
+     * Returns the type of the value.
+     *
+     * @return the type of the value
+     */
+    public Class<T> valueType() {
+        return valueType;
+    }
+
+    /**
+     * Binds the value to the parameter.
+     *
+     * @param statement the prepared statement
+     * @param index the parameter index (1, 2, ...)
+     * @param value the value (an instance of the value type)
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    @SuppressWarnings("unchecked")
+    public void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+        binder.bind(statement, index, (T)value);
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterBinder(" + valueType.getName() + ')';
+    }
+}
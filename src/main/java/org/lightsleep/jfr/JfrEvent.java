@@ -0,0 +1,108 @@
+// JfrEvent.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.connection.RepeatedQueryDetector;
+
+/**
+ * The superclass of the JDK Flight Recorder events.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+@Category("Lightsleep")
+@StackTrace(false)
+abstract class JfrEvent extends Event implements PhaseEvent {
+    @Label("Database Handler")
+    String database;
+
+    @Label("Connection Supplier")
+    String connectionSupplier;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("SQL Hash")
+    @Description("The hash code of the SQL shape (the literals replaced by ?) to group the events by the statement")
+    int sqlHash;
+
+    @Label("Row Count")
+    long rowCount;
+
+    @Override
+    public void record(ConnectionSupplier supplier, CharSequence sql, long rowCount) {
+        end();
+        if (!shouldCommit()) return;
+
+        if (supplier != null) {
+            database = supplier.getDatabase().getClass().getSimpleName();
+            connectionSupplier = supplier.toString();
+        }
+        if (sql != null) {
+            this.sql = sql.toString();
+            sqlHash = RepeatedQueryDetector.shape(this.sql).hashCode();
+        }
+        this.rowCount = rowCount;
+        commit();
+    }
+
+    @Name("org.lightsleep.SqlGenerate")
+    @Label("SQL Generate")
+    static class SqlGenerate extends JfrEvent {
+    }
+
+    @Name("org.lightsleep.StatementPrepare")
+    @Label("Statement Prepare")
+    static class StatementPrepare extends JfrEvent {
+    }
+
+    @Name("org.lightsleep.StatementExecute")
+    @Label("Statement Execute")
+    static class StatementExecute extends JfrEvent {
+    }
+
+    @Name("org.lightsleep.ResultFetch")
+    @Label("Result Fetch")
+    static class ResultFetch extends JfrEvent {
+    }
+
+    @Name("org.lightsleep.RowMapping")
+    @Label("Row Mapping")
+    @Description("The duration is the same as ResultFetch and the mapping time is the time spent in mapping the rows")
+    static class RowMapping extends JfrEvent {
+        @Label("Mapping Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long mappingTime;
+
+        @Override
+        public void addTime(long time) {
+            mappingTime += time;
+        }
+    }
+
+    @Name("org.lightsleep.ConnectionAcquire")
+    @Label("Connection Acquire")
+    @StackTrace(true)
+    static class ConnectionAcquire extends JfrEvent {
+    }
+
+    @Name("org.lightsleep.Commit")
+    @Label("Commit")
+    static class Commit extends JfrEvent {
+    }
+
+    @Name("org.lightsleep.Rollback")
+    @Label("Rollback")
+    static class Rollback extends JfrEvent {
+    }
+}
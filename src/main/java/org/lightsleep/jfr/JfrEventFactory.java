@@ -0,0 +1,49 @@
+// JfrEventFactory.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.jfr;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The factory of the JDK Flight Recorder events,
+ * which is loaded only if the <b>jdk.jfr</b> API is available.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class JfrEventFactory implements Function<Phase, PhaseEvent> {
+    // The constructors of the events
+    private final Map<Phase, Supplier<JfrEvent>> constructorMap = new EnumMap<>(Phase.class);
+
+    // The events used only to check whether enabled
+    private final Map<Phase, JfrEvent> prototypeMap = new EnumMap<>(Phase.class);
+
+    /**
+     * Constructs a new <b>JfrEventFactory</b>.
+     */
+    JfrEventFactory() {
+        constructorMap.put(Phase.SQL_GENERATE      , JfrEvent.SqlGenerate::new);
+        constructorMap.put(Phase.STATEMENT_PREPARE , JfrEvent.StatementPrepare::new);
+        constructorMap.put(Phase.STATEMENT_EXECUTE , JfrEvent.StatementExecute::new);
+        constructorMap.put(Phase.RESULT_FETCH      , JfrEvent.ResultFetch::new);
+        constructorMap.put(Phase.ROW_MAPPING       , JfrEvent.RowMapping::new);
+        constructorMap.put(Phase.CONNECTION_ACQUIRE, JfrEvent.ConnectionAcquire::new);
+        constructorMap.put(Phase.COMMIT            , JfrEvent.Commit::new);
+        constructorMap.put(Phase.ROLLBACK          , JfrEvent.Rollback::new);
+        constructorMap.forEach((phase, constructor) -> prototypeMap.put(phase, constructor.get()));
+    }
+
+    @Override
+    public PhaseEvent apply(Phase phase) {
+        if (!prototypeMap.get(phase).isEnabled())
+            return null;
+
+        JfrEvent event = constructorMap.get(phase).get();
+        event.begin();
+        return event;
+    }
+}
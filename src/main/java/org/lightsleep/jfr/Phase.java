@@ -0,0 +1,37 @@
+// Phase.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.jfr;
+
+/**
+ * The phases of the SQL processing recorded as JDK Flight Recorder events.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see PhaseEvents
+ */
+public enum Phase {
+    /** Generating a SQL (<b>Database.selectSql</b>, <b>insertSql</b>, <b>updateSql</b> and <b>deleteSql</b>) */
+    SQL_GENERATE,
+
+    /** Preparing a statement */
+    STATEMENT_PREPARE,
+
+    /** Executing a statement */
+    STATEMENT_EXECUTE,
+
+    /** Fetching the rows of a result set */
+    RESULT_FETCH,
+
+    /** Mapping the rows of a result set to the entities */
+    ROW_MAPPING,
+
+    /** Getting a connection from a connection supplier */
+    CONNECTION_ACQUIRE,
+
+    /** Committing a transaction */
+    COMMIT,
+
+    /** Rollbacking a transaction */
+    ROLLBACK
+}
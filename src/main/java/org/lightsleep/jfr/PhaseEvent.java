@@ -0,0 +1,32 @@
+// PhaseEvent.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.jfr;
+
+import org.lightsleep.connection.ConnectionSupplier;
+
+/**
+ * An event of a phase of the SQL processing begun by {@link PhaseEvents#begin(Phase)}.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public interface PhaseEvent {
+    /**
+     * Ends this event and records it if the duration exceeds the threshold of the recording.
+     *
+     * @param supplier the connection supplier (may be <b>null</b>)
+     * @param sql the SQL (may be <b>null</b>)
+     * @param rowCount the number of the rows (0 if not applicable)
+     */
+    void record(ConnectionSupplier supplier, CharSequence sql, long rowCount);
+
+    /**
+     * Adds the time spent in this phase,
+     * which is used when the phase is interleaved with another phase (e.g. <b>ROW_MAPPING</b>).
+     *
+     * @param time the time (ns)
+     */
+    default void addTime(long time) {
+    }
+}
@@ -0,0 +1,88 @@
+// PhaseEvents.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.jfr;
+
+import java.util.function.Function;
+
+import org.lightsleep.helper.Resource;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Begins the JDK Flight Recorder events of the phases of the SQL processing.
+ *
+ * <p>
+ * The events are defined in the category <b>Lightsleep</b>
+ * with the names <b>org.lightsleep.SqlGenerate</b>, <b>org.lightsleep.StatementPrepare</b>,
+ * <b>org.lightsleep.StatementExecute</b>, <b>org.lightsleep.ResultFetch</b>, <b>org.lightsleep.RowMapping</b>,
+ * <b>org.lightsleep.ConnectionAcquire</b>, <b>org.lightsleep.Commit</b> and <b>org.lightsleep.Rollback</b>.
+ * </p>
+ *
+ * <p>
+ * If the Java runtime does not have the <b>jdk.jfr</b> API (it is available since Java 8u262)
+ * or <b>jfrEvents = false</b> is specified in <b>lightsleep.properties</b>,
+ * or the event is not enabled in the running recordings,
+ * {@link #begin(Phase)} returns <b>null</b> without creating any object.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * PhaseEvent event = PhaseEvents.begin(Phase.STATEMENT_EXECUTE);
+ * ResultSet resultSet = statement.executeQuery();
+ * if (event != null) event.record(connection.getSupplier(), sql, 0);
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public final class PhaseEvents {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(PhaseEvents.class);
+
+    // The factory of the events (null if not available)
+    private static final Function<Phase, PhaseEvent> eventFactory = createEventFactory();
+
+    // Creates the factory of the events
+    @SuppressWarnings("unchecked")
+    private static Function<Phase, PhaseEvent> createEventFactory() {
+        if (!Resource.getGlobal().getValue("jfrEvents", Boolean::valueOf, true))
+            return null;
+
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (Function<Phase, PhaseEvent>)Class.forName(PhaseEvents.class.getPackage().getName() + ".JfrEventFactory")
+                .getDeclaredConstructor().newInstance();
+        }
+        catch (ClassNotFoundException e) {
+            logger.debug(() -> "PhaseEvents.createEventFactory: jdk.jfr is not available");
+        }
+        catch (Exception | LinkageError e) {
+            logger.warn("PhaseEvents.createEventFactory: " + e);
+        }
+        return null;
+    }
+
+    // Not to be instantiated
+    private PhaseEvents() {
+    }
+
+    /**
+     * Returns whether the JDK Flight Recorder events are available.
+     *
+     * @return <b>true</b> if available, <b>false</b> otherwise
+     */
+    public static boolean isAvailable() {
+        return eventFactory != null;
+    }
+
+    /**
+     * Begins an event of the phase.
+     *
+     * @param phase the phase
+     * @return the begun event, or <b>null</b> if the event is not recorded
+     */
+    public static PhaseEvent begin(Phase phase) {
+        return eventFactory == null ? null : eventFactory.apply(phase);
+    }
+}
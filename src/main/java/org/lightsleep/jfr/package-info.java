@@ -0,0 +1,6 @@
+/**
+ * The JDK Flight Recorder events of the phases of the SQL processing.
+ *
+ * @since 4.1.0
+ */
+package org.lightsleep.jfr;
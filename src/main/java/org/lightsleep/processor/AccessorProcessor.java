@@ -0,0 +1,705 @@
+// AccessorProcessor.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import org.lightsleep.component.Expression;
+import org.lightsleep.component.LobRef;
+import org.lightsleep.entity.*;
+import org.lightsleep.helper.Accessor;
+import org.lightsleep.helper.ColumnInfo;
+import org.lightsleep.helper.EntityInfo;
+import org.lightsleep.helper.GeneratedAccessor;
+import org.lightsleep.helper.GeneratedEntityInfo;
+
+/**
+ * An annotation processor that generates an accessor class and an entity information class
+ * for each class with {@link org.lightsleep.entity.Table @Table} or a field with {@link org.lightsleep.entity.Key @Key}.
+ *
+ * <p>
+ * The accessor class implements {@link GeneratedAccessor},
+ * has the types of the properties and gets and sets the values of the properties directly without reflection.
+ * The entity information class implements {@link GeneratedEntityInfo}
+ * and has the table name and the column information resolved from the annotations at compile time.<br>
+ * {@link Accessor} and {@link EntityInfo} use them if they exist,
+ * so that the fields, the getter and setter methods and the annotations of the entity classes are not found at runtime.
+ * </p>
+ *
+ * <p>
+ * If some properties can not be accessed from the generated class
+ * (e.g. fields of a class in another package that is not <b>public</b>),
+ * the entity information class is not generated and
+ * {@link Accessor} finds the fields and accesses those properties by reflection as before.
+ * </p>
+ *
+ * <p>
+ * This processor is not registered as a service,
+ * so specify it explicitly with the <b>-processor</b> option of <b>javac</b> to use it.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>build.gradle Example</span></div>
+ * <div class="exampleCode"><pre>
+ * dependencies {
+ *     implementation      'org.lightsleep:lightsleep:4.1.0'
+ *     annotationProcessor 'org.lightsleep:lightsleep:4.1.0'
+ * }
+ * compileJava {
+ *     options.compilerArgs += ['-processor', 'org.lightsleep.processor.AccessorProcessor']
+ * }
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see GeneratedAccessor
+ */
+@SupportedAnnotationTypes({"org.lightsleep.entity.Table", "org.lightsleep.entity.Key"})
+public class AccessorProcessor extends AbstractProcessor {
+    // Maximum nesting level of property (the same as Accessor)
+    private static final int MAX_NEST = 8;
+
+    // Value types (the same as Accessor)
+    private static final Set<String> valueTypeNames = new HashSet<>(Arrays.asList(
+        "boolean", "char", "byte", "short", "int", "long", "float", "double",
+        "java.lang.Boolean", "java.lang.Character", "java.lang.Byte", "java.lang.Short",
+        "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+        "java.math.BigInteger", "java.math.BigDecimal", "java.lang.String",
+        "java.sql.Date", "java.sql.Time", "java.sql.Timestamp", "java.util.Date",
+        "java.time.LocalDate", "java.time.LocalTime", "java.time.LocalDateTime",
+        "java.time.OffsetDateTime", "java.time.ZonedDateTime", "java.time.Instant",
+        "java.io.InputStream", "java.io.Reader", "org.lightsleep.component.LobRef"
+    ));
+
+    // Prefixes of getter methods (the same as Accessor)
+    private static final String[] getterPrefixes = new String[]{"", "get", "is"};
+
+    // Prefixes of setter methods (the same as Accessor)
+    private static final String[] setterPrefixes = new String[]{"", "set"};
+
+    // An access to a property from the holder object
+    private static class Step {
+        // The erasure of the type of the value
+        final TypeMirror type;
+
+        // The type name of the value
+        final String typeName;
+
+        // The expression to get the value (e.g. ".name", ".getName()")
+        final String getExpression;
+
+        Step(TypeMirror type, String typeName, String getExpression) {
+            this.type = type;
+            this.typeName = typeName;
+            this.getExpression = getExpression;
+        }
+    }
+
+    // A property of the entity class
+    private static class Property {
+        // The property name
+        final String name;
+
+        // The field
+        final VariableElement field;
+
+        // The erasure of the type of the field
+        final TypeMirror type;
+
+        Property(String name, VariableElement field, TypeMirror type) {
+            this.name = name;
+            this.field = field;
+            this.type = type;
+        }
+    }
+
+    // Whether all properties of the entity class being generated can be accessed from the generated class
+    private boolean complete;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> typeElements = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element typeElement = element.getKind() == ElementKind.FIELD ? element.getEnclosingElement() : element;
+                if (typeElement.getKind() == ElementKind.CLASS && !typeElement.getModifiers().contains(Modifier.ABSTRACT))
+                    typeElements.add((TypeElement)typeElement);
+            }
+        }
+
+        for (TypeElement typeElement : typeElements) {
+            if (isAccessible(typeElement, processingEnv.getElementUtils().getPackageOf(typeElement)))
+                generate(typeElement);
+        }
+
+        // Does not claim the annotations
+        return false;
+    }
+
+    /**
+     * Generates the accessor class and the entity information class of the entity class.
+     *
+     * @param entityElement the element of the entity class
+     */
+    private void generate(TypeElement entityElement) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(entityElement);
+        String packageName = packageElement.getQualifiedName().toString();
+        String className = GeneratedAccessor.className(processingEnv.getElementUtils().getBinaryName(entityElement).toString());
+        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        String entityTypeName = entityElement.getQualifiedName().toString();
+
+        // @NonColumnProperty, @NonColumnProperties
+        Set<String> nonColumnSet = new HashSet<>();
+        List<TypeElement> superElements = new ArrayList<>();
+        for (TypeElement element = entityElement; element != null; element = superElement(element))
+            superElements.add(0, element);
+        for (TypeElement element : superElements) {
+            for (NonColumnProperty annotation : element.getAnnotationsByType(NonColumnProperty.class)) {
+                if (annotation.value())
+                    nonColumnSet.add(annotation.property());
+                else
+                    nonColumnSet.remove(annotation.property());
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        List<Property> properties = new ArrayList<>();
+        complete = !isInnerClass(entityElement); // An inner class has the synthetic field of the enclosing instance
+        DeclaredType entityType = (DeclaredType)processingEnv.getTypeUtils().erasure(entityElement.asType());
+        addProperties(lines, properties, packageElement, nonColumnSet, entityType, entityElement, "", new ArrayList<>(), 0);
+
+        // The types of the properties
+        if (complete)
+            properties.forEach(property -> lines.add("types.put(\"" + property.name + "\", " + typeName(property.type) + ".class);"));
+
+        try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(className, entityElement).openWriter())) {
+            writer.println("// " + simpleClassName + ".java");
+            writer.println("// Generated by " + getClass().getName());
+            writer.println();
+            if (!packageName.isEmpty()) {
+                writer.println("package " + packageName + ';');
+                writer.println();
+            }
+            writer.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            writer.println("public class " + simpleClassName + " implements " + GeneratedAccessor.class.getName() + '<' + entityTypeName + "> {");
+            writer.println("    private final java.util.Map<String, java.util.function.Function<" + entityTypeName + ", Object>> getters = new java.util.HashMap<>();");
+            writer.println("    private final java.util.Map<String, java.util.function.BiConsumer<" + entityTypeName + ", Object>> setters = new java.util.HashMap<>();");
+            writer.println("    private final java.util.Map<String, Class<?>> types = " + (complete ? "new java.util.LinkedHashMap<>();" : "null;"));
+            writer.println();
+            writer.println("    public " + simpleClassName + "() {");
+            lines.forEach(line -> writer.println("        " + line));
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public java.util.Map<String, java.util.function.Function<" + entityTypeName + ", Object>> getters() {");
+            writer.println("        return getters;");
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public java.util.Map<String, java.util.function.BiConsumer<" + entityTypeName + ", Object>> setters() {");
+            writer.println("        return setters;");
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public java.util.Map<String, Class<?>> types() {");
+            writer.println("        return types;");
+            writer.println("    }");
+            writer.println("}");
+        }
+        catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, className + ": " + e, entityElement);
+        }
+
+        if (complete)
+            generateEntityInfo(entityElement, superElements, properties);
+    }
+
+    /**
+     * Generates the entity information class of the entity class.<br>
+     * This follows the same rules as {@link EntityInfo}.
+     * Does not generate it if a column type can not be written in the generated class
+     * (e.g. a primitive type, which {@link EntityInfo} rejects at runtime).
+     *
+     * @param entityElement the element of the entity class
+     * @param superElements the entity class and the superclasses from the top
+     * @param properties the properties of the entity class
+     */
+    private void generateEntityInfo(TypeElement entityElement, List<TypeElement> superElements, List<Property> properties) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(entityElement);
+        String packageName = packageElement.getQualifiedName().toString();
+        String className = GeneratedEntityInfo.className(processingEnv.getElementUtils().getBinaryName(entityElement).toString());
+        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        String entityTypeName = entityElement.getQualifiedName().toString();
+
+        // @Table / the table name
+        String tableName;
+        for (TypeElement element = entityElement; ; element = (TypeElement)((DeclaredType)element.getSuperclass()).asElement()) {
+            Table table = element.getAnnotation(Table.class);
+            if (table == null) {
+                tableName = element.getSimpleName().toString();
+                break;
+            }
+            tableName = table.value();
+            if (!tableName.equals("super"))
+                break;
+        }
+
+        // @KeyProperty, @ColumnProperty, @ColumnTypeProperty, ... of the class and the superclasses
+        Map<String, Boolean   > keyMap        = new HashMap<>();
+        Map<String, String    > columnMap     = new HashMap<>();
+        Map<String, TypeMirror> columnTypeMap = new HashMap<>();
+        Map<String, Boolean   > nonSelectMap  = new HashMap<>();
+        Map<String, Boolean   > nonInsertMap  = new HashMap<>();
+        Map<String, Boolean   > nonUpdateMap  = new HashMap<>();
+        Map<String, String    > selectMap     = new HashMap<>();
+        Map<String, String    > insertMap     = new HashMap<>();
+        Map<String, String    > updateMap     = new HashMap<>();
+        for (TypeElement element : superElements) {
+            for (KeyProperty        annotation : element.getAnnotationsByType(KeyProperty       .class)) keyMap       .put(annotation.property(), annotation.value());
+            for (ColumnProperty     annotation : element.getAnnotationsByType(ColumnProperty    .class)) columnMap    .put(annotation.property(), annotation.column());
+            for (ColumnTypeProperty annotation : element.getAnnotationsByType(ColumnTypeProperty.class)) columnTypeMap.put(annotation.property(), typeValue(annotation::type));
+            for (NonSelectProperty  annotation : element.getAnnotationsByType(NonSelectProperty .class)) nonSelectMap .put(annotation.property(), annotation.value());
+            for (NonInsertProperty  annotation : element.getAnnotationsByType(NonInsertProperty .class)) nonInsertMap .put(annotation.property(), annotation.value());
+            for (NonUpdateProperty  annotation : element.getAnnotationsByType(NonUpdateProperty .class)) nonUpdateMap .put(annotation.property(), annotation.value());
+            for (SelectProperty     annotation : element.getAnnotationsByType(SelectProperty    .class)) selectMap    .put(annotation.property(), annotation.expression());
+            for (InsertProperty     annotation : element.getAnnotationsByType(InsertProperty    .class)) insertMap    .put(annotation.property(), annotation.expression());
+            for (UpdateProperty     annotation : element.getAnnotationsByType(UpdateProperty    .class)) updateMap    .put(annotation.property(), annotation.expression());
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (Property property : properties) {
+            if (!isValueType(property.type)) continue;
+            VariableElement field = property.field;
+
+            // @Column / the column name
+            String columnName = columnMap.get(property.name);
+            if (columnName == null) {
+                Column column = field.getAnnotation(Column.class);
+                if (column != null)
+                    columnName = column.value();
+            }
+            if (columnName == null || columnName.isEmpty())
+                columnName = field.getSimpleName().toString();
+
+            // @ColumnType / the column type
+            TypeMirror columnType = columnTypeMap.get(property.name);
+            if (columnType == null) {
+                ColumnType columnTypeAnn = field.getAnnotation(ColumnType.class);
+                if (columnTypeAnn != null)
+                    columnType = typeValue(columnTypeAnn::value);
+            }
+            String columnTypeExpression = "null";
+            if (columnType != null && !typeName(columnType).equals("java.lang.Void")) {
+                if (columnType.getKind().isPrimitive() || !isAccessible(columnType, packageElement))
+                    return;
+                columnTypeExpression = typeName(columnType) + ".class";
+            }
+
+            // @Key / is key?
+            Key key = field.getAnnotation(Key.class);
+            boolean isKey = keyMap.getOrDefault(property.name, key != null && key.value());
+
+            // @NonSelect, @Select
+            NonSelect nonSelect = field.getAnnotation(NonSelect.class);
+            boolean isNonSelect = nonSelectMap.getOrDefault(property.name,
+                nonSelect != null ? nonSelect.value() : typeName(property.type).equals(LobRef.class.getName()));
+            Select select = field.getAnnotation(Select.class);
+            String selectExpression = isNonSelect ? null : selectMap.getOrDefault(property.name, select != null ? select.value() : "");
+
+            // @NonInsert, @Insert
+            NonInsert nonInsert = field.getAnnotation(NonInsert.class);
+            boolean isNonInsert = nonInsertMap.getOrDefault(property.name, nonInsert != null && nonInsert.value());
+            Insert insert = field.getAnnotation(Insert.class);
+            String insertExpression = isNonInsert ? null : insertMap.getOrDefault(property.name, insert != null ? insert.value() : "");
+
+            // @NonUpdate, @Update
+            NonUpdate nonUpdate = field.getAnnotation(NonUpdate.class);
+            boolean isNonUpdate = isKey || nonUpdateMap.getOrDefault(property.name, nonUpdate != null && nonUpdate.value());
+            Update update = field.getAnnotation(Update.class);
+            String updateExpression = isNonUpdate ? null : updateMap.getOrDefault(property.name, update != null ? update.value() : "");
+
+            lines.add("columnInfos.add(new " + ColumnInfo.class.getName() + "(entityInfo, "
+                + literal(property.name) + ", " + literal(columnName) + ", " + columnTypeExpression + ", " + isKey + ',');
+            lines.add("    " + expression(selectExpression) + ", " + expression(insertExpression) + ", " + expression(updateExpression) + "));");
+        }
+
+        try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(className, entityElement).openWriter())) {
+            writer.println("// " + simpleClassName + ".java");
+            writer.println("// Generated by " + getClass().getName());
+            writer.println();
+            if (!packageName.isEmpty()) {
+                writer.println("package " + packageName + ';');
+                writer.println();
+            }
+            writer.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            writer.println("public class " + simpleClassName + " implements " + GeneratedEntityInfo.class.getName() + '<' + entityTypeName + "> {");
+            writer.println("    @Override");
+            writer.println("    public String tableName() {");
+            writer.println("        return " + literal(tableName) + ';');
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public java.util.List<" + ColumnInfo.class.getName() + "> columnInfos(" + EntityInfo.class.getName() + '<' + entityTypeName + "> entityInfo) {");
+            writer.println("        java.util.List<" + ColumnInfo.class.getName() + "> columnInfos = new java.util.ArrayList<>();");
+            lines.forEach(line -> writer.println("        " + line));
+            writer.println("        return columnInfos;");
+            writer.println("    }");
+            writer.println("}");
+        }
+        catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, className + ": " + e, entityElement);
+        }
+    }
+
+    /**
+     * Adds the lines that put the getters and setters of the properties.
+     * This follows the same rules as {@link Accessor}.
+     *
+     * @param lines the lines of the constructor of the generated class
+     * @param properties the list to add the properties
+     * @param packageElement the package of the generated class
+     * @param nonColumnSet the property names specified by <b>@NonColumnProperty</b>
+     * @param holderType the type of the object that has the fields
+     * @param typeElement the class which declares the fields
+     * @param basePropertyName the base property name
+     * @param steps the steps to get the object that has the fields
+     * @param nestCount the nest count of the property
+     */
+    private void addProperties(List<String> lines, List<Property> properties, PackageElement packageElement, Set<String> nonColumnSet,
+            DeclaredType holderType, TypeElement typeElement, String basePropertyName, List<Step> steps, int nestCount) {
+        TypeElement superElement = superElement(typeElement);
+        if (superElement != null)
+            addProperties(lines, properties, packageElement, nonColumnSet, holderType, superElement, basePropertyName, steps, nestCount);
+
+        if (!isAccessible(typeElement, packageElement) || !isAccessible((TypeElement)holderType.asElement(), packageElement)) {
+            complete = false;
+            return;
+        }
+
+        for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+            // @NonColumn
+            NonColumn nonColumn = field.getAnnotation(NonColumn.class);
+            if (nonColumn != null && nonColumn.value()) continue;
+
+            if (field.getModifiers().contains(Modifier.STATIC)) continue; // static
+
+            String fieldName = field.getSimpleName().toString();
+            if (fieldName.equals("metaClass")) continue; // When defined in Groovy
+            String propertyName = basePropertyName + fieldName;
+            if (nonColumnSet.contains(propertyName)) continue;
+
+            TypeMirror fieldType = processingEnv.getTypeUtils().erasure(field.asType());
+            properties.add(new Property(propertyName, field, fieldType));
+            if (!isAccessible(fieldType, packageElement)) {
+                complete = false; // The type can not be written in the generated class
+                continue;
+            }
+
+            Step getterStep = null;
+            String setExpression = null;
+            boolean primitiveSetter = false; // true if the value is set to a primitive type
+
+            if (field.getModifiers().contains(Modifier.PUBLIC)) {
+                // public field
+                TypeMirror memberType = processingEnv.getTypeUtils().asMemberOf(holderType, field);
+                getterStep = newStep(memberType, '.' + fieldName);
+                if (!field.getModifiers().contains(Modifier.FINAL)) {
+                    setExpression = '.' + fieldName + " = (" + typeName(memberType) + ")value";
+                    primitiveSetter = memberType.getKind().isPrimitive();
+                }
+
+            } else {
+                // non public field
+                ExecutableElement getterMethod = getMethod(typeElement, fieldName, getterPrefixes, fieldType, false);
+                ExecutableElement setterMethod = getMethod(typeElement, fieldName, setterPrefixes, fieldType, true);
+                if (getterMethod != null) {
+                    if (!isAccessible((TypeElement)getterMethod.getEnclosingElement(), packageElement)) {
+                        complete = false;
+                        continue;
+                    }
+                    ExecutableType methodType = (ExecutableType)processingEnv.getTypeUtils().asMemberOf(holderType, getterMethod);
+                    getterStep = newStep(methodType.getReturnType(), '.' + getterMethod.getSimpleName().toString() + "()");
+                }
+                if (setterMethod != null) {
+                    if (!isAccessible((TypeElement)setterMethod.getEnclosingElement(), packageElement)) {
+                        complete = false;
+                        continue;
+                    }
+                    ExecutableType methodType = (ExecutableType)processingEnv.getTypeUtils().asMemberOf(holderType, setterMethod);
+                    setExpression = '.' + setterMethod.getSimpleName().toString()
+                        + "((" + typeName(methodType.getParameterTypes().get(0)) + ")value)";
+                    primitiveSetter = methodType.getParameterTypes().get(0).getKind().isPrimitive();
+                }
+            }
+
+            // put to getters
+            if (getterStep != null) {
+                if (nestCount >= MAX_NEST)
+                    complete = false; // Accessor throws an exception
+                List<Step> getterSteps = new ArrayList<>(steps);
+                getterSteps.add(getterStep);
+                lines.add("getters.put(\"" + propertyName + "\", object -> {");
+                String holder = addHolderLines(lines, steps, "return null;");
+                lines.add("    return " + holder + getterStep.getExpression + ';');
+                lines.add("});");
+
+                // nested properties
+                if (fieldType.getKind() == TypeKind.DECLARED
+                        && !valueTypeNames.contains(((TypeElement)((DeclaredType)fieldType).asElement()).getQualifiedName().toString())) {
+                    TypeElement fieldElement = (TypeElement)((DeclaredType)fieldType).asElement();
+                    if (fieldElement.getKind() == ElementKind.CLASS) {
+                        if (nestCount < MAX_NEST && getterStep.type.getKind() == TypeKind.DECLARED && !isInnerClass(fieldElement))
+                            addProperties(lines, properties, packageElement, nonColumnSet, (DeclaredType)getterStep.type, fieldElement,
+                                propertyName + '.', getterSteps, nestCount + 1);
+                        else
+                            complete = false; // Accessor finds the fields (and throws an exception if too deep)
+                    } else if (!fieldElement.getKind().isInterface() && fieldElement.getKind() != ElementKind.ENUM)
+                        complete = false; // e.g. a record, whose fields Accessor finds
+                }
+            }
+
+            // put to setters
+            if (setExpression != null) {
+                lines.add("setters.put(\"" + propertyName + "\", (object, value) -> {");
+                if (primitiveSetter)
+                    // Does not set null to a primitive type as well as Accessor.setValue
+                    lines.add("    if (value == null) return;");
+                String holder = addHolderLines(lines, steps, "return;");
+                lines.add("    " + holder + setExpression + ';');
+                lines.add("});");
+            }
+        }
+    }
+
+    /**
+     * Returns whether the class is an inner class, which has the synthetic field of the enclosing instance.
+     *
+     * @param typeElement the class element
+     * @return true if the class is an inner class, false otherwise
+     */
+    private static boolean isInnerClass(TypeElement typeElement) {
+        return typeElement.getNestingKind().isNested() && !typeElement.getModifiers().contains(Modifier.STATIC);
+    }
+
+    /**
+     * Returns whether the type is a value type (or an array of it) of {@link Accessor#valuePropertyNames()}.
+     *
+     * @param type the erasure of the type
+     * @return true if the type is a value type, false otherwise
+     */
+    private boolean isValueType(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY)
+            return isValueType(((ArrayType)type).getComponentType());
+        if (type.getKind() == TypeKind.DECLARED && ((DeclaredType)type).asElement().getKind() == ElementKind.ENUM)
+            return true;
+        return valueTypeNames.contains(typeName(type));
+    }
+
+    /**
+     * Returns the type of a <b>Class</b> value of an annotation.
+     *
+     * @param supplier the supplier which calls the annotation method
+     * @return the type
+     */
+    private static TypeMirror typeValue(Supplier<Class<?>> supplier) {
+        try {
+            supplier.get();
+            throw new IllegalStateException("MirroredTypeException is not thrown");
+        }
+        catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+    }
+
+    /**
+     * Returns the Java source of the string literal.
+     *
+     * @param value the string
+     * @return the string literal
+     */
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    /**
+     * Returns the Java source which creates the <b>Expression</b> in the same way as {@link EntityInfo}.
+     *
+     * @param content the content of the expression (null means no expression)
+     * @return the Java source
+     */
+    private String expression(String content) {
+        return content == null ? "null"
+            : content.isEmpty() ? Expression.class.getName() + ".EMPTY"
+            : "new " + Expression.class.getName() + '(' + literal(content) + ')';
+    }
+
+    /**
+     * Adds the lines that get the object that has the fields.
+     *
+     * @param lines the lines of the constructor of the generated class
+     * @param steps the steps to get the object that has the fields
+     * @param nullStatement the statement executed if an intermediate object is <b>null</b>
+     * @return the variable name of the object that has the fields
+     */
+    private static String addHolderLines(List<String> lines, List<Step> steps, String nullStatement) {
+        String holder = "object";
+        for (int index = 0; index < steps.size(); ++index) {
+            Step step = steps.get(index);
+            String variable = "value" + (index + 1);
+            lines.add("    " + step.typeName + ' ' + variable + " = " + holder + step.getExpression + ';');
+            lines.add("    if (" + variable + " == null) " + nullStatement);
+            holder = variable;
+        }
+        return holder;
+    }
+
+    /**
+     * Returns a new <b>Step</b>.
+     *
+     * @param type the type of the value
+     * @param getExpression the expression to get the value
+     * @return a new <b>Step</b>
+     */
+    private Step newStep(TypeMirror type, String getExpression) {
+        return new Step(processingEnv.getTypeUtils().erasure(type), typeName(type), getExpression);
+    }
+
+    /**
+     * Returns the public getter or setter method.
+     *
+     * @param typeElement the class which declares the field
+     * @param fieldName the name of the field
+     * @param prefixes the prefixes of the method name
+     * @param fieldType the erasure of the type of the field
+     * @param isSetter true if finds a setter, false if finds a getter
+     * @return the method (null if not found)
+     */
+    private ExecutableElement getMethod(TypeElement typeElement, String fieldName, String[] prefixes, TypeMirror fieldType, boolean isSetter) {
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(typeElement));
+        for (String prefix : prefixes) {
+            String methodName = prefix.isEmpty()
+                ? fieldName
+                : prefix + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+            for (ExecutableElement method : methods) {
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || !method.getSimpleName().contentEquals(methodName))
+                    continue;
+                if (isSetter) {
+                    if (method.getParameters().size() == 1
+                        && processingEnv.getTypeUtils().isSameType(
+                            processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()), fieldType))
+                        return method;
+                } else {
+                    if (method.getParameters().isEmpty()
+                        && processingEnv.getTypeUtils().isSameType(
+                            processingEnv.getTypeUtils().erasure(method.getReturnType()), fieldType))
+                        return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the superclass element if it is not <b>Object</b>.
+     *
+     * @param typeElement the class element
+     * @return the superclass element (null if the superclass is <b>Object</b> or none)
+     */
+    private TypeElement superElement(TypeElement typeElement) {
+        TypeMirror superType = typeElement.getSuperclass();
+        if (superType.getKind() != TypeKind.DECLARED) return null;
+        TypeElement superElement = (TypeElement)((DeclaredType)superType).asElement();
+        return superElement.getQualifiedName().contentEquals("java.lang.Object") ? null : superElement;
+    }
+
+    /**
+     * Returns whether the class is accessible from the package.
+     *
+     * @param typeElement the class element
+     * @param packageElement the package element
+     * @return true if accessible, false otherwise
+     */
+    private boolean isAccessible(TypeElement typeElement, PackageElement packageElement) {
+        boolean samePackage = processingEnv.getElementUtils().getPackageOf(typeElement).equals(packageElement);
+        for (Element element = typeElement; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            if (!element.getKind().isClass() && !element.getKind().isInterface())
+                return false; // local class
+            if (element.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+            if (!samePackage && !element.getModifiers().contains(Modifier.PUBLIC))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the type can be written in the package.
+     *
+     * @param type the type
+     * @param packageElement the package element
+     * @return true if accessible, false otherwise
+     */
+    private boolean isAccessible(TypeMirror type, PackageElement packageElement) {
+        switch (type.getKind()) {
+        case ARRAY:
+            return isAccessible(((ArrayType)type).getComponentType(), packageElement);
+        case DECLARED:
+            return isAccessible((TypeElement)((DeclaredType)type).asElement(), packageElement);
+        default:
+            return type.getKind().isPrimitive();
+        }
+    }
+
+    /**
+     * Returns the name of the type used in the generated source.
+     *
+     * @param type the type
+     * @return the name of the erasure of the type
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        switch (erasure.getKind()) {
+        case DECLARED:
+            return ((TypeElement)((DeclaredType)erasure).asElement()).getQualifiedName().toString();
+        case ARRAY:
+            return typeName(((ArrayType)erasure).getComponentType()) + "[]";
+        default:
+            return erasure.getKind().isPrimitive() ? erasure.getKind().name().toLowerCase(java.util.Locale.ENGLISH) : "Object";
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * The annotation processor that generates the accessor classes and the entity information classes
+ * of the entity classes at compile time.
+ *
+ * @since 4.1.0
+ */
+package org.lightsleep.processor;
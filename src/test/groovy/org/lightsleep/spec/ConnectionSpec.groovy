@@ -3,9 +3,16 @@
 
 package org.lightsleep.spec
 
+import java.lang.management.ManagementFactory
+import java.nio.file.Files
+import java.nio.file.Path
 import java.sql.Connection
 import java.sql.Date
 import java.util.function.Consumer
+import javax.management.ObjectName
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
 
 import org.debugtrace.DebugTrace
 import org.lightsleep.*
@@ -13,6 +20,7 @@ import org.lightsleep.component.*
 import org.lightsleep.connection.*
 import org.lightsleep.database.*
 import org.lightsleep.helper.Resource
+import org.lightsleep.jfr.*
 import org.lightsleep.test.entity.*
 
 import spock.lang.*
@@ -119,4 +127,192 @@ public class ConnectionSpec extends Base {
         where:
             connectionSupplier << connectionSuppliers
     }
+
+    // since 4.1.0
+    // WarmUp
+    def "ConnectionSpec WarmUp #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        when:
+            Map<String, Long> times = new WarmUp()
+                .packages('org.lightsleep.test.entity')
+                .entityClasses(Contact)
+                .connectionSuppliers(connectionSupplier)
+                .connections(2)
+                .generatesSql(true)
+                .parallelism(2)
+                .execute()
+            DebugTrace.print('times', times) // for Debugging
+
+        then:
+            times.keySet() as List == [WarmUp.ENTITY_INFO, WarmUp.CONNECTIONS, WarmUp.CONVERTERS, WarmUp.SQL]
+            times.values().every {it >= 0L}
+
+        when:
+            int count = 0
+            Transaction.execute(connectionSupplier) {
+                count = new Sql<>(Contact).connection(it).selectCount()
+            }
+
+        then:
+            count == 0
+
+        when:
+            new WarmUp().connections(-1)
+
+        then:
+            thrown IllegalArgumentException
+
+        DebugTrace.leave() // for Debugging
+
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // WarmUp - a connection can not be got
+    def "ConnectionSpec WarmUp failure"() {
+        setup:
+            def gotCount = new java.util.concurrent.atomic.AtomicInteger()
+            def closedCount = new java.util.concurrent.atomic.AtomicInteger()
+            def connection = [rollback: {}, close: {closedCount.incrementAndGet()}] as Connection
+            def supplier
+            supplier = [
+                getDatabase: {Standard.instance},
+                get: {
+                    if (gotCount.incrementAndGet() == 3)
+                        throw new RuntimeSQLException(new java.sql.SQLException('failed'))
+                    new ConnectionWrapper(connection, supplier)
+                }
+            ] as ConnectionSupplier
+
+        when:
+            new WarmUp()
+                .connectionSuppliers(supplier)
+                .connections(5)
+                .parallelism(2)
+                .execute()
+
+        then:
+            RuntimeSQLException e = thrown() // not wrapped with CompletionException
+            e.cause.message == 'failed'
+            gotCount.get() == 5
+            closedCount.get() == 4
+    }
+
+    // since 4.1.0
+    // PoolStats
+    def "ConnectionSpec PoolStats #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            PoolStats stats = connectionSupplier.poolStats
+            stats.reset()
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it).selectCount()
+                Thread.sleep(SLEEP_TIME1)
+            }
+            DebugTrace.print('stats', stats.toString()) // for Debugging
+
+        then:
+            stats.acquireCount == 1L
+            stats.acquireFailureCount == 0L
+            stats.acquireTimeMax >= stats.acquireTime50thPercentile
+            stats.acquireTime99thPercentile >= stats.acquireTime95thPercentile
+            stats.acquireTime95thPercentile >= stats.acquireTime50thPercentile
+            stats.holdTimeMax >= SLEEP_TIME1
+            stats.holdTimeAverage == stats.holdTimeMax
+            stats.activeConnections >= 0
+            stats.leakCount == 0L
+
+        when:
+            def server = ManagementFactory.platformMBeanServer
+            def objectName = new ObjectName('org.lightsleep:type=PoolStats,name=' + ObjectName.quote(connectionSupplier.toString()))
+
+        then:
+            server.getAttribute(objectName, 'AcquireCount') == 1L
+
+        DebugTrace.leave() // for Debugging
+
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // PoolStats leak detection
+    def "ConnectionSpec PoolStats leak detection"() {
+        setup:
+            def properties = new Properties()
+            properties.url = 'jdbc:postgresql://localhost/leak'
+            def supplier = new Jdbc(properties) {
+                @Override String toString() {'[LeakDetection]'}
+            }
+            def stats = new PoolStats(supplier, 50L)
+            def connection = new ConnectionWrapper([close: {}] as Connection, supplier)
+
+        when:
+            stats.start() // publishes before getting a connection
+            def server = ManagementFactory.platformMBeanServer
+            def objectName = new ObjectName('org.lightsleep:type=PoolStats,name=' + ObjectName.quote(supplier.toString()))
+
+        then:
+            server.isRegistered(objectName)
+
+        when:
+            stats.acquired(connection, 1_000_000L)
+            Thread.sleep(300L) // checked on the background thread without checkLeaks() called
+
+        then:
+            stats.leakCount == 1L
+            stats.acquireTime50thPercentile == 1.0d
+
+        cleanup:
+            server.unregisterMBean(objectName)
+    }
+
+    // since 4.1.0
+    // PhaseEvents
+    def "ConnectionSpec PhaseEvents #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Path path = Files.createTempFile('lightsleep', '.jfr')
+            Recording recording = new Recording()
+            ['SqlGenerate', 'StatementPrepare', 'StatementExecute', 'ResultFetch', 'RowMapping', 'ConnectionAcquire', 'Commit']
+                .each {recording.enable('org.lightsleep.' + it)}
+
+        expect:
+            PhaseEvents.available
+            PhaseEvents.begin(Phase.COMMIT) == null // not recording
+
+        when:
+            recording.start()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it).selectCount()
+            }
+            recording.stop()
+            recording.dump(path)
+            List<RecordedEvent> events = RecordingFile.readAllEvents(path)
+            DebugTrace.print('events', events*.eventType*.name) // for Debugging
+
+        then:
+            events*.eventType*.name as Set == [
+                'org.lightsleep.SqlGenerate', 'org.lightsleep.StatementPrepare', 'org.lightsleep.StatementExecute',
+                'org.lightsleep.ResultFetch', 'org.lightsleep.RowMapping', 'org.lightsleep.ConnectionAcquire',
+                'org.lightsleep.Commit'
+            ] as Set
+            events.every {it.getString('connectionSupplier') == connectionSupplier.toString()}
+            events.find {it.eventType.name == 'org.lightsleep.ResultFetch'}.getLong('rowCount') == 1L
+
+        cleanup:
+            recording.close()
+            Files.deleteIfExists(path)
+
+        DebugTrace.leave() // for Debugging
+
+        where:
+            connectionSupplier << connectionSuppliers
+    }
 }
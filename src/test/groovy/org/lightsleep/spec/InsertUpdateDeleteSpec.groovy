@@ -5,6 +5,7 @@ package org.lightsleep.spec
 
 
 import java.sql.Date
+import java.sql.Timestamp
 
 import org.debugtrace.DebugTrace
 import org.lightsleep.*
@@ -406,6 +407,317 @@ class InsertUpdateDeleteSpec extends Base {
             connectionSupplier << connectionSuppliers
     }
 
+    /**
+     * Test methos.
+     *   WriteBehindBuffer.add(E entity)
+     *   WriteBehindBuffer.close()
+     * Normal case
+     */
+    // since 4.1.0
+    def "InsertUpdateDeleteSpec WriteBehindBuffer - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<ContactComposite> contacts = makeTestData(null, 1, 20)
+            def buffer = new WriteBehindBuffer<>(ContactComposite)
+                .connectionSupplier(connectionSupplier)
+                .maxRows(8)
+                .maxDelay(20)
+                .start()
+
+        when:
+            // Add entities from several threads and wait for the commits.
+            def threads = (0..<4).collect {index ->
+                Thread.start {
+                    contacts.subList(index * 5, index * 5 + 5)
+                        .collect {buffer.add(it)}
+                        .each {it.join()}
+                }
+            }
+            threads*.join()
+            buffer.close()
+
+            int count = 0
+            Transaction.execute(connectionSupplier) {
+                count = new Sql<>(Contact).connection(it).selectCount()
+            }
+
+        then:
+            buffer.size() == 0
+            count == contacts.size()
+
+        when:
+            buffer.add(new ContactComposite())
+
+        then:
+            thrown IllegalStateException
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.trackChanges()
+     *   Sql.update(E entity)
+     * Normal case
+     */
+    // since 4.1.0
+    def "InsertUpdateDeleteSpec trackChanges - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<ContactComposite> contacts = makeTestData(null, 1, 1)
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(ContactComposite).connection(it).insert(contacts)
+            }
+
+        when:
+            Contact contact = null
+            Sql<Contact> sql1 = new Sql<>(Contact)
+            Sql<Contact> sql2 = new Sql<>(Contact)
+            int count1 = -1
+            int count2 = -1
+            ConnectionWrapper connection = null
+            Contact trackedContact = null
+            boolean tracked = false
+            Transaction.execute(connectionSupplier) {
+                connection = it
+                contact = new Sql<>(Contact)
+                    .where('{id}={}', contacts[0].id)
+                    .trackChanges()
+                    .connection(it)
+                    .select().get()
+                trackedContact = contact
+
+                // Updates only the changed column
+                contact.addressId = 99
+                count1 = sql1.connection(it).update(contact)
+
+                // Does not update if not changed
+                count2 = sql2.connection(it).update(contact)
+                tracked = it.getSnapshot(contact) != null
+
+                contact = new Sql<>(Contact)
+                    .where('{id}={}', contacts[0].id)
+                    .connection(it)
+                    .select().get()
+            }
+            DebugTrace.print('sql1.generatedSql()', sql1.generatedSql()) // for Debugging
+
+        then:
+            count1 == 1
+            sql1.generatedSql().contains('addressId')
+            sql1.generatedSql().contains('updateCount')
+            !sql1.generatedSql().contains('birthday')
+            count2 == 0
+            tracked
+            connection.getSnapshot(trackedContact) == null // cleared at the end of the transaction
+            contact.addressId == 99
+            contact.updateCount == 1
+            contact.name.last == contacts[0].name.last
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.returnGeneratedKeys()
+     *   Sql.insert(Collection<? extends E> entities)
+     * Normal case
+     */
+    // since 4.1.0
+    def "InsertUpdateDeleteSpec returnGeneratedKeys - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<ContactGeneratedKey> contacts = (0..<3).collect {index ->
+                def contact = new ContactGeneratedKey()
+                contact.name.last  = 'Last'  + index
+                contact.name.first = 'First' + index
+                contact
+            }
+            List<Contact> contacts2 = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(ContactGeneratedKey)
+                    .returnGeneratedKeys()
+                    .connection(it)
+                    .insert(contacts)
+
+                new Sql<>(Contact)
+                    .orderBy('{id}')
+                    .connection(it)
+                    .select({contacts2 << it})
+            }
+
+        then:
+            contacts2.size() == contacts.size()
+            contacts*.id == contacts2*.id
+            contacts*.name*.first == contacts2*.name*.first
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   UnitOfWork.insert(Object entity)
+     *   UnitOfWork.update(Object entity)
+     *   UnitOfWork.delete(Object entity)
+     *   UnitOfWork.flush()
+     * Normal case
+     */
+    // since 4.1.0
+    def "InsertUpdateDeleteSpec UnitOfWork - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> contacts = (0..<4).collect {index ->
+                def contact = new Contact()
+                contact.name.last  = 'Last'  + index
+                contact.name.first = 'First' + index
+                contact
+            }
+            List<Contact> contacts2 = []
+            int size = 0
+            int flushCount = 0
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                def unitOfWork = UnitOfWork.of(it)
+                contacts.each {unitOfWork.insert(it)}
+                flushCount = unitOfWork.flush()
+                assert unitOfWork.size() == 0
+
+                contacts[0].name.first = 'First0-1'
+                unitOfWork.update(contacts[0])
+                contacts[0].name.first = 'First0-2'
+                unitOfWork.update(contacts[0])
+                unitOfWork.update(contacts[1])
+                unitOfWork.delete(contacts[1])
+                unitOfWork.delete(contacts[2])
+
+                def contact = new Contact()
+                contact.name.last  = 'Last4'
+                contact.name.first = 'First4'
+                unitOfWork.insert(contact)
+                unitOfWork.delete(contact)
+
+                size = unitOfWork.size()
+            }
+
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact)
+                    .orderBy('{id}')
+                    .connection(it)
+                    .select({contacts2 << it})
+            }
+
+        then:
+            flushCount == 4
+            size == 3 // 1 update and 2 deletes
+            contacts2.size() == 2
+            contacts2[0].name.first == 'First0-2'
+            contacts2[0].updateCount == 1
+            contacts2[1].name.first == 'First3'
+
+        when:
+            // Deletes and inserts a row of the same key
+            List<SaleItem> saleItems = []
+            Transaction.execute(connectionSupplier) {
+                def unitOfWork = UnitOfWork.of(it)
+                unitOfWork.insert(new SaleItem(saleId: 1, itemIndex: 0, productId: 10, quantity: 1))
+                unitOfWork.flush()
+
+                unitOfWork.delete(new SaleItem(saleId: 1, itemIndex: 0))
+                unitOfWork.insert(new SaleItem(saleId: 1, itemIndex: 0, productId: 20, quantity: 2))
+            }
+
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).select({saleItems << it})
+            }
+
+        then:
+            saleItems.size() == 1
+            saleItems[0].productId == 20
+            saleItems[0].quantity == 2
+
+        when:
+            // An entity class without key columns
+            Transaction.execute(connectionSupplier) {
+                UnitOfWork.of(it).update(new ProductPrice('Product1', 100))
+            }
+
+        then:
+            thrown IllegalArgumentException
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.bulkLoad(Iterable<? extends E> entities)
+     * Normal case
+     */
+    // since 4.1.0
+    def "InsertUpdateDeleteSpec bulkLoad - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            def now = new Timestamp(System.currentTimeMillis())
+            List<PhoneBulk> phones = (0..<1200).collect {index ->
+                new PhoneBulk(contactId: index % 10,
+                    phoneNumber: index == 1 ? '\\\t\n\'\\N' : '09-' + index,
+                    created: now, updated: now)
+            }
+            long count1 = 0
+            long count2 = 0
+            List<PhoneBulk> phones2 = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                // With the BulkLoader if the database provides it
+                count1 = new Sql<>(PhoneBulk).connection(it).bulkLoad(phones)
+
+                // With multi-row INSERT SQLs or JDBC batches because a column has an expression
+                count2 = new Sql<>(PhoneBulk)
+                    .expression('updateCount', '1')
+                    .connection(it)
+                    .bulkLoad(phones)
+
+                new Sql<>(PhoneBulk)
+                    .where('{contactId}={}', 1)
+                    .orderBy('{id}')
+                    .connection(it)
+                    .select({phones2 << it})
+            }
+
+        then:
+            count1 == phones.size()
+            count2 == phones.size()
+            phones2.size() == 240
+            phones2*.phoneNumber == phones.findAll {it.contactId == 1}*.phoneNumber * 2
+            phones2[0].phoneNumber == '\\\t\n\'\\N'
+            phones2*.updateCount == [0] * 120 + [1] * 120
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
     /**
      * Creates data to insert in the tests.
      */
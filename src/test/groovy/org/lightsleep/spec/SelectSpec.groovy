@@ -292,6 +292,13 @@ class SelectSpec extends Base {
         DebugTrace.leave() // for Debugging
     }
 
+    // since 4.1.0
+    // Neither a constructor with no parameters nor the parameter names
+    static class ContactId {
+        final int id
+        ContactId(int id) {this.id = id}
+    }
+
     // since 2.2.0
     // selectAs(Class<R> resultClass, Consumer<? super R> consumer) - exception
     // selectAs(Class<R> resultClass) - exception
@@ -338,6 +345,36 @@ class SelectSpec extends Base {
             int         |IllegalArgumentException|'primitive'
             Table       |IllegalArgumentException|'annotation class'
             Contact[]   |IllegalArgumentException|'array class'
+            ContactId   |IllegalArgumentException|'no parameter names'
+    }
+
+    // since 4.1.0
+    // selectAs(Class<R> resultClass, Consumer<? super R> consumer) - the constructor with parameters
+    def "SelectSpec selectAs - constructor #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectAs - constructor') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<ProductPrice> productPrices = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Product).connection(it)
+                    .where('{price} < {}', 1050)
+                    .orderBy('{price}')
+                    .selectAs(ProductPrice, {productPrices << it})
+            }
+
+        then:
+            productPrices.size() == 5
+            productPrices[0].productName == 'Product0'
+            productPrices[0].price == 1000
+            productPrices[4].productName == 'Product4'
+            productPrices[4].price == 1040
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
     }
 
     // select()
@@ -538,6 +575,476 @@ class SelectSpec extends Base {
             connectionSupplier << connectionSuppliers
     }
 
+    // since 4.1.0
+    // selectLongs(String propertyName)
+    // selectInts(String propertyName)
+    // selectDoubles(String propertyName, BitSet nulls)
+    def "SelectSpec selectLongs, selectInts, selectDoubles #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectLongs, selectInts, selectDoubles') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            long[] ids
+            int[] prices
+            double[] doublePrices
+            BitSet nulls = new BitSet()
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                ids = new Sql<>(Contact).connection(it).selectLongs('id')
+            }
+
+        then:
+            ids.length == 100
+            (ids as List).unique().size() == 100
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                prices = new Sql<>(Product).connection(it)
+                    .where('{price} < {}', 1050)
+                    .orderBy('{price}')
+                    .selectInts('price')
+            }
+
+        then:
+            prices as List == [1000, 1010, 1020, 1030, 1040]
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                doublePrices = new Sql<>(Product).connection(it)
+                    .where('{price} < {}', 1020)
+                    .orderBy('{price}')
+                    .selectDoubles('price', nulls)
+            }
+
+        then:
+            doublePrices as List == [1000.0d, 1010.0d]
+            nulls.isEmpty()
+
+        when:
+            long[] longPrices
+            Transaction.execute(connectionSupplier) {
+                def sql = new Sql<>(Product).connection(it)
+                    .expression('price', 'CASE WHEN {price}=1010 THEN NULL ELSE {price} END')
+                    .where('{price} < {}', 1030)
+                    .orderBy('{price}')
+                longPrices = sql.selectLongs('price')
+                doublePrices = sql.selectDoubles('price', nulls)
+            }
+
+        then:
+            longPrices as List == [1000L, 1020L] // NULL is skipped
+            doublePrices as List == [1000.0d, 0.0d, 1020.0d]
+            nulls.cardinality() == 1
+            nulls.get(1)
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // parallelScan(int partitions, Consumer<? super E> consumer)
+    // parallelScan(int partitions, Consumer<? super E> consumer, BiPredicate<Integer, Integer> progress)
+    def "SelectSpec parallelScan #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('parallelScan') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Queue<Contact> contacts = new java.util.concurrent.ConcurrentLinkedQueue<>()
+            Set<Integer> partitionSet = Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>())
+            int rowCount = 0
+            int selectCount = 0
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                rowCount = new Sql<>(Contact).connection(it)
+                    .parallelScan(4, {contacts << it}, {partition, count -> partitionSet << partition; true})
+                selectCount = new Sql<>(Contact).connection(it).selectCount()
+            }
+
+        then:
+            rowCount == selectCount
+            contacts.size() == selectCount
+            contacts.collect {it.id}.unique().size() == selectCount
+            partitionSet == [0, 1, 2, 3] as Set
+
+        when:
+            contacts.clear()
+            int minId = contacts.size()
+            Transaction.execute(connectionSupplier) {
+                long[] ids = new Sql<>(Contact).connection(it).orderBy('{id}').selectLongs('id')
+                minId = (int)ids[ids.length.intdiv(2)]
+                new Sql<>(Contact).connection(it)
+                    .where('{id} >= {}', minId)
+                    .parallelScan(3, {contacts << it})
+            }
+
+        then:
+            contacts.size() == selectCount - selectCount.intdiv(2)
+            contacts.every {it.id >= minId}
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .parallelScan(4, {}, {partition, count -> count < 5})
+            }
+
+        then:
+            thrown java.util.concurrent.CancellationException
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // Condition.in(String propertyName, Collection<?> values)
+    def "SelectSpec Condition.in #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('Condition.in') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Integer> ids = []
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it).orderBy('{id}').select({ids << it.id})
+            }
+            List<Contact> contacts = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .where(Condition.in('id', ids.subList(0, 3) + ids[0] + (-1)))
+                    .orderBy('{id}')
+                    .select({contacts << it})
+            }
+
+        then:
+            contacts*.id == ids.subList(0, 3)
+
+        when:
+            contacts.clear()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .where(Condition.in('id', (0..<2500).collect {-it} + ids))
+                    .orderBy('{id}')
+                    .select({contacts << it})
+            }
+
+        then:
+            contacts*.id == ids
+
+        when:
+            contacts.clear()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .where(Condition.in('id', []))
+                    .select({contacts << it})
+            }
+
+        then:
+            contacts.empty
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // InCondition.toString(Database database, Sql<E> sql, List<Object> parameters)
+    def "SelectSpec Condition.in SQL #database.class.simpleName #size"(Database database, int size, int parameterCount, int chunkCount) {
+        setup:
+            List<Object> parameters = []
+
+        when:
+            def sqlString = Condition.in('id', (1..size).toList()).toString(database, new Sql<>(Contact), parameters)
+
+        then:
+            parameters.size() == parameterCount
+            sqlString.count(' IN (') == chunkCount
+
+        where:
+            database          |size|parameterCount|chunkCount
+            Standard .instance|   3|             4|1
+            Standard .instance|1000|          1000|1
+            Standard .instance|1001|          1001|2
+            Standard .instance|2500|          2512|3
+            SQLServer.instance|2000|          2000|1
+            SQLServer.instance|2500|             0|2
+            SQLite   .instance| 999|           999|1
+            SQLite   .instance|1000|             0|2
+    }
+
+    // since 4.1.0
+    // prepare()
+    // PreparedSql.bind(Object... arguments)
+    // PreparedSql.select(ConnectionWrapper connection, Consumer<? super E> consumer)
+    // PreparedSql.select(ConnectionWrapper connection)
+    def "SelectSpec PreparedSql #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('PreparedSql') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> allContacts = []
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it).orderBy('{id}').select({allContacts << it})
+            }
+            PreparedSql<Contact> preparedSql = new Sql<>(Contact)
+                .where('{id}>={}', PreparedSql.arg(0))
+                .and('{id}<={}', PreparedSql.arg(1))
+                .orderBy('{id}')
+                .prepare()
+            List<Contact> contacts = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                preparedSql.bind(allContacts[0].id, allContacts[2].id).select(it, {contacts << it})
+                preparedSql.bind(allContacts[1].id, allContacts[1].id).select(it, {contacts << it})
+            }
+
+        then:
+            contacts*.id == allContacts.subList(0, 3)*.id + allContacts[1].id
+
+        when:
+            Optional<Contact> contactOpt = null
+            Transaction.execute(connectionSupplier) {
+                contactOpt = preparedSql.bind(allContacts[1].id, allContacts[1].id).select(it)
+            }
+
+        then:
+            contactOpt.get().id == allContacts[1].id
+
+        when:
+            // A LocalDate argument is converted with the TypeConverter
+            Contact birthdayContact = allContacts.find {it.birthday != null}
+            List<Contact> birthdayContacts = []
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact)
+                    .where('{birthday}={}', PreparedSql.arg(0))
+                    .prepare()
+                    .bind(birthdayContact.birthday.toLocalDate())
+                    .select(it, {birthdayContacts << it})
+            }
+
+        then:
+            birthdayContacts*.id.contains(birthdayContact.id)
+            birthdayContacts.every {it.birthday == birthdayContact.birthday}
+
+        when:
+            // The SQL is generated only once for each database handler
+            def generateCount = new java.util.concurrent.atomic.AtomicInteger()
+            Database database = new Standard() {
+                @Override
+                public <E> CharSequence selectSql(Sql<E> sql, List<Object> parameters) {
+                    generateCount.incrementAndGet()
+                    return super.selectSql(sql, parameters)
+                }
+            }
+            String sql1 = preparedSql.bind(1, 2).sql(database)
+            String sql2 = preparedSql.bind(3, 4).sql(database)
+            String sql3 = preparedSql.sql(database)
+
+        then:
+            generateCount.get() == 1
+            sql1.is(sql2)
+            sql1.is(sql3)
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                preparedSql.bind(allContacts[0].id).select(it, {})
+            }
+
+        then:
+            thrown IllegalStateException
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // selectShared(ConnectionSupplier connectionSupplier, long timeout)
+    def "SelectSpec selectShared #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectShared') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Queue<List<Contact>> results = new java.util.concurrent.ConcurrentLinkedQueue<>()
+            int selectCount = 0
+            Transaction.execute(connectionSupplier) {
+                selectCount = new Sql<>(Contact).connection(it).selectCount()
+            }
+
+            // Counts the connections got and holds the first one until all threads are waiting
+            def getCount = new java.util.concurrent.atomic.AtomicInteger()
+            def released = new java.util.concurrent.CountDownLatch(1)
+            def countingSupplier = new ConnectionSupplier() {
+                Database getDatabase() {connectionSupplier.database}
+                javax.sql.DataSource getDataSource() {connectionSupplier.dataSource}
+                String getUrl() {connectionSupplier.url}
+                ConnectionWrapper get() {
+                    getCount.incrementAndGet()
+                    released.await(10, java.util.concurrent.TimeUnit.SECONDS)
+                    return connectionSupplier.get()
+                }
+            }
+
+        when:
+            List<Thread> threads = (0..<8).collect {
+                Thread.start {
+                    results << new Sql<>(Contact).orderBy('{id}').selectShared(countingSupplier, 10000L)
+                }
+            }
+            long deadline = System.currentTimeMillis() + 10000L
+            while (!threads.every {it.state in [Thread.State.WAITING, Thread.State.TIMED_WAITING]}
+                    && System.currentTimeMillis() < deadline)
+                Thread.sleep(10L)
+            released.countDown()
+            threads*.join()
+
+        then:
+            getCount.get() == 1
+            results.size() == 8
+            results.every {it.size() == selectCount}
+            results.every {it*.id == results.peek()*.id}
+
+        when:
+            results.peek().clear()
+
+        then:
+            thrown UnsupportedOperationException
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // selectByKeys(Collection<? extends K> keys)
+    // selectByKeys(Collection<? extends K> keys, int parallelism)
+    def "SelectSpec selectByKeys #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectByKeys') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Integer> ids = []
+            Map<Object, Contact> contactMap
+
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .orderBy('{id}').desc()
+                    .select({ids << it.id})
+            }
+            ids << -1 // not exists
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                contactMap = new Sql<>(Contact).connection(it).selectByKeys(ids)
+            }
+
+        then:
+            contactMap.size() == 100
+            contactMap.keySet() as List == ids.subList(0, 100)
+            contactMap.every {key, contact -> contact.id == key}
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                contactMap = new Sql<>(Contact).connection(it)
+                    .where('{name.last} = {}', 'Last1')
+                    .selectByKeys(ids.collect {it as String}, 4)
+            }
+
+        then:
+            contactMap.size() == 10
+            contactMap.every {key, contact -> contact.name.last == 'Last1' && contact.id == (key as int)}
+
+        when:
+            // More keys than maxKeysPerSelect so that the keys are split into multiple chunks
+            int maxKeys = connectionSupplier.database.maxKeysPerSelect()
+            List<Integer> manyKeys = (2..maxKeys + 1).collect {-it} + ids
+            Map<Object, Contact> contactMap1
+            Map<Object, Contact> contactMap4
+            Transaction.execute(connectionSupplier) {
+                contactMap1 = new Sql<>(Contact).connection(it).selectByKeys(manyKeys)
+                contactMap4 = new Sql<>(Contact).connection(it).selectByKeys(manyKeys, 4)
+            }
+
+        then:
+            manyKeys.size() > maxKeys
+            contactMap1.keySet() as List == ids.subList(0, 100)
+            contactMap4.keySet() as List == ids.subList(0, 100)
+            contactMap4.every {key, contact -> contact.id == key}
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // since 4.1.0
+    // selectByKeys(Collection<? extends K> keys) - multiple key columns
+    // selectByKeys(Collection<? extends K> keys, int parallelism) - multiple key columns
+    def "SelectSpec selectByKeys - multiple key columns #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectByKeys - multiple key columns') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<SaleItem> saleItems = []
+            Map<SaleItem, SaleItem> saleItemMap
+
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it)
+                    .orderBy('{saleId}').desc()
+                    .orderBy('{itemIndex}')
+                    .select({saleItems << it})
+            }
+            List<List<Integer>> keyLists = saleItems.collect {[it.saleId, it.itemIndex]}
+            Map<List<Integer>, Integer> productIdMap = saleItems.collectEntries {[[it.saleId, it.itemIndex], it.productId]}
+
+            // The key objects (the last one does not exist)
+            List<SaleItem> keys = keyLists.subList(0, 10).collect {new SaleItem(saleId: it[0], itemIndex: it[1])}
+            keys << new SaleItem(saleId: -1, itemIndex: 0)
+
+        // One chunk
+        when:
+            Transaction.execute(connectionSupplier) {
+                saleItemMap = new Sql<>(SaleItem).connection(it).selectByKeys(keys)
+            }
+
+        then:
+            saleItemMap.keySet() as List == keys.subList(0, 10)
+            saleItemMap.collect {key, saleItem -> [key.saleId, key.itemIndex]} == keyLists.subList(0, 10)
+            saleItemMap.every {key, saleItem ->
+                saleItem.saleId == key.saleId && saleItem.itemIndex == key.itemIndex &&
+                saleItem.productId == productIdMap[[key.saleId, key.itemIndex]]
+            }
+
+        // Multiple chunks
+        when:
+            // More keys than maxKeysPerSelect / 2 (the number of the key columns)
+            int chunkSize = connectionSupplier.database.maxKeysPerSelect().intdiv(2)
+            List<SaleItem> manyKeys = (1..chunkSize).collect {new SaleItem(saleId: -it, itemIndex: 0)} +
+                keyLists.collect {new SaleItem(saleId: it[0], itemIndex: it[1])}
+            Map<SaleItem, SaleItem> saleItemMap1
+            Map<SaleItem, SaleItem> saleItemMap4
+            Transaction.execute(connectionSupplier) {
+                saleItemMap1 = new Sql<>(SaleItem).connection(it).selectByKeys(manyKeys)
+                saleItemMap4 = new Sql<>(SaleItem).connection(it).selectByKeys(manyKeys, 4)
+            }
+
+        then:
+            manyKeys.size() > chunkSize
+            saleItemMap1.collect {key, saleItem -> [key.saleId, key.itemIndex]} == keyLists
+            saleItemMap4.collect {key, saleItem -> [key.saleId, key.itemIndex]} == keyLists
+            saleItemMap4.every {key, saleItem ->
+                saleItem.saleId == key.saleId && saleItem.itemIndex == key.itemIndex &&
+                saleItem.productId == productIdMap[[key.saleId, key.itemIndex]]
+            }
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
     // select() / limit, offset
     def "SelectSpec limit, offset #connectionSupplier"(ConnectionSupplier connectionSupplier) {
         DebugTrace.enter() // for Debugging
@@ -618,6 +1125,70 @@ class SelectSpec extends Base {
             connectionSupplier << connectionSuppliers
     }
 
+    // since 4.1.0
+    // select() / innerJoin / identityMap
+    // selectAggregated(Consumer<? super E> consumer, BiConsumer<? super E, ? super JE1> childConsumer1)
+    def "SelectSpec innerJoin identityMap, selectAggregated #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('innerJoin identityMap, selectAggregated') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> contacts = []
+            List<Phone> phones = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact, 'C').connection(it)
+                    .innerJoin(Phone, 'P', '{P.contactId} = {C.id}')
+                    .where('{C.name.last} = {}', 'Last5')
+                    .identityMap()
+                    .<Phone>select({contacts << it}, {phones << it})
+            }
+
+        then:
+            contacts.size() == 9 // 51, 52, ..., 59
+            contacts.unique(false) {System.identityHashCode(it)}.size() == 9
+            phones.size() == 45 // 1 + 2 + ... + 9
+
+        when:
+            contacts = []
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact, 'C').connection(it)
+                    .innerJoin(Phone, 'P', '{P.contactId} = {C.id}')
+                    .where('{C.name.last} = {}', 'Last5')
+                    .identityMap(true)
+                    .<Phone>select({contacts << it}, {})
+            }
+
+        then:
+            contacts.size() == 45
+            contacts.unique(false) {System.identityHashCode(it)}.size() == 9
+
+        when:
+            contacts = []
+            Map<Contact, List<Phone>> phonesMap = new IdentityHashMap<>()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact, 'C').connection(it)
+                    .leftJoin(Phone, 'P', '{P.contactId} = {C.id}')
+                    .where('{C.name.last} = {}', 'Last5')
+                    .selectAggregated({contacts << it}, {Contact contact, Phone phone ->
+                        phonesMap.computeIfAbsent(contact, {[]}) << phone
+                    })
+            }
+
+        then:
+            contacts.size() == 10 // 50, 51, ..., 59
+            phonesMap.size() == 9 // 51, 52, ..., 59
+            phonesMap.every {contact, contactPhones ->
+                contactPhones.size() == contact.id - contacts.min {it.id}.id
+                && contactPhones.every {it.contactId == contact.id}
+            }
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
     // select() / innerJoin
     def "SelectSpec innerJoin2 #connectionSupplier"(ConnectionSupplier connectionSupplier) {
         DebugTrace.enter() // for Debugging
@@ -1185,6 +1756,119 @@ class SelectSpec extends Base {
             ignore = doesNotSupportForUpdateNoWaitN ? "*IGNORE*" : ""
     }
 
+    // select() / forUpdate skipLocked
+    // since 4.1.0
+    def "#ignore SelectSpec forUpdate skipLocked #connectionSupplier"(ConnectionSupplier connectionSupplier, String ignore) {
+        if (!ignore.empty) return
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('forUpdate skipLocked') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+
+        setup:
+            Contact contact0 = null
+            Transaction.execute(connectionSupplier) {
+                contact0 = new Sql<>(Contact).connection(it)
+                    .limit(1)
+                    .orderBy('{id}')
+                    .select().orElse(null)
+            }
+
+        when:
+            // Locks the first row in another thread.
+            def thread = new Thread({
+                Transaction.execute(connectionSupplier) {
+                    new Sql<>(Contact).connection(it)
+                        .where('{id} = {}', contact0.id)
+                        .forUpdate()
+                        .select()
+                    Thread.sleep(1500L) // sleep 1500ms
+                }
+            })
+            thread.start()
+            Thread.sleep(500L) // sleep 500ms
+
+            Contact contact1 = null
+            Transaction.execute(connectionSupplier) {
+                contact1 = new Sql<>(Contact).connection(it)
+                    .limit(1)
+                    .orderBy('{id}')
+                    .forUpdate().skipLocked()
+                    .select().orElse(null)
+            }
+            thread.join()
+
+        then:
+            contact0 != null
+            contact1 != null
+            contact1.id != contact0.id
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+            ignore = connectionSupplier.database.supportsSkipLocked() ? "" : "*IGNORE*"
+    }
+
+    // WorkQueue
+    // since 4.1.0
+    def "#ignore SelectSpec WorkQueue #connectionSupplier"(ConnectionSupplier connectionSupplier, String ignore) {
+        if (!ignore.empty) return
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+
+        setup:
+            int phoneCount = 20
+            Transaction.execute(connectionSupplier) {
+                Contact contact0 = new Sql<>(Contact).connection(it)
+                    .limit(1)
+                    .orderBy('{id}')
+                    .select().orElse(null)
+                (0..<phoneCount).each {index ->
+                    Phone phone = new Phone()
+                    phone.contactId = contact0.id
+                    phone.phoneNumber = 'WQ-' + index
+                    new Sql<>(Phone).connection(it).insert(phone)
+                }
+            }
+            Set<String> processed = Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>())
+            int duplicateCount = 0
+
+        when:
+            def queue = new WorkQueue<>(
+                    new Sql<>(Phone).where("{phoneNumber} LIKE {}", 'WQ-%').orderBy('{id}'),
+                    {conn, Phone phone ->
+                        if (!processed.add(phone.phoneNumber))
+                            ++duplicateCount
+                        new Sql<>(Phone).connection(conn).delete(phone)
+                    })
+                .connectionSupplier(connectionSupplier)
+                .batchSize(3)
+                .workers(4)
+                .pollInterval(100L)
+                .start()
+
+            int remainCount = phoneCount
+            for (int count = 0; count < 100 && remainCount > 0; ++count) {
+                Thread.sleep(100L) // sleep 100ms
+                Transaction.execute(connectionSupplier) {
+                    remainCount = new Sql<>(Phone).connection(it)
+                        .where("{phoneNumber} LIKE {}", 'WQ-%')
+                        .selectCount()
+                }
+            }
+            queue.stop()
+
+        then:
+            remainCount == 0
+            processed.size() == phoneCount
+            duplicateCount == 0
+            !queue.running
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+            ignore = connectionSupplier.database.supportsSkipLocked() ? "" : "*IGNORE*"
+    }
+
     // select() / forUpdate - exception
     def "#ignore SelectSpec forUpdate - exception #connectionSupplier"(ConnectionSupplier connectionSupplier, String ignore) {
         if (!ignore.empty) return
@@ -0,0 +1,172 @@
+// SlowQueryLogSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import java.sql.Connection
+import java.sql.SQLException
+import java.sql.SQLTimeoutException
+import java.sql.Statement
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+import org.lightsleep.*
+import org.lightsleep.connection.*
+import org.lightsleep.database.*
+
+import spock.lang.*
+
+// SlowQueryLogSpec
+// since 4.1.0
+@Unroll
+class SlowQueryLogSpec extends Specification {
+    static final long MS = 1_000_000L
+
+    // The logs written by the writer
+    def logs = new LinkedBlockingQueue<String>()
+
+    // The names of the threads which wrote the logs
+    def threadNames = new LinkedBlockingQueue<String>()
+
+    // The SQLs executed to get the execution plan
+    def explainSqls = []
+
+    def connection = newConnection(Standard.instance)
+
+    def newLog(int threshold, int explainThreshold, int maxLogsPerMinute, boolean masksParameters) {
+        return new SlowQueryLog(threshold, explainThreshold, maxLogsPerMinute, masksParameters, {String log ->
+            threadNames << Thread.currentThread().name
+            logs << log
+        })
+    }
+
+    // Returns a connection whose statements record the SQLs and throw an exception for 'SELECT 1'
+    def newConnection(Database database) {
+        def statement = [
+            execute: {String sql ->
+                explainSqls << sql
+                if (sql == 'SELECT 1') throw new SQLException('plan error')
+                return false
+            },
+            close: {}
+        ] as Statement
+        def connection = [createStatement: {statement}, rollback: {}, close: {}] as Connection
+        def supplier
+        supplier = [
+            getDatabase: {database},
+            get: {new ConnectionWrapper(connection, supplier)}
+        ] as ConnectionSupplier
+        return new ConnectionWrapper(connection, supplier)
+    }
+
+    def "SlowQueryLog threshold #time ms"(long time, boolean logged) {
+        setup:
+            def slowQueryLog = newLog(100, 0, 60, true)
+
+        when:
+            slowQueryLog.check(connection, 1, 'SELECT 1', [], 0L, time * MS, 0L, 3)
+            def log = logs.poll(1, TimeUnit.SECONDS)
+
+        then:
+            (log != null) == logged
+            !logged || log.contains('slow query: ' + time + ' ms (prepare: 0, execute: ' + time + ', get: 0 ms), rows: 3')
+            !logged || log.contains('sql: SELECT 1')
+            !logged || !log.contains('plan:')
+
+        where:
+            time|logged
+              99|false
+             100|true
+             150|true
+    }
+
+    def "SlowQueryLog disabled"() {
+        expect:
+            !newLog(0, 0, 60, true).enabled
+            newLog(1, 0, 60, true).enabled
+    }
+
+    def "SlowQueryLog masksParameters #masksParameters"(boolean masksParameters, String parameters) {
+        setup:
+            def slowQueryLog = newLog(100, 0, 60, masksParameters)
+
+        when:
+            slowQueryLog.check(connection, 1, 'SELECT ?, ?, ?', [1, 'secret', null], 0L, 100 * MS, 0L, 1)
+            def log = logs.poll(1, TimeUnit.SECONDS)
+
+        then:
+            log.contains('parameters: ' + parameters)
+            masksParameters == !log.contains('secret')
+
+        where:
+            masksParameters|parameters
+            true           |'[Integer, String, null]'
+            false          |'[(Integer)1, "secret", null]'
+    }
+
+    def "SlowQueryLog rate limit"() {
+        setup:
+            def slowQueryLog = newLog(100, 0, 2, true)
+
+        when:
+            3.times {slowQueryLog.check(connection, it, 'SELECT 1', [], 0L, 100 * MS, 0L, 1)}
+            def log1 = logs.poll(1, TimeUnit.SECONDS)
+            def log2 = logs.poll(1, TimeUnit.SECONDS)
+            def log3 = logs.poll(200, TimeUnit.MILLISECONDS)
+
+        then:
+            log1.startsWith('#0 ')
+            log2.startsWith('#1 ')
+            log3 == null
+    }
+
+    def "SlowQueryLog async writer"() {
+        setup:
+            def slowQueryLog = newLog(100, 0, 60, true)
+
+        when:
+            slowQueryLog.check(connection, 1, 'SELECT 1', [], 0L, 100 * MS, 0L, 1)
+            def log = logs.poll(1, TimeUnit.SECONDS)
+
+        then:
+            log != null
+            threadNames.poll() == 'SlowQueryLog'
+    }
+
+    def "SlowQueryLog failed #time ms"(long time, boolean logged) {
+        setup:
+            def slowQueryLog = newLog(100, 0, 60, true)
+
+        when:
+            slowQueryLog.failed(connection, 1, 'SELECT 1', [], time * MS, new SQLTimeoutException('timeout'))
+            def log = logs.poll(time >= 100 ? 1000 : 200, TimeUnit.MILLISECONDS)
+
+        then:
+            (log != null) == logged
+            !logged || log.contains('slow query: ' + time + ' ms, failed: java.sql.SQLTimeoutException: timeout')
+
+        where:
+            time|logged
+              99|false
+             100|true
+    }
+
+    def "SlowQueryLog plan #database.class.simpleName #sql"(Database database, String sql, List<String> executedSqls, String plan) {
+        setup:
+            def slowQueryLog = newLog(100, 100, 60, true)
+
+        when:
+            slowQueryLog.check(newConnection(database), 1, sql, [], 0L, 100 * MS, 0L, 1)
+            def log = logs.poll(1, TimeUnit.SECONDS)
+
+        then:
+            explainSqls == executedSqls
+            log.contains('plan:' + plan)
+
+        where:
+            database           |sql       |executedSqls                                                  |plan
+            PostgreSQL.instance|'SELECT 2'|['EXPLAIN SELECT 2']                                          |''
+            SQLServer .instance|'SELECT 2'|['SET SHOWPLAN_XML ON', 'SELECT 2', 'SET SHOWPLAN_XML OFF']  |''
+            SQLServer .instance|'SELECT 1'|['SET SHOWPLAN_XML ON', 'SELECT 1', 'SET SHOWPLAN_XML OFF']  |'\n    java.sql.SQLException: plan error'
+    }
+}
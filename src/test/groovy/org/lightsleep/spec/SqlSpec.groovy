@@ -1600,4 +1600,29 @@ class SqlSpec extends Specification {
             database << databases
             databaseName = database.getClass().simpleName
     }
+
+    // since 4.1.0
+    def "SqlSpec offset limit - #title"(String title, Database database, int offset, int limit, String sqlPrefix, String sqlSuffix, boolean supportsOffsetLimit) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('title', title) // for Debugging
+
+        when:
+            Sql<Contact> sql = new Sql<>(Contact).orderBy('{id}').offset(offset).limit(limit)
+            String selectSql = database.selectSql(sql, []).toString()
+            DebugTrace.print('selectSql', selectSql) // for Debugging
+
+        then:
+            selectSql.startsWith(sqlPrefix)
+            selectSql.endsWith(sqlSuffix)
+            database.supportsOffsetLimit(sql) == supportsOffsetLimit
+
+        DebugTrace.leave() // for Debugging
+        where:
+            title              |database                                   |offset|limit            |sqlPrefix                  |sqlSuffix                                                    |supportsOffsetLimit
+            'Oracle 11g'       |Oracle   .instance.forServerVersion(11,  2)|    10|               20|'SELECT * FROM (SELECT id,'|' ORDER BY id ASC) WHERE ROWNUM<=30'                         |false
+            'Oracle 12c'       |Oracle   .instance.forServerVersion(12,  1)|    10|               20|'SELECT id,'               |' ORDER BY id ASC OFFSET 10 ROWS FETCH NEXT 20 ROWS ONLY'    |true
+            'Oracle 12c offset'|Oracle   .instance.forServerVersion(12,  1)|    10|Integer.MAX_VALUE|'SELECT id,'               |' ORDER BY id ASC OFFSET 10 ROWS'                            |true
+            'SQL Server 2008'  |SQLServer.instance.forServerVersion(10, 50)|    10|               20|'SELECT TOP (30) id,'      |' ORDER BY id ASC'                                           |false
+            'SQL Server 2012'  |SQLServer.instance.forServerVersion(11,  0)|    10|               20|'SELECT id,'               |' ORDER BY id ASC OFFSET 10 ROWS FETCH NEXT 20 ROWS ONLY'    |true
+    }
 }
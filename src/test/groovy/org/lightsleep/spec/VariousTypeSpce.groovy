@@ -23,6 +23,7 @@ import java.time.ZoneOffset
 
 import org.debugtrace.DebugTrace
 import org.lightsleep.*
+import org.lightsleep.component.*
 import org.lightsleep.connection.*
 import org.lightsleep.database.*
 import org.lightsleep.test.entity.*
@@ -354,6 +355,58 @@ class VariousTypeSpce extends Base {
         DebugTrace.leave() // for Debugging
     }
 
+    // since 4.1.0
+    def "VariousTypeSpce LobRef"() {
+        DebugTrace.enter() // for Debugging
+
+        setup:
+            Various various1 = connectionSupplier.database instanceof PostgreSQL
+                ? new Various.PostgreSQL() : new Various()
+            various1.id        = 3
+            various1.textValue = readTextFile  (new File('testdata/text.html'))
+            various1.blobValue = readBinaryFile(new File('testdata/blob.jpg'))
+
+        when:
+            VariousLob variousLob
+            boolean textIsReference
+            boolean blobIsReference
+            String textValue
+            byte[] blobValue
+            Various various2
+            Transaction.execute(connectionSupplier) {
+                if (various1 instanceof Various.PostgreSQL)
+                    new Sql<>(Various.PostgreSQL).connection(it).insert(various1 as Various.PostgreSQL)
+                else
+                    new Sql<>(Various).connection(it).insert(various1)
+
+                variousLob = new Sql<>(VariousLob).connection(it)
+                    .where('{id}={}', various1.id)
+                    .select().orElseThrow({new NotFoundException()})
+                textIsReference = variousLob.textValue.isReference()
+                blobIsReference = variousLob.blobValue.isReference()
+                textValue = variousLob.textValue.getString(it)
+                blobValue = variousLob.blobValue.getBytes(it)
+
+                variousLob.textValue = LobRef.of(new StringReader('ABC'))
+                new Sql<>(VariousLob).connection(it).update(variousLob)
+
+                various2 = new Sql<>(various1.getClass()).connection(it)
+                    .where('{id}={}', various1.id)
+                    .select().orElseThrow({new NotFoundException()})
+            }
+
+        then:
+            textIsReference
+            blobIsReference
+            !variousLob.textValue.isReference()
+            textValue == various1.textValue
+            blobValue == various1.blobValue
+            various2.textValue == 'ABC'
+            various2.blobValue == various1.blobValue
+
+        DebugTrace.leave() // for Debugging
+    }
+
     private String readTextFile(File file) throws IOException {
         def buff = new StringBuilder()
         BufferedReader reader = null
@@ -176,4 +176,75 @@ class ConnectionSupplierSpec extends Specification {
             'test/lightsleep-Jndi-dataSources'|['sqlite_test1'    ]|Jndi         |SQLite.instance
             'test/lightsleep-Jndi-dataSources'|['sqlserver_test1' ]|Jndi         |SQLServer.instance
     }
+
+    // since 4.1.0
+    def "ConnectionSupplier find lazily created / all"() {
+        setup:
+            System.properties.setProperty('lightsleep.resource', 'test/lightsleep-Dbcp-urls')
+            Resource.initClass()
+            AbstractConnectionSupplier.initClass()
+
+        expect:
+            AbstractConnectionSupplier.supplierMap.isEmpty()
+
+        when:
+            def supplier = ConnectionSupplier.find(':mysql:', '/mysql:3306', '/test1')
+
+        then:
+            AbstractConnectionSupplier.supplierMap.size() == 1
+            ConnectionSupplier.find(':mysql:', '/mysql:3306', '/test1').is(supplier)
+
+        when:
+            def suppliers = ConnectionSupplier.all()
+
+        then:
+            suppliers.size() > 1
+            suppliers.contains(supplier)
+            suppliers.size() == AbstractConnectionSupplier.supplierMap.size()
+    }
+
+    // since 4.1.0
+    def "ConnectionSupplier SQLiteWal"() {
+        setup:
+            def file = File.createTempFile('lightsleep', '.db')
+            file.deleteOnExit()
+            def properties = new Properties()
+            properties.setProperty('url', 'jdbc:sqlite:' + file.path)
+            properties.setProperty('readerConnections', '2')
+            properties.setProperty('connectionTimeout', '100')
+            def supplier = new SQLiteWal(properties)
+
+        expect:
+            supplier.database == SQLite.instance
+            supplier.readOnly().database == SQLite.instance
+
+        when:
+            def writer = supplier.get()
+            def journalMode = writer.createStatement().executeQuery('PRAGMA journal_mode').with {it.next(); it.getString(1)}
+            writer.createStatement().execute('CREATE TABLE Test (id INTEGER PRIMARY KEY)')
+            writer.commit()
+
+        then:
+            journalMode == 'wal'
+
+        when: supplier.get() // waits for the writer connection
+        then: thrown RuntimeSQLException
+
+        when:
+            writer.close()
+            def writer2 = supplier.get()
+            def reader1 = supplier.readOnly().get()
+            def reader2 = supplier.readOnly().get()
+
+        then:
+            supplier.poolStats.activeConnections == 1
+            supplier.readOnly().poolStats.activeConnections == 2
+            reader1.createStatement().executeQuery('SELECT COUNT(*) FROM Test').with {it.next(); it.getInt(1)} == 0
+
+        when: reader2.createStatement().execute('INSERT INTO Test (id) VALUES (1)')
+        then: thrown java.sql.SQLException
+
+        cleanup:
+            [writer2, reader1, reader2].each {it?.close()}
+    }
 }
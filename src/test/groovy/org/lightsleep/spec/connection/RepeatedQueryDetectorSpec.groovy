@@ -0,0 +1,121 @@
+// RepeatedQueryDetectorSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.connection
+
+import java.sql.Connection
+
+import org.lightsleep.*
+import org.lightsleep.connection.*
+import org.lightsleep.database.*
+
+import spock.lang.*
+
+// RepeatedQueryDetectorSpec
+// since 4.1.0
+@Unroll
+class RepeatedQueryDetectorSpec extends Specification {
+    def "RepeatedQueryDetector shape #sql"(String sql, String shape) {
+        expect: RepeatedQueryDetector.shape(sql) == shape
+
+        where:
+            sql                                                        |shape
+            "SELECT * FROM Contact C WHERE C.id=12"                    |"SELECT * FROM Contact C WHERE C.id=?"
+            "SELECT * FROM Contact C WHERE C.id=-5"                    |"SELECT * FROM Contact C WHERE C.id=?"
+            "SELECT * FROM Contact C WHERE C.name='O''Brien'"          |"SELECT * FROM Contact C WHERE C.name=?"
+            "SELECT * FROM Contact C WHERE C.name=E'a\\n'"             |"SELECT * FROM Contact C WHERE C.name=?"
+            "SELECT * FROM T1 WHERE T1.b=TIMESTAMP'2020-01-01'"        |"SELECT * FROM T1 WHERE T1.b=?"
+            "SELECT * FROM Contact C WHERE C.id IN (1, 2, 3)"          |"SELECT * FROM Contact C WHERE C.id IN (?)"
+            "SELECT * FROM Contact C WHERE C.id IN (?, ?)"             |"SELECT * FROM Contact C WHERE C.id IN (?)"
+            'UPDATE "T 1" SET a=1.5, b=? WHERE id=2'                   |'UPDATE "T 1" SET a=?, b=? WHERE id=?'
+    }
+
+    def "RepeatedQueryDetector warn #sql"(String sql, String suggestion) {
+        setup:
+            List<String> warnings = []
+            def detector = new RepeatedQueryDetector(newConnection(), 2, false, {warnings << it})
+
+        when:
+            2.times {detector.executed(sql + it)}
+
+        then:
+            warnings.empty
+
+        when:
+            2.times {detector.executed(sql + (it + 2))}
+
+        then:
+            detector.getCount(sql + 5) == 4
+            warnings.size() == 1 // reports only once for each shape
+            warnings[0].contains('more than 2 times in a transaction')
+            warnings[0].contains(getClass().name)
+            warnings[0].contains(RepeatedQueryDetector.shape(sql + 0))
+            warnings[0].contains(suggestion)
+
+        where:
+            sql                                   |suggestion
+            'SELECT * FROM Contact WHERE id='     |'Sql.selectByKeys'
+            'UPDATE Contact SET age=1 WHERE id='  |'Sql.executeBatch'
+    }
+
+    def "RepeatedQueryDetector fail"() {
+        setup:
+            List<String> warnings = []
+            def detector = new RepeatedQueryDetector(newConnection(), 2, true, {warnings << it})
+
+        when:
+            2.times {detector.executed('SELECT * FROM Contact WHERE id=' + it)}
+
+        then:
+            notThrown IllegalStateException
+
+        when:
+            detector.executed('SELECT * FROM Contact WHERE id=2')
+
+        then:
+            def e = thrown IllegalStateException
+            e.message.contains('more than 2 times in a transaction')
+            warnings.empty
+    }
+
+    def "RepeatedQueryDetector clear on #end"(String end) {
+        setup:
+            RepeatedQueryDetector detector = null
+            ConnectionSupplier supplier = null
+            supplier = [
+                getDatabase: {Standard.instance},
+                getUrl: {''},
+                get: {
+                    def connection = newConnection(supplier)
+                    detector = new RepeatedQueryDetector(connection, 2, false, {})
+                    connection.repeatedQueryDetector = detector
+                    return connection
+                }
+            ] as ConnectionSupplier
+            int count = 0
+
+        when:
+            try {
+                Transaction.execute(supplier) {
+                    it.repeatedQueryDetector.executed('SELECT * FROM Contact WHERE id=1')
+                    count = detector.getCount('SELECT * FROM Contact WHERE id=1')
+                    if (end == 'rollback') throw new IllegalStateException(end)
+                }
+            }
+            catch (IllegalStateException e) {
+            }
+
+        then:
+            count == 1
+            detector.getCount('SELECT * FROM Contact WHERE id=1') == 0
+
+        where:
+            end << ['commit', 'rollback']
+    }
+
+    // Returns a connection wrapper of a connection which does nothing
+    def newConnection(ConnectionSupplier supplier = [getDatabase: {Standard.instance}] as ConnectionSupplier) {
+        def connection = [getAutoCommit: {false}, commit: {}, rollback: {}, close: {}] as Connection
+        return new ConnectionWrapper(connection, supplier)
+    }
+}
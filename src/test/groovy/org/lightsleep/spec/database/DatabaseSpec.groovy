@@ -3,9 +3,19 @@
 
 package org.lightsleep.spec.database
 
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.sql.Connection
+import java.sql.PreparedStatement
+
 import org.debugtrace.DebugTrace
+import org.lightsleep.Sql
 import org.lightsleep.component.*
+import org.lightsleep.connection.*
 import org.lightsleep.database.*
+import org.lightsleep.test.entity.Phone
+import org.lightsleep.test.entity.Various
 
 import spock.lang.*
 
@@ -43,4 +53,136 @@ class DatabaseSpec extends Specification {
                 'jdbc:SQLServer:'
             ]
     }
+
+    // since 4.1.0
+    // explainSqls
+    def "Database.explainSqls #database.class.simpleName"(Database database, List<String> explainSqls) {
+        expect: database.explainSqls('SELECT * FROM Contact') == explainSqls
+
+        where:
+            database           |explainSqls
+            Standard.instance  |[]
+            Db2.instance       |[]
+            MariaDB.instance   |['EXPLAIN SELECT * FROM Contact']
+            MySQL.instance     |['EXPLAIN SELECT * FROM Contact']
+            Oracle.instance    |['EXPLAIN PLAN FOR SELECT * FROM Contact', 'SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY())']
+            PostgreSQL.instance|['EXPLAIN SELECT * FROM Contact']
+            SQLite.instance    |['EXPLAIN QUERY PLAN SELECT * FROM Contact']
+            SQLServer.instance |['SET SHOWPLAN_XML ON', 'SELECT * FROM Contact', 'SET SHOWPLAN_XML OFF']
+    }
+
+    // since 4.1.0
+    // setParameter
+    def "Database.setParameter #database.class.simpleName #value"(Database database, Object value, List<String> methodNames) {
+        setup:
+            def calledMethodNames = []
+            def connection = Proxy.newProxyInstance(getClass().classLoader, [Connection] as Class[],
+                {proxy, method, args -> calledMethodNames << method.name + ' ' + args[0]; null} as InvocationHandler)
+            def statement = Proxy.newProxyInstance(getClass().classLoader, [PreparedStatement] as Class[],
+                {proxy, method, args -> if (method.name == 'getConnection') return connection; calledMethodNames << method.name; null} as InvocationHandler)
+
+        when: database.setParameter(statement, 1, value)
+
+        then: calledMethodNames == methodNames
+
+        where:
+            database           |value                                 |methodNames
+            Standard.instance  |'ABC'                                 |['setString']
+            Standard.instance  |1                                     |['setInt']
+            Standard.instance  |1L                                    |['setLong']
+            Standard.instance  |new BigDecimal('1.5')                 |['setBigDecimal']
+            Standard.instance  |[1, 2] as byte[]                      |['setBytes']
+            Standard.instance  |java.sql.Timestamp.valueOf('2017-01-01 00:00:00')|['setTimestamp']
+            Standard.instance  |new StringReader('ABC')               |['setCharacterStream']
+            Standard.instance  |new ByteArrayInputStream(new byte[0]) |['setBinaryStream']
+            Standard.instance  |UUID.fromString('00000000-0000-0000-0000-000000000001')|['setString']
+            Standard.instance  |[1, 2] as Integer[]                   |['setObject']
+            Standard.instance  |null                                  |['setObject']
+            PostgreSQL.instance|'ABC'                                 |['setString']
+            PostgreSQL.instance|UUID.fromString('00000000-0000-0000-0000-000000000001')|['setObject']
+            PostgreSQL.instance|[1, 2] as Integer[]                   |['createArrayOf int4', 'setArray']
+            PostgreSQL.instance|['A', 'B'] as String[]                |['createArrayOf text', 'setArray']
+    }
+
+    // since 4.1.0
+    // maxRowsPerInsert, getBulkLoader
+    def "Database.maxRowsPerInsert #database.class.simpleName"(Database database, int maxRows, boolean hasBulkLoader) {
+        expect:
+            database.maxRowsPerInsert() == maxRows
+            (database.getBulkLoader() != null) == hasBulkLoader
+
+        where:
+            database           |maxRows|hasBulkLoader
+            Db2.instance       |500    |false
+            MariaDB.instance   |500    |true
+            MySQL.instance     |500    |true
+            Oracle.instance    |1      |false
+            PostgreSQL.instance|500    |true
+            SQLite.instance    |500    |false
+            SQLServer.instance |1000   |true
+    }
+
+    // since 4.1.0
+    // insertSql (multi-row)
+    def "Database.insertSql multi-row #database.class.simpleName"(Database database) {
+        setup:
+            def phone1 = new Phone(contactId: 1, phoneNumber: '09-1111')
+            def phone2 = new Phone(contactId: 2)
+            def parameters = []
+
+        when:
+            def sql = database.insertSql(new Sql<>(Phone), [phone1, phone2], parameters).toString()
+
+        then:
+            sql == 'INSERT INTO Phone (updateCount, created, updated, contactId, phoneNumber) VALUES' +
+                ' (0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1, \'09-1111\'),' +
+                ' (0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 2, NULL)'
+            parameters == []
+
+        where:
+            database << [Standard.instance, PostgreSQL.instance, SQLServer.instance]
+    }
+
+    // since 4.1.0
+    // insertSql (multi-row) with more parameters than maxParameters
+    def "Database.insertSql multi-row maxParameters #database.class.simpleName #rowCount rows"(
+        Database database, int rowCount, List<Integer> parameterCounts) {
+        setup:
+            def returnsDefault = {Method method -> method.returnType == boolean ? false : method.returnType.primitive && method.returnType != void ? 0 : null}
+            def executedParameterCounts = []
+            def connection
+            connection = Proxy.newProxyInstance(getClass().classLoader, [Connection] as Class[], {proxy, method, args ->
+                if (method.name != 'prepareStatement') return returnsDefault(method)
+                def rows = (args[0] =~ /\), \(/).count + 1
+                executedParameterCounts << 0
+                return Proxy.newProxyInstance(getClass().classLoader, [PreparedStatement] as Class[], {proxy2, method2, args2 ->
+                    if (method2.name.startsWith('set')) executedParameterCounts[-1] = Math.max(executedParameterCounts[-1], args2[0] as int)
+                    if (method2.name == 'getConnection') return connection
+                    if (method2.name == 'executeUpdate') return rows
+                    return returnsDefault(method2)
+                } as InvocationHandler)
+            } as InvocationHandler)
+            def supplier
+            supplier = [getDatabase: {database}, get: {new ConnectionWrapper(connection, supplier)}] as ConnectionSupplier
+
+            // 3 byte[] values per row are bound as parameters
+            def entities = (1..rowCount).collect {
+                new Various(id: it, binaryValue: [1] as byte[], varBinaryValue: [2] as byte[], blobValue: [3] as byte[])
+            }
+
+        when:
+            def count = new Sql<>(Various).connection(new ConnectionWrapper(connection, supplier)).bulkLoad(entities)
+
+        then:
+            count == rowCount
+            executedParameterCounts == parameterCounts
+            executedParameterCounts.every {it <= database.maxParameters()}
+
+        where:
+            database          |rowCount|parameterCounts
+            SQLServer.instance|     700|[2100]
+            SQLServer.instance|     701|[1050, 1053]
+            SQLServer.instance|    1000|[1500, 1500]
+            SQLServer.instance|    1001|[1500, 1500, 3]
+    }
 }
@@ -59,4 +59,17 @@ class MySQLSpec extends Specification {
             '?password=;<=>?@[\\]^_`(|)~:'|'?password=' + Standard.PASSWORD_MASK + ':'
             '?password=a&password=a:bbb'  |'?password=' + Standard.PASSWORD_MASK + '&password=' + Standard.PASSWORD_MASK + ':bbb'
     }
+
+    // forServerVersion
+    // since 4.1.0
+    def "MySQL forServerVersion #majorVersion.#minorVersion"(int majorVersion, int minorVersion, boolean supportsSkipLocked) {
+        expect:
+            MySQL.instance.supportsSkipLocked() == false
+            MySQL.instance.forServerVersion(majorVersion, minorVersion).supportsSkipLocked() == supportsSkipLocked
+
+        where:
+            majorVersion|minorVersion|supportsSkipLocked
+            5           |7           |false
+            8           |0           |true
+    }
 }
@@ -0,0 +1,80 @@
+// TextBulkLoaderSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.database
+
+import java.sql.Timestamp
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.OffsetDateTime
+
+import org.lightsleep.database.*
+
+import spock.lang.*
+
+// TextBulkLoaderSpec
+// since 4.1.0
+@Unroll
+class TextBulkLoaderSpec extends Specification {
+    // Lines.reader
+    def "TextBulkLoaderSpec Lines.reader #loader.class.simpleName #values"(TextBulkLoader loader, Database database, List<?> values, String line) {
+        setup:
+            def lines = new TextBulkLoader.Lines(loader, database, [values as Object[]].iterator())
+
+        expect:
+            lines.reader().text == line
+            lines.lineCount() == 1
+
+        where:
+            loader                       |database           |values                                    |line
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[1, 'ABC', null]                          |'1\tABC\t\\N\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|['A\tB', 'C\nD', 'E\rF', 'G\\H']           |'A\\tB\tC\\nD\tE\\rF\tG\\\\H\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|['\\N', '']                               |'\\\\N\t\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[true, false]                             |'t\tf\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[[0x0F, 0xF0] as byte[]]                  |'\\\\x0ff0\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[new BigDecimal('1E+3')]                  |'1000\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[LocalDate.of(2017, 1, 2)]                |'2017-01-02\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[LocalDateTime.of(2017, 1, 2, 3, 4, 5)]   |'2017-01-02 03:04:05.0\n'
+            PostgreSQLCopyLoader.instance|PostgreSQL.instance|[OffsetDateTime.parse('2017-01-02T03:04:05+09:00')]|'2017-01-02T03:04:05+09:00\n'
+            MySQLLoadDataLoader .instance|MySQL     .instance|[1, 'ABC', null]                          |'1\tABC\t\\N\n'
+            MySQLLoadDataLoader .instance|MySQL     .instance|['A\tB', 'C\nD', 'E\rF', 'G\\H']           |'A\\tB\tC\\nD\tE\\rF\tG\\\\H\n'
+            MySQLLoadDataLoader .instance|MySQL     .instance|[true, false]                             |'1\t0\n'
+            MySQLLoadDataLoader .instance|MySQL     .instance|[[0x0F, 0xF0] as byte[]]                  |'0ff0\n'
+            MySQLLoadDataLoader .instance|MySQL     .instance|[Timestamp.valueOf('2017-01-02 03:04:05.123')]|'2017-01-02 03:04:05.123\n'
+    }
+
+    // Lines.inputStream
+    def "TextBulkLoaderSpec Lines.inputStream"() {
+        setup:
+            def rows = [
+                [1, 'Ａ\tB'] as Object[],
+                [2, null   ] as Object[],
+            ]
+            def lines = new TextBulkLoader.Lines(MySQLLoadDataLoader.instance, MySQL.instance, rows.iterator())
+
+        expect:
+            new String(lines.inputStream().bytes, 'UTF-8') == '1\tＡ\\tB\n2\t\\N\n'
+            lines.lineCount() == 2
+    }
+
+    // supports
+    def "TextBulkLoaderSpec supports #valueType.simpleName"(Class<?> valueType, boolean supports) {
+        expect:
+            PostgreSQLCopyLoader.instance.supports(valueType) == supports
+            MySQLLoadDataLoader .instance.supports(valueType) == supports
+
+        where:
+            valueType        |supports
+            int              |true
+            Integer          |true
+            String           |true
+            BigDecimal       |true
+            byte[]           |true
+            java.sql.Date    |true
+            LocalDateTime    |true
+            int[]            |false
+            Integer[]        |false
+            Thread.State     |false
+            Object           |false
+    }
+}
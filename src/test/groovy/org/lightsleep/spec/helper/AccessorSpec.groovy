@@ -182,4 +182,117 @@ class AccessorSpec extends Specification {
         DebugTrace.leave() // for Debugging
     }
 
+    // since 4.1.0
+    // AccessorProcessor
+    def "AccessorSpec AccessorProcessor"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            File directory = File.createTempDir()
+            File directory2 = File.createTempDir() // compiled without the processor
+            File sourceFile = new File(directory, 'example/Entity5.java')
+            File sourceFile6 = new File(directory, 'example/Entity6.java')
+            sourceFile.parentFile.mkdirs()
+            sourceFile.text = """
+                package example;
+                import org.lightsleep.entity.*;
+                @Table("entity5")
+                @ColumnProperty(property="name.first", column="firstName")
+                public class Entity5 {
+                    public static class Name {
+                        public String first;
+                        private String last;
+                        public String getLast() {return last;}
+                        public void setLast(String last) {this.last = last;}
+                    }
+                    @Key public int id;
+                    public final Name name = new Name();
+                    private boolean active;
+                    public boolean isActive() {return active;}
+                    public void active(boolean active) {this.active = active;}
+                    @Column("CREATED") @Insert("CURRENT_TIMESTAMP") @NonUpdate public java.sql.Timestamp created;
+                }
+            """
+            sourceFile6.text = """
+                package example;
+                import org.lightsleep.entity.*;
+                public class Entity6 {
+                    private static class Hidden {public int value;}
+                    @Key public int id;
+                    public Hidden hidden = new Hidden();
+                }
+            """
+
+        when:
+            int result = javax.tools.ToolProvider.systemJavaCompiler.run(null, null, null,
+                '-cp', System.getProperty('java.class.path'),
+                '-processor', 'org.lightsleep.processor.AccessorProcessor',
+                '-d', directory.path, sourceFile.path, sourceFile6.path)
+            int result2 = javax.tools.ToolProvider.systemJavaCompiler.run(null, null, null,
+                '-cp', System.getProperty('java.class.path'), '-proc:none',
+                '-d', directory2.path, sourceFile.path)
+            URLClassLoader classLoader = new URLClassLoader([directory.toURI().toURL()] as URL[], getClass().classLoader)
+            URLClassLoader classLoader2 = new URLClassLoader([directory2.toURI().toURL()] as URL[], getClass().classLoader)
+            Class<?> entityClass = classLoader.loadClass('example.Entity5')
+            Accessor<?> accessor = new Accessor<>(entityClass)
+            EntityInfo<?> entityInfo = new EntityInfo<>(entityClass)
+            EntityInfo<?> entityInfo2 = new EntityInfo<>(classLoader2.loadClass('example.Entity5'))
+            Accessor<?> accessor6 = new Accessor<>(classLoader.loadClass('example.Entity6'))
+            def columnInfoValues = {EntityInfo<?> info -> info.columnInfos().collect {
+                [it.propertyName(), it.columnName(), it.columnType(), it.isKey(),
+                    it.selectExpression()?.content(), it.insertExpression()?.content(), it.updateExpression()?.content()]
+            }}
+            def entity = entityClass.newInstance()
+            accessor.setValue(entity, 'id', 1)
+            accessor.setValue(entity, 'name.first', 'First')
+            accessor.setValue(entity, 'name.last', 'Last')
+            accessor.setValue(entity, 'active', true)
+            def generatedAccessor = accessor.@generatedAccessor
+            generatedAccessor.setters()['id'].accept(entity, null)
+            generatedAccessor.setters()['active'].accept(entity, null)
+
+        then:
+            result == 0
+            result2 == 0
+            new File(directory, 'example/Entity5_LightsleepAccessor.class').exists()
+            accessor.valuePropertyNames() == ['id', 'name.first', 'name.last', 'active', 'created']
+            entity.id == 1
+            entity.name.first == 'First'
+            entity.name.last == 'Last'
+            entity.active
+            accessor.getValue(entity, 'name.last') == 'Last'
+            accessor.getValue(entity, 'active') == true
+            generatedAccessor.class.name == 'example.Entity5_LightsleepAccessor'
+            ['id', 'name.first', 'name.last', 'active'].every {
+                accessor.@getterMap[it].is(generatedAccessor.getters()[it]) &&
+                    accessor.@setterMap[it].is(generatedAccessor.setters()[it])
+            }
+
+            // The fields are found only when requested
+            accessor.@fieldMap.isEmpty()
+            accessor.getType('name.last') == String
+            accessor.getField('name.last').name == 'last'
+            accessor.@fieldMap.isEmpty()
+
+            // The entity information is the same as the one created by reflection
+            new File(directory, 'example/Entity5_LightsleepEntityInfo.class').exists()
+            entityInfo.tableName() == 'entity5'
+            entityInfo.tableName() == entityInfo2.tableName()
+            columnInfoValues(entityInfo)[1][1] == 'firstName'
+            columnInfoValues(entityInfo)[4][1..6] == ['CREATED', null, false, '', 'CURRENT_TIMESTAMP', null]
+            columnInfoValues(entityInfo) == columnInfoValues(entityInfo2)
+            entityInfo.keyColumnInfos()*.propertyName() == ['id']
+            entityInfo.columnInfos().every {it.entityInfo().is(entityInfo)}
+
+            // A property of a private class is accessed by reflection
+            !new File(directory, 'example/Entity6_LightsleepEntityInfo.class').exists()
+            accessor6.@generatedAccessor != null
+            !accessor6.isGenerated()
+            accessor6.valuePropertyNames() == ['id', 'hidden.value']
+
+        cleanup:
+            directory.deleteDir()
+            directory2.deleteDir()
+
+        DebugTrace.leave() // for Debugging
+    }
 }
@@ -0,0 +1,21 @@
+// ContactGeneratedKey.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.test.entity;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.entity.*;
+
+/**
+ * The entity of contact table of which the key is not selected after inserting.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+@Table("super")
+public class ContactGeneratedKey extends Contact {
+    @Override
+    public void postInsert(ConnectionWrapper conn) {
+        // The key is retrieved with Sql.returnGeneratedKeys()
+    }
+}
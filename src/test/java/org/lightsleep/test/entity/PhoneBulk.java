@@ -0,0 +1,32 @@
+// PhoneBulk.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.test.entity;
+
+import java.sql.Timestamp;
+
+import org.lightsleep.entity.*;
+
+/**
+ * The entity of phone table which has no insert expressions and no <b>PostInsert</b>,
+ * so that it can be loaded with a <b>BulkLoader</b>.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+@Table("Phone")
+public class PhoneBulk {
+    @Key
+    @NonInsert
+    public int id;
+
+    public int contactId;
+
+    public String phoneNumber;
+
+    public int updateCount;
+
+    public Timestamp created;
+
+    public Timestamp updated;
+}
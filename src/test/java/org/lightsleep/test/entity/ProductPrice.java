@@ -0,0 +1,50 @@
+// ProductPrice.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.test.entity;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable result class of Product table.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class ProductPrice {
+    /** Product Name */
+    private final String productName;
+
+    /** Price */
+    private final int price;
+
+    /**
+     * Constructs a new <b>ProductPrice</b>.
+     *
+     * @param productName the product name
+     * @param price the price
+     */
+    @ConstructorProperties({"productName", "price"})
+    public ProductPrice(String productName, int price) {
+        this.productName = productName;
+        this.price = price;
+    }
+
+    /**
+     * Returns the product name.
+     *
+     * @return the product name
+     */
+    public String getProductName() {
+        return productName;
+    }
+
+    /**
+     * Returns the price.
+     *
+     * @return the price
+     */
+    public int getPrice() {
+        return price;
+    }
+}
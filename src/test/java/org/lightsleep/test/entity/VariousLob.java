@@ -0,0 +1,23 @@
+// VariousLob.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.test.entity;
+
+import org.lightsleep.component.LobRef;
+import org.lightsleep.entity.Key;
+import org.lightsleep.entity.Table;
+
+/**
+ * The entity of Various table with the LOB columns read lazily.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+@Table("Various")
+public class VariousLob {
+    @Key()
+    /** ID                  */ public int      id            ;
+
+    /** TEXT                */ public LobRef   textValue     ;
+    /** BLOB                */ public LobRef   blobValue     ;
+}